@@ -16,6 +16,8 @@ import xyz.duncanruns.julti.management.ActiveWindowManager;
 import xyz.duncanruns.julti.management.InstanceManager;
 import xyz.duncanruns.julti.management.LogReceiver;
 import xyz.duncanruns.julti.management.OBSStateManager;
+import xyz.duncanruns.julti.management.ResetTuner;
+import xyz.duncanruns.julti.management.WorldSnapshot;
 import xyz.duncanruns.julti.messages.*;
 import xyz.duncanruns.julti.plugin.PluginEvents;
 import xyz.duncanruns.julti.resetting.ResetHelper;
@@ -25,7 +27,6 @@ import xyz.duncanruns.julti.win32.User32;
 
 import java.awt.*;
 import java.io.File;
-import java.io.IOException;
 import java.net.URISyntaxException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -33,6 +34,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
@@ -46,6 +48,8 @@ public final class Julti {
     private static final Logger LOGGER = LogManager.getLogger("Julti");
 
     private boolean running = true;
+    private volatile Thread mainThread = null;
+    private boolean locationCheckRequested = false;
 
     private final Queue<HotkeyPressQMessage> hotkeyQueue = new ConcurrentLinkedQueue<>();
     private final Queue<QMessage> messageQueue = new ConcurrentLinkedQueue<>();
@@ -60,6 +64,8 @@ public final class Julti {
     private final boolean usingShortcut = false;
 
     private Julti() {
+        // Update the OBS location as soon as the snapshot shows the new foreground window
+        ActiveWindowManager.addForegroundChangeListener(change -> this.locationCheckRequested = true);
     }
 
     public static Julti getJulti() {
@@ -126,13 +132,19 @@ public final class Julti {
     }
 
     public void changeProfile(String profileName) {
-        if (!JultiOptions.getJultiOptions().trySave()) {
+        long start = System.nanoTime();
+        JultiOptions oldOptions = JultiOptions.getJultiOptions();
+        if (!oldOptions.trySave()) {
             return;
         }
         if (!JultiOptions.tryChangeProfile(profileName)) {
             return;
         }
-        this.reload();
+        long loaded = System.nanoTime();
+        Set<ReloadOnChange.Subsystem> reloads = JultiOptions.getReloads(JultiOptions.getChangedOptions(oldOptions, JultiOptions.getJultiOptions()));
+        this.applyProfileChange(reloads);
+        JultiOptions.preloadProfiles();
+        log(Level.DEBUG, String.format("Switched to profile %s in %.1fms (%.1fms loading options, reloaded %s)", profileName, (System.nanoTime() - start) / 1_000_000.0, (loaded - start) / 1_000_000.0, reloads));
     }
 
     private void reload() {
@@ -140,6 +152,41 @@ public final class Julti {
         HotkeyManager.getHotkeyManager().reloadHotkeys();
         ResetHelper.getManager().reload();
         ResetCounter.updateFiles();
+        preloadSounds();
+        this.finishReload();
+        JultiOptions.preloadProfiles();
+    }
+
+    /**
+     * Reloads only the subsystems affected by the changed options, instances with unchanged paths are kept. Plugins are
+     * always reloaded, as what their options affect is not declared.
+     */
+    private void applyProfileChange(Set<ReloadOnChange.Subsystem> reloads) {
+        if (reloads.contains(ReloadOnChange.Subsystem.INSTANCES)) {
+            InstanceManager.getInstanceManager().onInstancePathsChange();
+        }
+        if (reloads.contains(ReloadOnChange.Subsystem.HOTKEYS)) {
+            HotkeyManager.getHotkeyManager().reloadHotkeys();
+        }
+        if (reloads.contains(ReloadOnChange.Subsystem.RESET_MANAGER)) {
+            ResetHelper.getManager().reload();
+        }
+        if (reloads.contains(ReloadOnChange.Subsystem.RESET_COUNTER)) {
+            ResetCounter.updateFiles();
+        }
+        if (reloads.contains(ReloadOnChange.Subsystem.SOUNDS)) {
+            preloadSounds();
+        }
+        this.finishReload();
+    }
+
+    private static void preloadSounds() {
+        JultiOptions options = JultiOptions.getJultiOptions();
+        SoundUtil.preloadSounds(Arrays.asList(options.singleResetSound, options.multiResetSound, options.lockSound, options.playSound));
+    }
+
+    private void finishReload() {
+        ActiveWindowManager.requestWallCheck();
         PluginEvents.RunnableEventType.RELOAD.runAll();
         // Trigger plugin data loaders
         JultiOptions.getJultiOptions().triggerPluginDataLoaders();
@@ -157,8 +204,11 @@ public final class Julti {
     }
 
     private void stop() {
+        ResetCounter.flush();
+        ResetTuner.getResetTuner().save();
         JultiOptions.getJultiOptions().trySave();
         AffinityManager.stop();
+        ActiveWindowManager.stop();
         SleepBGUtil.disableLock();
         AffinityManager.release();
         PluginEvents.RunnableEventType.STOP.runAll();
@@ -169,13 +219,22 @@ public final class Julti {
         return this.running;
     }
 
-    public void run() throws IOException {
-        ResourceUtil.makeResources();
-        OBSStateManager.getOBSStateManager().tryOutputLSInfo();
-        checkDeleteOldJar();
-        PluginEvents.RunnableEventType.LAUNCH.runAll();
+    /**
+     * @return true if the current thread is the main loop
+     */
+    public boolean isMainThread() {
+        return Thread.currentThread() == this.mainThread;
+    }
 
-        this.reload();
+    /**
+     * Runs the remaining startup stages and then the main loop.
+     */
+    void run(StartupPipeline startup) throws Exception {
+        startup.run("OBS link info", () -> OBSStateManager.getOBSStateManager().tryOutputLSInfo());
+        startup.run("Delete old jar", Julti::checkDeleteOldJar);
+        startup.run("Launch event", PluginEvents.RunnableEventType.LAUNCH::runAll);
+        startup.run("Reload", this::reload);
+        startup.finish();
         long cycles = 0;
 
         log(Level.INFO, "Welcome to Julti!");
@@ -192,6 +251,7 @@ public final class Julti {
             new Thread(() -> UpdateUtil.tryCheckForUpdates(JultiGUI.getJultiGUI()), "update-checker").start();
         });
 
+        this.mainThread = Thread.currentThread();
         while (this.running) {
             sleep(1);
             this.tick(cycles++);
@@ -200,27 +260,34 @@ public final class Julti {
 
     private void tick(long cycles) {
         PluginEvents.RunnableEventType.START_TICK.runAll();
-        ActiveWindowManager.update();
+        if (ActiveWindowManager.update()) {
+            // Hotkeys and the location check of this tick need the new active window
+            InstanceManager.getInstanceManager().refreshSnapshot();
+        }
         InstanceManager.getInstanceManager().tick(cycles);
         ResetHelper.getManager().tick(cycles);
-        if (cycles % 100 == 0) {
+        if (this.locationCheckRequested || cycles % 1000 == 0) {
+            this.locationCheckRequested = false;
             this.ensureLocation();
         }
         this.processQMessages();
         this.processHotkeyMessages();
         InstanceManager.getInstanceManager().tickInstances();
+        // Publish states, percentages and locks changed during this tick
+        InstanceManager.getInstanceManager().refreshSnapshot();
+        AffinityManager.runPendingPing();
         OBSStateManager.getOBSStateManager().tryOutputState();
         PluginEvents.RunnableEventType.END_TICK.runAll();
     }
 
     private void ensureLocation() {
-        MinecraftInstance selectedInstance = InstanceManager.getInstanceManager().getSelectedInstance();
-        boolean instanceActive = selectedInstance != null;
-        boolean wallActive = !instanceActive && ActiveWindowManager.isWallActive();
+        WorldSnapshot snapshot = InstanceManager.getInstanceManager().getSnapshot();
+        boolean instanceActive = snapshot.getSelectedIndex() != -1;
+        boolean wallActive = !instanceActive && snapshot.isWallActive();
         if (wallActive) {
             OBSStateManager.getOBSStateManager().setLocationToWall();
         } else if (instanceActive) {
-            OBSStateManager.getOBSStateManager().setLocation(InstanceManager.getInstanceManager().getInstanceNum(selectedInstance));
+            OBSStateManager.getOBSStateManager().setLocation(snapshot.getSelectedIndex() + 1);
         }
     }
 
@@ -250,7 +317,12 @@ public final class Julti {
                 continue;
             }
             try {
-                this.runHotkeyAction(message.getHotkeyCode(), message.getMousePosition());
+                if (message instanceof HotkeyGestureQMessage) {
+                    HotkeyGestureQMessage gesture = (HotkeyGestureQMessage) message;
+                    ResetHelper.runGesture(gesture.getHotkeyCode(), gesture.getGestureId(), gesture.getPath());
+                } else {
+                    this.runHotkeyAction(message.getHotkeyCode(), message.getMousePosition());
+                }
             } catch (Exception e) {
                 message.markFailed();
                 this.onCrashMessage(new CrashQMessage(e));
@@ -262,8 +334,9 @@ public final class Julti {
     private void runHotkeyAction(String hotkeyCode, Point mousePosition) {
         if (hotkeyCode.startsWith("script:")) {
             String scriptName = hotkeyCode.split(":")[1];
-            boolean instanceActive = InstanceManager.getInstanceManager().getSelectedInstance() != null;
-            boolean wallActive = !instanceActive && ActiveWindowManager.isWallActive();
+            WorldSnapshot snapshot = InstanceManager.getInstanceManager().getSnapshot();
+            boolean instanceActive = snapshot.getSelectedIndex() != -1;
+            boolean wallActive = !instanceActive && snapshot.isWallActive();
             if ((!instanceActive) && (!wallActive)) {
                 return;
             }
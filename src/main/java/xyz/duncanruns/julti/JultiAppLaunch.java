@@ -5,13 +5,14 @@ import org.apache.logging.log4j.Level;
 import xyz.duncanruns.julti.affinity.AffinityManager;
 import xyz.duncanruns.julti.gui.JultiGUI;
 import xyz.duncanruns.julti.hotkey.HotkeyManager;
+import xyz.duncanruns.julti.management.ActiveWindowManager;
 import xyz.duncanruns.julti.plugin.PluginInitializer;
 import xyz.duncanruns.julti.plugin.PluginManager;
 import xyz.duncanruns.julti.script.ScriptManager;
 import xyz.duncanruns.julti.util.ExceptionUtil;
+import xyz.duncanruns.julti.util.ResourceUtil;
 
 import javax.swing.*;
-import java.io.IOException;
 import java.util.Arrays;
 
 public final class JultiAppLaunch {
@@ -36,39 +37,49 @@ public final class JultiAppLaunch {
         main(args);
     }
 
-    private static void runJultiApp() throws IOException {
+    private static void runJultiApp() throws Exception {
+        StartupPipeline startup = new StartupPipeline();
+
+        // Redirect uncaught exceptions to Julti logging
+        Thread.setDefaultUncaughtExceptionHandler((t, e) -> {
+            Julti.log(Level.ERROR, "Uncaught exception in thread " + t + ":\n" + ExceptionUtil.toDetailedString(e));
+        });
+
+        // Ensure Julti Dir and load options before starting anything else, options are read by almost every stage and
+        // by logging, and must only be loaded once
+        startup.run("Julti folder", JultiOptions::ensureJultiDir);
+        startup.run("Options", JultiOptions::getJultiOptions);
+
         // Set Swing Settings
-        setSwingSettings();
+        StartupPipeline.Stage swing = startup.start("Swing settings", JultiAppLaunch::setSwingSettings);
 
-        // Ensure Julti Dir
-        JultiOptions.ensureJultiDir();
+        StartupPipeline.Stage scripts = startup.start("Scripts", ScriptManager::reload);
 
-        // Load Options
-        JultiOptions.getJultiOptions();
-        ScriptManager.reload();
+        // Generate .Julti resources
+        StartupPipeline.Stage resources = startup.start("Resources", ResourceUtil::makeResources);
+
+        // Find and load plugins
+        StartupPipeline.Stage plugins = startup.start("Load plugins", () -> PluginManager.getPluginManager().loadPlugins());
 
         // Start Affinity Manager
-        AffinityManager.start();
+        StartupPipeline.Stage affinity = startup.start("Affinity manager", AffinityManager::start);
 
         // Start GUI
-        JultiGUI.getJultiGUI().setVisible();
+        StartupPipeline.Stage gui = startup.start("GUI", () -> JultiGUI.getJultiGUI().setVisible(), swing, scripts);
 
-        // Start hotkey checker
-        HotkeyManager.getHotkeyManager().start();
+        // Start foreground window tracking
+        StartupPipeline.Stage foreground = startup.start("Foreground tracking", ActiveWindowManager::start);
 
-        // Redirect uncaught exceptions to Julti logging
-        Thread.setDefaultUncaughtExceptionHandler((t, e) -> {
-            Julti.log(Level.ERROR, "Uncaught exception in thread " + t + ":\n" + ExceptionUtil.toDetailedString(e));
-        });
+        // Start hotkey checker
+        StartupPipeline.Stage hotkeys = startup.start("Hotkey checker", () -> HotkeyManager.getHotkeyManager().start());
 
-        // Load Plugins
-        PluginManager.getPluginManager().loadPlugins();
+        startup.await(resources, affinity, gui, foreground, hotkeys, plugins);
 
         // Initialize Plugins
-        PluginManager.getPluginManager().initializePlugins();
+        startup.run("Initialize plugins", () -> PluginManager.getPluginManager().initializePlugins());
 
         // Run main loop
-        Julti.getJulti().run();
+        Julti.getJulti().run(startup);
     }
 
     private static void setSwingSettings() {
@@ -1,11 +1,13 @@
 package xyz.duncanruns.julti;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.InstanceCreator;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.lang3.ClassUtils;
+import org.apache.commons.lang3.tuple.Pair;
 import org.apache.logging.log4j.Level;
 import xyz.duncanruns.julti.script.ScriptHotkeyData;
 import xyz.duncanruns.julti.util.ExceptionUtil;
@@ -16,12 +18,14 @@ import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Array;
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -31,6 +35,12 @@ public final class JultiOptions {
     private final static Gson GSON_OBJECT_MAKER = new Gson();
     private final static Map<String, Consumer<JsonObject>> PLUGIN_DATA_LOADER = new HashMap<>();
     private final static Map<String, Supplier<JsonObject>> PLUGIN_DATA_SAVER = new HashMap<>();
+    private final static long SAVE_DELAY_MS = 500;
+    private final static ScheduledExecutorService OPTIONS_EXECUTOR = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("options-io").setDaemon(true).build());
+    // Profiles parsed in the background, along with the last modified time of the file they were parsed from
+    private final static Map<String, Pair<JultiOptions, Long>> PRELOADED_PROFILES = new ConcurrentHashMap<>();
+    private final static Object SAVE_LOCK = new Object();
+    private static PendingSave pendingSave = null;
     private static JultiOptions INSTANCE = null;
 
     private static final int MAX_THREADS = Runtime.getRuntime().availableProcessors();
@@ -42,6 +52,7 @@ public final class JultiOptions {
     public boolean useF3 = true;
     public boolean unpauseOnSwitch = true;
     public String clipboardOnReset = "";
+    @ReloadOnChange({ReloadOnChange.Subsystem.RESET_MANAGER})
     public String resetStyle = "Wall";
     public boolean coopMode = false;
 
@@ -50,15 +61,24 @@ public final class JultiOptions {
     public boolean wallSmartSwitch = false;
     public boolean wallBypass = true;
     public boolean returnToWallIfNoneLoaded = true;
+    public boolean wallDragGestures = false;
+    @ReloadOnChange({ReloadOnChange.Subsystem.RESET_MANAGER})
     public boolean autoCalcWallSize = true;
+    @ReloadOnChange({ReloadOnChange.Subsystem.RESET_MANAGER})
     public int overrideRowsAmount = 3;
+    @ReloadOnChange({ReloadOnChange.Subsystem.RESET_MANAGER})
     public int overrideColumnsAmount = 3;
     public long wallResetCooldown = 150L;
+    @ReloadOnChange({ReloadOnChange.Subsystem.RESET_MANAGER})
     public float lockedInstanceSpace = 16.666668f;
+    @ReloadOnChange({ReloadOnChange.Subsystem.RESET_MANAGER})
     public boolean dwReplaceLocked = true;
+    @ReloadOnChange({ReloadOnChange.Subsystem.RESET_MANAGER})
+    public boolean dwThroughputScheduler = false;
     public boolean doDirtCovers = false;
     public boolean useFreezeFilter = false;
     public int freezePercent = 80;
+    public boolean autoTuneResetOptions = false;
 
     // Window
     public boolean letJultiMoveWindows = true;
@@ -74,26 +94,45 @@ public final class JultiOptions {
     public boolean prepareWindowOnLock = false;
 
     // Hotkeys
+    @ReloadOnChange({ReloadOnChange.Subsystem.HOTKEYS})
     public List<Integer> resetHotkey = Collections.singletonList((int) 'U');
+    @ReloadOnChange({ReloadOnChange.Subsystem.HOTKEYS})
     public List<Integer> bgResetHotkey = Collections.emptyList();
+    @ReloadOnChange({ReloadOnChange.Subsystem.HOTKEYS})
     public List<Integer> wallResetHotkey = Collections.singletonList((int) 'T');
+    @ReloadOnChange({ReloadOnChange.Subsystem.HOTKEYS})
     public List<Integer> wallSingleResetHotkey = Collections.singletonList((int) 'E');
+    @ReloadOnChange({ReloadOnChange.Subsystem.HOTKEYS})
     public List<Integer> wallLockHotkey = Arrays.asList(160, 1);
+    @ReloadOnChange({ReloadOnChange.Subsystem.HOTKEYS})
     public List<Integer> wallPlayHotkey = Collections.singletonList((int) 'R');
+    @ReloadOnChange({ReloadOnChange.Subsystem.HOTKEYS})
     public List<Integer> wallFocusResetHotkey = Collections.singletonList((int) 'F');
+    @ReloadOnChange({ReloadOnChange.Subsystem.HOTKEYS})
     public List<Integer> cancelScriptHotkey = Arrays.asList(164, 46);
+    @ReloadOnChange({ReloadOnChange.Subsystem.HOTKEYS})
     public List<Integer> wallPlayLockHotkey = Collections.emptyList();
 
+    @ReloadOnChange({ReloadOnChange.Subsystem.HOTKEYS})
     public boolean resetHotkeyIM = true;
+    @ReloadOnChange({ReloadOnChange.Subsystem.HOTKEYS})
     public boolean bgResetHotkeyIM = true;
+    @ReloadOnChange({ReloadOnChange.Subsystem.HOTKEYS})
     public boolean wallResetHotkeyIM = true;
+    @ReloadOnChange({ReloadOnChange.Subsystem.HOTKEYS})
     public boolean wallSingleResetHotkeyIM = true;
+    @ReloadOnChange({ReloadOnChange.Subsystem.HOTKEYS})
     public boolean wallLockHotkeyIM = true;
+    @ReloadOnChange({ReloadOnChange.Subsystem.HOTKEYS})
     public boolean wallPlayHotkeyIM = true;
+    @ReloadOnChange({ReloadOnChange.Subsystem.HOTKEYS})
     public boolean wallFocusResetHotkeyIM = true;
+    @ReloadOnChange({ReloadOnChange.Subsystem.HOTKEYS})
     public boolean wallPlayLockHotkeyIM = true;
+    @ReloadOnChange({ReloadOnChange.Subsystem.HOTKEYS})
     public boolean cancelScriptHotkeyIM = true;
 
+    @ReloadOnChange({ReloadOnChange.Subsystem.HOTKEYS})
     public List<String> scriptHotkeys = new ArrayList<>();
 
     // OBS
@@ -111,6 +150,7 @@ public final class JultiOptions {
     public boolean launchOffline = false;
     public String launchOfflineName = "Instance*";
     public long launchDelay = 500;
+    @ReloadOnChange({ReloadOnChange.Subsystem.RESET_COUNTER})
     public int resetCounter = 0;
     public boolean minimizeToTray = false;
 
@@ -127,12 +167,16 @@ public final class JultiOptions {
     public int affinityBurst = 1000;
 
     // Sounds
+    @ReloadOnChange({ReloadOnChange.Subsystem.SOUNDS})
     public String singleResetSound = JultiOptions.getJultiDir().resolve("sounds").resolve("click.wav").toAbsolutePath().toString();
     public float singleResetVolume = 0.7f;
+    @ReloadOnChange({ReloadOnChange.Subsystem.SOUNDS})
     public String multiResetSound = JultiOptions.getJultiDir().resolve("sounds").resolve("click.wav").toAbsolutePath().toString();
     public float multiResetVolume = 0.7f;
+    @ReloadOnChange({ReloadOnChange.Subsystem.SOUNDS})
     public String lockSound = JultiOptions.getJultiDir().resolve("sounds").resolve("plop.wav").toAbsolutePath().toString();
     public float lockVolume = 0.7f;
+    @ReloadOnChange({ReloadOnChange.Subsystem.SOUNDS})
     public String playSound = "";
     public float playVolume = 0.0f;
 
@@ -157,9 +201,11 @@ public final class JultiOptions {
     public List<String> launchingProgramPaths = new ArrayList<>();
 
     // Plugins
+    @ReloadOnChange({ReloadOnChange.Subsystem.HOTKEYS})
     public Map<String, JsonObject> pluginData = new HashMap<>();
 
     // Hidden
+    @ReloadOnChange({ReloadOnChange.Subsystem.INSTANCES, ReloadOnChange.Subsystem.RESET_MANAGER})
     public List<String> instancePaths = new ArrayList<>();
     public int[] lastGUIPos = new int[]{0, 0};
     public String lastCheckedVersion = "v0.0.0";
@@ -224,7 +270,12 @@ public final class JultiOptions {
         try {
             ensureJultiDir();
             FileUtil.writeString(selectedFilePath, profileName);
-            getJultiOptions(true);
+            Pair<JultiOptions, Long> preloaded = PRELOADED_PROFILES.remove(profileName);
+            if (preloaded != null && preloaded.getRight() == getProfilePath(profileName).toFile().lastModified()) {
+                INSTANCE = preloaded.getLeft();
+            } else {
+                getJultiOptions(true);
+            }
             return true;
         } catch (Exception e) {
             Julti.log(Level.ERROR, "Failed to change profile:\n" + ExceptionUtil.toDetailedString(e));
@@ -232,6 +283,62 @@ public final class JultiOptions {
         }
     }
 
+    /**
+     * Parses every profile other than the selected one in the background, so {@link #tryChangeProfile(String)} can
+     * switch without reading the file. Profiles changed on disk since being preloaded are parsed again when switched
+     * to.
+     */
+    public static void preloadProfiles() {
+        OPTIONS_EXECUTOR.execute(() -> {
+            String selectedProfile = getSelectedProfileName();
+            for (String profileName : getProfileNames()) {
+                if (profileName.equals(selectedProfile)) {
+                    continue;
+                }
+                Path profilePath = getProfilePath(profileName);
+                long lastModified = profilePath.toFile().lastModified();
+                Pair<JultiOptions, Long> preloaded = PRELOADED_PROFILES.get(profileName);
+                if (preloaded != null && preloaded.getRight() == lastModified) {
+                    continue;
+                }
+                JultiOptions options = new JultiOptions(profilePath);
+                options.tryLoad();
+                PRELOADED_PROFILES.put(profileName, Pair.of(options, lastModified));
+            }
+        });
+    }
+
+    private static Path getProfilePath(String profileName) {
+        return getJultiDir().resolve("profiles").resolve(profileName + ".json");
+    }
+
+    /**
+     * @return the subsystems to reload for the given changed options, see {@link ReloadOnChange}
+     */
+    static Set<ReloadOnChange.Subsystem> getReloads(Set<String> optionNames) {
+        Set<ReloadOnChange.Subsystem> reloads = EnumSet.noneOf(ReloadOnChange.Subsystem.class);
+        for (String optionName : optionNames) {
+            OptionAccessors.OptionAccessor accessor = OptionAccessors.get(optionName);
+            if (accessor != null) {
+                reloads.addAll(accessor.getReloads());
+            }
+        }
+        return reloads;
+    }
+
+    /**
+     * @return the names of all options with different values in the two options objects
+     */
+    public static Set<String> getChangedOptions(JultiOptions oldOptions, JultiOptions newOptions) {
+        Set<String> changed = new HashSet<>();
+        for (OptionAccessors.OptionAccessor accessor : OptionAccessors.getAll()) {
+            if (!Objects.deepEquals(accessor.get(oldOptions), accessor.get(newOptions))) {
+                changed.add(accessor.getName());
+            }
+        }
+        return changed;
+    }
+
     public static void ensureJultiDir() {
         // Special care is needed to make a .Julti folder for some reason...
         // Using Files.createDirectories on a path.getParent() would create .Julti as a file for some reason.
@@ -378,13 +485,20 @@ public final class JultiOptions {
         });
     }
 
+    /**
+     * Saves the options immediately, replacing any save queued by {@link #saveLater()}.
+     */
     public boolean trySave() {
         try {
-            // Trigger plugin data savers
-            PLUGIN_DATA_SAVER.forEach((string, jsonObjectSupplier) -> this.pluginData.put(string, jsonObjectSupplier.get()));
-            ensureJultiDir();
-            Files.createDirectories(this.location.getParent());
-            FileUtil.writeString(this.location, GSON_WRITER.toJson(this));
+            JsonElement snapshot = this.createSnapshot();
+            synchronized (SAVE_LOCK) {
+                PendingSave pending = pendingSave;
+                pendingSave = null;
+                if (pending != null && !pending.location.equals(this.location)) {
+                    pending.write();
+                }
+                new PendingSave(this.location, snapshot).write();
+            }
             return true;
         } catch (Exception e) {
             Julti.log(Level.ERROR, "Failed to save options:\n" + ExceptionUtil.toDetailedString(e));
@@ -392,6 +506,49 @@ public final class JultiOptions {
         }
     }
 
+    /**
+     * Takes a snapshot of the options and writes it on a background thread shortly after. Saves queued in quick
+     * succession are coalesced into a single write of the latest snapshot.
+     */
+    public void saveLater() {
+        JsonElement snapshot;
+        try {
+            snapshot = this.createSnapshot();
+        } catch (Exception e) {
+            Julti.log(Level.ERROR, "Failed to save options:\n" + ExceptionUtil.toDetailedString(e));
+            return;
+        }
+        synchronized (SAVE_LOCK) {
+            boolean scheduled = pendingSave != null;
+            pendingSave = new PendingSave(this.location, snapshot);
+            if (!scheduled) {
+                OPTIONS_EXECUTOR.schedule(JultiOptions::writePendingSave, SAVE_DELAY_MS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private JsonElement createSnapshot() {
+        // Trigger plugin data savers
+        PLUGIN_DATA_SAVER.forEach((string, jsonObjectSupplier) -> this.pluginData.put(string, jsonObjectSupplier.get()));
+        return GSON_WRITER.toJsonTree(this);
+    }
+
+    private static void writePendingSave() {
+        synchronized (SAVE_LOCK) {
+            PendingSave pending = pendingSave;
+            pendingSave = null;
+            if (pending == null) {
+                // Already written by trySave
+                return;
+            }
+            try {
+                pending.write();
+            } catch (Exception e) {
+                Julti.log(Level.ERROR, "Failed to save options:\n" + ExceptionUtil.toDetailedString(e));
+            }
+        }
+    }
+
     public String getProfileName() {
         return this.profileName;
     }
@@ -417,21 +574,8 @@ public final class JultiOptions {
 
     @Nullable
     public Object getValue(String optionName) {
-        Field optionField = null;
-        try {
-            optionField = this.getClass().getField(optionName);
-        } catch (NoSuchFieldException ignored) {
-            // Handled by nullability
-        }
-        if (optionField == null || Modifier.isTransient(optionField.getModifiers())) {
-            return null;
-        }
-        try {
-            return optionField.get(this);
-        } catch (IllegalAccessException ignored) {
-            // Handled by nullability
-        }
-        return null;
+        OptionAccessors.OptionAccessor accessor = OptionAccessors.get(optionName);
+        return accessor == null ? null : accessor.get(this);
     }
 
     public ScriptHotkeyData getScriptHotkeyData(String scriptName) {
@@ -468,10 +612,8 @@ public final class JultiOptions {
 
     public List<String> getOptionNamesWithType() {
         List<String> names = new ArrayList<>();
-        for (Field field : this.getClass().getFields()) {
-            if (!Modifier.isTransient(field.getModifiers())) {
-                names.add(field.getName() + " (" + field.getType().getSimpleName() + ")");
-            }
+        for (OptionAccessors.OptionAccessor accessor : OptionAccessors.getAll()) {
+            names.add(accessor.getName() + " (" + accessor.getType().getSimpleName() + ")");
         }
         return names;
     }
@@ -492,38 +634,20 @@ public final class JultiOptions {
      * @return true if the value was set successfully, otherwise false
      */
     public boolean trySetValue(String optionName, Object value) {
+        OptionAccessors.OptionAccessor accessor = OptionAccessors.get(optionName);
+        if (accessor == null || value == null) {
+            return false;
+        }
+        Object oldValue = accessor.get(this);
         try {
-
-            // Get field and class objects
-
-            Field optionField = this.getClass().getField(optionName);
-            Class<?> fieldClazz = optionField.getType();
-            Class<?> valueClazz = value.getClass();
-
-            // Convert the object if possible
-
-            // If the field type is a primitive (or a primitive wrapper), we can convert the value object to the correct wrapper class
-            if (ClassUtils.isPrimitiveOrWrapper(fieldClazz)) {
-                // Get the wrapper class of the field
-                Class<?> wrapperClazz = ClassUtils.primitiveToWrapper(fieldClazz);
-                // Check if the value object is already the correct class
-                if (valueClazz != wrapperClazz) {
-                    // We can use the valueOf(String) static method from the wrapper class
-                    value = wrapperClazz.getMethod("valueOf", String.class).invoke(null, value.toString());
-                }
-            } else if (fieldClazz == String.class) {
-                // If the option field is a string field, we can use toString() to ensure the value object is a String
-                value = value.toString();
-            }
-
-            // Set the field
-
-            optionField.set(this, value);
-            return true;
-
+            value = accessor.set(this, value);
         } catch (Exception e) {
             return false;
         }
+        if (!Objects.equals(oldValue, value)) {
+            this.saveLater();
+        }
+        return true;
     }
 
     public boolean tryCopyTo(String profileName) {
@@ -538,6 +662,22 @@ public final class JultiOptions {
         }
     }
 
+    private static class PendingSave {
+        private final Path location;
+        private final JsonElement snapshot;
+
+        private PendingSave(Path location, JsonElement snapshot) {
+            this.location = location;
+            this.snapshot = snapshot;
+        }
+
+        private void write() throws IOException {
+            ensureJultiDir();
+            Files.createDirectories(this.location.getParent());
+            FileUtil.writeStringAtomically(this.location, GSON_WRITER.toJson(this.snapshot));
+        }
+    }
+
     private static class OldOptions {
         public int[] windowSize = null;
         public Float wideResetSquish = null;
@@ -0,0 +1,141 @@
+package xyz.duncanruns.julti;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Getters, setters and value converters for every option field of {@link JultiOptions}, looked up once so getting and
+ * setting options by name does not use reflection.
+ */
+final class OptionAccessors {
+    private static final Map<String, OptionAccessor> ACCESSORS = createAccessors();
+
+    private OptionAccessors() {
+    }
+
+    private static Map<String, OptionAccessor> createAccessors() {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        Map<String, OptionAccessor> accessors = new LinkedHashMap<>();
+        for (Field field : JultiOptions.class.getFields()) {
+            int modifiers = field.getModifiers();
+            if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)) {
+                continue;
+            }
+            try {
+                MethodHandle getter = lookup.unreflectGetter(field).asType(MethodType.methodType(Object.class, JultiOptions.class));
+                MethodHandle setter = lookup.unreflectSetter(field).asType(MethodType.methodType(void.class, JultiOptions.class, Object.class));
+                ReloadOnChange reloadOnChange = field.getAnnotation(ReloadOnChange.class);
+                Set<ReloadOnChange.Subsystem> reloads = reloadOnChange == null ? Collections.emptySet() : Collections.unmodifiableSet(EnumSet.copyOf(Arrays.asList(reloadOnChange.value())));
+                accessors.put(field.getName(), new OptionAccessor(field.getName(), field.getType(), getter, setter, getConverter(field.getType()), reloads));
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return Collections.unmodifiableMap(accessors);
+    }
+
+    /**
+     * Primitive (and wrapper) values are converted to a String and parsed to the wrapper type, String values use
+     * toString(), and anything else is set directly.
+     */
+    private static Function<Object, Object> getConverter(Class<?> type) {
+        if (type == boolean.class || type == Boolean.class) {
+            return parser(Boolean.class, Boolean::valueOf);
+        } else if (type == int.class || type == Integer.class) {
+            return parser(Integer.class, Integer::valueOf);
+        } else if (type == long.class || type == Long.class) {
+            return parser(Long.class, Long::valueOf);
+        } else if (type == float.class || type == Float.class) {
+            return parser(Float.class, Float::valueOf);
+        } else if (type == double.class || type == Double.class) {
+            return parser(Double.class, Double::valueOf);
+        } else if (type == short.class || type == Short.class) {
+            return parser(Short.class, Short::valueOf);
+        } else if (type == byte.class || type == Byte.class) {
+            return parser(Byte.class, Byte::valueOf);
+        } else if (type == char.class || type == Character.class) {
+            return parser(Character.class, s -> {
+                throw new IllegalArgumentException("Characters can not be parsed");
+            });
+        } else if (type == String.class) {
+            return Object::toString;
+        }
+        return Function.identity();
+    }
+
+    private static Function<Object, Object> parser(Class<?> wrapperClass, Function<String, Object> parseFunction) {
+        return value -> value.getClass() == wrapperClass ? value : parseFunction.apply(value.toString());
+    }
+
+    static OptionAccessor get(String optionName) {
+        return ACCESSORS.get(optionName);
+    }
+
+    static Collection<OptionAccessor> getAll() {
+        return ACCESSORS.values();
+    }
+
+    static final class OptionAccessor {
+        private final String name;
+        private final Class<?> type;
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+        private final Function<Object, Object> converter;
+        private final Set<ReloadOnChange.Subsystem> reloads;
+
+        private OptionAccessor(String name, Class<?> type, MethodHandle getter, MethodHandle setter, Function<Object, Object> converter, Set<ReloadOnChange.Subsystem> reloads) {
+            this.name = name;
+            this.type = type;
+            this.getter = getter;
+            this.setter = setter;
+            this.converter = converter;
+            this.reloads = reloads;
+        }
+
+        String getName() {
+            return this.name;
+        }
+
+        Class<?> getType() {
+            return this.type;
+        }
+
+        /**
+         * @return the subsystems to reload when this option changes, as declared with {@link ReloadOnChange}
+         */
+        Set<ReloadOnChange.Subsystem> getReloads() {
+            return this.reloads;
+        }
+
+        Object get(JultiOptions options) {
+            try {
+                return (Object) this.getter.invokeExact(options);
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+        }
+
+        /**
+         * Converts and sets the value.
+         *
+         * @return the converted value that was set
+         * @throws RuntimeException if the value could not be converted or does not fit the option type
+         */
+        Object set(JultiOptions options, Object value) {
+            Object converted = this.converter.apply(value);
+            try {
+                this.setter.invokeExact(options, converted);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+            return converted;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package xyz.duncanruns.julti;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares what has to be reloaded when an option of {@link JultiOptions} changes with a profile switch. Options without
+ * this are read whenever they are used, so nothing has to be reloaded for them.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+@interface ReloadOnChange {
+    Subsystem[] value();
+
+    enum Subsystem {
+        INSTANCES,
+        HOTKEYS,
+        RESET_MANAGER,
+        RESET_COUNTER,
+        SOUNDS
+    }
+}
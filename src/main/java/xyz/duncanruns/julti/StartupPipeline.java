@@ -0,0 +1,141 @@
+package xyz.duncanruns.julti;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.logging.log4j.Level;
+import xyz.duncanruns.julti.util.ExceptionUtil;
+import xyz.duncanruns.julti.util.FileUtil;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Runs startup stages as soon as the stages they depend on are done, so independent stages run concurrently.
+ * <p>
+ * The time of every stage is logged and written to the startup profile file when startup is finished.
+ */
+final class StartupPipeline {
+    private static final Path PROFILE_PATH = JultiOptions.getJultiDir().resolve("startup-profile.txt");
+
+    private final long startTime = System.nanoTime();
+    private final List<Stage> stages = Collections.synchronizedList(new ArrayList<>());
+    private ExecutorService executor = null;
+
+    private static void rethrow(CompletionException e) throws Exception {
+        Throwable cause = e.getCause() == null ? e : e.getCause();
+        if (cause instanceof Exception) {
+            throw (Exception) cause;
+        }
+        throw (Error) cause;
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        if (this.executor == null) {
+            this.executor = Executors.newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat("julti-startup-%d").setDaemon(true).build());
+        }
+        return this.executor;
+    }
+
+    /**
+     * Starts a stage on a startup thread once all of its dependencies are done. If a dependency fails, the stage is
+     * skipped and fails with the same exception.
+     */
+    Stage start(String name, StartupTask task, Stage... dependencies) {
+        Stage stage = new Stage(name);
+        CompletableFuture<?>[] dependencyFutures = Arrays.stream(dependencies).map(d -> d.future).toArray(CompletableFuture[]::new);
+        stage.future = CompletableFuture.allOf(dependencyFutures).thenRunAsync(() -> stage.run(task), this.getExecutor());
+        return stage;
+    }
+
+    /**
+     * Runs a stage on the current thread.
+     */
+    void run(String name, StartupTask task) throws Exception {
+        Stage stage = new Stage(name);
+        try {
+            stage.run(task);
+        } catch (CompletionException e) {
+            rethrow(e);
+        }
+    }
+
+    /**
+     * Waits for stages to finish, throwing the exception of the first failed stage.
+     */
+    void await(Stage... stages) throws Exception {
+        for (Stage stage : stages) {
+            try {
+                stage.future.join();
+            } catch (CompletionException e) {
+                rethrow(e);
+            }
+        }
+    }
+
+    /**
+     * Logs the total startup time and writes the time of every stage to the startup profile file.
+     */
+    void finish() {
+        synchronized (this) {
+            if (this.executor != null) {
+                this.executor.shutdown();
+            }
+        }
+        long total = System.nanoTime() - this.startTime;
+        List<Stage> stages;
+        synchronized (this.stages) {
+            stages = new ArrayList<>(this.stages);
+        }
+        stages.sort(Comparator.comparingLong(s -> s.started));
+
+        StringBuilder profile = new StringBuilder("# Julti startup profile, times in milliseconds since launch\nstage\tstart\tduration\tthread\n");
+        for (Stage stage : stages) {
+            Julti.log(Level.DEBUG, String.format("Startup stage '%s' took %.1fms", stage.name, toMillis(stage.finished - stage.started)));
+            profile.append(String.format("%s\t%.1f\t%.1f\t%s\n", stage.name, toMillis(stage.started - this.startTime), toMillis(stage.finished - stage.started), stage.threadName));
+        }
+        profile.append(String.format("total\t0.0\t%.1f\t-\n", toMillis(total)));
+        Julti.log(Level.INFO, String.format("Started in %.0fms", toMillis(total)));
+
+        try {
+            FileUtil.writeStringAtomically(PROFILE_PATH, profile.toString());
+        } catch (Exception e) {
+            Julti.log(Level.WARN, "Failed to write startup profile: " + ExceptionUtil.toDetailedString(e));
+        }
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    @FunctionalInterface
+    interface StartupTask {
+        void run() throws Exception;
+    }
+
+    final class Stage {
+        private final String name;
+        private CompletableFuture<Void> future;
+        private long started;
+        private long finished;
+        private String threadName;
+
+        private Stage(String name) {
+            this.name = name;
+        }
+
+        private void run(StartupTask task) {
+            this.threadName = Thread.currentThread().getName();
+            this.started = System.nanoTime();
+            try {
+                task.run();
+            } catch (CompletionException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            } finally {
+                this.finished = System.nanoTime();
+                StartupPipeline.this.stages.add(this);
+            }
+        }
+    }
+}
@@ -5,18 +5,22 @@ import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.sun.jna.platform.win32.BaseTSD;
 import com.sun.jna.platform.win32.Kernel32;
 import com.sun.jna.platform.win32.WinNT;
+import xyz.duncanruns.julti.Julti;
 import xyz.duncanruns.julti.JultiOptions;
 import xyz.duncanruns.julti.instance.InstanceState;
 import xyz.duncanruns.julti.instance.MinecraftInstance;
-import xyz.duncanruns.julti.instance.StateTracker;
+import xyz.duncanruns.julti.management.ActiveWindowManager;
 import xyz.duncanruns.julti.management.InstanceManager;
+import xyz.duncanruns.julti.management.WorldSnapshot;
 import xyz.duncanruns.julti.resetting.ResetHelper;
+import xyz.duncanruns.julti.resetting.ResetManager;
 
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
 
 public final class AffinityManager {
@@ -25,6 +29,9 @@ public final class AffinityManager {
     public static final int AVAILABLE_THREADS = Runtime.getRuntime().availableProcessors();
     private static ScheduledExecutorService EXECUTOR = null;
     private static boolean paused = false;
+    private static boolean listenersRegistered = false;
+    // Set when the main loop pings, the ping runs at the end of the tick once the main loop has published its changes
+    private static final AtomicBoolean PENDING_PING = new AtomicBoolean(false);
 
     private AffinityManager() {
     }
@@ -37,6 +44,11 @@ public final class AffinityManager {
         stop();
         ScheduledExecutorService executorService = getExecutor();
         executorService.scheduleAtFixedRate(AffinityManager::tick, 100, 100, TimeUnit.MILLISECONDS);
+        if (!listenersRegistered) {
+            listenersRegistered = true;
+            // Apply playing/background affinities right away when switching windows, once the snapshot has been refreshed
+            ActiveWindowManager.addForegroundChangeListener(change -> Julti.doLater(AffinityManager::ping));
+        }
     }
 
     public static void stop() {
@@ -64,33 +76,31 @@ public final class AffinityManager {
     }
 
     private static void setAffinityForAllInstances() {
-        InstanceManager instanceManager = InstanceManager.getInstanceManager();
         JultiOptions options = JultiOptions.getJultiOptions();
-        List<MinecraftInstance> instances = instanceManager.getInstances();
-        MinecraftInstance selectedInstance = instanceManager.getSelectedInstance();
-        List<MinecraftInstance> lockedInstances = ResetHelper.getManager().getLockedInstances();
-        if (selectedInstance != null) {
-            setAffinity(selectedInstance, options.threadsPlaying);
-            for (MinecraftInstance instance : instances) {
-                if (!instance.equals(selectedInstance)) {
-                    setAffinity(instance, options.threadsBackground);
-                }
+        WorldSnapshot snapshot = InstanceManager.getInstanceManager().getSnapshot();
+        List<MinecraftInstance> instances = snapshot.getInstances();
+        int selectedIndex = snapshot.getSelectedIndex();
+        if (selectedIndex != -1) {
+            for (int i = 0; i < instances.size(); i++) {
+                setAffinity(instances.get(i), i == selectedIndex ? options.threadsPlaying : options.threadsBackground);
             }
             return;
         }
-        for (MinecraftInstance instance : instances) {
-            if (lockedInstances.contains(instance)) {
+        ResetManager resetManager = ResetHelper.getManager();
+        for (int i = 0; i < instances.size(); i++) {
+            MinecraftInstance instance = instances.get(i);
+            if (snapshot.isLocked(i)) {
                 setAffinity(instance, options.threadsLocked);
             } else {
-                StateTracker stateTracker = instance.getStateTracker();
-                if (stateTracker.isCurrentState(InstanceState.WAITING)
-                        || stateTracker.isCurrentState(InstanceState.TITLE)
-                        || stateTracker.isCurrentState(InstanceState.GENERATING)
-                        || instance.isResetPressed()) {
-                    setAffinity(instance, options.threadsPrePreview);
-                } else if (System.currentTimeMillis() - instance.getStateTracker().getLastStartOf(InstanceState.PREVIEWING) < options.affinityBurst) {
+                InstanceState state = snapshot.getState(i);
+                if (state == InstanceState.WAITING
+                        || state == InstanceState.TITLE
+                        || state == InstanceState.GENERATING
+                        || snapshot.isResetPressed(i)) {
+                    setAffinity(instance, resetManager.shouldHoldGeneration(instance) ? options.threadsBackground : options.threadsPrePreview);
+                } else if (System.currentTimeMillis() - snapshot.getPreviewStart(i) < options.affinityBurst) {
                     setAffinity(instance, options.threadsStartPreview);
-                } else if (stateTracker.isCurrentState(InstanceState.PREVIEWING)) {
+                } else if (state == InstanceState.PREVIEWING) {
                     setAffinity(instance, options.threadsPreview);
                 } else {
                     setAffinity(instance, options.threadsWorldLoaded);
@@ -110,13 +120,31 @@ public final class AffinityManager {
     }
 
     public static void release() {
-        InstanceManager.getInstanceManager().getInstances().forEach(i -> setAffinity(i, AVAILABLE_THREADS));
+        InstanceManager.getInstanceManager().getSnapshot().getInstances().forEach(i -> setAffinity(i, AVAILABLE_THREADS));
     }
 
+    /**
+     * Updates affinities as soon as possible. Pings from the main loop are delayed until the main loop publishes its
+     * next snapshot, so that the affinities are based on the changes that caused the ping.
+     */
     public static void ping() {
+        if (listenersRegistered && Julti.getJulti().isMainThread()) {
+            PENDING_PING.set(true);
+            return;
+        }
         getExecutor().execute(AffinityManager::tick);
     }
 
+    /**
+     * Runs a ping requested by the main loop during this tick. Should be called by the main loop after the snapshot is
+     * refreshed.
+     */
+    public static void runPendingPing() {
+        if (PENDING_PING.getAndSet(false)) {
+            getExecutor().execute(AffinityManager::tick);
+        }
+    }
+
     public static void ping(int delay) {
         if (delay == 0) {
             ping();
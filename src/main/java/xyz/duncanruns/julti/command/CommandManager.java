@@ -31,7 +31,9 @@ public class CommandManager {
             new SessionResetCommand(),
             new DoActionCommand(),
             new ClearWorldsCommand(),
-            new CancelIfCommand()
+            new CancelIfCommand(),
+            new PluginsCommand(),
+            new TuningCommand()
     )));
 
     static {
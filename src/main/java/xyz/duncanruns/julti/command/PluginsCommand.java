@@ -0,0 +1,43 @@
+package xyz.duncanruns.julti.command;
+
+import org.apache.logging.log4j.Level;
+import xyz.duncanruns.julti.Julti;
+import xyz.duncanruns.julti.cancelrequester.CancelRequester;
+import xyz.duncanruns.julti.plugin.PluginEvents;
+
+import java.util.List;
+
+public class PluginsCommand extends Command {
+    @Override
+    public String helpDescription() {
+        return "plugins stats - Logs the time spent by plugins handling each event";
+    }
+
+    @Override
+    public int getMinArgs() {
+        return 1;
+    }
+
+    @Override
+    public int getMaxArgs() {
+        return 1;
+    }
+
+    @Override
+    public String getName() {
+        return "plugins";
+    }
+
+    @Override
+    public void run(String[] args, CancelRequester cancelRequester) {
+        if (!args[0].equals("stats")) {
+            throw new CommandFailedException("Unknown plugins subcommand: " + args[0]);
+        }
+        List<String> stats = PluginEvents.getStats();
+        if (stats.isEmpty()) {
+            Julti.log(Level.INFO, "No plugin event handlers have run yet.");
+            return;
+        }
+        Julti.log(Level.INFO, "Plugin event stats:\n" + String.join("\n", stats));
+    }
+}
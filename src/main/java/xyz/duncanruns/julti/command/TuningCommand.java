@@ -0,0 +1,51 @@
+package xyz.duncanruns.julti.command;
+
+import org.apache.logging.log4j.Level;
+import xyz.duncanruns.julti.Julti;
+import xyz.duncanruns.julti.JultiOptions;
+import xyz.duncanruns.julti.cancelrequester.CancelRequester;
+import xyz.duncanruns.julti.management.ResetTuner;
+
+public class TuningCommand extends Command {
+    @Override
+    public String helpDescription() {
+        return "tuning report - Logs the recommended reset cooldown and freeze percent without applying them\n" +
+                "tuning apply - Applies the recommended reset cooldown and freeze percent\n" +
+                "tuning clear - Clears the measured preview timings";
+    }
+
+    @Override
+    public int getMinArgs() {
+        return 1;
+    }
+
+    @Override
+    public int getMaxArgs() {
+        return 1;
+    }
+
+    @Override
+    public String getName() {
+        return "tuning";
+    }
+
+    @Override
+    public void run(String[] args, CancelRequester cancelRequester) {
+        ResetTuner tuner = ResetTuner.getResetTuner();
+        switch (args[0]) {
+            case "report":
+                JultiOptions options = JultiOptions.getJultiOptions();
+                Julti.log(Level.INFO, "Reset tuning report:\n" + tuner.getRecommendation().toReport(options.wallResetCooldown, options.freezePercent));
+                break;
+            case "apply":
+                Julti.waitForExecute(() -> tuner.apply(true));
+                break;
+            case "clear":
+                tuner.clear();
+                Julti.log(Level.INFO, "Cleared reset tuning data.");
+                break;
+            default:
+                throw new CommandFailedException("Unknown tuning subcommand: " + args[0]);
+        }
+    }
+}
@@ -11,6 +11,7 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.List;
 import java.util.Objects;
 
@@ -59,8 +60,8 @@ public class ControlPanel extends JPanel {
             GUIUtil.addMenuItem(menu, "Launch All Instances", new AbstractAction() {
                 @Override
                 public void actionPerformed(ActionEvent e) {
-                    Thread.currentThread().setName("julti-gui");
-                    SafeInstanceLauncher.launchInstances(InstanceManager.getInstanceManager().getInstances());
+                    List<MinecraftInstance> instances = InstanceManager.getInstanceManager().getSnapshot().getInstances();
+                    GUITaskExecutor.run("Launching instances", task -> SafeInstanceLauncher.launchInstances(instances, task.getCancelRequester()));
                 }
             });
 
@@ -92,6 +93,20 @@ public class ControlPanel extends JPanel {
                 }
             });
 
+            List<GUITaskExecutor.GUITask> runningTasks = GUITaskExecutor.getRunningTasks();
+            if (!runningTasks.isEmpty()) {
+                menu.addSeparator();
+                for (GUITaskExecutor.GUITask task : runningTasks) {
+                    int progress = task.getProgress();
+                    GUIUtil.addMenuItem(menu, "Cancel " + task.getName() + (progress == -1 ? "" : " (" + progress + "%)"), new AbstractAction() {
+                        @Override
+                        public void actionPerformed(ActionEvent e) {
+                            task.cancel();
+                        }
+                    });
+                }
+            }
+
             Point mousePos = this.getMousePosition();
             if (mousePos == null) {
                 mousePos = new Point(0, 0);
@@ -114,7 +129,7 @@ public class ControlPanel extends JPanel {
             GUIUtil.addMenuItem(menu, "Launch Programs", new AbstractAction() {
                 @Override
                 public void actionPerformed(ActionEvent e) {
-                    LauncherUtil.launchPrograms();
+                    GUITaskExecutor.run("Launching programs", task -> LauncherUtil.launchPrograms());
                 }
             });
 
@@ -122,16 +137,18 @@ public class ControlPanel extends JPanel {
                 @Override
                 public void actionPerformed(ActionEvent e) {
                     Thread.currentThread().setName("julti-gui");
-                    List<MinecraftInstance> instances = InstanceManager.getInstanceManager().getInstances();
+                    List<MinecraftInstance> instances = InstanceManager.getInstanceManager().getSnapshot().getInstances();
                     int ans = JOptionPane.showConfirmDialog(thisComponent, "Copy mods and config from " + instances.get(0) + " to all other instances?", "Julti: Sync Instances", JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
                     if (ans == 0) {
-                        new Thread(() -> {
+                        GUITaskExecutor.run("Syncing instances", task -> {
                             try {
-                                SyncUtil.sync(instances, instances.get(0), true, true, true);
+                                SyncUtil.sync(instances, instances.get(0), true, true, true, task::setProgress);
+                            } catch (InterruptedIOException er) {
+                                log(Level.INFO, "Sync cancelled.");
                             } catch (IOException er) {
                                 log(Level.ERROR, "Failed to copy files:\n" + er);
                             }
-                        }, "instance-sync").start();
+                        });
                     }
                 }
             });
@@ -0,0 +1,68 @@
+package xyz.duncanruns.julti.gui;
+
+import org.apache.logging.log4j.Level;
+import xyz.duncanruns.julti.Julti;
+import xyz.duncanruns.julti.JultiOptions;
+
+import java.awt.*;
+
+/**
+ * Logs the EDT's stack when it stalls for longer than {@link #STALL_THRESHOLD_MS}, active while debug info is shown.
+ * Blocking work started from the GUI belongs on {@link GUITaskExecutor}.
+ */
+public final class EDTWatchdog {
+    private static final long STALL_THRESHOLD_MS = 100;
+    private static final long CHECK_INTERVAL_MS = 25;
+
+    private static volatile long heartbeatSentAt = 0;
+    private static volatile boolean heartbeatPending = false;
+    private static volatile Thread edtThread = null;
+    private static boolean started = false;
+
+    private EDTWatchdog() {
+    }
+
+    public static synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        Thread thread = new Thread(EDTWatchdog::run, "edt-watchdog");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static void run() {
+        boolean reported = false;
+        while (true) {
+            try {
+                Thread.sleep(CHECK_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (!JultiOptions.getJultiOptions().showDebug) {
+                continue;
+            }
+            if (!heartbeatPending) {
+                heartbeatPending = true;
+                heartbeatSentAt = System.currentTimeMillis();
+                reported = false;
+                EventQueue.invokeLater(() -> {
+                    edtThread = Thread.currentThread();
+                    heartbeatPending = false;
+                });
+                continue;
+            }
+            long stalledFor = System.currentTimeMillis() - heartbeatSentAt;
+            Thread edt = edtThread;
+            if (!reported && stalledFor > STALL_THRESHOLD_MS && edt != null) {
+                reported = true;
+                StringBuilder stack = new StringBuilder();
+                for (StackTraceElement element : edt.getStackTrace()) {
+                    stack.append("\n\tat ").append(element);
+                }
+                Julti.log(Level.WARN, "GUI thread stalled for over " + stalledFor + "ms:" + stack);
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package xyz.duncanruns.julti.gui;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.logging.log4j.Level;
+import xyz.duncanruns.julti.Julti;
+import xyz.duncanruns.julti.cancelrequester.CancelRequester;
+import xyz.duncanruns.julti.util.ExceptionUtil;
+
+import javax.swing.*;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs work started from the GUI on background threads so the EDT never blocks on file operations, instance windows or
+ * {@link Julti#waitForExecute(Runnable)}.
+ */
+public final class GUITaskExecutor {
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat("julti-gui-task-%d").setDaemon(true).build());
+    private static final Set<GUITask> RUNNING_TASKS = Collections.synchronizedSet(new LinkedHashSet<>());
+
+    private GUITaskExecutor() {
+    }
+
+    public static GUITask run(String name, Task task) {
+        return run(name, task, null);
+    }
+
+    /**
+     * Runs a task in the background, then runs onFinish on the EDT if the task completed without being cancelled.
+     */
+    public static GUITask run(String name, Task task, Runnable onFinish) {
+        GUITask guiTask = new GUITask(name);
+        RUNNING_TASKS.add(guiTask);
+        guiTask.future = EXECUTOR.submit(() -> {
+            try {
+                task.run(guiTask);
+            } catch (Exception e) {
+                if (guiTask.isCancelled()) {
+                    Julti.log(Level.INFO, name + " cancelled.");
+                } else {
+                    Julti.log(Level.ERROR, name + " failed:\n" + ExceptionUtil.toDetailedString(e));
+                }
+                return;
+            } finally {
+                RUNNING_TASKS.remove(guiTask);
+            }
+            if (onFinish != null && !guiTask.isCancelled()) {
+                SwingUtilities.invokeLater(onFinish);
+            }
+        });
+        return guiTask;
+    }
+
+    /**
+     * @return the tasks that have not finished yet, in the order they were started
+     */
+    public static List<GUITask> getRunningTasks() {
+        synchronized (RUNNING_TASKS) {
+            return new ArrayList<>(RUNNING_TASKS);
+        }
+    }
+
+    public interface Task {
+        void run(GUITask task) throws Exception;
+    }
+
+    public static class GUITask {
+        private final String name;
+        private final CancelRequester cancelRequester = new CancelRequester();
+        private volatile Future<?> future;
+        private volatile int percent = -1;
+        private int lastLoggedQuarter = 0;
+
+        private GUITask(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Reports progress, which is shown next to the task's cancel option and logged every 25%. Can be used as a
+         * {@link xyz.duncanruns.julti.util.ProgressListener}.
+         */
+        public synchronized void setProgress(int done, int total) {
+            this.percent = total <= 0 ? 100 : Math.min(100, done * 100 / total);
+            int quarter = total <= 0 ? 4 : Math.min(4, done * 4 / total);
+            if (quarter > this.lastLoggedQuarter) {
+                this.lastLoggedQuarter = quarter;
+                Julti.log(Level.INFO, this.name + "... " + quarter * 25 + "%");
+            }
+        }
+
+        /**
+         * Requests cancellation, interrupting the task's thread. Tasks should check {@link #isCancelled()} between steps.
+         */
+        public void cancel() {
+            this.cancelRequester.cancel();
+            // Also covers tasks cancelled before they started running
+            RUNNING_TASKS.remove(this);
+            Future<?> f = this.future;
+            if (f != null) {
+                f.cancel(true);
+            }
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * @return the last reported progress from 0 to 100, or -1 if the task never reported progress
+         */
+        public int getProgress() {
+            return this.percent;
+        }
+
+        public boolean isCancelled() {
+            return this.cancelRequester.isCancelRequested();
+        }
+
+        /**
+         * @return a cancel requester for passing to existing cancellable operations such as instance launching
+         */
+        public CancelRequester getCancelRequester() {
+            return this.cancelRequester;
+        }
+
+        public boolean isDone() {
+            Future<?> f = this.future;
+            return f != null && f.isDone();
+        }
+    }
+}
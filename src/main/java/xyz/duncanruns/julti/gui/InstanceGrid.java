@@ -0,0 +1,284 @@
+package xyz.duncanruns.julti.gui;
+
+import xyz.duncanruns.julti.Julti;
+import xyz.duncanruns.julti.instance.InstanceState;
+import xyz.duncanruns.julti.instance.MinecraftInstance;
+import xyz.duncanruns.julti.management.InstanceManager;
+import xyz.duncanruns.julti.util.GUIUtil;
+import xyz.duncanruns.julti.util.SafeInstanceLauncher;
+import xyz.duncanruns.julti.util.SubmissionUtil;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A custom painted grid of instance cells. Cell contents are diffed on every update and only changed cells are
+ * repainted. Must only be used on the EDT.
+ */
+public class InstanceGrid extends JComponent {
+    private static final int MAX_COLUMNS = 5;
+    private static final int MIN_CELL_WIDTH = 90;
+    private static final int CELL_PADDING = 6;
+    private static final int CELL_GAP = 4;
+
+    private final Color idleColor = getUIColor("Panel.background", Color.LIGHT_GRAY);
+    private final Color activeColor = this.idleColor.brighter();
+    private final Color borderColor = getUIColor("Component.borderColor", Color.GRAY);
+
+    private List<MinecraftInstance> instances = new ArrayList<>();
+    private CellInfo[] cells = new CellInfo[0];
+    private int cellWidth = MIN_CELL_WIDTH;
+
+    public InstanceGrid() {
+        this.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                MinecraftInstance instance = InstanceGrid.this.getInstanceAt(e.getPoint());
+                if (instance != null && e.getButton() == 1) {
+                    Thread.currentThread().setName("julti-gui");
+                    Julti.doLater(() -> Julti.getJulti().activateInstance(instance));
+                }
+            }
+
+            @Override
+            public void mousePressed(MouseEvent e) {
+                this.checkPopup(e);
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                this.checkPopup(e);
+            }
+
+            private void checkPopup(MouseEvent e) {
+                MinecraftInstance instance = InstanceGrid.this.getInstanceAt(e.getPoint());
+                if (instance != null && e.isPopupTrigger()) {
+                    InstanceGrid.this.doPop(instance, e);
+                }
+            }
+        });
+    }
+
+    private static Color getUIColor(String key, Color fallback) {
+        Color color = UIManager.getColor(key);
+        return color == null ? fallback : color;
+    }
+
+    /**
+     * Updates the displayed instances, repainting only the cells whose contents changed.
+     */
+    public void update(List<MinecraftInstance> instances, CellInfo[] newCells) {
+        this.instances = instances;
+        if (newCells.length != this.cells.length) {
+            this.cells = newCells;
+            this.updateCellWidth();
+            this.revalidate();
+            this.repaint();
+            return;
+        }
+        CellInfo[] oldCells = this.cells;
+        this.cells = newCells;
+        if (this.updateCellWidth()) {
+            this.revalidate();
+            this.repaint();
+            return;
+        }
+        for (int i = 0; i < newCells.length; i++) {
+            if (!newCells[i].equals(oldCells[i])) {
+                this.repaint(this.getCellBounds(i));
+            }
+        }
+    }
+
+    private boolean updateCellWidth() {
+        FontMetrics metrics = this.getFontMetrics(this.getFont() == null ? UIManager.getFont("Label.font") : this.getFont());
+        int width = MIN_CELL_WIDTH;
+        for (CellInfo cell : this.cells) {
+            width = Math.max(width, Math.max(metrics.stringWidth(cell.name), metrics.stringWidth(cell.status)) + CELL_PADDING * 2);
+        }
+        if (width == this.cellWidth) {
+            return false;
+        }
+        this.cellWidth = width;
+        return true;
+    }
+
+    private int getColumns() {
+        return Math.max(1, Math.min(this.cells.length, MAX_COLUMNS));
+    }
+
+    private int getCellHeight() {
+        FontMetrics metrics = this.getFontMetrics(this.getFont() == null ? UIManager.getFont("Label.font") : this.getFont());
+        return metrics.getHeight() * 2 + CELL_PADDING * 2;
+    }
+
+    private Rectangle getCellBounds(int index) {
+        int columns = this.getColumns();
+        int cellHeight = this.getCellHeight();
+        return new Rectangle((index % columns) * (this.cellWidth + CELL_GAP), (index / columns) * (cellHeight + CELL_GAP), this.cellWidth, cellHeight);
+    }
+
+    private MinecraftInstance getInstanceAt(Point point) {
+        for (int i = 0; i < this.cells.length && i < this.instances.size(); i++) {
+            if (this.getCellBounds(i).contains(point)) {
+                return this.instances.get(i);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        if (this.cells.length == 0) {
+            return new Dimension(0, 0);
+        }
+        int columns = this.getColumns();
+        int rows = (this.cells.length + columns - 1) / columns;
+        return new Dimension(columns * (this.cellWidth + CELL_GAP) - CELL_GAP, rows * (this.getCellHeight() + CELL_GAP) - CELL_GAP);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2d = (Graphics2D) g.create();
+        try {
+            g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g2d.setFont(this.getFont());
+            FontMetrics metrics = g2d.getFontMetrics();
+            Rectangle clip = g2d.getClipBounds();
+            for (int i = 0; i < this.cells.length; i++) {
+                Rectangle bounds = this.getCellBounds(i);
+                if (clip == null || clip.intersects(bounds)) {
+                    this.paintCell(g2d, metrics, this.cells[i], bounds);
+                }
+            }
+        } finally {
+            g2d.dispose();
+        }
+    }
+
+    private void paintCell(Graphics2D g, FontMetrics metrics, CellInfo cell, Rectangle bounds) {
+        g.setColor(cell.active ? this.activeColor : this.idleColor);
+        g.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+        g.setColor(this.borderColor);
+        g.drawRect(bounds.x, bounds.y, bounds.width - 1, bounds.height - 1);
+
+        g.setColor(this.getForeground());
+        int lineHeight = metrics.getHeight();
+        int y = bounds.y + CELL_PADDING + metrics.getAscent();
+        g.drawString(cell.name, bounds.x + (bounds.width - metrics.stringWidth(cell.name)) / 2, y);
+        g.drawString(cell.status, bounds.x + (bounds.width - metrics.stringWidth(cell.status)) / 2, y + lineHeight);
+    }
+
+    private void doPop(MinecraftInstance instance, MouseEvent e) {
+        JPopupMenu popupMenu = new JPopupMenu();
+        if (instance.hasWindow()) {
+            GUIUtil.addMenuItem(popupMenu, "Close", new AbstractAction() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    GUITaskExecutor.run("Closing " + instance.getName(), task -> instance.closeWindow());
+                }
+            });
+        } else {
+            GUIUtil.addMenuItem(popupMenu, "Launch", new AbstractAction() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    GUITaskExecutor.run("Launching " + instance.getName(), task -> SafeInstanceLauncher.launchInstance(instance, task.getCancelRequester()));
+                }
+            });
+        }
+        GUIUtil.addMenuItem(popupMenu, "Open Folder", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                instance.openFolder();
+            }
+        });
+        GUIUtil.addMenuItem(popupMenu, "Package Files for Submission", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                GUITaskExecutor.run("Packaging submission files", task -> {
+                    Path finalPath = SubmissionUtil.tryPrepareSubmission(instance, task::setProgress);
+                    if (finalPath != null && !task.isCancelled()) {
+                        try {
+                            Desktop.getDesktop().browse(finalPath.toUri());
+                        } catch (IOException ignored) {
+                        }
+                    }
+                });
+            }
+        });
+        GUIUtil.addMenuItem(popupMenu, "Remove", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                GUITaskExecutor.run("Removing " + instance.getName(), task -> Julti.waitForExecute(() -> InstanceManager.getInstanceManager().removeInstance(instance)));
+            }
+        });
+        popupMenu.show(e.getComponent(), e.getX(), e.getY());
+    }
+
+    /**
+     * Everything displayed in a single cell.
+     */
+    public static final class CellInfo {
+        private final String name;
+        private final String status;
+        private final boolean active;
+
+        private CellInfo(String name, String status, boolean active) {
+            this.name = name;
+            this.status = status;
+            this.active = active;
+        }
+
+        /**
+         * @param activeState 0 if the instance is not the last active instance, 1 if it is currently playing, 2 if it
+         *                    was the last played instance
+         */
+        public static CellInfo of(MinecraftInstance instance, InstanceState state, byte percent, boolean locked, int activeState) {
+            String status;
+            if (!instance.hasWindow()) {
+                status = "Closed";
+            } else if (activeState == 1) {
+                status = "Playing";
+            } else if (activeState == 2) {
+                status = "Last Played";
+            } else if (state == InstanceState.GENERATING || state == InstanceState.PREVIEWING) {
+                status = (state == InstanceState.GENERATING ? "Generating " : "Previewing ") + percent + "%";
+            } else if (state == InstanceState.INWORLD) {
+                status = "Loaded";
+            } else if (state == InstanceState.TITLE) {
+                status = "Title Screen";
+            } else {
+                status = "Open";
+            }
+            if (locked) {
+                status += " (Locked)";
+            }
+            return new CellInfo(instance.getName(), status, activeState != 0 && instance.hasWindow());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CellInfo)) {
+                return false;
+            }
+            CellInfo cellInfo = (CellInfo) o;
+            return this.active == cellInfo.active && this.name.equals(cellInfo.name) && this.status.equals(cellInfo.status);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.name, this.status, this.active);
+        }
+    }
+}
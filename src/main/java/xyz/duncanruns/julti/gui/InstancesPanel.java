@@ -3,10 +3,10 @@ package xyz.duncanruns.julti.gui;
 import com.formdev.flatlaf.ui.FlatMarginBorder;
 import xyz.duncanruns.julti.instance.MinecraftInstance;
 import xyz.duncanruns.julti.management.InstanceManager;
+import xyz.duncanruns.julti.management.WorldSnapshot;
 
 import javax.swing.*;
 import java.awt.*;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -14,11 +14,10 @@ import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 public class InstancesPanel extends JPanel {
-    private final JPanel mainPanel;
+    private final InstanceGrid instanceGrid;
     private final Supplier<Boolean> shouldUpdateSupplier;
     private final Supplier<Boolean> shouldShutdownSupplier;
     private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
-    private final ArrayList<SingleInstancePanel> instancePanels = new ArrayList<>();
 
     private int lastActive = 0;
 
@@ -33,9 +32,8 @@ public class InstancesPanel extends JPanel {
         instancesLabel.setHorizontalAlignment(SwingConstants.CENTER);
         this.add(instancesLabel, new GridBagConstraints(0, 0, 1, 1, 0, 0, 10, 0, new Insets(0, 0, 5, 0), 0, 0));
 
-        this.mainPanel = new JPanel();
-        this.mainPanel.setLayout(new GridLayout(0, 5));
-        this.add(this.mainPanel, new GridBagConstraints(0, 1, 1, 1, 0, 0, 10, 0, new Insets(0, 0, 5, 0), 0, 0));
+        this.instanceGrid = new InstanceGrid();
+        this.add(this.instanceGrid, new GridBagConstraints(0, 1, 1, 1, 0, 0, 10, 0, new Insets(0, 0, 5, 0), 0, 0));
 
         this.tick();
         this.executor.scheduleWithFixedDelay(this::tick, 250, 250, TimeUnit.MILLISECONDS);
@@ -50,29 +48,17 @@ public class InstancesPanel extends JPanel {
             return;
         }
 
-        List<MinecraftInstance> instances = InstanceManager.getInstanceManager().getInstances();
+        WorldSnapshot snapshot = InstanceManager.getInstanceManager().getSnapshot();
+        List<MinecraftInstance> instances = snapshot.getInstances();
 
-        if (this.instancePanels.size() != instances.size()) {
-            while (this.instancePanels.size() < instances.size()) {
-                this.instancePanels.add((SingleInstancePanel) this.mainPanel.add(new SingleInstancePanel()));
-            }
-            while (this.instancePanels.size() > instances.size()) {
-                this.mainPanel.remove(this.instancePanels.remove(0));
-            }
-            this.mainPanel.setLayout(new GridLayout(0, Math.max(1, Math.min(instances.size(), 5))));
-            this.revalidate();
-        }
-
-        MinecraftInstance selectedInstance = InstanceManager.getInstanceManager().getSelectedInstance();
-        this.lastActive = selectedInstance != null ? InstanceManager.getInstanceManager().getInstanceNum(selectedInstance) : this.lastActive;
+        int selectedIndex = snapshot.getSelectedIndex();
+        this.lastActive = selectedIndex != -1 ? selectedIndex + 1 : this.lastActive;
 
-        int i = 0;
-        for (MinecraftInstance instance : instances) {
-            SingleInstancePanel panel = this.instancePanels.get(i++);
-            panel.setInfo(instance);
-            if (i == this.lastActive && instance.hasWindow()) {
-                panel.setActive(selectedInstance != null);
-            }
+        InstanceGrid.CellInfo[] cells = new InstanceGrid.CellInfo[instances.size()];
+        for (int i = 0; i < cells.length; i++) {
+            int activeState = i + 1 == this.lastActive ? (selectedIndex != -1 ? 1 : 2) : 0;
+            cells[i] = InstanceGrid.CellInfo.of(instances.get(i), snapshot.getState(i), snapshot.getLoadingPercent(i), snapshot.isLocked(i), activeState);
         }
+        SwingUtilities.invokeLater(() -> this.instanceGrid.update(instances, cells));
     }
 }
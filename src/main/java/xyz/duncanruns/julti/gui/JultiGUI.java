@@ -57,6 +57,7 @@ public class JultiGUI extends JFrame {
 
     public void setVisible() {
         this.setVisible(true);
+        EDTWatchdog.start();
     }
 
     private void setupComponents() {
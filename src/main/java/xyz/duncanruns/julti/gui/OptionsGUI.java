@@ -30,8 +30,11 @@ public class OptionsGUI extends JFrame {
         this.reloadComponents();
     }
 
-    private static void changeProfile(String profile) {
-        Julti.waitForExecute(() -> Julti.getJulti().changeProfile(profile));
+    /**
+     * Changes the profile in the background, then runs onChanged on the EDT.
+     */
+    private static void changeProfile(String profile, Runnable onChanged) {
+        GUITaskExecutor.run("Changing profile", task -> Julti.waitForExecute(() -> Julti.getJulti().changeProfile(profile)), onChanged);
     }
 
     private JTabbedPane getTabbedPane() {
@@ -350,21 +353,23 @@ public class OptionsGUI extends JFrame {
         panel.add(GUIUtil.createSpacer());
 
         panel.add(GUIUtil.leftJustify(GUIUtil.createCheckBoxFromOption("Enable Experimental Options", "enableExperimentalOptions", b -> {
-            if (!b) {
-                Julti.waitForExecute(() -> {
-                    options.autoFullscreen = false;
-                    options.showDebug = false;
-                    options.pieChartOnLoad = false;
-                    options.preventWindowNaming = false;
-                    options.alwaysOnTopProjector = false;
-                    options.minimizeProjectorWhenPlaying = false;
-                    options.activateProjectorOnReset = false;
-                    options.useAltSwitching = false;
-                    options.allowResetDuringGenerating = false;
-                    options.resizeableBorderless = false;
-                });
+            if (b) {
+                this.reload();
+                return;
             }
-            this.reload();
+            Julti.doLater(() -> {
+                options.autoFullscreen = false;
+                options.showDebug = false;
+                options.pieChartOnLoad = false;
+                options.preventWindowNaming = false;
+                options.alwaysOnTopProjector = false;
+                options.minimizeProjectorWhenPlaying = false;
+                options.activateProjectorOnReset = false;
+                options.useAltSwitching = false;
+                options.allowResetDuringGenerating = false;
+                options.resizeableBorderless = false;
+                SwingUtilities.invokeLater(this::reload);
+            });
         })));
     }
 
@@ -557,8 +562,7 @@ public class OptionsGUI extends JFrame {
         JComboBox<String> profileSelectBox = new JComboBox<>(JultiOptions.getProfileNames());
         GUIUtil.setActualSize(profileSelectBox, 200, 22);
         profileSelectBox.addActionListener(e -> {
-            changeProfile(profileSelectBox.getSelectedItem().toString());
-            this.reload();
+            changeProfile(profileSelectBox.getSelectedItem().toString(), this::reload);
         });
 
         panel.add(GUIUtil.leftJustify(profileSelectBox));
@@ -577,9 +581,10 @@ public class OptionsGUI extends JFrame {
                     break;
                 }
             }
-            changeProfile(switchTo);
-            JultiOptions.removeProfile(toRemove);
-            this.reload();
+            changeProfile(switchTo, () -> {
+                JultiOptions.removeProfile(toRemove);
+                this.reload();
+            });
         })));
 
         panel.add(GUIUtil.createSpacer());
@@ -590,10 +595,10 @@ public class OptionsGUI extends JFrame {
                     JOptionPane.showMessageDialog(thisGUI, "Profile already exists!", "Julti: Cannot Create New Profile", JOptionPane.ERROR_MESSAGE);
                     return;
                 }
-                Julti.waitForExecute(() -> JultiOptions.getJultiOptions().tryCopyTo(newName));
-
-                changeProfile(newName);
-                this.reloadComponents();
+                GUITaskExecutor.run("Creating profile", task -> {
+                    Julti.waitForExecute(() -> JultiOptions.getJultiOptions().tryCopyTo(newName));
+                    Julti.waitForExecute(() -> Julti.getJulti().changeProfile(newName));
+                }, this::reloadComponents);
             }
         })));
     }
@@ -628,6 +633,9 @@ public class OptionsGUI extends JFrame {
             panel.add(GUIUtil.leftJustify(GUIUtil.createCheckBoxFromOption("Return to Wall if None Loaded", "If none of your locked instances are loaded, you will be returned to the wall on reset instead.", "returnToWallIfNoneLoaded")));
         }
 
+        panel.add(GUIUtil.createSpacer());
+        panel.add(GUIUtil.leftJustify(GUIUtil.createCheckBoxFromOption("Drag to Lock/Reset", "While holding the lock or single reset hotkey, every instance the mouse moves across will be locked or reset.", "wallDragGestures")));
+
         panel.add(GUIUtil.createSpacer());
 
         panel.add(GUIUtil.createSeparator());
@@ -652,6 +660,8 @@ public class OptionsGUI extends JFrame {
         panel.add(GUIUtil.createSpacer());
         panel.add(GUIUtil.leftJustify(new JLabel("The reset cooldown starts as soon as you can see the instance,")));
         panel.add(GUIUtil.leftJustify(new JLabel("this also accounts for appearance based on dirt covers and dynamic wall.")));
+        panel.add(GUIUtil.createSpacer());
+        panel.add(GUIUtil.leftJustify(GUIUtil.createCheckBoxFromOption("Auto-Tune Reset Cooldown", "Gradually adjusts the reset cooldown and freeze filter percent based on how fast previews load on this machine. Use the \"tuning report\" command to see recommendations without applying them.", "autoTuneResetOptions")));
 
 
         if (!(ResetHelper.getManager() instanceof DynamicWallResetManager)) {
@@ -668,6 +678,8 @@ public class OptionsGUI extends JFrame {
 
         panel.add(GUIUtil.leftJustify(GUIUtil.createCheckBoxFromOption("Replace Locked Instances", "If disabled, the wall will not be updated when an instance is locked.", "dwReplaceLocked")));
         panel.add(GUIUtil.createSpacer());
+        panel.add(GUIUtil.leftJustify(GUIUtil.createCheckBoxFromOption("Prioritize Closest Previews", "While the CPU is saturated, generating instances that aren't needed soon are given background affinity so the closest ones reach the preview first.", "dwThroughputScheduler")));
+        panel.add(GUIUtil.createSpacer());
         panel.add(GUIUtil.leftJustify(GUIUtil.createValueChangerButton("lockedInstanceSpace", "Locked Instance Space", this, "%")));
     }
 
@@ -782,13 +794,12 @@ public class OptionsGUI extends JFrame {
                 return;
             }
             MonitorUtil.Monitor monitor = sortedMonitors.get(ans);
-            Julti.waitForExecute(() -> {
+            Julti.doLater(() -> {
                 options.windowPos = monitor.centerPosition;
                 options.windowPosIsCenter = true;
                 options.playingWindowSize = monitor.size;
+                SwingUtilities.invokeLater(() -> this.reloadWindowOptions(windowOptions));
             });
-            windowOptions.reload();
-            this.revalidate();
         })));
         panel.add(GUIUtil.createSpacer());
 
@@ -817,11 +828,10 @@ public class OptionsGUI extends JFrame {
             }
 
             int[] iSize = {(int) iWidth - 2 * options.instanceSpacing, (int) iHeight - 2 * options.instanceSpacing};
-            Julti.waitForExecute(() -> {
+            Julti.doLater(() -> {
                 options.resettingWindowSize = iSize;
+                SwingUtilities.invokeLater(() -> this.reloadWindowOptions(windowOptions));
             });
-            windowOptions.reload();
-            this.revalidate();
         })));
         panel.add(GUIUtil.createSpacer());
 
@@ -839,11 +849,10 @@ public class OptionsGUI extends JFrame {
             }
 
             int[] iSize = {playingMonitor.size[0], (int) (playingMonitor.size[1] / 2.5)};
-            Julti.waitForExecute(() -> {
+            Julti.doLater(() -> {
                 options.resettingWindowSize = iSize;
+                SwingUtilities.invokeLater(() -> this.reloadWindowOptions(windowOptions));
             });
-            windowOptions.reload();
-            this.revalidate();
         })));
         panel.add(GUIUtil.createSpacer());
 
@@ -852,6 +861,11 @@ public class OptionsGUI extends JFrame {
         panel.add(GUIUtil.leftJustify(GUIUtil.createCheckBoxFromOption("Prepare Window on Lock", "When locking, set the size of the instance to the \"Playing\" size, making switching quicker.", "prepareWindowOnLock")));
     }
 
+    private void reloadWindowOptions(WindowOptionComponent windowOptions) {
+        windowOptions.reload();
+        this.revalidate();
+    }
+
     public boolean isClosed() {
         return this.closed;
     }
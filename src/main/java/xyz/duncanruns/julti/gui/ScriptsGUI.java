@@ -9,7 +9,6 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
-import java.util.concurrent.atomic.AtomicReference;
 
 public class ScriptsGUI extends JFrame {
     private boolean closed = false;
@@ -76,39 +75,42 @@ public class ScriptsGUI extends JFrame {
     }
 
     private void startImportScriptDialog() {
-        // Single element array as a reference holder
-        final String[] ans = {JOptionPane.showInputDialog(this, "Enter the script string here:", "Julti: Import Script", JOptionPane.QUESTION_MESSAGE)};
-        final AtomicReference<Runnable> outputFromProcessing = new AtomicReference<>(() -> {
-        });
-        Julti.waitForExecute(() -> {
-            if (ans[0] == null) {
-                return;
-            }
-            ans[0] = ans[0].replace("\n", ";");
-
-            if (ScriptManager.addScript(ans[0])) {
-                this.reload();
-                return;
-            }
-            if (Script.isSavableString(ans[0])) {
-                if (ScriptManager.isDuplicateImport(ans[0])) {
-                    outputFromProcessing.set(() -> {
+        String input = JOptionPane.showInputDialog(this, "Enter the script string here:", "Julti: Import Script", JOptionPane.QUESTION_MESSAGE);
+        if (input == null) {
+            return;
+        }
+        String scriptString = input.replace("\n", ";");
+        Julti.doLater(() -> {
+            // Dialogs to show after processing, if any
+            Runnable outputFromProcessing = null;
+            if (ScriptManager.addScript(scriptString)) {
+                // Imported
+            } else if (Script.isSavableString(scriptString)) {
+                if (ScriptManager.isDuplicateImport(scriptString)) {
+                    outputFromProcessing = () -> {
                         int replaceAns = JOptionPane.showConfirmDialog(this, "A script by the same name already exists, replace it?", "Julti: Import Script", JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
                         if (replaceAns != 0) {
                             return;
                         }
-                        Julti.doLater(() -> ScriptManager.forceAddScript(ans[0]));
-                    });
+                        Julti.doLater(() -> {
+                            ScriptManager.forceAddScript(scriptString);
+                            SwingUtilities.invokeLater(this::reload);
+                        });
+                    };
                 } else {
-                    outputFromProcessing.set(() -> JOptionPane.showMessageDialog(this, "Could not import script. An unknown error occurred.", "Julti: Import Script Error", JOptionPane.ERROR_MESSAGE));
-
+                    outputFromProcessing = () -> JOptionPane.showMessageDialog(this, "Could not import script. An unknown error occurred.", "Julti: Import Script Error", JOptionPane.ERROR_MESSAGE);
                 }
             } else {
-                outputFromProcessing.set(() -> JOptionPane.showMessageDialog(this, "Could not import script. The entered string was not a script string.", "Julti: Import Script Error", JOptionPane.ERROR_MESSAGE));
+                outputFromProcessing = () -> JOptionPane.showMessageDialog(this, "Could not import script. The entered string was not a script string.", "Julti: Import Script Error", JOptionPane.ERROR_MESSAGE);
             }
-            this.reload();
+            Runnable output = outputFromProcessing;
+            SwingUtilities.invokeLater(() -> {
+                this.reload();
+                if (output != null) {
+                    output.run();
+                }
+            });
         });
-        outputFromProcessing.get().run();
     }
 
     public boolean isClosed() {
@@ -52,11 +52,12 @@ public class WallSizeComponent extends JPanel {
             private void update() {
                 int x = (int) rowField.getValue();
                 int y = (int) columnField.getValue();
-                Julti.waitForExecute(() -> {
+                // The fields already show the new size, so only the reset manager needs reloading
+                Julti.doLater(() -> {
                     JultiOptions options = JultiOptions.getJultiOptions();
                     options.overrideRowsAmount = x;
                     options.overrideColumnsAmount = y;
-                    Julti.doLater(() -> ResetHelper.getManager().reload());
+                    ResetHelper.getManager().reload();
                 });
             }
         };
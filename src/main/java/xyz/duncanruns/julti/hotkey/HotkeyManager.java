@@ -4,19 +4,33 @@ import com.google.common.collect.ImmutableList;
 import org.apache.commons.lang3.tuple.Pair;
 import xyz.duncanruns.julti.Julti;
 import xyz.duncanruns.julti.JultiOptions;
+import xyz.duncanruns.julti.messages.HotkeyGestureQMessage;
 import xyz.duncanruns.julti.messages.HotkeyPressQMessage;
 import xyz.duncanruns.julti.plugin.PluginEvents;
 import xyz.duncanruns.julti.script.ScriptHotkeyData;
 import xyz.duncanruns.julti.util.MouseUtil;
 
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import static xyz.duncanruns.julti.util.SleepUtil.sleep;
 
 public final class HotkeyManager {
     private static final HotkeyManager INSTANCE = new HotkeyManager();
+    // Mouse paths of held wall hotkeys are sent to the main loop in parts this often
+    private static final long GESTURE_BATCH_INTERVAL = 50;
     public final CopyOnWriteArrayList<Pair<Hotkey, String>> hotkeys = new CopyOnWriteArrayList<>(); // This lets us run the hotkey checker without ever having to stop it
 
+    // Only used by the hotkey checker thread
+    private Hotkey gestureHotkey = null;
+    private String gestureAction = null;
+    private int gestureId = 0;
+    private List<Point> gesturePath = null;
+    private long lastGestureBatch = 0;
+
     private HotkeyManager() {
     }
 
@@ -61,14 +75,57 @@ public final class HotkeyManager {
         this.hotkeys.add(Pair.of(hotkey, action));
     }
 
+    private static boolean isGestureAction(String action) {
+        return action.equals("wallLock") || action.equals("wallSingleReset");
+    }
+
     private void run() {
         while (Julti.getJulti().isRunning()) {
             sleep(1);
             for (Pair<Hotkey, String> hotkeyAction : this.hotkeys) {
                 if (hotkeyAction.getLeft().wasPressed()) {
-                    Julti.getJulti().queueMessage(new HotkeyPressQMessage(hotkeyAction.getRight(), MouseUtil.getMousePos()));
+                    Point mousePos = MouseUtil.getMousePos();
+                    Julti.getJulti().queueMessage(new HotkeyPressQMessage(hotkeyAction.getRight(), mousePos));
+                    if (this.gestureHotkey == null && isGestureAction(hotkeyAction.getRight()) && JultiOptions.getJultiOptions().wallDragGestures) {
+                        this.startGesture(hotkeyAction.getLeft(), hotkeyAction.getRight(), mousePos);
+                    }
                 }
             }
+            if (this.gestureHotkey != null) {
+                this.tickGesture();
+            }
+        }
+    }
+
+    private void startGesture(Hotkey hotkey, String action, Point mousePos) {
+        this.gestureHotkey = hotkey;
+        this.gestureAction = action;
+        this.gestureId++;
+        this.gesturePath = new ArrayList<>();
+        this.gesturePath.add(mousePos);
+        this.lastGestureBatch = System.currentTimeMillis();
+    }
+
+    /**
+     * Samples the mouse while a gesture hotkey is held, and sends the sampled path in batches so the main loop handles
+     * many instances per message.
+     */
+    private void tickGesture() {
+        boolean held = this.gestureHotkey.isPressed();
+        Point mousePos = MouseUtil.getMousePos();
+        if (!mousePos.equals(this.gesturePath.get(this.gesturePath.size() - 1))) {
+            this.gesturePath.add(mousePos);
+        }
+        long now = System.currentTimeMillis();
+        if (this.gesturePath.size() > 1 && (!held || now - this.lastGestureBatch >= GESTURE_BATCH_INTERVAL)) {
+            Julti.getJulti().queueMessage(new HotkeyGestureQMessage(this.gestureAction, this.gestureId, this.gesturePath));
+            // The next batch continues from the last point
+            this.gesturePath = new ArrayList<>(Collections.singletonList(mousePos));
+            this.lastGestureBatch = now;
+        }
+        if (!held) {
+            this.gestureHotkey = null;
+            this.gesturePath = null;
         }
     }
 }
\ No newline at end of file
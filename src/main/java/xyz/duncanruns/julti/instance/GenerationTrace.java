@@ -0,0 +1,83 @@
+package xyz.duncanruns.julti.instance;
+
+import java.util.Arrays;
+
+/**
+ * Timings of a single world preview, from the preview appearing until the instance was reset or the world loaded.
+ * Recorded by {@link StateTracker} from state file changes, so all times are as precise as the state checking.
+ */
+public final class GenerationTrace {
+    private final long previewStart;
+    private final long endTime;
+    private final boolean loaded;
+    private final long[] sampleTimes;
+    private final byte[] samplePercents;
+
+    /**
+     * @param sampleTimes    times of each loading percentage seen while previewing, the first being the preview start
+     * @param samplePercents the loading percentages matching sampleTimes
+     */
+    public GenerationTrace(long previewStart, long endTime, boolean loaded, long[] sampleTimes, byte[] samplePercents) {
+        if (sampleTimes.length != samplePercents.length) {
+            throw new IllegalArgumentException("Sample times and percentages must be the same length");
+        }
+        this.previewStart = previewStart;
+        this.endTime = endTime;
+        this.loaded = loaded;
+        this.sampleTimes = sampleTimes;
+        this.samplePercents = samplePercents;
+    }
+
+    public long getPreviewStart() {
+        return this.previewStart;
+    }
+
+    public long getEndTime() {
+        return this.endTime;
+    }
+
+    /**
+     * @return true if the world finished loading, false if the instance was reset while previewing
+     */
+    public boolean isLoaded() {
+        return this.loaded;
+    }
+
+    public int getSampleCount() {
+        return this.sampleTimes.length;
+    }
+
+    public long getSampleTime(int index) {
+        return this.sampleTimes[index];
+    }
+
+    public byte getSamplePercent(int index) {
+        return this.samplePercents[index];
+    }
+
+    static final class Builder {
+        private final long previewStart;
+        private long[] times = new long[16];
+        private byte[] percents = new byte[16];
+        private int size = 0;
+
+        Builder(long previewStart, byte percent) {
+            this.previewStart = previewStart;
+            this.add(previewStart, percent);
+        }
+
+        void add(long time, byte percent) {
+            if (this.size == this.times.length) {
+                this.times = Arrays.copyOf(this.times, this.size * 2);
+                this.percents = Arrays.copyOf(this.percents, this.size * 2);
+            }
+            this.times[this.size] = time;
+            this.percents[this.size] = percent;
+            this.size++;
+        }
+
+        GenerationTrace build(long endTime, boolean loaded) {
+            return new GenerationTrace(this.previewStart, endTime, loaded, Arrays.copyOf(this.times, this.size), Arrays.copyOf(this.percents, this.size));
+        }
+    }
+}
@@ -2,11 +2,22 @@ package xyz.duncanruns.julti.instance;
 
 import com.sun.jna.platform.win32.Win32VK;
 import com.sun.jna.platform.win32.WinDef.HWND;
+import xyz.duncanruns.julti.util.KeySequence;
 import xyz.duncanruns.julti.util.KeyboardUtil;
 
+import java.util.Objects;
+
 public class KeyPresser {
+    private static final KeySequence F3_ESC = KeySequence.builder().down(Win32VK.VK_F3.code).press(Win32VK.VK_ESCAPE.code).up(Win32VK.VK_F3.code).build();
+    private static final KeySequence SHIFT_TAB_ENTER = KeySequence.builder().down(Win32VK.VK_LSHIFT.code).press(Win32VK.VK_TAB.code).up(Win32VK.VK_LSHIFT.code).press(Win32VK.VK_RETURN.code).build();
+
     private final HWND hwnd;
 
+    // The last sequence built by pressKeys, reused while the keys stay the same
+    private Integer firstKey = null;
+    private Integer secondKey = null;
+    private KeySequence keysSequence = KeySequence.EMPTY;
+
     public KeyPresser(HWND hwnd) {
         this.hwnd = hwnd;
     }
@@ -16,9 +27,7 @@ public class KeyPresser {
     }
 
     public void pressF3Esc() {
-        KeyboardUtil.sendKeyDownToHwnd(this.hwnd, Win32VK.VK_F3);
-        KeyboardUtil.sendKeyToHwnd(this.hwnd, Win32VK.VK_ESCAPE);
-        KeyboardUtil.sendKeyUpToHwnd(this.hwnd, Win32VK.VK_F3);
+        F3_ESC.send(this.hwnd);
     }
 
     public void pressF1() {
@@ -36,11 +45,20 @@ public class KeyPresser {
         }
     }
 
+    /**
+     * Presses two keys one after the other, skipping unset (null) keys.
+     */
+    public void pressKeys(Integer firstKey, Integer secondKey) {
+        if (!Objects.equals(firstKey, this.firstKey) || !Objects.equals(secondKey, this.secondKey)) {
+            this.keysSequence = KeySequence.builder().press(firstKey).press(secondKey).build();
+            this.firstKey = firstKey;
+            this.secondKey = secondKey;
+        }
+        this.keysSequence.send(this.hwnd);
+    }
+
     public void pressShiftTabEnter() {
-        KeyboardUtil.sendKeyDownToHwnd(this.hwnd, Win32VK.VK_LSHIFT);
-        this.pressTab();
-        KeyboardUtil.sendKeyUpToHwnd(this.hwnd, Win32VK.VK_LSHIFT);
-        this.pressEnter();
+        SHIFT_TAB_ENTER.send(this.hwnd);
     }
 
     public void pressShiftF3() {
@@ -12,6 +12,7 @@ import xyz.duncanruns.julti.management.ActiveWindowManager;
 import xyz.duncanruns.julti.plugin.PluginEvents;
 import xyz.duncanruns.julti.resetting.ResetHelper;
 import xyz.duncanruns.julti.util.*;
+import xyz.duncanruns.julti.util.VersionUtil.Version;
 import xyz.duncanruns.julti.win32.User32;
 
 import java.awt.*;
@@ -36,6 +37,13 @@ public class MinecraftInstance {
     private final Path path;
     private final String versionString;
 
+    // Version dependent behaviour, resolved once from the version string
+    private final ResetStrategy resetStrategy;
+    private final boolean pre113;
+    private final boolean usesFullscreenOption;
+    private final boolean lanHasExtraButtons;
+    private final int lanStartTabs;
+
     // Discoverable Information
     private GameOptions gameOptions = null;
     private String name = null;
@@ -55,10 +63,19 @@ public class MinecraftInstance {
 
     private long lastActivation = 0L;
 
+    // Index in the instance manager's list, assigned by InstanceManager whenever the list changes
+    private int slot = -1;
+
     public MinecraftInstance(HWND hwnd, Path path, String versionString) {
         this.hwnd = hwnd;
         this.path = path;
         this.versionString = versionString;
+        Version version = MCVersionUtil.parseVersion(versionString);
+        this.resetStrategy = ResetStrategy.of(versionString, version);
+        this.pre113 = MCVersionUtil.isOlderThan(version, "1.13");
+        this.usesFullscreenOption = !(MCVersionUtil.isOlderThan(version, "1.16") || MCVersionUtil.isNewerThan(version, "1.18.2"));
+        this.lanHasExtraButtons = MCVersionUtil.isNewerThan(version, "1.16.5");
+        this.lanStartTabs = MCVersionUtil.isNewerThan(version, "1.19.2") ? 2 : 1;
         this.stateTracker = new StateTracker(path.resolve("wpstateout.txt"), this::onStateChange, this::onPercentageUpdate);
         this.presser = new KeyPresser(hwnd);
         this.scheduler = new Scheduler();
@@ -67,6 +84,11 @@ public class MinecraftInstance {
     public MinecraftInstance(Path path) {
         this.hwnd = null;
         this.versionString = null;
+        this.resetStrategy = ResetStrategy.CREATE_WORLD_KEY;
+        this.pre113 = false;
+        this.usesFullscreenOption = false;
+        this.lanHasExtraButtons = false;
+        this.lanStartTabs = 1;
         this.presser = null;
         this.scheduler = null;
         this.stateTracker = new StateTracker(path.resolve("wpstateout.txt"), null, null);
@@ -129,12 +151,11 @@ public class MinecraftInstance {
         // Process ID
         this.pid = PidUtil.getPidFromHwnd(this.hwnd);
 
-        boolean pre113 = MCVersionUtil.isOlderThan(this.versionString, "1.13");
         // Keybinds
-        this.gameOptions.createWorldKey = GameOptionsUtil.getKey(this.getPath(), "key_Create New World", pre113);
-        this.gameOptions.leavePreviewKey = GameOptionsUtil.getKey(this.getPath(), "key_Leave Preview", pre113);
-        this.gameOptions.fullscreenKey = GameOptionsUtil.getKey(this.getPath(), "key_key.fullscreen", pre113);
-        this.gameOptions.chatKey = GameOptionsUtil.getKey(this.getPath(), "key_key.chat", pre113);
+        this.gameOptions.createWorldKey = GameOptionsUtil.getKey(this.getPath(), "key_Create New World", this.pre113);
+        this.gameOptions.leavePreviewKey = GameOptionsUtil.getKey(this.getPath(), "key_Leave Preview", this.pre113);
+        this.gameOptions.fullscreenKey = GameOptionsUtil.getKey(this.getPath(), "key_key.fullscreen", this.pre113);
+        this.gameOptions.chatKey = GameOptionsUtil.getKey(this.getPath(), "key_key.chat", this.pre113);
 
         this.gameOptions.pauseOnLostFocus = GameOptionsUtil.tryGetBoolOption(this.getPath(), "pauseOnLostFocus", true);
         this.gameOptions.f1SS = Objects.equals(GameOptionsUtil.getStandardOption(this.getPath(), "f1"), "true");
@@ -249,21 +270,27 @@ public class MinecraftInstance {
         return this.versionString;
     }
 
+    /**
+     * Gets the index of this instance in the instance manager's list, or -1 if it has not been assigned one.
+     * <p>
+     * Prefer {@link xyz.duncanruns.julti.management.InstanceManager#getInstanceIndex(MinecraftInstance)}, which also
+     * handles copies of an instance.
+     */
+    public int getSlot() {
+        return this.slot;
+    }
+
+    /**
+     * Should only be used by InstanceManager.
+     */
+    public void setSlot(int slot) {
+        this.slot = slot;
+    }
+
     public void reset() {
         this.scheduler.clear();
         // Press Reset Keys
-        if (this.stateTracker.isCurrentState(InstanceState.TITLE)) {
-            if (MCVersionUtil.isOlderThan(this.versionString, "1.9")) {
-                this.presser.pressKey(this.gameOptions.createWorldKey); // Thanks pix
-            } else if (this.versionString.equals("1.17.1") || MCVersionUtil.isOlderThan(this.versionString, "1.16")) {
-                this.presser.pressShiftTabEnter();
-            } else {
-                this.presser.pressKey(this.gameOptions.createWorldKey);
-            }
-        } else {
-            this.presser.pressKey(this.gameOptions.leavePreviewKey);
-            this.presser.pressKey(this.gameOptions.createWorldKey);
-        }
+        this.resetStrategy.reset(this.presser, this.gameOptions, this.stateTracker.isCurrentState(InstanceState.TITLE));
 
         // Set values
         this.resetPressed = true;
@@ -509,7 +536,7 @@ public class MinecraftInstance {
 
 
     public boolean isFullscreen() {
-        if (MCVersionUtil.isOlderThan(this.versionString, "1.16") || MCVersionUtil.isNewerThan(this.versionString, "1.18.2")) {
+        if (!this.usesFullscreenOption) {
             return this.activeSinceReset && JultiOptions.getJultiOptions().autoFullscreen && WindowStateUtil.isHwndBorderless(this.hwnd);
         } else {
             return GameOptionsUtil.tryGetBoolOption(this.getPath(), "fullscreen", false);
@@ -703,11 +730,11 @@ public class MinecraftInstance {
         this.presser.pressTab(7);
         this.presser.pressEnter();
         this.presser.pressShiftTab(1);
-        if (MCVersionUtil.isNewerThan(this.versionString, "1.16.5")) {
+        if (this.lanHasExtraButtons) {
             this.presser.pressTab(2);
         }
         this.presser.pressEnter();
-        this.presser.pressTab(MCVersionUtil.isNewerThan(this.versionString, "1.19.2") ? 2 : 1);
+        this.presser.pressTab(this.lanStartTabs);
         this.presser.pressEnter();
         this.openedToLan = true;
     }
@@ -809,6 +836,7 @@ public class MinecraftInstance {
         consumer.accept("pid = " + this.pid);
         consumer.accept("path = " + this.path);
         consumer.accept("versionString = " + this.versionString);
+        consumer.accept("resetStrategy = " + this.resetStrategy);
         consumer.accept("gameOptions = " + this.gameOptions);
         consumer.accept("name = " + this.name);
         consumer.accept("stateTracker = " + this.stateTracker);
@@ -0,0 +1,47 @@
+package xyz.duncanruns.julti.instance;
+
+import xyz.duncanruns.julti.util.MCVersionUtil;
+import xyz.duncanruns.julti.util.VersionUtil.Version;
+
+/**
+ * The keys an instance needs to reset, chosen once from the instance's version so resetting never compares versions.
+ */
+public enum ResetStrategy {
+    /**
+     * Pressing the create world key works on the title screen.
+     */
+    CREATE_WORLD_KEY {
+        @Override
+        void resetFromTitle(KeyPresser presser, GameOptions gameOptions) {
+            presser.pressKey(gameOptions.createWorldKey);
+        }
+    },
+    /**
+     * The create world key does not work on the title screen, the button is selected and pressed instead.
+     */
+    SHIFT_TAB_ENTER {
+        @Override
+        void resetFromTitle(KeyPresser presser, GameOptions gameOptions) {
+            presser.pressShiftTabEnter();
+        }
+    };
+
+    public static ResetStrategy of(String versionString, Version version) {
+        if (MCVersionUtil.isOlderThan(version, "1.9")) {
+            return CREATE_WORLD_KEY; // Thanks pix
+        } else if ("1.17.1".equals(versionString) || MCVersionUtil.isOlderThan(version, "1.16")) {
+            return SHIFT_TAB_ENTER;
+        }
+        return CREATE_WORLD_KEY;
+    }
+
+    abstract void resetFromTitle(KeyPresser presser, GameOptions gameOptions);
+
+    void reset(KeyPresser presser, GameOptions gameOptions, boolean onTitle) {
+        if (onTitle) {
+            this.resetFromTitle(presser, gameOptions);
+        } else {
+            presser.pressKeys(gameOptions.leavePreviewKey, gameOptions.createWorldKey);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import org.apache.logging.log4j.Level;
 import xyz.duncanruns.julti.Julti;
 import xyz.duncanruns.julti.JultiOptions;
 import xyz.duncanruns.julti.instance.InstanceState.InWorldState;
+import xyz.duncanruns.julti.management.ResetTuner;
 import xyz.duncanruns.julti.util.ExceptionUtil;
 import xyz.duncanruns.julti.util.FileUtil;
 
@@ -30,6 +31,8 @@ public class StateTracker {
     private final long[] lastStartArr;
     private final long[] lastOccurrenceArr;
 
+    // Timings of the current preview, given to the reset tuner once the preview ends
+    private GenerationTrace.Builder trace = null;
 
     public StateTracker(Path path, Runnable onStateChange, Runnable onPercentageUpdate) {
         this.path = path;
@@ -84,11 +87,27 @@ public class StateTracker {
                 this.onStateChange.run();
             }
         }
+        if (doOnStateChange) {
+            this.recordTrace(previousState, previousPercentage, time);
+        }
         if (previousPercentage != this.loadingPercent && this.onPercentageUpdate != null && doOnStateChange) {
             this.onPercentageUpdate.run();
         }
     }
 
+    private void recordTrace(InstanceState previousState, byte previousPercentage, long time) {
+        if (this.instanceState == InstanceState.PREVIEWING) {
+            if (previousState != InstanceState.PREVIEWING) {
+                this.trace = new GenerationTrace.Builder(time, this.loadingPercent);
+            } else if (this.trace != null && previousPercentage != this.loadingPercent) {
+                this.trace.add(time, this.loadingPercent);
+            }
+        } else if (this.trace != null) {
+            ResetTuner.getResetTuner().addTrace(this.trace.build(time, this.instanceState == InstanceState.INWORLD));
+            this.trace = null;
+        }
+    }
+
     private boolean trySetStatesFromFile() throws IOException {
         // Read
         String out = FileUtil.readString(this.path);
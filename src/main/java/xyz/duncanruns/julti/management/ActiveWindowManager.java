@@ -5,6 +5,8 @@ import com.sun.jna.platform.win32.Win32VK;
 import com.sun.jna.platform.win32.WinDef;
 import com.sun.jna.platform.win32.WinDef.HWND;
 import com.sun.jna.ptr.IntByReference;
+import org.apache.logging.log4j.Level;
+import xyz.duncanruns.julti.Julti;
 import xyz.duncanruns.julti.JultiOptions;
 import xyz.duncanruns.julti.util.KeyboardUtil;
 import xyz.duncanruns.julti.util.MonitorUtil;
@@ -13,12 +15,29 @@ import xyz.duncanruns.julti.util.WindowTitleUtil;
 import xyz.duncanruns.julti.win32.User32;
 
 import java.awt.*;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
-
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Tracks the foreground window. The active window, its title and whether it is the wall are only re-evaluated when the
+ * foreground window changes, and occasionally in case the window renames itself or wall settings change. Changes are
+ * published to {@link #addForegroundChangeListener(Consumer) listeners} on the main loop.
+ */
 public final class ActiveWindowManager {
+    // Titles are re-read when the foreground window changes, and occasionally in case the window renames itself
+    private static final long TITLE_REFRESH_INTERVAL = 1000;
+    private static final List<Consumer<ForegroundChange>> LISTENERS = new CopyOnWriteArrayList<>();
+
+    private static volatile ForegroundWindowSource source = new PollingForegroundWindowSource();
     private static HWND activeHwnd;
     private static String activeTitle;
+    private static long lastTitleRead = 0;
+    private static boolean wallActive = false;
+    private static volatile boolean wallCheckRequested = false;
+    private static volatile CachedBounds cachedBounds = null;
 
     private static HWND lastWallHwnd;
     private static HWND wallOverride = null;
@@ -26,13 +45,55 @@ public final class ActiveWindowManager {
     private ActiveWindowManager() {
     }
 
+    /**
+     * Switches to a WinEvent hook to track the foreground window, if it can be set.
+     */
+    public static void start() {
+        WinEventForegroundWindowSource hookSource = WinEventForegroundWindowSource.tryStart();
+        if (hookSource == null) {
+            Julti.log(Level.DEBUG, "Could not hook foreground window changes, falling back to polling.");
+            return;
+        }
+        setSource(hookSource);
+    }
+
+    public static void stop() {
+        setSource(new PollingForegroundWindowSource());
+    }
+
+    public static synchronized void setSource(ForegroundWindowSource newSource) {
+        ForegroundWindowSource oldSource = source;
+        source = newSource;
+        oldSource.close();
+    }
+
+    /**
+     * Adds a listener called on the main loop whenever the foreground window changes.
+     */
+    public static void addForegroundChangeListener(Consumer<ForegroundChange> listener) {
+        LISTENERS.add(listener);
+    }
+
+    public static void removeForegroundChangeListener(Consumer<ForegroundChange> listener) {
+        LISTENERS.remove(listener);
+    }
+
     public static void setWallOverride(HWND hwnd) {
         wallOverride = hwnd;
         lastWallHwnd = hwnd;
+        wallCheckRequested = true;
     }
 
     public static void clearWallOverride() {
         wallOverride = null;
+        wallCheckRequested = true;
+    }
+
+    /**
+     * Makes the next {@link #update()} check if the active window is the wall, such as after wall options change.
+     */
+    public static void requestWallCheck() {
+        wallCheckRequested = true;
     }
 
     public static HWND getActiveHwnd() {
@@ -43,7 +104,14 @@ public final class ActiveWindowManager {
         return Objects.equals(hwnd, getActiveHwnd());
     }
 
+    /**
+     * Returns whether the wall was the active window at the last {@link ActiveWindowManager#update()}.
+     */
     public static boolean isWallActive() {
+        return wallActive;
+    }
+
+    private static boolean checkWallActive() {
         if (activeHwnd == null) {
             return false;
         }
@@ -53,21 +121,53 @@ public final class ActiveWindowManager {
         return isWallHwnd(activeHwnd);
     }
 
-    public static void update() {
-        activeHwnd = User32.INSTANCE.GetForegroundWindow();
-        activeTitle = WindowTitleUtil.getHwndTitle(activeHwnd);
-        if (isWallActive()) {
+    /**
+     * @return true if the active window or whether it is the wall changed
+     */
+    public static boolean update() {
+        HWND newActiveHwnd = source.getForegroundWindow();
+        long now = System.currentTimeMillis();
+        boolean changed = !Objects.equals(newActiveHwnd, activeHwnd);
+        if (!changed && !wallCheckRequested && now - lastTitleRead <= TITLE_REFRESH_INTERVAL) {
+            return false;
+        }
+        boolean previousWallActive = wallActive;
+        wallCheckRequested = false;
+        activeTitle = source.getWindowTitle(newActiveHwnd);
+        lastTitleRead = now;
+        HWND previousHwnd = activeHwnd;
+        activeHwnd = newActiveHwnd;
+        wallActive = checkWallActive();
+        if (wallActive) {
             lastWallHwnd = activeHwnd;
         }
+        if (changed) {
+            // Moves of windows in the background are not tracked
+            cachedBounds = null;
+            long changeTime = source.getLastChangeTime();
+            ForegroundChange change = new ForegroundChange(previousHwnd, activeHwnd, activeTitle, wallActive, changeTime == 0 ? now : changeTime);
+            for (Consumer<ForegroundChange> listener : LISTENERS) {
+                listener.accept(change);
+            }
+        }
+        return changed || wallActive != previousWallActive;
     }
 
     public static Rectangle getActiveWindowBounds() {
-        if (activeHwnd == null) {
+        HWND hwnd = activeHwnd;
+        if (hwnd == null) {
             return MonitorUtil.getPrimaryMonitor().bounds;
         }
-        WinDef.RECT rect = new WinDef.RECT();
-        User32.INSTANCE.GetWindowRect(activeHwnd, rect);
-        return new Rectangle(rect.left, rect.top, rect.right - rect.left, rect.bottom - rect.top);
+        // Bounds are cached until the window changes, moves or is resized, if the source tracks moves
+        long moveCount = source.getForegroundMoveCount();
+        CachedBounds cached = cachedBounds;
+        if (moveCount == -1 || cached == null || cached.moveCount != moveCount || !hwnd.equals(cached.hwnd)) {
+            WinDef.RECT rect = new WinDef.RECT();
+            User32.INSTANCE.GetWindowRect(hwnd, rect);
+            cached = new CachedBounds(hwnd, moveCount, new Rectangle(rect.left, rect.top, rect.right - rect.left, rect.bottom - rect.top));
+            cachedBounds = cached;
+        }
+        return new Rectangle(cached.bounds);
     }
 
     public static boolean isWallHwnd(HWND hwnd) {
@@ -75,7 +175,7 @@ public final class ActiveWindowManager {
             return true;
         }
         if (JultiOptions.getJultiOptions().useCustomWallWindow) {
-            return WindowTitleUtil.isWallTitle(hwnd == activeHwnd ? activeTitle : WindowTitleUtil.getHwndTitle(hwnd));
+            return WindowTitleUtil.isWallTitle(Objects.equals(hwnd, activeHwnd) ? activeTitle : source.getWindowTitle(hwnd));
         } else {
             return WindowStateUtil.isOBSProjector(hwnd);
         }
@@ -104,4 +204,16 @@ public final class ActiveWindowManager {
             User32.INSTANCE.AttachThreadInput(new WinDef.DWORD(currentlyFocusedWindowProcessId), new WinDef.DWORD(appThread), false);
         }
     }
+
+    private static class CachedBounds {
+        private final HWND hwnd;
+        private final long moveCount;
+        private final Rectangle bounds;
+
+        private CachedBounds(HWND hwnd, long moveCount, Rectangle bounds) {
+            this.hwnd = hwnd;
+            this.moveCount = moveCount;
+            this.bounds = bounds;
+        }
+    }
 }
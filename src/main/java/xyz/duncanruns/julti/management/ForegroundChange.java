@@ -0,0 +1,23 @@
+package xyz.duncanruns.julti.management;
+
+import com.sun.jna.platform.win32.WinDef.HWND;
+
+/**
+ * A change of the foreground window, published by {@link ActiveWindowManager} on the main loop.
+ */
+public final class ForegroundChange {
+    public final HWND previousHwnd;
+    public final HWND hwnd;
+    public final String title;
+    public final boolean wallActive;
+    // When the change was seen, in milliseconds since the epoch
+    public final long time;
+
+    ForegroundChange(HWND previousHwnd, HWND hwnd, String title, boolean wallActive, long time) {
+        this.previousHwnd = previousHwnd;
+        this.hwnd = hwnd;
+        this.title = title;
+        this.wallActive = wallActive;
+        this.time = time;
+    }
+}
@@ -0,0 +1,39 @@
+package xyz.duncanruns.julti.management;
+
+import com.sun.jna.platform.win32.WinDef.HWND;
+import xyz.duncanruns.julti.util.WindowTitleUtil;
+
+/**
+ * Where {@link ActiveWindowManager} gets the foreground window from.
+ */
+public interface ForegroundWindowSource {
+    /**
+     * Gets the current foreground window. This is called every main loop tick, so it should be cheap.
+     */
+    HWND getForegroundWindow();
+
+    /**
+     * @return the time in milliseconds at which the foreground window was last seen changing, or 0 if it is not known
+     */
+    default long getLastChangeTime() {
+        return 0;
+    }
+
+    /**
+     * @return a number that changes whenever the foreground window moves or is resized, or -1 if this is not tracked
+     */
+    default long getForegroundMoveCount() {
+        return -1;
+    }
+
+    /**
+     * Gets the title of a window. The title of the foreground window is only read when it changes, and occasionally in
+     * case it renames itself.
+     */
+    default String getWindowTitle(HWND hwnd) {
+        return WindowTitleUtil.getHwndTitle(hwnd);
+    }
+
+    default void close() {
+    }
+}
@@ -7,6 +7,7 @@ import xyz.duncanruns.julti.instance.InstanceState;
 import xyz.duncanruns.julti.instance.MinecraftInstance;
 import xyz.duncanruns.julti.plugin.PluginEvents;
 import xyz.duncanruns.julti.resetting.ResetHelper;
+import xyz.duncanruns.julti.resetting.ResetManager;
 import xyz.duncanruns.julti.util.DoAllFastUtil;
 import xyz.duncanruns.julti.util.MouseUtil;
 import xyz.duncanruns.julti.util.SleepBGUtil;
@@ -14,11 +15,10 @@ import xyz.duncanruns.julti.win32.User32;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static xyz.duncanruns.julti.util.SleepUtil.sleep;
@@ -28,6 +28,10 @@ public final class InstanceManager {
     private final ArrayList<MinecraftInstance> instances = new ArrayList<>();
 
     private boolean instancesMissing = true;
+    private volatile WorldSnapshot snapshot = WorldSnapshot.EMPTY;
+    private final List<Consumer<WorldSnapshot>> snapshotListeners = new CopyOnWriteArrayList<>();
+    // Incremented every time slots are reassigned, so slot-indexed caches know when to rebuild
+    private volatile int slotGeneration = 0;
 
     private InstanceManager() {
     }
@@ -36,6 +40,10 @@ public final class InstanceManager {
         return INSTANCE;
     }
 
+    /**
+     * Gets the live instance list, which is changed by the main loop. Other threads should use the instances of
+     * {@link InstanceManager#getSnapshot()} instead.
+     */
     public List<MinecraftInstance> getInstances() {
         return this.instances;
     }
@@ -61,6 +69,9 @@ public final class InstanceManager {
             // Look through the potential replacements, if any match the path, replace Julti's instance with it
             replacements.stream().filter(instance -> instance.getPath().equals(path)).findAny().ifPresent(instance -> {
                 this.instances.set(finalI, instance);
+                instance.setSlot(finalI);
+                // The old instance object no longer has a slot, anything cached by slot has to be rebuilt
+                this.slotGeneration++;
                 instance.discoverInformation();
                 instancesFound.set(true);
                 Julti.log(Level.INFO, "Found instance: " + instance.getName());
@@ -73,6 +84,7 @@ public final class InstanceManager {
 
         // Recheck missing instances
         this.checkInstancesMarkedMissing();
+        this.refreshSnapshot();
     }
 
     private void onAllInstancesFound() {
@@ -129,13 +141,47 @@ public final class InstanceManager {
         return this.instancesMissing;
     }
 
+    /**
+     * Gets the instance whose window was active at the last snapshot, which is refreshed as soon as the active window
+     * changes.
+     */
     public MinecraftInstance getSelectedInstance() {
-        for (MinecraftInstance instance : this.getInstances()) {
-            if (ActiveWindowManager.isWindowActive(instance.getHwnd())) {
-                return instance;
-            }
+        return this.snapshot.getSelectedInstance();
+    }
+
+    /**
+     * Captures and publishes a new {@link WorldSnapshot}, then notifies snapshot listeners. Nothing is published if the
+     * state is the same as in the last snapshot. Should only be called by the main loop.
+     */
+    public void refreshSnapshot() {
+        ResetManager resetManager = ResetHelper.getManager();
+        if (this.snapshot.matches(this.instances, resetManager::isLocked)) {
+            return;
         }
-        return null;
+        WorldSnapshot snapshot = WorldSnapshot.capture(this.instances, resetManager::isLocked);
+        this.snapshot = snapshot;
+        for (Consumer<WorldSnapshot> listener : this.snapshotListeners) {
+            listener.accept(snapshot);
+        }
+    }
+
+    /**
+     * Adds a listener called on the main loop every time a snapshot with changes is published. Listeners should be
+     * quick and hand off any work to their own threads.
+     */
+    public void addSnapshotListener(Consumer<WorldSnapshot> listener) {
+        this.snapshotListeners.add(listener);
+    }
+
+    public void removeSnapshotListener(Consumer<WorldSnapshot> listener) {
+        this.snapshotListeners.remove(listener);
+    }
+
+    /**
+     * Gets the latest published {@link WorldSnapshot}, this is safe to call from any thread.
+     */
+    public WorldSnapshot getSnapshot() {
+        return this.snapshot;
     }
 
     public int getSize() {
@@ -146,10 +192,45 @@ public final class InstanceManager {
         return this.getInstanceIndex(instance) + 1;
     }
 
+    /**
+     * Gets the index of an instance in O(1) using its assigned slot, falling back to a path based search for copies or
+     * instances from an older list.
+     *
+     * @return the index of the instance, or -1 if it is not in the list
+     */
     public int getInstanceIndex(MinecraftInstance instance) {
+        if (instance == null) {
+            return -1;
+        }
+        int slot = instance.getSlot();
+        if (slot >= 0 && slot < this.instances.size() && this.instances.get(slot) == instance) {
+            return slot;
+        }
         return this.instances.indexOf(instance);
     }
 
+    /**
+     * Gets the instance at an index, or null if the index is out of bounds.
+     */
+    public MinecraftInstance getInstance(int index) {
+        return index < 0 || index >= this.instances.size() ? null : this.instances.get(index);
+    }
+
+    /**
+     * Gets a number that changes every time instance slots are reassigned. Caches indexed by slot should be rebuilt
+     * when this changes.
+     */
+    public int getSlotGeneration() {
+        return this.slotGeneration;
+    }
+
+    private void reassignSlots() {
+        for (int i = 0; i < this.instances.size(); i++) {
+            this.instances.get(i).setSlot(i);
+        }
+        this.slotGeneration++;
+    }
+
     public void renameWindows() {
         if (JultiOptions.getJultiOptions().preventWindowNaming) {
             return;
@@ -167,8 +248,10 @@ public final class InstanceManager {
             Julti.log(Level.WARN, "An instance not found in the instances list was requested to be removed! Likely a GUI desync.");
         }
         this.instances.remove(instance);
+        this.reassignSlots();
         this.saveInstances();
         ResetHelper.getManager().reload();
+        this.refreshSnapshot();
     }
 
     public void saveInstances() {
@@ -178,6 +261,26 @@ public final class InstanceManager {
     public void loadInstances() {
         this.instances.clear();
         JultiOptions.getJultiOptions().instancePaths.forEach(pathString -> this.instances.add(new MinecraftInstance(Paths.get(pathString))));
+        this.reassignSlots();
+        this.refreshSnapshot();
+    }
+
+    /**
+     * Loads the instance paths of a newly selected profile, keeping the existing instance objects (and their windows and
+     * state) for paths that were already loaded.
+     */
+    public void onInstancePathsChange() {
+        Map<Path, MinecraftInstance> existingInstances = new HashMap<>();
+        this.instances.forEach(instance -> existingInstances.put(instance.getPath(), instance));
+        this.instances.clear();
+        JultiOptions.getJultiOptions().instancePaths.forEach(pathString -> {
+            Path path = Paths.get(pathString);
+            MinecraftInstance instance = existingInstances.remove(path);
+            this.instances.add(instance == null ? new MinecraftInstance(path) : instance);
+        });
+        this.reassignSlots();
+        this.refreshSnapshot();
+        this.checkOpenedInstances();
     }
 
     public void redetectInstances() {
@@ -188,8 +291,10 @@ public final class InstanceManager {
         Julti.log(Level.DEBUG, "Added instances");
         this.instances.sort(Comparator.comparingInt(MinecraftInstance::getNameSortingNum));
         Julti.log(Level.DEBUG, "Sorted instances");
+        this.reassignSlots();
         this.saveInstances();
         Julti.log(Level.DEBUG, "Saved instances");
+        this.refreshSnapshot();
         this.onAllInstancesFound();
     }
 
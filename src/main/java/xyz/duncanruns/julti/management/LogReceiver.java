@@ -4,20 +4,31 @@ import org.apache.logging.log4j.Level;
 import xyz.duncanruns.julti.JultiOptions;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.function.Consumer;
 
 public final class LogReceiver {
     private static final ExecutorService receiverQueue = Executors.newSingleThreadExecutor();
+    // Messages logged before the consumer is set, such as during startup, are kept until it is
+    private static final int MAX_BACKLOG = 500;
+    private static final List<String> backlog = new ArrayList<>();
     private static Consumer<String> logConsumer = null;
 
     private LogReceiver() {
     }
 
     public static void setLogConsumer(Consumer<String> consumer) {
-        logConsumer = consumer;
+        receiverQueue.execute(() -> {
+            logConsumer = consumer;
+            if (consumer != null) {
+                backlog.forEach(consumer);
+                backlog.clear();
+            }
+        });
     }
 
     public static void receive(Level level, String message) {
@@ -25,8 +36,11 @@ public final class LogReceiver {
             if (level.equals(Level.DEBUG) && !JultiOptions.getJultiOptions().showDebug) {
                 return;
             }
+            String line = "[" + getTimeString() + "/" + level.name() + "] " + message;
             if (logConsumer != null) {
-                logConsumer.accept("[" + getTimeString() + "/" + level.name() + "] " + message);
+                logConsumer.accept(line);
+            } else if (backlog.size() < MAX_BACKLOG) {
+                backlog.add(line);
             }
         });
     }
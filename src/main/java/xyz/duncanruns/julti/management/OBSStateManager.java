@@ -24,6 +24,8 @@ public class OBSStateManager {
     private String currentLocation = "W";
 
     private String lastOut = "";
+    private String lastLocationOut = "";
+    private final StringBuilder out = new StringBuilder();
 
     public static OBSStateManager getOBSStateManager() {
         return INSTANCE;
@@ -31,11 +33,15 @@ public class OBSStateManager {
 
     private static String obsOptionsToStateSection() {
         JultiOptions options = JultiOptions.getJultiOptions();
-        int flags = (options.showInstanceIndicators ? 4 : 0)
-                + (options.centerAlignActiveInstance ? 2 : 0)
-                + (options.invisibleDirtCovers ? 1 : 0);
+        return obsOptionsToStateSection(options.showInstanceIndicators, options.centerAlignActiveInstance, options.invisibleDirtCovers, options.centerAlignScaleX, options.centerAlignScaleY);
+    }
+
+    static String obsOptionsToStateSection(boolean showInstanceIndicators, boolean centerAlignActiveInstance, boolean invisibleDirtCovers, float centerAlignScaleX, float centerAlignScaleY) {
+        int flags = (showInstanceIndicators ? 4 : 0)
+                + (centerAlignActiveInstance ? 2 : 0)
+                + (invisibleDirtCovers ? 1 : 0);
 
-        return String.format("%d,%s,%s", flags, formatAlignScale(options.centerAlignScaleX), formatAlignScale(options.centerAlignScaleY));
+        return String.format("%d,%s,%s", flags, formatAlignScale(centerAlignScaleX), formatAlignScale(centerAlignScaleY));
     }
 
     public static String formatAlignScale(float f) {
@@ -43,45 +49,62 @@ public class OBSStateManager {
         return String.format("%.3f", f).replace(",", ".").replaceAll("(\\.\\d+?)(0+$)", "$1");
     }
 
-    private static int instanceToStateInt(List<MinecraftInstance> lockedInstances, MinecraftInstance instance) {
+    private static int instanceToStateInt(boolean locked, MinecraftInstance instance) {
         JultiOptions options = JultiOptions.getJultiOptions();
+        return instanceToStateInt(locked, options.doDirtCovers && instance.shouldCoverWithDirt(), options.useFreezeFilter && instance.shouldFreeze());
+    }
 
+    static int instanceToStateInt(boolean locked, boolean dirtCover, boolean freezeFilter) {
         // Instance state flags starting from the least significant bit
-        return (lockedInstances.contains(instance) ? 1 : 0)                         // Locked
-                + (options.doDirtCovers && instance.shouldCoverWithDirt() ? 2 : 0)  // Dirt Cover
-                + ((options.useFreezeFilter && instance.shouldFreeze()) ? 4 : 0);   // Freeze Filter
+        return (locked ? 1 : 0)             // Locked
+                + (dirtCover ? 2 : 0)       // Dirt Cover
+                + (freezeFilter ? 4 : 0);   // Freeze Filter
+    }
+
+    /**
+     * Appends the data of one instance, the state file is read by julti-obs-link.lua.
+     */
+    static void appendInstanceState(StringBuilder out, int stateInt, Rectangle position) {
+        out.append(";")
+                .append(stateInt)
+                .append(",")
+                .append(position.x)
+                .append(",")
+                .append(position.y)
+                .append(",")
+                .append(position.width)
+                .append(",")
+                .append(position.height);
     }
 
     public void tryOutputState() {
         JultiOptions options = JultiOptions.getJultiOptions();
         try {
             // State format: location;[options int];[instance data];[instance data];[instance data];...
-            StringBuilder out = new StringBuilder(this.currentLocation + ";" + obsOptionsToStateSection());
+            StringBuilder out = this.out;
+            out.setLength(0);
+            out.append(this.currentLocation).append(';').append(obsOptionsToStateSection());
             //(lockedInstances.contains(instance) ? 1 : 0) + (resetManager.shouldDirtCover(instance) ? 2 : 0)
             Dimension size = this.getOBSSceneSize();
             if (size == null) {
                 size = new Dimension(options.playingWindowSize[0], options.playingWindowSize[1]);
             }
-            List<MinecraftInstance> lockedInstances = ResetHelper.getManager().getLockedInstances();
-            for (MinecraftInstance instance : InstanceManager.getInstanceManager().getInstances()) {
+            WorldSnapshot snapshot = InstanceManager.getInstanceManager().getSnapshot();
+            List<MinecraftInstance> instances = snapshot.getInstances();
+            for (int i = 0; i < instances.size(); i++) {
+                MinecraftInstance instance = instances.get(i);
                 Rectangle instancePos = ResetHelper.getManager().getInstancePosition(instance, size);
                 instancePos = new Rectangle(instancePos.x + options.instanceSpacing, instancePos.y + options.instanceSpacing, instancePos.width - (2 * options.instanceSpacing), instancePos.height - (2 * options.instanceSpacing));
-                out.append(";")
-                        .append(instanceToStateInt(lockedInstances, instance))
-                        .append(",")
-                        .append(instancePos.x)
-                        .append(",")
-                        .append(instancePos.y)
-                        .append(",")
-                        .append(instancePos.width)
-                        .append(",")
-                        .append(instancePos.height);
+                appendInstanceState(out, instanceToStateInt(snapshot.isLocked(i), instance), instancePos);
             }
-            String outString = out.toString();
-            if (!outString.equals(this.lastOut)) {
-                this.lastOut = outString;
-                FileUtil.writeString(STATE_OUT_PATH, outString);
-                FileUtil.writeString(CURRENT_LOCATION_OUT_PATH, this.currentLocation);
+            // Compare before creating a string, the state is usually unchanged
+            if (!this.lastOut.contentEquals(out)) {
+                this.lastOut = out.toString();
+                FileUtil.writeString(STATE_OUT_PATH, this.lastOut);
+                if (!this.currentLocation.equals(this.lastLocationOut)) {
+                    this.lastLocationOut = this.currentLocation;
+                    FileUtil.writeString(CURRENT_LOCATION_OUT_PATH, this.currentLocation);
+                }
             }
         } catch (Exception e) {
             throw new RuntimeException(e);
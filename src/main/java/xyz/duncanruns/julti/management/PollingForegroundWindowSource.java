@@ -0,0 +1,14 @@
+package xyz.duncanruns.julti.management;
+
+import com.sun.jna.platform.win32.WinDef.HWND;
+import xyz.duncanruns.julti.win32.User32;
+
+/**
+ * Asks Windows for the foreground window every time it is needed.
+ */
+final class PollingForegroundWindowSource implements ForegroundWindowSource {
+    @Override
+    public HWND getForegroundWindow() {
+        return User32.INSTANCE.GetForegroundWindow();
+    }
+}
@@ -0,0 +1,259 @@
+package xyz.duncanruns.julti.management;
+
+import com.google.gson.Gson;
+import org.apache.logging.log4j.Level;
+import xyz.duncanruns.julti.Julti;
+import xyz.duncanruns.julti.JultiOptions;
+import xyz.duncanruns.julti.instance.GenerationTrace;
+import xyz.duncanruns.julti.util.ExceptionUtil;
+import xyz.duncanruns.julti.util.FileUtil;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Recommends the reset cooldown and freeze filter percent from the world previews seen on this machine.
+ * <p>
+ * The reset cooldown should cover the time a preview takes to show any progress, resetting an instance before that
+ * means resetting based on an empty preview. The freeze filter should activate shortly before the world loads, as the
+ * sky bug shows up at the end of loading, so the recommended freeze percent is the percentage most previews reach
+ * {@link #FREEZE_LEAD_MS} before their world loads.
+ * <p>
+ * Statistics are rolling and kept in .Julti/resettuning.json, as they depend on the machine rather than the profile.
+ * Recommendations are only applied if the autoTuneResetOptions option is enabled, and then only gradually and within
+ * safe bounds, otherwise they can be seen with the "tuning" command.
+ */
+public final class ResetTuner {
+    private static final Gson GSON = new Gson();
+    private static final Path DATA_PATH = JultiOptions.getJultiDir().resolve("resettuning.json").toAbsolutePath();
+
+    private static final int ROLLING_SAMPLES = 200;
+    private static final int MIN_SAMPLES = 20;
+    private static final long FREEZE_LEAD_MS = 250;
+    private static final long MIN_COOLDOWN = 50;
+    private static final long MAX_COOLDOWN = 400;
+    private static final int MIN_FREEZE_PERCENT = 50;
+    private static final int MAX_FREEZE_PERCENT = 95;
+    // Auto-tuning only moves each option by this much per interval, so a burst of odd previews can't swing it
+    private static final long AUTO_TUNE_INTERVAL_MS = 60_000;
+    private static final long MAX_COOLDOWN_STEP = 25;
+    private static final int MAX_FREEZE_PERCENT_STEP = 5;
+    // Created after the constants above, as loading the data uses them
+    private static final ResetTuner INSTANCE = new ResetTuner();
+
+    private final Deque<Long> previewLatencies = new ArrayDeque<>();
+    private final Deque<Integer> freezePercents = new ArrayDeque<>();
+    private long lastAutoTune = System.currentTimeMillis();
+    private boolean changed = false;
+
+    private ResetTuner() {
+        this.load();
+    }
+
+    public static ResetTuner getResetTuner() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return the time a preview took to show any progress, or -1 if it never did
+     */
+    public static long getPreviewLatency(GenerationTrace trace) {
+        byte startPercent = trace.getSamplePercent(0);
+        for (int i = 1; i < trace.getSampleCount(); i++) {
+            if (trace.getSamplePercent(i) > startPercent) {
+                return trace.getSampleTime(i) - trace.getPreviewStart();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the loading percentage reached {@link #FREEZE_LEAD_MS} before the world loaded, or -1 if the preview was
+     * reset or was too short to tell
+     */
+    public static int getFreezeCandidate(GenerationTrace trace) {
+        long cutoff = trace.getEndTime() - FREEZE_LEAD_MS;
+        if (!trace.isLoaded() || cutoff < trace.getPreviewStart()) {
+            return -1;
+        }
+        int percent = -1;
+        for (int i = 0; i < trace.getSampleCount() && trace.getSampleTime(i) <= cutoff; i++) {
+            percent = trace.getSamplePercent(i);
+        }
+        return percent;
+    }
+
+    /**
+     * Calculates recommendations from samples, values without enough samples stay at their current value.
+     */
+    public static Recommendation recommend(Collection<Long> previewLatencies, Collection<Integer> freezePercents, long currentCooldown, int currentFreezePercent) {
+        long cooldown = currentCooldown;
+        long latencyMedian = -1;
+        long latencyP75 = -1;
+        if (previewLatencies.size() >= MIN_SAMPLES) {
+            latencyMedian = percentile(previewLatencies, 0.5);
+            latencyP75 = percentile(previewLatencies, 0.75);
+            cooldown = Math.max(MIN_COOLDOWN, Math.min(MAX_COOLDOWN, latencyP75));
+        }
+        int freezePercent = currentFreezePercent;
+        int freezeMedian = -1;
+        int freezeP25 = -1;
+        if (freezePercents.size() >= MIN_SAMPLES) {
+            freezeMedian = percentile(freezePercents, 0.5);
+            freezeP25 = percentile(freezePercents, 0.25);
+            freezePercent = Math.max(MIN_FREEZE_PERCENT, Math.min(MAX_FREEZE_PERCENT, freezeP25));
+        }
+        return new Recommendation(cooldown, freezePercent, previewLatencies.size(), latencyMedian, latencyP75, freezePercents.size(), freezeMedian, freezeP25);
+    }
+
+    private static <T extends Comparable<T>> T percentile(Collection<T> values, double p) {
+        List<T> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return sorted.get(Math.max(0, (int) Math.ceil(p * sorted.size()) - 1));
+    }
+
+    private static long step(long current, long target, long maxStep) {
+        return current + Math.max(-maxStep, Math.min(maxStep, target - current));
+    }
+
+    public synchronized void addTrace(GenerationTrace trace) {
+        long latency = getPreviewLatency(trace);
+        if (latency >= 0) {
+            addSample(this.previewLatencies, latency);
+        }
+        int freezeCandidate = getFreezeCandidate(trace);
+        if (freezeCandidate >= 0) {
+            addSample(this.freezePercents, freezeCandidate);
+        }
+        this.changed |= latency >= 0 || freezeCandidate >= 0;
+
+        long now = System.currentTimeMillis();
+        if (now - this.lastAutoTune > AUTO_TUNE_INTERVAL_MS && JultiOptions.getJultiOptions().autoTuneResetOptions) {
+            this.lastAutoTune = now;
+            Julti.doLater(() -> this.apply(false));
+        }
+    }
+
+    private static <T> void addSample(Deque<T> samples, T sample) {
+        samples.addLast(sample);
+        while (samples.size() > ROLLING_SAMPLES) {
+            samples.removeFirst();
+        }
+    }
+
+    public synchronized Recommendation getRecommendation() {
+        JultiOptions options = JultiOptions.getJultiOptions();
+        return recommend(this.previewLatencies, this.freezePercents, options.wallResetCooldown, options.freezePercent);
+    }
+
+    /**
+     * Applies the current recommendation to the options. Should be run on the main thread.
+     *
+     * @param immediately if the recommendation should be applied fully instead of moving a limited step towards it
+     */
+    public void apply(boolean immediately) {
+        JultiOptions options = JultiOptions.getJultiOptions();
+        Recommendation recommendation = this.getRecommendation();
+        long cooldown = immediately ? recommendation.cooldown : step(options.wallResetCooldown, recommendation.cooldown, MAX_COOLDOWN_STEP);
+        int freezePercent = immediately ? recommendation.freezePercent : (int) step(options.freezePercent, recommendation.freezePercent, MAX_FREEZE_PERCENT_STEP);
+
+        if (cooldown != options.wallResetCooldown) {
+            Julti.log(Level.INFO, "Reset tuner: changing reset cooldown from " + options.wallResetCooldown + "ms to " + cooldown + "ms.");
+            options.trySetValue("wallResetCooldown", cooldown);
+        }
+        if (freezePercent != options.freezePercent) {
+            Julti.log(Level.INFO, "Reset tuner: changing freeze filter percent from " + options.freezePercent + "% to " + freezePercent + "%.");
+            options.trySetValue("freezePercent", freezePercent);
+        }
+    }
+
+    public synchronized void clear() {
+        this.previewLatencies.clear();
+        this.freezePercents.clear();
+        this.changed = true;
+    }
+
+    private void load() {
+        if (!Files.isRegularFile(DATA_PATH)) {
+            return;
+        }
+        try {
+            TuningData data = GSON.fromJson(FileUtil.readString(DATA_PATH), TuningData.class);
+            if (data == null) {
+                return;
+            }
+            if (data.previewLatencies != null) {
+                data.previewLatencies.forEach(l -> addSample(this.previewLatencies, l));
+            }
+            if (data.freezePercents != null) {
+                data.freezePercents.forEach(p -> addSample(this.freezePercents, p));
+            }
+        } catch (Exception e) {
+            Julti.log(Level.DEBUG, "Failed to read reset tuning data: " + ExceptionUtil.toDetailedString(e));
+        }
+    }
+
+    public synchronized void save() {
+        if (!this.changed) {
+            return;
+        }
+        try {
+            FileUtil.writeStringAtomically(DATA_PATH, GSON.toJson(new TuningData(new ArrayList<>(this.previewLatencies), new ArrayList<>(this.freezePercents))));
+            this.changed = false;
+        } catch (Exception e) {
+            Julti.log(Level.DEBUG, "Failed to save reset tuning data: " + ExceptionUtil.toDetailedString(e));
+        }
+    }
+
+    private static class TuningData {
+        private final List<Long> previewLatencies;
+        private final List<Integer> freezePercents;
+
+        private TuningData(List<Long> previewLatencies, List<Integer> freezePercents) {
+            this.previewLatencies = previewLatencies;
+            this.freezePercents = freezePercents;
+        }
+    }
+
+    public static final class Recommendation {
+        public final long cooldown;
+        public final int freezePercent;
+        private final int latencySamples;
+        private final long latencyMedian;
+        private final long latencyP75;
+        private final int freezeSamples;
+        private final int freezeMedian;
+        private final int freezeP25;
+
+        private Recommendation(long cooldown, int freezePercent, int latencySamples, long latencyMedian, long latencyP75, int freezeSamples, int freezeMedian, int freezeP25) {
+            this.cooldown = cooldown;
+            this.freezePercent = freezePercent;
+            this.latencySamples = latencySamples;
+            this.latencyMedian = latencyMedian;
+            this.latencyP75 = latencyP75;
+            this.freezeSamples = freezeSamples;
+            this.freezeMedian = freezeMedian;
+            this.freezeP25 = freezeP25;
+        }
+
+        /**
+         * @return a readable report of the statistics behind this recommendation
+         */
+        public String toReport(long currentCooldown, int currentFreezePercent) {
+            StringBuilder report = new StringBuilder();
+            if (this.latencySamples < MIN_SAMPLES) {
+                report.append("Reset cooldown: ").append(this.latencySamples).append('/').append(MIN_SAMPLES).append(" previews measured, keeping ").append(currentCooldown).append("ms");
+            } else {
+                report.append("Reset cooldown: previews show progress after ").append(this.latencyMedian).append("ms (median), ").append(this.latencyP75).append("ms (75th percentile) over ").append(this.latencySamples).append(" previews, recommended ").append(this.cooldown).append("ms (current ").append(currentCooldown).append("ms)");
+            }
+            report.append('\n');
+            if (this.freezeSamples < MIN_SAMPLES) {
+                report.append("Freeze percent: ").append(this.freezeSamples).append('/').append(MIN_SAMPLES).append(" loaded worlds measured, keeping ").append(currentFreezePercent).append('%');
+            } else {
+                report.append("Freeze percent: previews reach ").append(this.freezeMedian).append("% (median), ").append(this.freezeP25).append("% (25th percentile) ").append(FREEZE_LEAD_MS).append("ms before loading over ").append(this.freezeSamples).append(" worlds, recommended ").append(this.freezePercent).append("% (current ").append(currentFreezePercent).append("%)");
+            }
+            return report.toString();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package xyz.duncanruns.julti.management;
+
+import com.sun.jna.platform.win32.Kernel32;
+import com.sun.jna.platform.win32.WinDef;
+import com.sun.jna.platform.win32.WinDef.HWND;
+import com.sun.jna.platform.win32.WinNT;
+import com.sun.jna.platform.win32.WinUser;
+import com.sun.jna.ptr.IntByReference;
+import xyz.duncanruns.julti.win32.User32;
+
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps track of the foreground window with a WinEvent hook, so reading it is just reading a field.
+ * <p>
+ * The hooks are owned by their own thread running a message loop. The foreground window is still asked for
+ * occasionally in case an event was missed. Moves and resizes of the foreground window are counted so its bounds can be
+ * cached. The location hook only covers the thread owning the foreground window and is set again whenever the
+ * foreground changes, as location changes are sent for every caret and cursor movement.
+ */
+final class WinEventForegroundWindowSource implements ForegroundWindowSource {
+    private static final int EVENT_SYSTEM_FOREGROUND = 0x0003;
+    private static final int EVENT_OBJECT_LOCATIONCHANGE = 0x800B;
+    private static final int OBJID_WINDOW = 0;
+    private static final int WINEVENT_OUTOFCONTEXT = 0x0000;
+    // Posted to the hook thread to set the location hook again after the foreground window was corrected
+    private static final int WM_REHOOK_LOCATION = WinUser.WM_USER + 1;
+    private static final long RESYNC_INTERVAL = 1000;
+
+    // Kept in a field so the callback is not garbage collected while the hook exists
+    private final WinUser.WinEventProc callback = this::onEvent;
+    private final WinUser.WinEventProc locationCallback = this::onLocationEvent;
+    private final CountDownLatch started = new CountDownLatch(1);
+
+    private volatile HWND foregroundHwnd = User32.INSTANCE.GetForegroundWindow();
+    private volatile long lastChangeTime = System.currentTimeMillis();
+    private volatile long moveCount = 0;
+    // The window whose thread the location hook covers, null if its moves are not tracked
+    private volatile HWND trackedHwnd = null;
+    private volatile boolean hooked = false;
+    private volatile int threadId = 0;
+    private long lastResync = 0;
+    // Only used by the hook thread
+    private WinNT.HANDLE locationHook = null;
+
+    private WinEventForegroundWindowSource() {
+    }
+
+    /**
+     * @return a started source, or null if the hook could not be set
+     */
+    static WinEventForegroundWindowSource tryStart() {
+        WinEventForegroundWindowSource source = new WinEventForegroundWindowSource();
+        Thread thread = new Thread(source::run, "foreground-hook");
+        thread.setDaemon(true);
+        thread.start();
+        try {
+            source.started.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!source.hooked) {
+            source.close();
+            return null;
+        }
+        return source;
+    }
+
+    private void run() {
+        this.threadId = Kernel32.INSTANCE.GetCurrentThreadId();
+        WinNT.HANDLE hook = User32.INSTANCE.SetWinEventHook(EVENT_SYSTEM_FOREGROUND, EVENT_SYSTEM_FOREGROUND, null, this.callback, 0, 0, WINEVENT_OUTOFCONTEXT);
+        this.hooked = hook != null;
+        if (hook == null) {
+            this.started.countDown();
+            return;
+        }
+        this.hookLocationChanges(this.foregroundHwnd);
+        this.started.countDown();
+        WinUser.MSG msg = new WinUser.MSG();
+        while (User32.INSTANCE.GetMessage(msg, null, 0, 0) > 0) {
+            if (msg.hWnd == null && msg.message == WM_REHOOK_LOCATION) {
+                this.hookLocationChanges(this.foregroundHwnd);
+                continue;
+            }
+            User32.INSTANCE.TranslateMessage(msg);
+            User32.INSTANCE.DispatchMessage(msg);
+        }
+        User32.INSTANCE.UnhookWinEvent(hook);
+        this.hookLocationChanges(null);
+    }
+
+    /**
+     * Moves the location hook to the thread owning the window, or removes it if the window is null. Without the hook,
+     * moves are simply not tracked and window bounds are read every time. Must be called on the hook thread.
+     */
+    private void hookLocationChanges(HWND hwnd) {
+        this.trackedHwnd = null;
+        if (this.locationHook != null) {
+            User32.INSTANCE.UnhookWinEvent(this.locationHook);
+            this.locationHook = null;
+        }
+        if (hwnd == null) {
+            return;
+        }
+        IntByReference processId = new IntByReference(0);
+        int windowThreadId = User32.INSTANCE.GetWindowThreadProcessId(hwnd, processId);
+        if (windowThreadId == 0) {
+            return;
+        }
+        this.locationHook = User32.INSTANCE.SetWinEventHook(EVENT_OBJECT_LOCATIONCHANGE, EVENT_OBJECT_LOCATIONCHANGE, null, this.locationCallback, processId.getValue(), windowThreadId, WINEVENT_OUTOFCONTEXT);
+        if (this.locationHook != null) {
+            // Moves made while the window was not tracked were missed
+            this.moveCount++;
+            this.trackedHwnd = hwnd;
+        }
+    }
+
+    private void onEvent(WinNT.HANDLE hook, WinDef.DWORD event, HWND hwnd, WinDef.LONG idObject, WinDef.LONG idChild, WinDef.DWORD eventThread, WinDef.DWORD eventTime) {
+        this.foregroundHwnd = hwnd;
+        this.lastChangeTime = System.currentTimeMillis();
+        this.hookLocationChanges(hwnd);
+    }
+
+    private void onLocationEvent(WinNT.HANDLE hook, WinDef.DWORD event, HWND hwnd, WinDef.LONG idObject, WinDef.LONG idChild, WinDef.DWORD eventThread, WinDef.DWORD eventTime) {
+        // Location changes are also sent for carets, cursors and child objects, only the tracked window itself matters
+        if (idObject.intValue() == OBJID_WINDOW && Objects.equals(hwnd, this.trackedHwnd)) {
+            this.moveCount++;
+        }
+    }
+
+    @Override
+    public HWND getForegroundWindow() {
+        long now = System.currentTimeMillis();
+        if (now - this.lastResync > RESYNC_INTERVAL) {
+            this.lastResync = now;
+            long changeTime = this.lastChangeTime;
+            HWND actual = User32.INSTANCE.GetForegroundWindow();
+            // Only correct the hook if no event came in while asking
+            if (changeTime == this.lastChangeTime && !Objects.equals(actual, this.foregroundHwnd)) {
+                this.foregroundHwnd = actual;
+                this.lastChangeTime = now;
+                User32.INSTANCE.PostThreadMessage(this.threadId, WM_REHOOK_LOCATION, null, null);
+            }
+        }
+        return this.foregroundHwnd;
+    }
+
+    @Override
+    public long getLastChangeTime() {
+        return this.lastChangeTime;
+    }
+
+    @Override
+    public long getForegroundMoveCount() {
+        // Until the location hook follows a foreground change, the new foreground window's moves are not tracked
+        HWND trackedHwnd = this.trackedHwnd;
+        return trackedHwnd != null && trackedHwnd.equals(this.foregroundHwnd) ? this.moveCount : -1;
+    }
+
+    @Override
+    public void close() {
+        if (this.threadId != 0) {
+            User32.INSTANCE.PostThreadMessage(this.threadId, WinUser.WM_QUIT, null, null);
+        }
+    }
+}
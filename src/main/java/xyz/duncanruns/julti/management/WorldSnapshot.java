@@ -0,0 +1,172 @@
+package xyz.duncanruns.julti.management;
+
+import xyz.duncanruns.julti.instance.InstanceState;
+import xyz.duncanruns.julti.instance.MinecraftInstance;
+import xyz.duncanruns.julti.instance.StateTracker;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * An immutable view of the instances, the selected instance, the locked instances and instance states, taken by the
+ * main loop during a tick.
+ * <p>
+ * Snapshots are published through {@link InstanceManager#getSnapshot()} so other threads (affinity manager, GUI) can
+ * read consistent data without touching the main loop's mutable state. The main loop publishes a snapshot at the end of
+ * every tick in which something changed, so a snapshot is never more than a tick behind unless the main loop is busy
+ * with a single task.
+ */
+public final class WorldSnapshot {
+    static final WorldSnapshot EMPTY = new WorldSnapshot(Collections.emptyList(), -1, false, new BitSet(), new InstanceState[0], new byte[0], new BitSet(), new long[0]);
+
+    private final List<MinecraftInstance> instances;
+    private final int selectedIndex;
+    private final boolean wallActive;
+    private final BitSet lockedInstances;
+    private final InstanceState[] states;
+    private final byte[] loadingPercentages;
+    private final BitSet resetPressed;
+    private final long[] previewStarts;
+
+    private WorldSnapshot(List<MinecraftInstance> instances, int selectedIndex, boolean wallActive, BitSet lockedInstances, InstanceState[] states, byte[] loadingPercentages, BitSet resetPressed, long[] previewStarts) {
+        this.instances = instances;
+        this.selectedIndex = selectedIndex;
+        this.wallActive = wallActive;
+        this.lockedInstances = lockedInstances;
+        this.states = states;
+        this.loadingPercentages = loadingPercentages;
+        this.resetPressed = resetPressed;
+        this.previewStarts = previewStarts;
+    }
+
+    static WorldSnapshot capture(List<MinecraftInstance> instances, Predicate<MinecraftInstance> isLocked) {
+        int size = instances.size();
+        int selectedIndex = -1;
+        BitSet locked = new BitSet(size);
+        InstanceState[] states = new InstanceState[size];
+        byte[] loadingPercentages = new byte[size];
+        BitSet resetPressed = new BitSet(size);
+        long[] previewStarts = new long[size];
+
+        for (int i = 0; i < size; i++) {
+            MinecraftInstance instance = instances.get(i);
+            if (selectedIndex == -1 && ActiveWindowManager.isWindowActive(instance.getHwnd())) {
+                selectedIndex = i;
+            }
+            StateTracker stateTracker = instance.getStateTracker();
+            states[i] = stateTracker.getInstanceState();
+            loadingPercentages[i] = stateTracker.getLoadingPercent();
+            previewStarts[i] = stateTracker.getLastStartOf(InstanceState.PREVIEWING);
+            if (instance.isResetPressed()) {
+                resetPressed.set(i);
+            }
+            if (isLocked.test(instance)) {
+                locked.set(i);
+            }
+        }
+
+        return new WorldSnapshot(
+                Collections.unmodifiableList(new ArrayList<>(instances)),
+                selectedIndex,
+                ActiveWindowManager.isWallActive(),
+                locked,
+                states,
+                loadingPercentages,
+                resetPressed,
+                previewStarts
+        );
+    }
+
+    /**
+     * Checks if capturing the given state would give the same snapshot as this one, without allocating anything.
+     */
+    boolean matches(List<MinecraftInstance> instances, Predicate<MinecraftInstance> isLocked) {
+        int size = instances.size();
+        if (size != this.instances.size() || ActiveWindowManager.isWallActive() != this.wallActive) {
+            return false;
+        }
+        int selectedIndex = -1;
+        for (int i = 0; i < size; i++) {
+            MinecraftInstance instance = instances.get(i);
+            if (instance != this.instances.get(i)) {
+                return false;
+            }
+            if (selectedIndex == -1 && ActiveWindowManager.isWindowActive(instance.getHwnd())) {
+                selectedIndex = i;
+            }
+            StateTracker stateTracker = instance.getStateTracker();
+            if (stateTracker.getInstanceState() != this.states[i]
+                    || stateTracker.getLoadingPercent() != this.loadingPercentages[i]
+                    || stateTracker.getLastStartOf(InstanceState.PREVIEWING) != this.previewStarts[i]
+                    || instance.isResetPressed() != this.resetPressed.get(i)
+                    || isLocked.test(instance) != this.lockedInstances.get(i)) {
+                return false;
+            }
+        }
+        return selectedIndex == this.selectedIndex;
+    }
+
+    public List<MinecraftInstance> getInstances() {
+        return this.instances;
+    }
+
+    public int getSize() {
+        return this.instances.size();
+    }
+
+    /**
+     * @return the index of the instance whose window is active, or -1 if no instance is active
+     */
+    public int getSelectedIndex() {
+        return this.selectedIndex;
+    }
+
+    public MinecraftInstance getSelectedInstance() {
+        return this.selectedIndex == -1 ? null : this.instances.get(this.selectedIndex);
+    }
+
+    public boolean isWallActive() {
+        return this.wallActive;
+    }
+
+    public boolean isLocked(int index) {
+        return this.lockedInstances.get(index);
+    }
+
+    public boolean isLocked(MinecraftInstance instance) {
+        int index = instance.getSlot();
+        if (index < 0 || index >= this.instances.size() || this.instances.get(index) != instance) {
+            index = this.instances.indexOf(instance);
+        }
+        return index != -1 && this.isLocked(index);
+    }
+
+    public boolean hasLockedInstances() {
+        return !this.lockedInstances.isEmpty();
+    }
+
+    public InstanceState getState(int index) {
+        return this.states[index];
+    }
+
+    public byte getLoadingPercent(int index) {
+        return this.loadingPercentages[index];
+    }
+
+    /**
+     * @return true if the instance has been reset but has not yet left its previous state
+     */
+    public boolean isResetPressed(int index) {
+        return this.resetPressed.get(index);
+    }
+
+    /**
+     * @return the last time the instance started previewing, or 0 if it never has
+     */
+    public long getPreviewStart(int index) {
+        return this.previewStarts[index];
+    }
+}
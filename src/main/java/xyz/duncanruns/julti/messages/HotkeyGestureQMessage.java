@@ -0,0 +1,28 @@
+package xyz.duncanruns.julti.messages;
+
+import java.awt.*;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Part of a mouse path sampled while a wall hotkey is held. The first point of each part is the last point of the
+ * previous part, or the position the hotkey was pressed at.
+ */
+public class HotkeyGestureQMessage extends HotkeyPressQMessage {
+    private final int gestureId;
+    private final List<Point> path;
+
+    public HotkeyGestureQMessage(String hotkeyCode, int gestureId, List<Point> path) {
+        super(hotkeyCode, path.get(path.size() - 1));
+        this.gestureId = gestureId;
+        this.path = Collections.unmodifiableList(path);
+    }
+
+    public int getGestureId() {
+        return this.gestureId;
+    }
+
+    public List<Point> getPath() {
+        return this.path;
+    }
+}
@@ -0,0 +1,235 @@
+package xyz.duncanruns.julti.plugin;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.logging.log4j.Level;
+import xyz.duncanruns.julti.Julti;
+import xyz.duncanruns.julti.util.ExceptionUtil;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Subscribers of a single plugin event.
+ * <p>
+ * Sync subscribers run on the thread posting the event (usually the main loop) and are timed, subscribers going over
+ * the event's time budget are reported in the log. Async subscribers are given to a single thread per owner with a
+ * bounded queue, so a slow plugin only ever delays itself; events are dropped for that owner if its queue fills up.
+ * Coalescing events (such as ticks) are never queued more than once per subscriber, an event posted while the
+ * previous one is still waiting to run is skipped.
+ * <p>
+ * Wall time of every subscriber is tracked as an exponential moving average, CPU time is only sampled every
+ * {@link #CPU_SAMPLE_INTERVAL} calls as reading it costs more than the handlers it measures, see
+ * {@link #getAllStats()}. Stats are only written by the thread delivering to the subscriber, and are read without
+ * locking, so they can be slightly out of date.
+ */
+final class EventSubscribers<T> {
+    // Slow or dropping subscribers are reported at most this often
+    private static final long WARNING_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final int ASYNC_QUEUE_SIZE = 256;
+    private static final double EMA_ALPHA = 0.05;
+    private static final int CPU_SAMPLE_INTERVAL = 16;
+    private static final Map<String, ExecutorService> ASYNC_EXECUTORS = new ConcurrentHashMap<>();
+    private static final List<EventSubscribers<?>> ALL_EVENTS = new CopyOnWriteArrayList<>();
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME_SUPPORTED = THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported();
+
+    private final String eventName;
+    private final long budgetNanos;
+    private final boolean coalescing;
+    private final List<Subscriber<T>> subscribers = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param budgetNanos sync subscribers taking longer than this are reported
+     * @param coalescing  if async subscribers should skip events posted while a previous event is still waiting to run
+     */
+    EventSubscribers(String eventName, long budgetNanos, boolean coalescing) {
+        this.eventName = eventName;
+        this.budgetNanos = budgetNanos;
+        this.coalescing = coalescing;
+        ALL_EVENTS.add(this);
+    }
+
+    private static ExecutorService getAsyncExecutor(String owner) {
+        return ASYNC_EXECUTORS.computeIfAbsent(owner, o -> new ThreadPoolExecutor(
+                1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(ASYNC_QUEUE_SIZE),
+                new ThreadFactoryBuilder().setNameFormat("plugin-events-" + o.replace("%", "%%")).setDaemon(true).build()
+        ));
+    }
+
+    /**
+     * @return the class that created the subscriber, without the generated part of lambda class names
+     */
+    static String getName(Object subscriber) {
+        String name = subscriber.getClass().getName();
+        int lambdaIndex = name.indexOf("$$Lambda");
+        return lambdaIndex == -1 ? name : name.substring(0, lambdaIndex);
+    }
+
+    private static long getCpuTime() {
+        return CPU_TIME_SUPPORTED ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : 0;
+    }
+
+    /**
+     * @return a line of stats for every subscriber of every event that has been called at least once
+     */
+    static List<String> getAllStats() {
+        List<String> stats = new ArrayList<>();
+        for (EventSubscribers<?> event : ALL_EVENTS) {
+            for (Subscriber<?> subscriber : event.subscribers) {
+                String line = subscriber.getStats(event.eventName);
+                if (line != null) {
+                    stats.add(line);
+                }
+            }
+        }
+        return stats;
+    }
+
+    void register(Consumer<T> consumer) {
+        this.register(getName(consumer), consumer);
+    }
+
+    /**
+     * @param name the name shown in stats and warnings, for consumers wrapping the actual handler
+     */
+    void register(String name, Consumer<T> consumer) {
+        this.subscribers.add(new Subscriber<>(name, consumer, null));
+    }
+
+    void registerAsync(String owner, Consumer<T> consumer) {
+        this.subscribers.add(new Subscriber<>(owner, consumer, getAsyncExecutor(owner)));
+    }
+
+    void post(T event) {
+        for (Subscriber<T> subscriber : this.subscribers) {
+            if (subscriber.executor == null) {
+                this.deliver(subscriber, event);
+            } else if (this.coalescing) {
+                if (!subscriber.pending.compareAndSet(false, true)) {
+                    // The last event has not run yet, it will do the same work
+                    subscriber.onSkipped();
+                    continue;
+                }
+                this.submit(subscriber, () -> {
+                    subscriber.pending.set(false);
+                    this.deliver(subscriber, event);
+                });
+            } else {
+                this.submit(subscriber, () -> this.deliver(subscriber, event));
+            }
+        }
+    }
+
+    private void submit(Subscriber<T> subscriber, Runnable runnable) {
+        try {
+            subscriber.executor.execute(runnable);
+        } catch (RejectedExecutionException e) {
+            subscriber.pending.set(false);
+            subscriber.onDropped(this.eventName);
+        }
+    }
+
+    private void deliver(Subscriber<T> subscriber, T event) {
+        boolean sampleCpu = subscriber.calls % CPU_SAMPLE_INTERVAL == 0;
+        long startCpu = sampleCpu ? getCpuTime() : 0;
+        long start = System.nanoTime();
+        try {
+            subscriber.consumer.accept(event);
+        } catch (Throwable t) {
+            Julti.log(Level.ERROR, "Plugin event " + this.eventName + " failed in " + subscriber.name + ": " + ExceptionUtil.toDetailedString(t));
+        }
+        long elapsed = System.nanoTime() - start;
+        subscriber.record(elapsed, sampleCpu ? getCpuTime() - startCpu : -1);
+        if (subscriber.executor == null && elapsed > this.budgetNanos) {
+            subscriber.onSlow(this.eventName, elapsed);
+        }
+    }
+
+    private static class Subscriber<T> {
+        private final String name;
+        private final Consumer<T> consumer;
+        private final ExecutorService executor;
+        private final AtomicBoolean pending = new AtomicBoolean(false);
+
+        private volatile long calls = 0;
+        private volatile double averageWallNanos = 0;
+        private volatile double averageCpuNanos = -1;
+        private volatile long maxWallNanos = 0;
+        private int slowCount = 0;
+        private int droppedCount = 0;
+        private int skippedCount = 0;
+        private long lastWarning = System.nanoTime() - WARNING_INTERVAL_NANOS;
+
+        private Subscriber(String name, Consumer<T> consumer, ExecutorService executor) {
+            this.name = name;
+            this.consumer = consumer;
+            this.executor = executor;
+        }
+
+        /**
+         * @param cpuNanos the CPU time used, or -1 if it was not sampled
+         */
+        private void record(long wallNanos, long cpuNanos) {
+            this.averageWallNanos = this.calls == 0 ? wallNanos : this.averageWallNanos + EMA_ALPHA * (wallNanos - this.averageWallNanos);
+            if (cpuNanos >= 0) {
+                this.averageCpuNanos = this.averageCpuNanos < 0 ? cpuNanos : this.averageCpuNanos + EMA_ALPHA * (cpuNanos - this.averageCpuNanos);
+            }
+            if (wallNanos > this.maxWallNanos) {
+                this.maxWallNanos = wallNanos;
+            }
+            this.calls++;
+        }
+
+        private synchronized String getStats(String eventName) {
+            if (this.calls == 0) {
+                return null;
+            }
+            return String.format("%s - %s (%s): %d calls, avg %.3fms wall, %s cpu, max %.1fms, %d over budget, %d skipped, %d dropped",
+                    eventName,
+                    this.name,
+                    this.executor == null ? "main loop" : "async",
+                    this.calls,
+                    this.averageWallNanos / 1_000_000.0,
+                    CPU_TIME_SUPPORTED && this.averageCpuNanos >= 0 ? String.format("%.3fms", this.averageCpuNanos / 1_000_000.0) : "unknown",
+                    this.maxWallNanos / 1_000_000.0,
+                    this.slowCount,
+                    this.skippedCount,
+                    this.droppedCount
+            );
+        }
+
+        private boolean shouldWarn() {
+            long now = System.nanoTime();
+            if (now - this.lastWarning < WARNING_INTERVAL_NANOS) {
+                return false;
+            }
+            this.lastWarning = now;
+            return true;
+        }
+
+        private synchronized void onSlow(String eventName, long elapsed) {
+            this.slowCount++;
+            if (this.shouldWarn()) {
+                Julti.log(Level.WARN, String.format("Plugin %s took %.1fms to handle %s (%d slow calls), consider using async events.", this.name, elapsed / 1_000_000.0, eventName, this.slowCount));
+            }
+        }
+
+        private synchronized void onSkipped() {
+            this.skippedCount++;
+        }
+
+        private synchronized void onDropped(String eventName) {
+            this.droppedCount++;
+            if (this.shouldWarn()) {
+                Julti.log(Level.WARN, "Plugin " + this.name + " is not keeping up with " + eventName + " events, " + this.droppedCount + " events dropped.");
+            }
+        }
+    }
+}
@@ -2,17 +2,39 @@ package xyz.duncanruns.julti.plugin;
 
 import xyz.duncanruns.julti.instance.MinecraftInstance;
 
-import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
+/**
+ * Plugin events. Handlers registered with {@code register} run on the thread firing the event, which is the main loop
+ * for most events, so they should be quick and only be used when main loop state is needed. Handlers that do not need
+ * to block the main loop should use {@code registerAsync}, which delivers events in order on a thread owned by the
+ * given plugin. Async tick handlers are skipped while a previous tick is still waiting to run, so a plugin that is
+ * blocked on disk or network simply runs fewer ticks.
+ * <p>
+ * Time spent by every handler can be viewed with the {@code plugins stats} command.
+ */
 public final class PluginEvents {
+    // Main loop handlers of ticks taking longer than this are reported, other events are allowed more time
+    private static final long TICK_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long EVENT_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private PluginEvents() {
+    }
+
+    /**
+     * @return a line of timing stats for every event handler that has run at least once
+     */
+    public static List<String> getStats() {
+        return EventSubscribers.getAllStats();
+    }
 
     public enum RunnableEventType {
         // Runs at the start of the main loop tick
-        START_TICK,
+        START_TICK(TICK_BUDGET_NANOS),
         // Runs at the end of the main loop tick
-        END_TICK,
+        END_TICK(TICK_BUDGET_NANOS),
         // Runs every reload, which is every profile change including the first load
         RELOAD,
         // Runs when Julti is launched
@@ -26,14 +48,28 @@ public final class PluginEvents {
         // Runs when the hotkey manager reloads
         HOTKEY_MANAGER_RELOAD;
 
-        private final List<Runnable> runnables = new LinkedList<>();
+        // Every post of a runnable event is the same, so a pending one never needs to be queued twice
+        private final EventSubscribers<Void> subscribers;
+
+        RunnableEventType() {
+            this(EVENT_BUDGET_NANOS);
+        }
+
+        RunnableEventType(long budgetNanos) {
+            this.subscribers = new EventSubscribers<>(this.name(), budgetNanos, true);
+        }
 
         public void register(Runnable runnable) {
-            this.runnables.add(runnable);
+            // Named after the runnable, the wrapping lambda would name every handler after this class
+            this.subscribers.register(EventSubscribers.getName(runnable), v -> runnable.run());
+        }
+
+        public void registerAsync(String pluginId, Runnable runnable) {
+            this.subscribers.registerAsync(pluginId, v -> runnable.run());
         }
 
         public void runAll() {
-            this.runnables.forEach(Runnable::run);
+            this.subscribers.post(null);
         }
     }
 
@@ -50,14 +86,18 @@ public final class PluginEvents {
         LOCK;
 
 
-        private final List<Consumer<MinecraftInstance>> consumers = new LinkedList<>();
+        private final EventSubscribers<MinecraftInstance> subscribers = new EventSubscribers<>(this.name(), EVENT_BUDGET_NANOS, false);
 
         public void register(Consumer<MinecraftInstance> consumer) {
-            this.consumers.add(consumer);
+            this.subscribers.register(consumer);
+        }
+
+        public void registerAsync(String pluginId, Consumer<MinecraftInstance> consumer) {
+            this.subscribers.registerAsync(pluginId, consumer);
         }
 
         public void runAll(MinecraftInstance instance) {
-            this.consumers.forEach(c -> c.accept(instance));
+            this.subscribers.post(instance);
         }
     }
 
@@ -65,14 +105,18 @@ public final class PluginEvents {
         // Runs for every hotkey press: object is a Pair<String, Point> representing the hotkey code and the mouse position
         HOTKEY_PRESS;
 
-        private final List<Consumer<Object>> consumers = new LinkedList<>();
+        private final EventSubscribers<Object> subscribers = new EventSubscribers<>(this.name(), EVENT_BUDGET_NANOS, false);
 
         public void register(Consumer<Object> consumer) {
-            this.consumers.add(consumer);
+            this.subscribers.register(consumer);
+        }
+
+        public void registerAsync(String pluginId, Consumer<Object> consumer) {
+            this.subscribers.registerAsync(pluginId, consumer);
         }
 
         public void runAll(Object instance) {
-            this.consumers.forEach(c -> c.accept(instance));
+            this.subscribers.post(instance);
         }
     }
 }
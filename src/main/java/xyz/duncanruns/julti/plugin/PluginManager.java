@@ -1,22 +1,25 @@
 package xyz.duncanruns.julti.plugin;
 
+import com.google.common.io.ByteStreams;
 import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.logging.log4j.Level;
 import xyz.duncanruns.julti.Julti;
 import xyz.duncanruns.julti.JultiOptions;
-import xyz.duncanruns.julti.util.ExceptionUtil;
-import xyz.duncanruns.julti.util.ResourceUtil;
-import xyz.duncanruns.julti.util.VersionUtil;
+import xyz.duncanruns.julti.util.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.stream.Collectors;
@@ -27,11 +30,16 @@ public final class PluginManager {
     private static final PluginManager INSTANCE = new PluginManager();
     private static final Gson GSON = new Gson();
     private static final Path PLUGINS_PATH = JultiOptions.getJultiDir().resolve("plugins").toAbsolutePath();
+    private static final Path DEFAULT_PLUGINS_PATH = JultiOptions.getJultiDir().resolve("defaultplugins").toAbsolutePath();
+    private static final Path CACHE_PATH = JultiOptions.getJultiDir().resolve("plugincache.json").toAbsolutePath();
 
     private final List<LoadedJultiPlugin> loadedPlugins = new ArrayList<>();
     private final Set<String> pluginCollisions = new HashSet<>();
+    // Jar path or default plugin name -> plugin data read from the jar
+    private final Map<String, CachedPluginData> pluginDataCache = new ConcurrentHashMap<>();
+    private volatile boolean pluginDataCacheChanged = false;
 
-    private PluginManager() {
+    PluginManager() {
     }
 
     public static Path getPluginsPath() {
@@ -44,44 +52,68 @@ public final class PluginManager {
 
     private static PluginInitializer importJar(File file, String initializer) throws Exception {
         // https://stackoverflow.com/questions/11016092/how-to-load-classes-at-runtime-from-a-folder-or-jar
-        JarFile jarFile = new JarFile(file);
-        Enumeration<JarEntry> e = jarFile.entries();
-
         URL[] urls = {new URL("jar:file:" + file + "!/")};
         URLClassLoader cl = URLClassLoader.newInstance(urls);
 
-        while (e.hasMoreElements()) {
-            JarEntry je = e.nextElement();
-            if (je.isDirectory() || !je.getName().endsWith(".class")) {
-                continue;
-            }
-            // -6 because of .class
-            String className = je.getName().substring(0, je.getName().length() - 6);
-            className = className.replace('/', '.');
-            try {
-                cl.loadClass(className);
-            } catch (Error nce) {
-                // A fabric fail class is a class meant to crash loading with fabric. Useful to make sure players don't try to use Julti plugins as a fabric mod.
-                // Julti fails to load them since they refer to a class that doesn't exist, so we ignore it.
-                boolean isFabricFailClass = nce.getMessage().contains("net/fabricmc/api/ModInitializer");
-                if (!isFabricFailClass) {
-                    // If it is not a fabric fail class, we do want to warn for this
-                    Julti.log(Level.WARN, "Failed to load class '" + className + "'! Julti may crash if this is needed by a plugin...");
+        // Classes are loaded when the plugin first uses them, verifying every class up front is only done for debugging
+        if (JultiOptions.getJultiOptions().showDebug) {
+            verifyClasses(file, cl);
+        }
+
+        return (PluginInitializer) cl.loadClass(initializer).newInstance();
+    }
+
+    private static void verifyClasses(File file, ClassLoader cl) throws IOException {
+        try (JarFile jarFile = new JarFile(file)) {
+            Enumeration<JarEntry> e = jarFile.entries();
+            while (e.hasMoreElements()) {
+                JarEntry je = e.nextElement();
+                if (je.isDirectory() || !je.getName().endsWith(".class")) {
+                    continue;
+                }
+                // -6 because of .class
+                String className = je.getName().substring(0, je.getName().length() - 6);
+                className = className.replace('/', '.');
+                try {
+                    cl.loadClass(className);
+                } catch (Throwable nce) {
+                    // A fabric fail class is a class meant to crash loading with fabric. Useful to make sure players don't try to use Julti plugins as a fabric mod.
+                    // Julti fails to load them since they refer to a class that doesn't exist, so we ignore it.
+                    boolean isFabricFailClass = String.valueOf(nce.getMessage()).contains("net/fabricmc/api/ModInitializer");
+                    if (!isFabricFailClass) {
+                        // If it is not a fabric fail class, we do want to warn for this
+                        Julti.log(Level.WARN, "Failed to load class '" + className + "'! Julti may crash if this is needed by a plugin...");
+                    }
                 }
             }
         }
-
-        PluginInitializer pi = (PluginInitializer) cl.loadClass(initializer).newInstance();
-        jarFile.close();
-        return pi;
     }
 
-    @SuppressWarnings("all") //Suppress the redundant cast warning which resolves an ambiguous case
     private static String getJarJPJContents(Path jarPath) throws IOException {
-        try (FileSystem fs = FileSystems.newFileSystem(jarPath, (ClassLoader) null)) {
-            Path jsonFilePath = fs.getPath("julti.plugin.json");
-            byte[] jsonData = Files.readAllBytes(jsonFilePath);
-            return new String(jsonData, StandardCharsets.UTF_8);
+        try (JarFile jarFile = new JarFile(jarPath.toFile())) {
+            JarEntry entry = jarFile.getJarEntry("julti.plugin.json");
+            if (entry == null) {
+                throw new NoSuchFileException("julti.plugin.json");
+            }
+            try (InputStream in = jarFile.getInputStream(entry)) {
+                return new String(ByteStreams.toByteArray(in), StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+    private static List<Pair<Path, JultiPluginData>> sortedByPath(List<Pair<Path, JultiPluginData>> plugins) {
+        // Jars are read in parallel, sort them to keep the order in which duplicate plugins are found consistent
+        List<Pair<Path, JultiPluginData>> sorted = new ArrayList<>(plugins);
+        sorted.sort(Comparator.comparing(pair -> pair.getLeft().getFileName().toString()));
+        return sorted;
+    }
+
+    private static byte[] readResource(String name) throws IOException {
+        try (InputStream in = ResourceUtil.getResourceAsStream(name)) {
+            if (in == null) {
+                throw new NoSuchFileException(name);
+            }
+            return ByteStreams.toByteArray(in);
         }
     }
 
@@ -101,44 +133,121 @@ public final class PluginManager {
         if (!Files.exists(PLUGINS_PATH)) {
             return Collections.emptyList();
         }
-        List<Pair<Path, JultiPluginData>> plugins = new ArrayList<>();
+        List<Path> jars;
         try (Stream<Path> list = Files.list(PLUGINS_PATH)) {
-            list.filter(path -> path.getFileName().toString().endsWith(".jar")).forEach(path -> {
-                try {
-                    JultiPluginData data = JultiPluginData.fromString(getJarJPJContents(path));
-                    plugins.add(Pair.of(path, data));
-                } catch (Throwable e) {
-                    Julti.log(Level.WARN, "Failed to read plugin " + path + "!\n" + ExceptionUtil.toDetailedString(e));
-                }
-            });
+            jars = list.filter(path -> path.getFileName().toString().endsWith(".jar")).collect(Collectors.toList());
+        }
+        List<Pair<Path, JultiPluginData>> plugins = Collections.synchronizedList(new ArrayList<>());
+        DoAllFastUtil.doAllFast(jars, path -> {
+            try {
+                plugins.add(Pair.of(path, this.readFolderPluginData(path)));
+            } catch (Throwable e) {
+                Julti.log(Level.WARN, "Failed to read plugin " + path + "!\n" + ExceptionUtil.toDetailedString(e));
+            }
+        });
+        return sortedByPath(plugins);
+    }
+
+    /**
+     * Reads the plugin data of a jar in the plugins folder, or gets it from the cache if the jar has not changed.
+     */
+    private JultiPluginData readFolderPluginData(Path path) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String key = path.toString();
+
+        CachedPluginData cached = this.pluginDataCache.get(key);
+        if (cached != null && cached.data != null && cached.size == size && cached.lastModified == lastModified) {
+            return cached.data;
         }
-        return plugins;
+        JultiPluginData data = JultiPluginData.fromString(getJarJPJContents(path));
+        this.pluginDataCache.put(key, new CachedPluginData(size, lastModified, null, data));
+        this.pluginDataCacheChanged = true;
+        return data;
     }
 
     private List<Pair<Path, JultiPluginData>> getDefaultPlugins() throws IOException, URISyntaxException {
-        List<String> fileNames = ResourceUtil.getResourcesFromFolder("defaultplugins").stream().map(s -> "/defaultplugins/" + s).collect(Collectors.toList());
+        List<String> fileNames = ResourceUtil.getResourcesFromFolder("defaultplugins");
 
         Julti.log(Level.DEBUG, "Default Plugins:" + fileNames);
 
-        List<Pair<Path, JultiPluginData>> plugins = new ArrayList<>();
-
-        for (String fileName : fileNames) {
-            Path path = Paths.get(File.createTempFile(fileName, null).getPath());
-            if (!fileName.startsWith("/")) {
-                fileName = "/" + fileName;
-            }
-            ResourceUtil.copyResourceToFile(fileName, path);
+        DEFAULT_PLUGINS_PATH.toFile().mkdirs();
+        List<Pair<Path, JultiPluginData>> plugins = Collections.synchronizedList(new ArrayList<>());
+        DoAllFastUtil.doAllFast(fileNames, fileName -> {
             try {
-                JultiPluginData data = JultiPluginData.fromString(getJarJPJContents(path));
-                plugins.add(Pair.of(path, data));
+                plugins.add(this.extractDefaultPlugin(fileName, DEFAULT_PLUGINS_PATH, Julti.VERSION, name -> readResource("/defaultplugins/" + name)));
             } catch (Exception e) {
                 Julti.log(Level.ERROR, "Failed to read default plugin: " + fileName);
             }
+        });
+        return sortedByPath(plugins);
+    }
+
+    /**
+     * Extracts a bundled plugin to the folder, unless this Julti version already extracted it and the extracted jar
+     * still has the size and modified time it was written with. Skipping the extraction skips reading the bundled jar
+     * entirely. Dev builds always extract, as their bundled plugins can change without the version changing.
+     */
+    Pair<Path, JultiPluginData> extractDefaultPlugin(String fileName, Path folder, String jultiVersion, ResourceReader resourceReader) throws IOException {
+        String key = "defaultplugins/" + fileName;
+        Path path = folder.resolve(fileName);
+
+        CachedPluginData cached = this.pluginDataCache.get(key);
+        if (cached != null && cached.data != null && !"DEV".equals(jultiVersion) && jultiVersion.equals(cached.jultiVersion) && Files.isRegularFile(path)) {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            if (attributes.size() == cached.size && attributes.lastModifiedTime().toMillis() == cached.lastModified) {
+                return Pair.of(path, cached.data);
+            }
+        }
+
+        byte[] bytes = resourceReader.read(fileName);
+        String extractedBy = jultiVersion;
+        try {
+            Files.write(path, bytes);
+        } catch (IOException e) {
+            // The jar may be in use by another Julti, use a temporary copy instead
+            path = Files.createTempFile(fileName, null);
+            Files.write(path, bytes);
+            extractedBy = null;
+        }
+        JultiPluginData data = JultiPluginData.fromString(getJarJPJContents(path));
+        this.pluginDataCache.put(key, new CachedPluginData(bytes.length, Files.getLastModifiedTime(path).toMillis(), extractedBy, data));
+        this.pluginDataCacheChanged = true;
+        Julti.log(Level.DEBUG, "Extracted default plugin " + fileName);
+        return Pair.of(path, data);
+    }
+
+    void loadPluginDataCache(Path cachePath) {
+        if (!Files.isRegularFile(cachePath)) {
+            return;
+        }
+        try {
+            Map<String, CachedPluginData> cache = GSON.fromJson(FileUtil.readString(cachePath), new TypeToken<Map<String, CachedPluginData>>() {
+            }.getType());
+            if (cache != null) {
+                this.pluginDataCache.putAll(cache);
+            }
+        } catch (Exception e) {
+            Julti.log(Level.DEBUG, "Failed to read plugin cache: " + ExceptionUtil.toDetailedString(e));
+        }
+    }
+
+    void savePluginDataCache(Path cachePath) {
+        if (!this.pluginDataCacheChanged) {
+            return;
+        }
+        try {
+            FileUtil.writeStringAtomically(cachePath, GSON.toJson(this.pluginDataCache));
+            this.pluginDataCacheChanged = false;
+        } catch (Exception e) {
+            Julti.log(Level.DEBUG, "Failed to save plugin cache: " + ExceptionUtil.toDetailedString(e));
         }
-        return plugins;
     }
 
     public void loadPlugins() {
+        long start = System.nanoTime();
+        this.loadPluginDataCache(CACHE_PATH);
         List<Pair<Path, JultiPluginData>> folderPlugins = Collections.emptyList();
         List<Pair<Path, JultiPluginData>> defaultPlugins = Collections.emptyList();
         try {
@@ -151,6 +260,7 @@ public final class PluginManager {
         } catch (IOException | URISyntaxException e) {
             Julti.log(Level.ERROR, "Failed to load default plugins: " + ExceptionUtil.toDetailedString(e));
         }
+        this.savePluginDataCache(CACHE_PATH);
 
         // Mod ID -> path and data
         Map<String, Pair<Path, JultiPluginData>> bestPluginVersions = new HashMap<>();
@@ -188,6 +298,7 @@ public final class PluginManager {
                 Julti.log(Level.ERROR, "Failed to load plugin from " + entry.getValue().getLeft() + ": " + ExceptionUtil.toDetailedString(e));
             }
         }
+        Julti.log(Level.DEBUG, String.format("Loaded %d plugins in %.1fms", this.loadedPlugins.size(), (System.nanoTime() - start) / 1_000_000.0));
     }
 
     private void loadPluginJar(Path path, JultiPluginData jultiPluginData) throws Exception {
@@ -232,6 +343,25 @@ public final class PluginManager {
         }
     }
 
+    interface ResourceReader {
+        byte[] read(String fileName) throws IOException;
+    }
+
+    private static class CachedPluginData {
+        private final long size;
+        private final long lastModified;
+        // Julti version that extracted a default plugin, null for plugins folder jars
+        private final String jultiVersion;
+        private final JultiPluginData data;
+
+        private CachedPluginData(long size, long lastModified, String jultiVersion, JultiPluginData data) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.jultiVersion = jultiVersion;
+            this.data = data;
+        }
+    }
+
     public static class LoadedJultiPlugin {
         public final JultiPluginData pluginData;
         public final PluginInitializer pluginInitializer;
@@ -1,5 +1,6 @@
 package xyz.duncanruns.julti.resetting;
 
+import org.apache.commons.lang3.tuple.Pair;
 import xyz.duncanruns.julti.JultiOptions;
 import xyz.duncanruns.julti.affinity.AffinityManager;
 import xyz.duncanruns.julti.instance.MinecraftInstance;
@@ -10,6 +11,7 @@ import xyz.duncanruns.julti.util.DoAllFastUtil;
 
 import java.awt.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
@@ -18,7 +20,10 @@ import java.util.stream.Collectors;
 public class DynamicWallResetManager extends WallResetManager {
     private static final DynamicWallResetManager INSTANCE = new DynamicWallResetManager();
 
-    private List<Integer> displayInstancesIndices = new ArrayList<>();
+    private final DynamicWallScheduler scheduler = new DynamicWallScheduler();
+
+    // Instance slots shown in each display position, -1 for an empty position
+    private int[] displaySlots = new int[0];
     private boolean isFirstReset = true;
 
     public static DynamicWallResetManager getDynamicWallResetManager() {
@@ -26,18 +31,42 @@ public class DynamicWallResetManager extends WallResetManager {
     }
 
     private List<MinecraftInstance> getDisplayInstances() {
-        List<MinecraftInstance> allInstances = InstanceManager.getInstanceManager().getInstances();
-        return this.displayInstancesIndices.stream().map(i -> i == null || i >= allInstances.size() ? null : allInstances.get(i)).collect(Collectors.toList());
+        List<MinecraftInstance> displayInstances = new ArrayList<>(this.displaySlots.length);
+        for (int slot : this.displaySlots) {
+            displayInstances.add(InstanceManager.getInstanceManager().getInstance(slot));
+        }
+        return displayInstances;
+    }
+
+    /**
+     * @return the display position of the instance, or -1 if it is not displayed
+     */
+    private int getDisplayPosition(MinecraftInstance instance) {
+        int slot = InstanceManager.getInstanceManager().getInstanceIndex(instance);
+        if (slot == -1) {
+            return -1;
+        }
+        for (int i = 0; i < this.displaySlots.length; i++) {
+            if (this.displaySlots[i] == slot) {
+                return i;
+            }
+        }
+        return -1;
     }
 
-    private void saveDisplayInstances(List<MinecraftInstance> displayInstances) {
-        List<MinecraftInstance> allInstances = InstanceManager.getInstanceManager().getInstances();
-        this.displayInstancesIndices = displayInstances.stream().map(i -> i == null ? null : allInstances.indexOf(i)).collect(Collectors.toList());
+    private boolean hasEmptyDisplayPosition() {
+        for (int slot : this.displaySlots) {
+            if (slot == -1) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public void refreshDisplayInstances() {
+        this.invalidateWallLayout();
         JultiOptions options = JultiOptions.getJultiOptions();
-        List<MinecraftInstance> displayInstances = this.getDisplayInstances();
+        InstanceManager instanceManager = InstanceManager.getInstanceManager();
 
         int totalRows = 2;
         int totalColumns = 2;
@@ -48,39 +77,43 @@ public class DynamicWallResetManager extends WallResetManager {
 
         int numToDisplay = totalColumns * totalRows;
 
-        if (displayInstances.size() != numToDisplay) {
-            displayInstances = new ArrayList<>();
-            for (int i = 0; i < numToDisplay; i++) {
-                displayInstances.add(null);
-            }
+        if (this.displaySlots.length != numToDisplay) {
+            this.displaySlots = new int[numToDisplay];
+            Arrays.fill(this.displaySlots, -1);
         }
 
+        boolean[] displayed = new boolean[instanceManager.getSize()];
         for (int i = 0; i < numToDisplay; i++) {
-            MinecraftInstance instance = displayInstances.get(i);
-            if (instance != null && ((displayInstances.get(i).isWindowMarkedMissing()) || this.getLockedInstances().contains(displayInstances.get(i)))) {
-                displayInstances.set(i, null);
+            MinecraftInstance instance = instanceManager.getInstance(this.displaySlots[i]);
+            if (instance == null || instance.isWindowMarkedMissing() || this.isLocked(instance)) {
+                this.displaySlots[i] = -1;
+            } else {
+                displayed[this.displaySlots[i]] = true;
             }
         }
 
-        if (!displayInstances.contains(null)) {
-            this.saveDisplayInstances(displayInstances);
+        if (!this.hasEmptyDisplayPosition()) {
             return;
         }
 
-        List<MinecraftInstance> instancePool = new ArrayList<>(InstanceManager.getInstanceManager().getInstances());
-        instancePool.removeIf(instance -> this.getLockedInstances().contains(instance));
-        instancePool.removeIf(displayInstances::contains);
-        instancePool.sort((o1, o2) -> o2.getResetSortingNum() - o1.getResetSortingNum());
+        // Sorting numbers depend on the current time, so they are taken once per instance to keep the order consistent
+        List<Pair<MinecraftInstance, Integer>> instancePool = new ArrayList<>();
+        for (MinecraftInstance instance : instanceManager.getInstances()) {
+            if (!displayed[instanceManager.getInstanceIndex(instance)] && !this.isLocked(instance)) {
+                instancePool.add(Pair.of(instance, instance.getResetSortingNum()));
+            }
+        }
+        instancePool.sort((o1, o2) -> o2.getRight() - o1.getRight());
 
-        while (displayInstances.contains(null)) {
-            if (instancePool.isEmpty()) {
-                break;
+        int poolIndex = 0;
+        for (int i = 0; i < numToDisplay && poolIndex < instancePool.size(); i++) {
+            if (this.displaySlots[i] != -1) {
+                continue;
             }
-            MinecraftInstance removed = instancePool.remove(0);
-            removed.setVisible();
-            displayInstances.set(displayInstances.indexOf(null), removed);
+            MinecraftInstance instance = instancePool.get(poolIndex++).getLeft();
+            instance.setVisible();
+            this.displaySlots[i] = instanceManager.getInstanceIndex(instance);
         }
-        this.saveDisplayInstances(displayInstances);
     }
 
     @Override
@@ -107,8 +140,8 @@ public class DynamicWallResetManager extends WallResetManager {
         if (JultiOptions.getJultiOptions().useAffinity) {
             AffinityManager.ping();
         }
-        // Fill display with null then refresh to ensure good order
-        Collections.fill(this.displayInstancesIndices, null);
+        // Empty the display then refresh to ensure good order (refreshing also invalidates the wall layout)
+        Arrays.fill(this.displaySlots, -1);
         this.refreshDisplayInstances();
         // Return true if something has happened: instances were reset OR the display was updated
         return actionResults;
@@ -146,16 +179,34 @@ public class DynamicWallResetManager extends WallResetManager {
         return actionResults;
     }
 
+    @Override
+    public void tick(long cycles) {
+        super.tick(cycles);
+        if (!JultiOptions.getJultiOptions().dwThroughputScheduler) {
+            return;
+        }
+        if (this.scheduler.update(InstanceManager.getInstanceManager().getInstances(), this::isLocked, this.displaySlots.length) && JultiOptions.getJultiOptions().useAffinity) {
+            AffinityManager.ping();
+        }
+    }
+
+    @Override
+    public boolean shouldHoldGeneration(MinecraftInstance instance) {
+        return JultiOptions.getJultiOptions().dwThroughputScheduler && this.scheduler.isHeld(instance);
+    }
+
     @Override
     public void notifyPreviewLoaded(MinecraftInstance instance) {
-        List<MinecraftInstance> displayInstances = this.getDisplayInstances();
-        if (displayInstances.contains(instance)) {
+        this.scheduler.onPreviewLoaded();
+        int slot = InstanceManager.getInstanceManager().getInstanceIndex(instance);
+        if (slot == -1 || this.getDisplayPosition(instance) != -1) {
             return;
         }
-        for (MinecraftInstance replaceCandidateInstance : displayInstances) {
+        for (int i = 0; i < this.displaySlots.length; i++) {
+            MinecraftInstance replaceCandidateInstance = InstanceManager.getInstanceManager().getInstance(this.displaySlots[i]);
             if (replaceCandidateInstance != null && replaceCandidateInstance.shouldCoverWithDirt()) {
-                Collections.replaceAll(displayInstances, replaceCandidateInstance, instance);
-                this.saveDisplayInstances(displayInstances);
+                this.displaySlots[i] = slot;
+                this.invalidateWallLayout();
                 return;
             }
         }
@@ -164,18 +215,16 @@ public class DynamicWallResetManager extends WallResetManager {
     @Override
     public void onMissingInstancesUpdate() {
         super.onMissingInstancesUpdate();
-        this.displayInstancesIndices.clear();
+        this.displaySlots = new int[0];
         this.refreshDisplayInstances();
     }
 
     @Override
     public boolean resetInstance(MinecraftInstance instance, boolean bypassConditions) {
-        List<MinecraftInstance> displayInstances = this.getDisplayInstances();
-
-
         if (super.resetInstance(instance, bypassConditions)) {
-            if (displayInstances.contains(instance)) {
-                this.displayInstancesIndices.set(displayInstances.indexOf(instance), null);
+            int displayPosition = this.getDisplayPosition(instance);
+            if (displayPosition != -1) {
+                this.displaySlots[displayPosition] = -1;
             }
             this.refreshDisplayInstances();
             return true;
@@ -187,9 +236,10 @@ public class DynamicWallResetManager extends WallResetManager {
     public boolean lockInstance(MinecraftInstance instance) {
         // If super.lockInstance is true then it actually got locked and checked to unsquish
         if (super.lockInstance(instance)) {
-            List<MinecraftInstance> displayInstances = this.getDisplayInstances();
-            if (Collections.replaceAll(displayInstances, instance, null)) {
-                this.saveDisplayInstances(displayInstances);
+            int displayPosition = this.getDisplayPosition(instance);
+            if (displayPosition != -1) {
+                this.displaySlots[displayPosition] = -1;
+                this.invalidateWallLayout();
             }
             if (JultiOptions.getJultiOptions().dwReplaceLocked) {
                 this.refreshDisplayInstances();
@@ -213,11 +263,11 @@ public class DynamicWallResetManager extends WallResetManager {
             sceneSize = new Dimension(1920, 1080);
         }
 
-        List<MinecraftInstance> displayInstances = this.getDisplayInstances();
-
-        if (this.getLockedInstances().contains(instance)) {
+        if (this.isLocked(instance)) {
             return this.getLockedInstancePosition(instance, sceneSize);
-        } else if (!displayInstances.contains(instance)) {
+        }
+        int instanceInd = this.getDisplayPosition(instance);
+        if (instanceInd == -1) {
             return new Rectangle(sceneSize.width, 0, 100, 100);
         }
 
@@ -228,8 +278,6 @@ public class DynamicWallResetManager extends WallResetManager {
             totalColumns = Math.max(1, options.overrideColumnsAmount);
         }
 
-        int instanceInd = displayInstances.indexOf(instance);
-
         Dimension dwInnerSize = sceneSize;
         dwInnerSize.height = dwInnerSize.height - (int) ((options.lockedInstanceSpace / 100) * dwInnerSize.height);
 
@@ -260,12 +308,18 @@ public class DynamicWallResetManager extends WallResetManager {
 
     @Override
     public void reload() {
-        this.displayInstancesIndices = new ArrayList<>();
+        this.displaySlots = new int[0];
         this.isFirstReset = true;
+        this.scheduler.clear();
         this.refreshDisplayInstances();
         super.reload();
     }
 
+    @Override
+    protected boolean isWallLayoutCacheable() {
+        return getInstancePositionDeclarer(this) == DynamicWallResetManager.class;
+    }
+
     private Rectangle getLockedInstancePosition(MinecraftInstance instance, Dimension sceneSize) {
         JultiOptions options = JultiOptions.getJultiOptions();
 
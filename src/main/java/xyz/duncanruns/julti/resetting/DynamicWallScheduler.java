@@ -0,0 +1,177 @@
+package xyz.duncanruns.julti.resetting;
+
+import com.sun.management.OperatingSystemMXBean;
+import org.apache.logging.log4j.Level;
+import xyz.duncanruns.julti.Julti;
+import xyz.duncanruns.julti.instance.InstanceState;
+import xyz.duncanruns.julti.instance.MinecraftInstance;
+import xyz.duncanruns.julti.instance.StateTracker;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Decides which background instances of the dynamic wall keep generating at full speed.
+ * <p>
+ * The wall wants two walls worth of previewing or loaded instances (one shown, one ready to replace it), and only as
+ * many generating instances as are needed to reach that. While the CPU is saturated, generating instances past that
+ * number are held: they are given background affinity so the instances closest to previewing (by measured generation
+ * speed) get the CPU, and previews appear at a steady rate instead of all at once. Nothing is held while the CPU has
+ * room to spare. Only used on the main thread, except for {@link #isHeld(MinecraftInstance)}.
+ */
+final class DynamicWallScheduler {
+    private static final long UPDATE_INTERVAL_MS = 250;
+    private static final long REPORT_INTERVAL_MS = 60_000;
+    private static final double SATURATED_CPU_LOAD = 0.9;
+    private static final double CPU_LOAD_ALPHA = 0.3;
+    private static final double SPEED_ALPHA = 0.3;
+    private static final OperatingSystemMXBean OS_MX_BEAN = getOSMXBean();
+
+    private final Map<MinecraftInstance, Progress> progress = new HashMap<>();
+    private final Deque<Long> previewTimes = new ArrayDeque<>();
+    private volatile Set<MinecraftInstance> held = Collections.emptySet();
+    private double cpuLoad = -1;
+    private long lastUpdate = 0;
+    private long lastReport = System.currentTimeMillis();
+
+    private static OperatingSystemMXBean getOSMXBean() {
+        java.lang.management.OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+        return bean instanceof OperatingSystemMXBean ? (OperatingSystemMXBean) bean : null;
+    }
+
+    /**
+     * Can be called from any thread.
+     */
+    boolean isHeld(MinecraftInstance instance) {
+        return this.held.contains(instance);
+    }
+
+    void onPreviewLoaded() {
+        this.previewTimes.addLast(System.currentTimeMillis());
+    }
+
+    /**
+     * @return the amount of previews that appeared in the last minute
+     */
+    int getPreviewsPerMinute() {
+        long now = System.currentTimeMillis();
+        while (!this.previewTimes.isEmpty() && now - this.previewTimes.peekFirst() > 60_000) {
+            this.previewTimes.removeFirst();
+        }
+        return this.previewTimes.size();
+    }
+
+    void clear() {
+        this.progress.clear();
+        this.held = Collections.emptySet();
+    }
+
+    /**
+     * @param excluded instances not in the pool (locked instances)
+     * @param wallSize the amount of instances shown on the wall
+     *
+     * @return true if the held instances changed
+     */
+    boolean update(List<MinecraftInstance> instances, Predicate<MinecraftInstance> excluded, int wallSize) {
+        long now = System.currentTimeMillis();
+        if (now - this.lastUpdate < UPDATE_INTERVAL_MS) {
+            return false;
+        }
+        this.lastUpdate = now;
+
+        Map<MinecraftInstance, Byte> generating = new LinkedHashMap<>();
+        int available = 0;
+        for (MinecraftInstance instance : instances) {
+            if (excluded.test(instance) || instance.isWindowMarkedMissing()) {
+                continue;
+            }
+            StateTracker stateTracker = instance.getStateTracker();
+            InstanceState state = stateTracker.getInstanceState();
+            if (instance.isResetPressed() || state == InstanceState.WAITING || state == InstanceState.GENERATING) {
+                generating.put(instance, state == InstanceState.GENERATING ? stateTracker.getLoadingPercent() : 0);
+            } else if (state == InstanceState.PREVIEWING || state == InstanceState.INWORLD) {
+                available++;
+            }
+        }
+        return this.schedule(generating, available, wallSize, OS_MX_BEAN == null ? -1 : OS_MX_BEAN.getSystemCpuLoad(), now);
+    }
+
+    /**
+     * Chooses the held instances from measured values, split from {@link #update(List, Predicate, int)} so it can be
+     * run with any load and progress.
+     *
+     * @param generating the generating instances of the pool and their loading percentages, in instance order
+     * @param available  the amount of previewing or loaded instances in the pool
+     * @param load       the system CPU load from 0 to 1, or a negative value if unknown
+     *
+     * @return true if the held instances changed
+     */
+    boolean schedule(Map<MinecraftInstance, Byte> generating, int available, int wallSize, double load, long now) {
+        this.updateCpuLoad(load);
+        this.progress.keySet().retainAll(generating.keySet());
+        generating.forEach((instance, percent) -> this.updateProgress(instance, percent, now));
+
+        int needed = Math.max(1, wallSize * 2 - available);
+        Set<MinecraftInstance> newHeld = Collections.emptySet();
+        if (this.cpuLoad >= SATURATED_CPU_LOAD && generating.size() > needed) {
+            List<MinecraftInstance> closestFirst = new ArrayList<>(generating.keySet());
+            closestFirst.sort(Comparator.comparingDouble((MinecraftInstance i) -> this.progress.get(i).getTimeToPreview()).thenComparingLong(i -> this.progress.get(i).start));
+            newHeld = Collections.unmodifiableSet(new HashSet<>(closestFirst.subList(needed, closestFirst.size())));
+        }
+
+        if (now - this.lastReport > REPORT_INTERVAL_MS) {
+            this.lastReport = now;
+            Julti.log(Level.DEBUG, String.format("Dynamic wall: %d previews in the last minute, %d/%d generating instances held, %.0f%% CPU load", this.getPreviewsPerMinute(), newHeld.size(), generating.size(), this.cpuLoad * 100));
+        }
+
+        if (newHeld.equals(this.held)) {
+            return false;
+        }
+        this.held = newHeld;
+        return true;
+    }
+
+    private void updateCpuLoad(double load) {
+        if (load < 0) {
+            // Unknown, never hold anything
+            this.cpuLoad = -1;
+        } else {
+            this.cpuLoad = this.cpuLoad < 0 ? load : this.cpuLoad + CPU_LOAD_ALPHA * (load - this.cpuLoad);
+        }
+    }
+
+    private void updateProgress(MinecraftInstance instance, byte percent, long now) {
+        Progress p = this.progress.get(instance);
+        if (p == null || percent < p.percent) {
+            // New generation
+            this.progress.put(instance, new Progress(percent, now));
+            return;
+        }
+        if (percent == p.percent) {
+            return;
+        }
+        double speed = (percent - p.percent) / (double) Math.max(1, now - p.time);
+        p.speed = p.speed == 0 ? speed : p.speed + SPEED_ALPHA * (speed - p.speed);
+        p.percent = percent;
+        p.time = now;
+    }
+
+    private static class Progress {
+        private final long start;
+        private byte percent;
+        private long time;
+        // Percent per millisecond, 0 if not measured yet
+        private double speed = 0;
+
+        private Progress(byte percent, long time) {
+            this.start = time;
+            this.percent = percent;
+            this.time = time;
+        }
+
+        private double getTimeToPreview() {
+            return this.speed == 0 ? Double.MAX_VALUE : (100 - this.percent) / this.speed;
+        }
+    }
+}
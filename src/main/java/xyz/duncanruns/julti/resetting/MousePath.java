@@ -0,0 +1,73 @@
+package xyz.duncanruns.julti.resetting;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+public final class MousePath {
+    private MousePath() {
+    }
+
+    /**
+     * Gets everything crossed by a mouse path, in the order it was first crossed. Every pixel the straight line between
+     * two samples passes through is checked, so fast movements can't skip anything between two far apart samples, no
+     * matter how narrow it is.
+     *
+     * @param path    the sampled mouse positions
+     * @param hitTest gives what is at a point, or null if nothing is
+     */
+    public static <T> List<T> getCrossed(List<Point> path, Function<Point, T> hitTest) {
+        Set<T> crossed = new LinkedHashSet<>();
+        if (path.isEmpty()) {
+            return new ArrayList<>();
+        }
+        addHit(crossed, hitTest, path.get(0).x, path.get(0).y);
+        for (int i = 1; i < path.size(); i++) {
+            addSegment(crossed, hitTest, path.get(i - 1), path.get(i));
+        }
+        return new ArrayList<>(crossed);
+    }
+
+    /**
+     * Walks the pixels crossed by the line between the centers of two pixels, excluding the first pixel. Only steps to
+     * side neighbours are taken, and where the line passes exactly through a pixel corner, both pixels beside the
+     * corner are checked, so a diagonal line can't slip between two pixels.
+     */
+    private static <T> void addSegment(Set<T> crossed, Function<Point, T> hitTest, Point from, Point to) {
+        int nx = Math.abs(to.x - from.x);
+        int ny = Math.abs(to.y - from.y);
+        int sx = Integer.signum(to.x - from.x);
+        int sy = Integer.signum(to.y - from.y);
+        int x = from.x;
+        int y = from.y;
+        for (int ix = 0, iy = 0; ix < nx || iy < ny; ) {
+            // Compares where the line next crosses a vertical pixel edge ((0.5 + ix) / nx) and a horizontal one
+            long decision = (1 + 2L * ix) * ny - (1 + 2L * iy) * nx;
+            if (decision == 0) {
+                addHit(crossed, hitTest, x + sx, y);
+                addHit(crossed, hitTest, x, y + sy);
+                x += sx;
+                y += sy;
+                ix++;
+                iy++;
+            } else if (decision < 0) {
+                x += sx;
+                ix++;
+            } else {
+                y += sy;
+                iy++;
+            }
+            addHit(crossed, hitTest, x, y);
+        }
+    }
+
+    private static <T> void addHit(Set<T> crossed, Function<Point, T> hitTest, int x, int y) {
+        T hit = hitTest.apply(new Point(x, y));
+        if (hit != null) {
+            crossed.add(hit);
+        }
+    }
+}
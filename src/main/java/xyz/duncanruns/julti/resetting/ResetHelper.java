@@ -1,18 +1,26 @@
 package xyz.duncanruns.julti.resetting;
 
 import xyz.duncanruns.julti.JultiOptions;
+import xyz.duncanruns.julti.instance.MinecraftInstance;
+import xyz.duncanruns.julti.management.ActiveWindowManager;
 import xyz.duncanruns.julti.util.SoundUtil;
 
 import java.awt.*;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 public class ResetHelper {
 
     private static final HashMap<String, Supplier<ResetManager>> RESET_MANAGER_MAP = new HashMap<>();
 
+    // Instances already handled by the current drag gesture, only used on the main thread
+    private static final Set<MinecraftInstance> GESTURE_HANDLED = new HashSet<>();
+    private static int currentGestureId = -1;
+
     static {
         registerResetStyle("Multi", MultiResetManager::getMultiResetManager);
         registerResetStyle("Wall", WallResetManager::getWallResetManager);
@@ -67,6 +75,38 @@ public class ResetHelper {
         }
     }
 
+    /**
+     * Runs a wall lock or single reset on every instance crossed by part of a drag gesture. The results of each part
+     * are processed together, so a batch of resets plays a single sound and pings affinity once.
+     */
+    public static void runGesture(String hotkeyCode, int gestureId, List<Point> path) {
+        ResetManager manager = getManager();
+        // Bounds and layout are looked up once for the whole batch rather than for every pixel of the path
+        Function<Point, MinecraftInstance> hitTest = manager.getWallHitTest();
+        if (gestureId != currentGestureId) {
+            currentGestureId = gestureId;
+            GESTURE_HANDLED.clear();
+            // The instance under the starting point was already handled by the hotkey press itself
+            MinecraftInstance pressed = hitTest.apply(path.get(0));
+            if (pressed != null) {
+                GESTURE_HANDLED.add(pressed);
+            }
+        }
+        if (!ActiveWindowManager.isWallActive()) {
+            return;
+        }
+        List<MinecraftInstance> crossed = MousePath.getCrossed(path, hitTest);
+        crossed.removeIf(instance -> !GESTURE_HANDLED.add(instance));
+        switch (hotkeyCode) {
+            case "wallLock":
+                processActionResults(manager.lockInstances(crossed));
+                break;
+            case "wallSingleReset":
+                processActionResults(manager.resetInstances(crossed));
+                break;
+        }
+    }
+
     private static void processActionResults(List<ActionResult> actionResults) {
         if (actionResults.isEmpty()) {
             return;
@@ -13,10 +13,15 @@ import xyz.duncanruns.julti.util.KeyboardUtil;
 
 import javax.annotation.Nullable;
 import java.awt.*;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Function;
 
 public abstract class ResetManager {
+    // Cached instance positions used to find hovered instances, see invalidateWallLayout
+    private volatile WallLayout wallLayout = null;
+    private volatile int wallLayoutGeneration = 0;
 
     public List<ActionResult> doReset() {
         String toCopy = JultiOptions.getJultiOptions().clipboardOnReset;
@@ -54,6 +59,20 @@ public abstract class ResetManager {
         return Collections.emptyList();
     }
 
+    /**
+     * Locks all given wall instances at once, used by drag gestures.
+     */
+    public List<ActionResult> lockInstances(List<MinecraftInstance> instances) {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Resets all given wall instances at once, used by drag gestures.
+     */
+    public List<ActionResult> resetInstances(List<MinecraftInstance> instances) {
+        return Collections.emptyList();
+    }
+
     public void notifyPreviewLoaded(MinecraftInstance instance) {
         JultiOptions options = JultiOptions.getJultiOptions();
         if (options.useAffinity) {
@@ -68,38 +87,111 @@ public abstract class ResetManager {
         }
     }
 
+    /**
+     * Checks if a generating instance should be given background affinity so other instances can reach the preview
+     * first. Called by the affinity manager thread.
+     */
+    public boolean shouldHoldGeneration(MinecraftInstance instance) {
+        return false;
+    }
+
     public List<MinecraftInstance> getLockedInstances() {
         return Collections.emptyList();
     }
 
+    /**
+     * Checks if an instance is locked. Reset managers which lock instances should override this with a constant time
+     * check rather than searching {@link ResetManager#getLockedInstances()}.
+     */
+    public boolean isLocked(MinecraftInstance instance) {
+        return this.getLockedInstances().contains(instance);
+    }
+
     @Nullable
     protected MinecraftInstance getHoveredWallInstance(Point mousePosition) {
+        return this.getWallHitTest().apply(mousePosition);
+    }
+
+    /**
+     * Gets a function finding the wall instance at a screen position. The window bounds, scene size and layout are
+     * looked up once when this is called, so the function is cheap to use for many points at once such as every pixel
+     * along a drag gesture. Reset managers overriding {@link ResetManager#getHoveredWallInstance(Point)} should also
+     * override this.
+     */
+    protected Function<Point, MinecraftInstance> getWallHitTest() {
         JultiOptions options = JultiOptions.getJultiOptions();
-        Point point = new Point(mousePosition.x, mousePosition.y);
         Rectangle bounds = ActiveWindowManager.getActiveWindowBounds();
         Dimension sceneSize = OBSStateManager.getOBSStateManager().getOBSSceneSize();
-        if (sceneSize == null) {
-            sceneSize = new Dimension(options.playingWindowSize[0], options.playingWindowSize[1]);
-        }
-        if (bounds.width == 0) {
-            bounds.width = 1920;
-        }
-        if (bounds.height == 0) {
-            bounds.height = 1080;
-        }
-        point.translate(-bounds.x, -bounds.y);
-        Point posOnScene = new Point(point);
-        if (!sceneSize.equals(bounds.getSize())) {
-            posOnScene.x = posOnScene.x * sceneSize.width / bounds.width;
-            posOnScene.y = posOnScene.y * sceneSize.height / bounds.height;
-        }
+        int sceneWidth = sceneSize == null ? options.playingWindowSize[0] : sceneSize.width;
+        int sceneHeight = sceneSize == null ? options.playingWindowSize[1] : sceneSize.height;
+        int boundsWidth = bounds.width == 0 ? 1920 : bounds.width;
+        int boundsHeight = bounds.height == 0 ? 1080 : bounds.height;
+        boolean scaled = sceneWidth != boundsWidth || sceneHeight != boundsHeight;
+        WallLayout layout = this.getWallLayout(sceneWidth, sceneHeight);
+
+        return mousePosition -> {
+            int x = mousePosition.x - bounds.x;
+            int y = mousePosition.y - bounds.y;
+            if (scaled) {
+                x = x * sceneWidth / boundsWidth;
+                y = y * sceneHeight / boundsHeight;
+            }
+            return layout.getInstanceAt(x, y);
+        };
+    }
 
-        for (MinecraftInstance instance : InstanceManager.getInstanceManager().getInstances()) {
-            if (this.getInstancePosition(instance, sceneSize).contains(posOnScene)) {
-                return instance;
+    private WallLayout getWallLayout(int sceneWidth, int sceneHeight) {
+        JultiOptions options = JultiOptions.getJultiOptions();
+        InstanceManager instanceManager = InstanceManager.getInstanceManager();
+        List<MinecraftInstance> instances = instanceManager.getInstances();
+        WallLayout.Key key = new WallLayout.Key(
+                sceneWidth,
+                sceneHeight,
+                instances.size(),
+                instanceManager.getSlotGeneration(),
+                this.wallLayoutGeneration,
+                options.autoCalcWallSize,
+                options.overrideRowsAmount,
+                options.overrideColumnsAmount,
+                options.lockedInstanceSpace
+        );
+        WallLayout layout = this.wallLayout;
+        if (layout == null || !layout.matches(key)) {
+            layout = WallLayout.build(key, new ArrayList<>(instances), this);
+            if (this.isWallLayoutCacheable()) {
+                this.wallLayout = layout;
             }
         }
-        return null;
+        return layout;
+    }
+
+    /**
+     * Whether instance positions only change with the inputs tracked by {@link WallLayout.Key} and
+     * {@link ResetManager#invalidateWallLayout()}. Reset managers with their own positions (such as from plugins) are
+     * not cached unless they override this.
+     */
+    protected boolean isWallLayoutCacheable() {
+        return getInstancePositionDeclarer(this) == ResetManager.class;
+    }
+
+    protected static Class<?> getInstancePositionDeclarer(ResetManager resetManager) {
+        try {
+            return resetManager.getClass().getMethod("getInstancePosition", MinecraftInstance.class, Dimension.class).getDeclaringClass();
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Should be called by reset managers whenever something other than the instances, scene size or wall options
+     * changes the result of {@link ResetManager#getInstancePosition(MinecraftInstance, Dimension)}.
+     */
+    protected void invalidateWallLayout() {
+        this.wallLayoutGeneration++;
+    }
+
+    int getWallLayoutGeneration() {
+        return this.wallLayoutGeneration;
     }
 
     /**
@@ -112,7 +204,8 @@ public abstract class ResetManager {
      * @return the position of the instance
      */
     public Rectangle getInstancePosition(MinecraftInstance instance, Dimension sceneSize) {
-        List<MinecraftInstance> instances = InstanceManager.getInstanceManager().getInstances();
+        InstanceManager instanceManager = InstanceManager.getInstanceManager();
+        List<MinecraftInstance> instances = instanceManager.getInstances();
 
         JultiOptions options = JultiOptions.getJultiOptions();
         int totalRows;
@@ -126,7 +219,7 @@ public abstract class ResetManager {
             totalColumns = Math.max(1, options.overrideColumnsAmount);
         }
 
-        int instanceInd = instances.indexOf(instance);
+        int instanceInd = instanceManager.getInstanceIndex(instance);
 
         Dimension size = sceneSize == null ? OBSStateManager.getOBSStateManager().getOBSSceneSize() : sceneSize;
 
@@ -179,7 +272,7 @@ public abstract class ResetManager {
     public MinecraftInstance getRelativeInstance(int offset) {
         MinecraftInstance selectedInstance = InstanceManager.getInstanceManager().getSelectedInstance();
         List<MinecraftInstance> instances = InstanceManager.getInstanceManager().getInstances();
-        int startIndex = selectedInstance == null ? -1 : instances.indexOf(selectedInstance);
+        int startIndex = InstanceManager.getInstanceManager().getInstanceIndex(selectedInstance);
         return instances.get((startIndex + offset) % instances.size());
     }
 
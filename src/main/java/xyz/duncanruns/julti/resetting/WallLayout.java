@@ -0,0 +1,172 @@
+package xyz.duncanruns.julti.resetting;
+
+import xyz.duncanruns.julti.instance.MinecraftInstance;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The positions of all instances on the wall scene, with a grid of buckets over the scene so finding the instance at a
+ * point only checks the few instances overlapping that point's bucket.
+ * <p>
+ * A layout is built for one set of inputs (scene size, instances, reset manager state and wall options) and should be
+ * rebuilt when {@link #matches(Key)} is false.
+ */
+final class WallLayout {
+    private static final int BUCKETS_X = 32;
+    private static final int BUCKETS_Y = 32;
+    private static final int[] NO_INSTANCES = new int[0];
+
+    private final Key key;
+    private final List<MinecraftInstance> instances;
+    private final Rectangle[] positions;
+    // Bucket -> indexes of instances overlapping it, in instance order
+    private final int[][] buckets = new int[BUCKETS_X * BUCKETS_Y][];
+
+    WallLayout(Key key, List<MinecraftInstance> instances, Rectangle[] positions) {
+        this.key = key;
+        this.instances = instances;
+        this.positions = positions;
+        this.fillBuckets();
+    }
+
+    static WallLayout build(Key key, List<MinecraftInstance> instances, ResetManager resetManager) {
+        Rectangle[] positions = new Rectangle[instances.size()];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = resetManager.getInstancePosition(instances.get(i), new Dimension(key.sceneWidth, key.sceneHeight));
+        }
+        return new WallLayout(key, instances, positions);
+    }
+
+    private void fillBuckets() {
+        int[] bucketSizes = new int[this.buckets.length];
+        int[][] ranges = new int[this.positions.length][];
+        for (int i = 0; i < this.positions.length; i++) {
+            Rectangle position = this.positions[i];
+            if (position.isEmpty()) {
+                continue;
+            }
+            int[] range = {
+                    this.getBucketX(position.x), this.getBucketY(position.y),
+                    this.getBucketX(position.x + position.width - 1), this.getBucketY(position.y + position.height - 1)
+            };
+            ranges[i] = range;
+            for (int by = range[1]; by <= range[3]; by++) {
+                for (int bx = range[0]; bx <= range[2]; bx++) {
+                    bucketSizes[by * BUCKETS_X + bx]++;
+                }
+            }
+        }
+        for (int b = 0; b < this.buckets.length; b++) {
+            this.buckets[b] = bucketSizes[b] == 0 ? NO_INSTANCES : new int[bucketSizes[b]];
+        }
+        Arrays.fill(bucketSizes, 0);
+        for (int i = 0; i < ranges.length; i++) {
+            int[] range = ranges[i];
+            if (range == null) {
+                continue;
+            }
+            for (int by = range[1]; by <= range[3]; by++) {
+                for (int bx = range[0]; bx <= range[2]; bx++) {
+                    int b = by * BUCKETS_X + bx;
+                    this.buckets[b][bucketSizes[b]++] = i;
+                }
+            }
+        }
+    }
+
+    private int getBucketX(int x) {
+        return clamp((int) ((long) x * BUCKETS_X / Math.max(1, this.key.sceneWidth)), BUCKETS_X);
+    }
+
+    private int getBucketY(int y) {
+        return clamp((int) ((long) y * BUCKETS_Y / Math.max(1, this.key.sceneHeight)), BUCKETS_Y);
+    }
+
+    private static int clamp(int bucket, int buckets) {
+        return Math.max(0, Math.min(buckets - 1, bucket));
+    }
+
+    boolean matches(Key key) {
+        return this.key.equals(key);
+    }
+
+    /**
+     * Gets the first instance whose position contains the point, like checking every instance in order would.
+     */
+    MinecraftInstance getInstanceAt(int x, int y) {
+        if (x < 0 || y < 0 || x >= this.key.sceneWidth || y >= this.key.sceneHeight) {
+            // Hidden instances can be positioned off the scene, which the buckets do not cover
+            for (int i = 0; i < this.positions.length; i++) {
+                if (this.positions[i].contains(x, y)) {
+                    return this.instances.get(i);
+                }
+            }
+            return null;
+        }
+        for (int i : this.buckets[this.getBucketY(y) * BUCKETS_X + this.getBucketX(x)]) {
+            if (this.positions[i].contains(x, y)) {
+                return this.instances.get(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Everything the positions of instances depend on.
+     */
+    static final class Key {
+        private final int sceneWidth;
+        private final int sceneHeight;
+        private final int instanceCount;
+        private final int slotGeneration;
+        private final int layoutGeneration;
+        private final boolean autoCalcWallSize;
+        private final int overrideRowsAmount;
+        private final int overrideColumnsAmount;
+        private final float lockedInstanceSpace;
+
+        Key(int sceneWidth, int sceneHeight, int instanceCount, int slotGeneration, int layoutGeneration, boolean autoCalcWallSize, int overrideRowsAmount, int overrideColumnsAmount, float lockedInstanceSpace) {
+            this.sceneWidth = sceneWidth;
+            this.sceneHeight = sceneHeight;
+            this.instanceCount = instanceCount;
+            this.slotGeneration = slotGeneration;
+            this.layoutGeneration = layoutGeneration;
+            this.autoCalcWallSize = autoCalcWallSize;
+            this.overrideRowsAmount = overrideRowsAmount;
+            this.overrideColumnsAmount = overrideColumnsAmount;
+            this.lockedInstanceSpace = lockedInstanceSpace;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return this.sceneWidth == key.sceneWidth
+                    && this.sceneHeight == key.sceneHeight
+                    && this.instanceCount == key.instanceCount
+                    && this.slotGeneration == key.slotGeneration
+                    && this.layoutGeneration == key.layoutGeneration
+                    && this.autoCalcWallSize == key.autoCalcWallSize
+                    && this.overrideRowsAmount == key.overrideRowsAmount
+                    && this.overrideColumnsAmount == key.overrideColumnsAmount
+                    && Float.compare(this.lockedInstanceSpace, key.lockedInstanceSpace) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = this.sceneWidth;
+            result = 31 * result + this.sceneHeight;
+            result = 31 * result + this.instanceCount;
+            result = 31 * result + this.slotGeneration;
+            result = 31 * result + this.layoutGeneration;
+            return result;
+        }
+    }
+}
@@ -21,6 +21,12 @@ public class WallResetManager extends ResetManager {
     private static final WallResetManager INSTANCE = new WallResetManager();
 
     private final List<MinecraftInstance> lockedInstances = new ArrayList<>();
+    private final List<MinecraftInstance> lockedInstancesView = Collections.unmodifiableList(this.lockedInstances);
+    // Locked instances by slot, replaced (never modified) when locks change or slots are reassigned, as resets on
+    // other threads read it through isLocked
+    private volatile LockedSlots lockedSlots = new LockedSlots(new BitSet(), -1);
+    // The default wall layout ignores locks, only overridden positions (such as dynamic wall's) can move with them
+    private final boolean layoutDependsOnLocks = getInstancePositionDeclarer(this) != ResetManager.class;
 
     private MinecraftInstance lastAttemptedJoin = null;
     private long lastAttemptedJoinTime = 0L;
@@ -76,12 +82,10 @@ public class WallResetManager extends ResetManager {
         if (!ActiveWindowManager.isWallActive()) {
             return Collections.emptyList();
         }
-        List<MinecraftInstance> lockedInstances = new ArrayList<>(this.getLockedInstances());
+        List<MinecraftInstance> toReset = new ArrayList<>(InstanceManager.getInstanceManager().getInstances());
+        toReset.removeIf(this::isLocked);
         List<ActionResult> actionResults = new ArrayList<>();
-        DoAllFastUtil.doAllFast(instance -> {
-            if (lockedInstances.contains(instance)) {
-                return;//(continue;)
-            }
+        DoAllFastUtil.doAllFast(toReset, instance -> {
             if (this.resetInstance(instance)) {
                 synchronized (actionResults) {
                     actionResults.add(ActionResult.INSTANCE_RESET);
@@ -126,6 +130,40 @@ public class WallResetManager extends ResetManager {
         return out ? Collections.singletonList(ActionResult.INSTANCE_LOCKED) : Collections.emptyList();
     }
 
+    @Override
+    public List<ActionResult> lockInstances(List<MinecraftInstance> instances) {
+        if (instances.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<ActionResult> actionResults = new ArrayList<>();
+        for (MinecraftInstance instance : instances) {
+            if (this.lockInstance(instance)) {
+                actionResults.add(ActionResult.INSTANCE_LOCKED);
+            }
+        }
+        if (JultiOptions.getJultiOptions().useAffinity) {
+            AffinityManager.ping();
+        }
+        return actionResults;
+    }
+
+    @Override
+    public List<ActionResult> resetInstances(List<MinecraftInstance> instances) {
+        if (instances.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (JultiOptions.getJultiOptions().useAffinity) {
+            AffinityManager.ping();
+        }
+        List<ActionResult> actionResults = new ArrayList<>();
+        for (MinecraftInstance instance : instances) {
+            if (this.resetInstance(instance)) {
+                actionResults.add(ActionResult.INSTANCE_RESET);
+            }
+        }
+        return actionResults;
+    }
+
     @Override
     public List<ActionResult> doWallFocusReset(Point mousePosition) {
         if (!ActiveWindowManager.isWallActive()) {
@@ -140,8 +178,7 @@ public class WallResetManager extends ResetManager {
 
         // Get list of instances to reset
         List<MinecraftInstance> toReset = new ArrayList<>(InstanceManager.getInstanceManager().getInstances());
-        toReset.removeAll(this.lockedInstances);
-        toReset.remove(clickedInstance);
+        toReset.removeIf(instance -> instance == clickedInstance || this.isLocked(instance));
 
         List<ActionResult> actionResults = new ArrayList<>(this.playInstanceFromWall(clickedInstance, false));
 
@@ -211,13 +248,51 @@ public class WallResetManager extends ResetManager {
 
     @Override
     public List<MinecraftInstance> getLockedInstances() {
-        return Collections.unmodifiableList(this.lockedInstances);
+        return this.lockedInstancesView;
+    }
+
+    @Override
+    public boolean isLocked(MinecraftInstance instance) {
+        InstanceManager instanceManager = InstanceManager.getInstanceManager();
+        LockedSlots lockedSlots = this.lockedSlots;
+        if (lockedSlots.generation != instanceManager.getSlotGeneration()) {
+            lockedSlots = this.rebuildLockedSlots();
+        }
+        int slot = instanceManager.getInstanceIndex(instance);
+        return slot != -1 && lockedSlots.slots.get(slot);
+    }
+
+    private LockedSlots rebuildLockedSlots() {
+        InstanceManager instanceManager = InstanceManager.getInstanceManager();
+        synchronized (this.lockedInstances) {
+            int generation = instanceManager.getSlotGeneration();
+            BitSet slots = new BitSet();
+            for (MinecraftInstance instance : this.lockedInstances) {
+                int slot = instanceManager.getInstanceIndex(instance);
+                if (slot != -1) {
+                    slots.set(slot);
+                }
+            }
+            LockedSlots lockedSlots = new LockedSlots(slots, generation);
+            this.lockedSlots = lockedSlots;
+            return lockedSlots;
+        }
+    }
+
+    private void onLocksChanged() {
+        if (this.layoutDependsOnLocks) {
+            this.invalidateWallLayout();
+        }
     }
 
     @Override
     public void onMissingInstancesUpdate() {
         super.onMissingInstancesUpdate();
-        this.lockedInstances.clear();
+        synchronized (this.lockedInstances) {
+            this.lockedInstances.clear();
+            this.rebuildLockedSlots();
+        }
+        this.onLocksChanged();
     }
 
     public boolean resetInstance(MinecraftInstance instance) {
@@ -235,8 +310,12 @@ public class WallResetManager extends ResetManager {
 
     @Override
     public boolean lockInstance(MinecraftInstance instance) {
-        if (!this.lockedInstances.contains(instance)) {
-            this.lockedInstances.add(instance);
+        if (!this.isLocked(instance)) {
+            synchronized (this.lockedInstances) {
+                this.lockedInstances.add(instance);
+                this.rebuildLockedSlots();
+            }
+            this.onLocksChanged();
             // Calling super.lockInstance to do unsquish check
             super.lockInstance(instance);
             return true;
@@ -270,11 +349,10 @@ public class WallResetManager extends ResetManager {
     }
 
     private List<ActionResult> resetNonLockedExcept(MinecraftInstance clickedInstance) {
+        List<MinecraftInstance> toReset = new ArrayList<>(InstanceManager.getInstanceManager().getInstances());
+        toReset.removeIf(instance -> instance.equals(clickedInstance) || this.isLocked(instance));
         List<ActionResult> actionResults = new ArrayList<>();
-        DoAllFastUtil.doAllFast(instance -> {
-            if (instance.equals(clickedInstance) || this.lockedInstances.contains(instance)) {
-                return;//(continue;)
-            }
+        DoAllFastUtil.doAllFast(toReset, instance -> {
             if (this.resetInstance(instance)) {
                 synchronized (actionResults) {
                     actionResults.add(ActionResult.INSTANCE_RESET);
@@ -335,7 +413,13 @@ public class WallResetManager extends ResetManager {
     }
 
     private void unlockInstance(MinecraftInstance nextInstance) {
-        this.lockedInstances.remove(nextInstance);
+        synchronized (this.lockedInstances) {
+            if (!this.lockedInstances.remove(nextInstance)) {
+                return;
+            }
+            this.rebuildLockedSlots();
+        }
+        this.onLocksChanged();
     }
 
     /**
@@ -360,4 +444,14 @@ public class WallResetManager extends ResetManager {
             return true;
         }
     }
+
+    private static class LockedSlots {
+        private final BitSet slots;
+        private final int generation;
+
+        private LockedSlots(BitSet slots, int generation) {
+            this.slots = slots;
+            this.generation = generation;
+        }
+    }
 }
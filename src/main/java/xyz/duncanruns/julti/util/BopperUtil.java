@@ -30,7 +30,7 @@ public final class BopperUtil {
     }
 
     private static void clearWorldsInternal() {
-        List<MinecraftInstance> instances = InstanceManager.getInstanceManager().getInstances();
+        List<MinecraftInstance> instances = InstanceManager.getInstanceManager().getSnapshot().getInstances();
         Thread[] threads = new Thread[instances.size()];
         int i = 0;
         for (MinecraftInstance instance : instances) {
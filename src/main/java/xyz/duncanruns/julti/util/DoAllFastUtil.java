@@ -20,12 +20,7 @@ public final class DoAllFastUtil {
     }
 
     public static <T> void doAllFast(List<T> items, Consumer<T> consumer) {
-        Thread[] threads = new Thread[items.size()];
-        int i = 0;
-        for (T item : items) {
-            Thread thread = threads[i++] = new Thread(() -> consumer.accept(item), "do-fast-util");
-            thread.start();
-        }
+        Thread[] threads = startAll(items, consumer);
         try {
             for (Thread thread : threads) {
                 thread.join();
@@ -34,4 +29,36 @@ public final class DoAllFastUtil {
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * Like {@link #doAllFast(List, Consumer)}, but keeps waiting for every operation to finish if interrupted, then
+     * restores the interrupt status. Used where leaving operations running in the background is unsafe.
+     */
+    public static <T> void doAllFastUninterruptibly(List<T> items, Consumer<T> consumer) {
+        Thread[] threads = startAll(items, consumer);
+        boolean interrupted = false;
+        for (Thread thread : threads) {
+            while (true) {
+                try {
+                    thread.join();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static <T> Thread[] startAll(List<T> items, Consumer<T> consumer) {
+        Thread[] threads = new Thread[items.size()];
+        int i = 0;
+        for (T item : items) {
+            Thread thread = threads[i++] = new Thread(() -> consumer.accept(item), "do-fast-util");
+            thread.start();
+        }
+        return threads;
+    }
 }
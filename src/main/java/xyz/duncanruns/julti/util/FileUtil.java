@@ -2,8 +2,14 @@ package xyz.duncanruns.julti.util;
 
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 
 public final class FileUtil {
     private FileUtil() {
@@ -15,6 +21,27 @@ public final class FileUtil {
         writer.close();
     }
 
+    /**
+     * Writes the string to a temporary file next to the path, then renames it over the path, so the file is never
+     * left half written if Julti is killed or crashes during the write.
+     */
+    public static void writeStringAtomically(Path path, String string) throws IOException {
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            // Same charset as FileWriter and readString
+            ByteBuffer buffer = ByteBuffer.wrap(string.getBytes(Charset.defaultCharset()));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
     public static String readString(Path path) throws IOException {
         return new String(Files.readAllBytes(path));
     }
@@ -0,0 +1,73 @@
+package xyz.duncanruns.julti.util;
+
+import com.sun.jna.platform.win32.WinDef;
+
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Immutable table of the WPARAM and key down/up LPARAM values for every virtual key, so posting key messages does not
+ * need to map scan codes or allocate parameters for every press.
+ * <p>
+ * LPARAM layout -> https://learn.microsoft.com/en-us/windows/win32/inputdev/wm-keydown
+ */
+public final class KeyMessageTable {
+    public static final int KEY_COUNT = 0x100;
+
+    private final WinDef.WPARAM[] wParams = new WinDef.WPARAM[KEY_COUNT];
+    private final WinDef.LPARAM[] keyDownLParams = new WinDef.LPARAM[KEY_COUNT];
+    private final WinDef.LPARAM[] keyUpLParams = new WinDef.LPARAM[KEY_COUNT];
+
+    /**
+     * @param scanCodeMapper maps a virtual key to its scan code, normally MapVirtualKey with MAPVK_VK_TO_VSC
+     */
+    public KeyMessageTable(IntUnaryOperator scanCodeMapper) {
+        for (int vk = 0; vk < KEY_COUNT; vk++) {
+            int scanCode = scanCodeMapper.applyAsInt(vk);
+            boolean extended = isExtendedKey(vk);
+            this.wParams[vk] = new WinDef.WPARAM(vk);
+            this.keyDownLParams[vk] = new WinDef.LPARAM(encodeLParam(scanCode, extended, false));
+            this.keyUpLParams[vk] = new WinDef.LPARAM(encodeLParam(scanCode, extended, true));
+        }
+    }
+
+    public static long encodeLParam(int scanCode, boolean extended, boolean keyUp) {
+        int transitionState = keyUp ? 1 : 0;
+        int previousKeyState = keyUp ? 1 : 0;
+        int repeatCount = 1;
+        return (transitionState << 31) | (previousKeyState << 30) | ((extended ? 1 : 0) << 24) | ((scanCode & 0xFF) << 16) | repeatCount;
+    }
+
+    public static boolean isExtendedKey(int virtualKey) {
+        switch (virtualKey) {
+            case 0xA5: // VK_RMENU
+            case 0xA3: // VK_RCONTROL
+            case 0x25: // VK_LEFT
+            case 0x26: // VK_UP
+            case 0x27: // VK_RIGHT
+            case 0x28: // VK_DOWN
+            case 0x21: // VK_PRIOR
+            case 0x22: // VK_NEXT
+            case 0x23: // VK_END
+            case 0x24: // VK_HOME
+            case 0x2D: // VK_INSERT
+            case 0x2E: // VK_DELETE
+            case 0x6F: // VK_DIVIDE
+            case 0x90: // VK_NUMLOCK
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public WinDef.WPARAM getWParam(int virtualKey) {
+        return this.wParams[virtualKey];
+    }
+
+    public WinDef.LPARAM getKeyDownLParam(int virtualKey) {
+        return this.keyDownLParams[virtualKey];
+    }
+
+    public WinDef.LPARAM getKeyUpLParam(int virtualKey) {
+        return this.keyUpLParams[virtualKey];
+    }
+}
@@ -0,0 +1,115 @@
+package xyz.duncanruns.julti.util;
+
+import com.sun.jna.platform.win32.WinDef;
+import com.sun.jna.platform.win32.WinDef.HWND;
+import com.sun.jna.platform.win32.WinUser;
+
+import java.util.Arrays;
+
+/**
+ * An immutable sequence of key down and key up messages which can be posted to a window in one go.
+ * <p>
+ * Sequences are encoded once when built, sending one only reads from the {@link KeyMessageTable} and posts the
+ * messages without allocating.
+ */
+public final class KeySequence {
+    public static final KeySequence EMPTY = new KeySequence(new int[0]);
+
+    private static final int KEY_UP_FLAG = 0x100;
+    // Kept here rather than in KeyboardUtil so sequences can be used without loading User32
+    private static final WinDef.UINT WM_KEYDOWN = new WinDef.UINT(WinUser.WM_KEYDOWN);
+    private static final WinDef.UINT WM_KEYUP = new WinDef.UINT(WinUser.WM_KEYUP);
+
+    // Each message is a virtual key, with KEY_UP_FLAG set for key up messages
+    private final int[] messages;
+
+    private KeySequence(int[] messages) {
+        this.messages = messages;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int size() {
+        return this.messages.length;
+    }
+
+    public void send(HWND hwnd) {
+        KeyboardUtil.sendKeySequence(hwnd, this);
+    }
+
+    public void send(HWND hwnd, KeyMessageTable table, KeyMessageSink sink) {
+        for (int message : this.messages) {
+            int virtualKey = message & 0xFF;
+            if ((message & KEY_UP_FLAG) == 0) {
+                sink.post(hwnd, WM_KEYDOWN, table.getWParam(virtualKey), table.getKeyDownLParam(virtualKey));
+            } else {
+                sink.post(hwnd, WM_KEYUP, table.getWParam(virtualKey), table.getKeyUpLParam(virtualKey));
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof KeySequence && Arrays.equals(this.messages, ((KeySequence) o).messages));
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(this.messages);
+    }
+
+    /**
+     * Receives the messages of a sequence, normally PostMessage.
+     */
+    public interface KeyMessageSink {
+        void post(HWND hwnd, WinDef.UINT message, WinDef.WPARAM wParam, WinDef.LPARAM lParam);
+    }
+
+    public static class Builder {
+        private int[] messages = new int[8];
+        private int size = 0;
+
+        private Builder() {
+        }
+
+        private Builder add(int message) {
+            if (this.size == this.messages.length) {
+                this.messages = Arrays.copyOf(this.messages, this.size * 2);
+            }
+            this.messages[this.size++] = message;
+            return this;
+        }
+
+        private static int checkKey(int virtualKey) {
+            if (virtualKey < 0 || virtualKey >= KeyMessageTable.KEY_COUNT) {
+                throw new IllegalArgumentException("Invalid virtual key: " + virtualKey);
+            }
+            return virtualKey;
+        }
+
+        public Builder down(int virtualKey) {
+            return this.add(checkKey(virtualKey));
+        }
+
+        public Builder up(int virtualKey) {
+            return this.add(checkKey(virtualKey) | KEY_UP_FLAG);
+        }
+
+        public Builder press(int virtualKey) {
+            return this.down(virtualKey).up(virtualKey);
+        }
+
+        /**
+         * Presses the key if it is set, unset game keys are null.
+         */
+        public Builder press(Integer virtualKey) {
+            return virtualKey == null ? this : this.press(virtualKey.intValue());
+        }
+
+        public KeySequence build() {
+            return this.size == 0 ? EMPTY : new KeySequence(Arrays.copyOf(this.messages, this.size));
+        }
+    }
+}
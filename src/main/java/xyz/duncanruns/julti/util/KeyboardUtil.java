@@ -5,8 +5,6 @@ import com.sun.jna.platform.win32.Win32VK;
 import com.sun.jna.platform.win32.WinDef;
 import com.sun.jna.platform.win32.WinDef.HWND;
 import com.sun.jna.platform.win32.WinUser;
-import org.apache.commons.lang3.tuple.ImmutablePair;
-import org.apache.commons.lang3.tuple.Pair;
 import org.apache.logging.log4j.Level;
 import xyz.duncanruns.julti.Julti;
 import xyz.duncanruns.julti.win32.User32;
@@ -27,7 +25,11 @@ public final class KeyboardUtil {
     public static final List<Integer> BROAD_MODIFIERS = Arrays.asList(User32.VK_CONTROL, User32.VK_SHIFT, User32.VK_MENU);
     // Modifier keys which reference only single keys
     public static final List<Integer> SINGLE_MODIFIERS = Arrays.asList(User32.VK_LCONTROL, User32.VK_RCONTROL, User32.VK_LSHIFT, User32.VK_RSHIFT, User32.VK_LMENU, User32.VK_RMENU);
+    public static final WinDef.UINT WM_KEYDOWN = new WinDef.UINT(WinUser.WM_KEYDOWN);
+    public static final WinDef.UINT WM_KEYUP = new WinDef.UINT(WinUser.WM_KEYUP);
     private static final String[] KEY_NAMES = getKeyNamesArray();
+    private static final KeyMessageTable KEY_MESSAGE_TABLE = new KeyMessageTable(vk -> User32.INSTANCE.MapVirtualKeyA(new WinDef.UINT(vk), new WinDef.UINT(0)).intValue());
+    private static final KeySequence.KeyMessageSink POST_MESSAGE_SINK = User32.INSTANCE::PostMessageA;
 
     private KeyboardUtil() {
     }
@@ -180,51 +182,12 @@ public final class KeyboardUtil {
 
     }
 
-    // LPARAM STUFF -> https://stackoverflow.com/questions/54638741/how-is-the-lparam-of-postmessage-constructe
-
     public static String getKeyName(int vKey) {
         return KEY_NAMES[vKey];
     }
 
-    private static Pair<Integer, Boolean> virtualKeyToScanCode(int virtualKey) {
-        int scanCode = User32.INSTANCE.MapVirtualKeyA(new WinDef.UINT(virtualKey), new WinDef.UINT(0)).intValue();
-        boolean isExtended = false;
-        switch (Win32VK.fromValue(virtualKey)) {
-            case VK_RMENU:
-            case VK_RCONTROL:
-            case VK_LEFT:
-            case VK_UP:
-            case VK_RIGHT:
-            case VK_DOWN:
-            case VK_PRIOR:
-            case VK_NEXT:
-            case VK_END:
-            case VK_HOME:
-            case VK_INSERT:
-            case VK_DELETE:
-            case VK_DIVIDE:
-            case VK_NUMLOCK:
-                isExtended = true;
-                break;
-        }
-        return new ImmutablePair<>(scanCode, isExtended);
-    }
-
-    private static WinDef.LPARAM createLParam(int virtualKey, int repeatCount, boolean transitionState, boolean previousKeyState, boolean contextCode) {
-        Pair<Integer, Boolean> scanCode = virtualKeyToScanCode(virtualKey);
-        return new WinDef.LPARAM(((transitionState ? 1 : 0) << 31) | ((previousKeyState ? 1 : 0) << 30) | ((contextCode ? 1 : 0) << 29) | ((scanCode.getRight() ? 1 : 0) << 24) | (scanCode.getLeft() << 16) | (repeatCount));
-    }
-
-    private static WinDef.LPARAM createLParamKeyDown(int virtualKey) {
-        return createLParam(virtualKey, 1, false, false, false);
-    }
-
-    private static WinDef.LPARAM createLParamKeyUp(int virtualKey) {
-        return createLParam(virtualKey, 1, true, true, false);
-    }
-
     public static void sendKeyDownToHwnd(HWND hwnd, int virtualKey) {
-        User32.INSTANCE.PostMessageA(hwnd, new WinDef.UINT(256), new WinDef.WPARAM(virtualKey), createLParamKeyDown(virtualKey));
+        User32.INSTANCE.PostMessageA(hwnd, WM_KEYDOWN, KEY_MESSAGE_TABLE.getWParam(virtualKey), KEY_MESSAGE_TABLE.getKeyDownLParam(virtualKey));
     }
 
     public static void sendKeyDownToHwnd(HWND hwnd, Win32VK virtualKey) {
@@ -232,7 +195,7 @@ public final class KeyboardUtil {
     }
 
     public static void sendKeyUpToHwnd(HWND hwnd, int virtualKey) {
-        User32.INSTANCE.PostMessageA(hwnd, new WinDef.UINT(257), new WinDef.WPARAM(virtualKey), createLParamKeyUp(virtualKey));
+        User32.INSTANCE.PostMessageA(hwnd, WM_KEYUP, KEY_MESSAGE_TABLE.getWParam(virtualKey), KEY_MESSAGE_TABLE.getKeyUpLParam(virtualKey));
     }
 
     public static void sendKeyUpToHwnd(HWND hwnd, Win32VK virtualKey) {
@@ -248,6 +211,10 @@ public final class KeyboardUtil {
         sendKeyToHwnd(hwnd, virtualKey.code);
     }
 
+    public static void sendKeySequence(HWND hwnd, KeySequence sequence) {
+        sequence.send(hwnd, KEY_MESSAGE_TABLE, POST_MESSAGE_SINK);
+    }
+
     public static void sendCharToHwnd(HWND hwnd, int character) {
         User32.INSTANCE.PostMessageA(hwnd, new WinDef.UINT(WinUser.WM_CHAR), new WinDef.WPARAM(character), new WinDef.LPARAM(0));
     }
@@ -38,6 +38,16 @@ public final class MCVersionUtil {
         return Collections.unmodifiableMap(map);
     }
 
+    /**
+     * Parses a version or snapshot once so it can be compared many times with {@link #isOlderThan(Version, String)} and
+     * {@link #isNewerThan(Version, String)}.
+     *
+     * @return the comparable version, or null if the version is an unknown snapshot
+     */
+    public static Version parseVersion(String versionString) {
+        return findVersion(versionString);
+    }
+
     private static Version findVersion(String versionString) {
         try {
             return Version.of(versionString);
@@ -80,6 +90,24 @@ public final class MCVersionUtil {
         return findVersion(versionX).compareTo(findVersion(versionY)) > 0;
     }
 
+    /**
+     * An unknown version (null) is considered newer than any version.
+     *
+     * @return true if version is older than versionY, otherwise false
+     */
+    public static boolean isOlderThan(Version version, String versionY) {
+        return version != null && version.compareTo(findVersion(versionY)) < 0;
+    }
+
+    /**
+     * An unknown version (null) is considered newer than any version.
+     *
+     * @return true if version is newer than versionY, otherwise false
+     */
+    public static boolean isNewerThan(Version version, String versionY) {
+        return version == null || version.compareTo(findVersion(versionY)) > 0;
+    }
+
     /**
      * <li>2 stable releases are not loosely equals (ie. 1.14.3 != 1.14.4)</li>
      * <li>2 snapshots for the same version are loosely equal (ie. 22w43a = 22w46a)</li>
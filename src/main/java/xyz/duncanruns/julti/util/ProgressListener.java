@@ -0,0 +1,14 @@
+package xyz.duncanruns.julti.util;
+
+/**
+ * Receives the progress of long running file operations, such as from {@link SubmissionUtil} or {@link SyncUtil}.
+ */
+public interface ProgressListener {
+    ProgressListener NONE = (done, total) -> {
+    };
+
+    /**
+     * Called from the thread running the operation, possibly from several worker threads at once.
+     */
+    void onProgress(int done, int total);
+}
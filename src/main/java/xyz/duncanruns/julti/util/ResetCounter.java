@@ -1,18 +1,53 @@
 package xyz.duncanruns.julti.util;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.logging.log4j.Level;
 import xyz.duncanruns.julti.Julti;
 import xyz.duncanruns.julti.JultiOptions;
 
 import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 
+/**
+ * Counts resets and writes the counts to resets.txt and sessionresets.txt, along with the reset rates of the last
+ * minute and hour to resetsperminute.txt and resetsperhour.txt.
+ * <p>
+ * Counting only happens in memory, the files are written by a single background thread at most every
+ * {@link #FLUSH_INTERVAL_MS} milliseconds, so bursts of resets result in a single write. Counts are copied under
+ * {@link #LOCK} and written outside of it, so a slow disk never holds up a reset. The files are written in place rather
+ * than through a rename, as OBS text sources keep them open and renaming over an open file fails on Windows.
+ */
 public final class ResetCounter {
     private final static Object LOCK = new Object();
+    // Held while writing the files, only so a shutdown flush doesn't interleave with the background thread
+    private final static Object WRITE_LOCK = new Object();
     private final static List<Supplier<Boolean>> LOCK_CONDITIONS = new CopyOnWriteArrayList<>();
-    public static int sessionCounter = 0;
+    private final static long FLUSH_INTERVAL_MS = 250;
+    // Rates are rewritten on this interval even without resets so they fall off over time
+    private final static long RATE_REFRESH_INTERVAL_MS = 5000;
+    private final static long MINUTE_MS = TimeUnit.MINUTES.toMillis(1);
+    private final static long HOUR_MS = TimeUnit.HOURS.toMillis(1);
+    private final static ScheduledExecutorService FLUSHER = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("reset-counter-updater").setDaemon(true).build());
+    // Times of the resets within the last hour, oldest first
+    private final static Deque<Long> RECENT_RESETS = new ArrayDeque<>();
+    public static volatile int sessionCounter = 0;
+
+    // Replaceable so tests can write to a temporary folder and control the time of resets
+    static volatile Supplier<Path> outputDirSupplier = JultiOptions::getJultiDir;
+    static volatile LongSupplier clock = System::currentTimeMillis;
+
+    private static boolean flushScheduled = false;
+    private static boolean rateRefreshStarted = false;
+    private static String lastRates = null; // Only accessed while holding WRITE_LOCK
 
     private ResetCounter() {
     }
@@ -25,36 +60,118 @@ public final class ResetCounter {
         if (LOCK_CONDITIONS.stream().anyMatch(Supplier::get)) {
             return;
         }
-        new Thread(ResetCounter::incrementInternal, "reset-counter-updater").start();
+        JultiOptions options = JultiOptions.getJultiOptions();
+        boolean shouldSave;
+        synchronized (LOCK) {
+            shouldSave = ++options.resetCounter % 100 == 0;
+            sessionCounter++;
+            RECENT_RESETS.addLast(clock.getAsLong());
+            scheduleFlush();
+        }
+        if (shouldSave) {
+            // Only takes a snapshot of the options, the write happens on the options thread
+            options.saveLater();
+        }
     }
 
     public static void updateFiles() {
-        new Thread(() -> {
-            synchronized (LOCK) {
-                updateFileInternal(JultiOptions.getJultiOptions().resetCounter, JultiOptions.getJultiDir().resolve("resets.txt"));
-                updateFileInternal(sessionCounter, JultiOptions.getJultiDir().resolve("sessionresets.txt"));
-            }
-        }, "reset-counter-updater").start();
+        synchronized (LOCK) {
+            scheduleFlush();
+        }
     }
 
-    private static void incrementInternal() {
+    /**
+     * Writes the counters immediately, used when shutting down.
+     */
+    public static void flush() {
         synchronized (LOCK) {
-            JultiOptions options = JultiOptions.getJultiOptions();
-            updateFileInternal(++options.resetCounter, JultiOptions.getJultiDir().resolve("resets.txt"));
+            flushScheduled = false;
+        }
+        writeFiles();
+    }
+
+    private static void scheduleFlush() {
+        if (!rateRefreshStarted) {
+            rateRefreshStarted = true;
+            FLUSHER.scheduleWithFixedDelay(ResetCounter::refreshRates, RATE_REFRESH_INTERVAL_MS, RATE_REFRESH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+        if (!flushScheduled) {
+            flushScheduled = true;
+            FLUSHER.schedule(ResetCounter::flushScheduled, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+    }
 
-            if (options.resetCounter % 100 == 0) {
-                Julti.doLater(options::trySave);
+    private static void flushScheduled() {
+        synchronized (LOCK) {
+            if (!flushScheduled) {
+                // Already flushed
+                return;
             }
+            flushScheduled = false;
+        }
+        writeFiles();
+    }
+
+    private static void writeFiles() {
+        int resets;
+        int sessionResets;
+        int[] rates;
+        synchronized (LOCK) {
+            resets = JultiOptions.getJultiOptions().resetCounter;
+            sessionResets = sessionCounter;
+            rates = getRates();
+        }
+        synchronized (WRITE_LOCK) {
+            Path jultiDir = outputDirSupplier.get();
+            updateFileInternal(String.valueOf(resets), jultiDir.resolve("resets.txt"));
+            updateFileInternal(String.valueOf(sessionResets), jultiDir.resolve("sessionresets.txt"));
+            writeRates(rates);
+        }
+    }
+
+    private static void refreshRates() {
+        int[] rates;
+        synchronized (LOCK) {
+            rates = getRates();
+        }
+        synchronized (WRITE_LOCK) {
+            writeRates(rates);
+        }
+    }
+
+    /**
+     * Drops resets older than an hour, should be called while holding LOCK.
+     *
+     * @return the resets in the last minute and in the last hour
+     */
+    private static int[] getRates() {
+        long now = clock.getAsLong();
+        while (!RECENT_RESETS.isEmpty() && now - RECENT_RESETS.peekFirst() > HOUR_MS) {
+            RECENT_RESETS.removeFirst();
+        }
+        int lastMinute = 0;
+        for (Iterator<Long> it = RECENT_RESETS.descendingIterator(); it.hasNext() && now - it.next() <= MINUTE_MS; ) {
+            lastMinute++;
+        }
+        return new int[]{lastMinute, RECENT_RESETS.size()};
+    }
 
-            updateFileInternal(++sessionCounter, JultiOptions.getJultiDir().resolve("sessionresets.txt"));
+    private static void writeRates(int[] rates) {
+        String ratesString = rates[0] + "/" + rates[1];
+        if (ratesString.equals(lastRates)) {
+            return;
         }
+        lastRates = ratesString;
+        Path jultiDir = outputDirSupplier.get();
+        updateFileInternal(String.valueOf(rates[0]), jultiDir.resolve("resetsperminute.txt"));
+        updateFileInternal(String.valueOf(rates[1]), jultiDir.resolve("resetsperhour.txt"));
     }
 
-    private static void updateFileInternal(int count, Path path) {
+    private static void updateFileInternal(String contents, Path path) {
         try {
-            FileUtil.writeString(path, String.valueOf(count));
+            FileUtil.writeString(path, contents);
         } catch (Exception e) {
-            Julti.log(Level.ERROR, "Failed to write resets.txt:\n" + ExceptionUtil.toDetailedString(e));
+            Julti.log(Level.ERROR, "Failed to write " + path.getFileName() + ":\n" + ExceptionUtil.toDetailedString(e));
         }
     }
 }
@@ -1,21 +1,63 @@
 package xyz.duncanruns.julti.util;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.logging.log4j.Level;
 import xyz.duncanruns.julti.Julti;
 
 import javax.sound.sampled.*;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Random;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
+/**
+ * Plays sounds on a dedicated audio thread. Sounds are decoded to PCM once and played from a small pool of opened clips,
+ * so playing a sound only costs the caller a queue submission.
+ */
 public final class SoundUtil {
     private static final Random RANDOM = new Random();
+    // Maximum clips kept open per sound, allowing the same sound to overlap itself when played quickly
+    private static final int MAX_CLIPS_PER_SOUND = 4;
+    private static final ExecutorService AUDIO_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("sound-player").setDaemon(true).build());
+
+    // Only accessed from the audio thread
+    private static final Map<String, List<LoadedSound>> PATH_SOUNDS = new HashMap<>();
+    private static final Map<File, LoadedSound> FILE_SOUNDS = new HashMap<>();
+    // Files that failed to load, so they aren't retried on every play, they are retried on the next preload
+    private static final Set<File> FAILED_FILES = new HashSet<>();
+
+    // Replaceable so tests can play sounds without an audio device
+    static volatile ClipFactory clipFactory = AudioSystem::getClip;
 
     private SoundUtil() {
     }
 
+    /**
+     * Waits for everything queued on the audio thread so far to finish.
+     */
+    static void waitForAudioThread() throws InterruptedException, ExecutionException {
+        AUDIO_EXECUTOR.submit(() -> {
+        }).get();
+    }
+
+    /**
+     * Clears any loaded sounds and decodes the given sounds (.wav files or folders of .wav files) in the background.
+     */
+    public static void preloadSounds(List<String> soundPaths) {
+        List<String> toLoad = soundPaths.stream().map(String::trim).filter(s -> !s.isEmpty()).collect(Collectors.toList());
+        AUDIO_EXECUTOR.execute(() -> {
+            FILE_SOUNDS.values().forEach(LoadedSound::close);
+            FILE_SOUNDS.clear();
+            FAILED_FILES.clear();
+            PATH_SOUNDS.clear();
+            toLoad.forEach(SoundUtil::getSounds);
+        });
+    }
+
     /**
      * Plays the sound found at soundPath at the specified volume.
      *
@@ -23,21 +65,16 @@ public final class SoundUtil {
      * @param volume    the volume of the played sound (between 0.0 and 1.0)
      */
     public static void playSound(String soundPath, float volume) {
-        soundPath = soundPath.trim();
-        if (soundPath.isEmpty()) {
+        String trimmedPath = soundPath.trim();
+        if (trimmedPath.isEmpty() || volume <= 0.0f) {
             return;
         }
-        File soundFile = new File(soundPath);
-        File[] innerFiles;
-        if (soundFile.isDirectory() && (innerFiles = soundFile.listFiles()) != null) {
-            List<File> innerSoundFiles = Arrays.stream(innerFiles).filter(file -> file.getName().endsWith(".wav")).collect(Collectors.toList());
-            if (innerSoundFiles.isEmpty()) {
-                return;
+        AUDIO_EXECUTOR.execute(() -> {
+            List<LoadedSound> sounds = getSounds(trimmedPath);
+            if (!sounds.isEmpty()) {
+                sounds.get(RANDOM.nextInt(sounds.size())).play(volume);
             }
-            playSound(innerSoundFiles.get(RANDOM.nextInt(innerSoundFiles.size())), volume);
-        } else {
-            playSound(soundFile, volume);
-        }
+        });
     }
 
     /**
@@ -53,26 +90,122 @@ public final class SoundUtil {
         if (volume <= 0.0f) {
             return;
         }
+        AUDIO_EXECUTOR.execute(() -> {
+            LoadedSound sound = getSound(soundFile);
+            if (sound != null) {
+                sound.play(volume);
+            }
+        });
+    }
+
+    private static List<LoadedSound> getSounds(String soundPath) {
+        return PATH_SOUNDS.computeIfAbsent(soundPath, p -> {
+            File soundFile = new File(p);
+            File[] innerFiles;
+            List<File> soundFiles = soundFile.isDirectory() && (innerFiles = soundFile.listFiles()) != null
+                    ? Arrays.stream(innerFiles).filter(file -> file.getName().endsWith(".wav")).collect(Collectors.toList())
+                    : Collections.singletonList(soundFile);
+            return soundFiles.stream().map(SoundUtil::getSound).filter(Objects::nonNull).collect(Collectors.toList());
+        });
+    }
+
+    private static LoadedSound getSound(File soundFile) {
+        File key = soundFile.getAbsoluteFile();
+        LoadedSound sound = FILE_SOUNDS.get(key);
+        if (sound != null || FAILED_FILES.contains(key)) {
+            return sound;
+        }
         try {
-            volume = Math.min(1.0f, Math.max(0.0f, volume));
-            final AudioInputStream stream = AudioSystem.getAudioInputStream(soundFile);
-            final Clip clip = AudioSystem.getClip();
-            clip.open(stream);
-
-            // https://stackoverflow.com/questions/40514910/set-volume-of-java-clip
-            // Thanks to the anonymous user7106805
-            FloatControl gainControl = ((FloatControl) clip.getControl(FloatControl.Type.MASTER_GAIN));
-            gainControl.setValue(((gainControl.getMaximum() - gainControl.getMinimum()) * volume) + gainControl.getMinimum());
-
-            clip.loop(0);
-            clip.addLineListener(e -> {
-                if (e.getType() == LineEvent.Type.STOP) {
-                    clip.close();
-                }
-            });
-            clip.start();
+            sound = LoadedSound.load(key);
         } catch (Exception e) {
-            Julti.log(Level.ERROR, "Failed to play sound:\n" + ExceptionUtil.toDetailedString(e));
+            Julti.log(Level.ERROR, "Failed to load sound " + key + ":\n" + ExceptionUtil.toDetailedString(e));
+            FAILED_FILES.add(key);
+            return null;
+        }
+        FILE_SOUNDS.put(key, sound);
+        return sound;
+    }
+
+    interface ClipFactory {
+        Clip getClip() throws LineUnavailableException;
+    }
+
+    private static class LoadedSound {
+        private final AudioFormat format;
+        private final byte[] data;
+        private final List<Clip> clips = new ArrayList<>();
+        // When each clip in clips finishes its last play. isActive() is not used, it can stay false for a moment after
+        // start(), which would let a quick second play cut off the first
+        private final List<Long> busyUntil = new ArrayList<>();
+
+        private LoadedSound(AudioFormat format, byte[] data) {
+            this.format = format;
+            this.data = data;
+        }
+
+        private static LoadedSound load(File soundFile) throws IOException, UnsupportedAudioFileException, LineUnavailableException {
+            try (AudioInputStream stream = AudioSystem.getAudioInputStream(soundFile)) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = stream.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+                LoadedSound sound = new LoadedSound(stream.getFormat(), out.toByteArray());
+                // Open the first clip ahead of time
+                sound.addClip();
+                return sound;
+            }
+        }
+
+        private int addClip() throws LineUnavailableException {
+            Clip clip = clipFactory.getClip();
+            clip.open(this.format, this.data, 0, this.data.length);
+            this.clips.add(clip);
+            this.busyUntil.add(0L);
+            return this.clips.size() - 1;
+        }
+
+        private int getIdleClipIndex() throws LineUnavailableException {
+            long now = System.nanoTime();
+            int leastBusy = 0;
+            for (int i = 0; i < this.clips.size(); i++) {
+                if (now - this.busyUntil.get(i) >= 0) {
+                    return i;
+                }
+                if (this.busyUntil.get(i) - this.busyUntil.get(leastBusy) < 0) {
+                    leastBusy = i;
+                }
+            }
+            if (this.clips.size() < MAX_CLIPS_PER_SOUND) {
+                return this.addClip();
+            }
+            // Every clip is busy, restart the one closest to finishing
+            return leastBusy;
+        }
+
+        private void play(float volume) {
+            try {
+                volume = Math.min(1.0f, Math.max(0.0f, volume));
+                int index = this.getIdleClipIndex();
+                Clip clip = this.clips.get(index);
+                this.busyUntil.set(index, System.nanoTime() + clip.getMicrosecondLength() * 1000);
+                clip.stop();
+                clip.setFramePosition(0);
+
+                // https://stackoverflow.com/questions/40514910/set-volume-of-java-clip
+                // Thanks to the anonymous user7106805
+                FloatControl gainControl = ((FloatControl) clip.getControl(FloatControl.Type.MASTER_GAIN));
+                gainControl.setValue(((gainControl.getMaximum() - gainControl.getMinimum()) * volume) + gainControl.getMinimum());
+
+                clip.start();
+            } catch (Exception e) {
+                Julti.log(Level.ERROR, "Failed to play sound:\n" + ExceptionUtil.toDetailedString(e));
+            }
+        }
+
+        private void close() {
+            this.clips.forEach(Clip::close);
         }
     }
 }
@@ -1,32 +1,53 @@
 package xyz.duncanruns.julti.util;
 
-import org.apache.commons.io.FileUtils;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.lang3.tuple.Pair;
 import org.apache.logging.log4j.Level;
 import xyz.duncanruns.julti.Julti;
 import xyz.duncanruns.julti.instance.MinecraftInstance;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.channels.ClosedByInterruptException;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
 public final class SubmissionUtil {
+    private static final int WORLDS_TO_PACKAGE = 6;
+    private static final int LOGS_TO_PACKAGE = 3;
+    // Files larger than this are streamed by the writer instead of being read ahead by a worker
+    private static final int MAX_READ_AHEAD_SIZE = 4 * 1024 * 1024;
+    // Region files, level.dat and gzipped logs are already compressed, deflating them again only costs time
+    private static final Set<String> PRECOMPRESSED_EXTENSIONS = new HashSet<>(Arrays.asList("mca", "mcr", "dat", "dat_old", "gz", "zip", "png"));
+
     private SubmissionUtil() {
     }
 
     /**
-     * Returns the path of the prepared submission folder or null if failed.
+     * Returns the path of the prepared submission folder or null if failed or cancelled (by interrupting the calling
+     * thread).
      */
-    public static Path tryPrepareSubmission(MinecraftInstance instance) {
+    public static Path tryPrepareSubmission(MinecraftInstance instance, ProgressListener progressListener) {
         try {
-            return prepareSubmission(instance);
+            return prepareSubmission(instance, progressListener);
         } catch (IOException | SecurityException e) {
+            if (Thread.currentThread().isInterrupted() || e instanceof InterruptedIOException || e instanceof ClosedByInterruptException) {
+                Julti.log(Level.INFO, "Packaging submission files cancelled.");
+                return null;
+            }
             Julti.log(Level.ERROR, "Failed to prepare files for submission - please refer to the speedrun.com rules to submit files yourself.\nDetailed error:" + ExceptionUtil.toDetailedString(e));
             return null;
         }
@@ -36,7 +57,7 @@ public final class SubmissionUtil {
      * @author DuncanRuns
      * @author draconix6
      */
-    public static Path prepareSubmission(MinecraftInstance instance) throws IOException, SecurityException {
+    public static Path prepareSubmission(MinecraftInstance instance, ProgressListener progressListener) throws IOException, SecurityException {
         Path savesPath = instance.getPath().resolve("saves");
         if (!Files.isDirectory(savesPath)) {
             Julti.log(Level.ERROR, "Saves path for " + instance.getName() + " not found! Please refer to the speedrun.com rules to submit files yourself.");
@@ -64,76 +85,213 @@ public final class SubmissionUtil {
         submissionPath.toFile().mkdirs();
         Julti.log(Level.INFO, "Created folder for submission.");
 
-        // latest world + 5 previous saves
-        List<Path> worldsToCopy = Arrays.stream(Objects.requireNonNull(savesPath.toFile().list())) // Get all world names
-                .map(savesPath::resolve) // Map to world paths
-                .sorted(Comparator.comparing(value -> value.toFile().lastModified(), Comparator.reverseOrder())) // Sort by most recent first
-                .collect(Collectors.toList());
-        Path savesDest = submissionPath.resolve("Worlds");
-        savesDest.toFile().mkdirs();
-        try {
-            for (int i = 0; i < 6; i++) {
-                File currentSave = worldsToCopy.get(i).toFile();
-                Julti.log(Level.INFO, "Copying " + currentSave.getName() + " to submission folder...");
-                FileUtils.copyDirectoryToDirectory(currentSave, savesDest.toFile());
-            }
-        } catch (IndexOutOfBoundsException ignored) {
-        } // not enough saves to copy
+        packageSubmission(savesPath, logsPath, submissionPath, progressListener);
 
-        // last 3 logs
-        List<Path> logsToCopy = Arrays.stream(Objects.requireNonNull(logsPath.toFile().list())) // Get all log names
-                .map(logsPath::resolve) // Map to paths
-                .sorted(Comparator.comparing(value -> value.toFile().lastModified(), Comparator.reverseOrder())) // Sort by most recent first
-                .collect(Collectors.toList());
-        File logsDest = submissionPath.resolve("Logs").toFile();
-        logsDest.mkdirs();
+        Julti.log(Level.INFO, "Saved submission files (Worlds.zip and Logs.zip) for " + instance.getName() + " to .Julti/submissionpackages.\r\nPlease submit a link to your files through instance form: https://forms.gle/v7oPXfjfi7553jkp7");
+
+        return submissionPath;
+    }
+
+    /**
+     * Writes the latest world + 5 previous saves to Worlds.zip and the last 3 logs to Logs.zip in the submission
+     * folder. Files are read straight from the instance into the zips, no intermediate copies are made, so unlike older
+     * versions there are no unzipped Worlds and Logs folders in the submission folder.
+     */
+    public static void packageSubmission(Path savesPath, Path logsPath, Path submissionPath, ProgressListener progressListener) throws IOException {
+        List<Path> worlds = getMostRecent(savesPath, WORLDS_TO_PACKAGE, true);
+        List<Path> logs = getMostRecent(logsPath, LOGS_TO_PACKAGE, false);
+
+        List<Pair<Path, String>> worldEntries = new ArrayList<>();
+        for (Path world : worlds) {
+            Julti.log(Level.INFO, "Packaging " + world.getFileName() + "...");
+            worldEntries.addAll(listEntries(world, savesPath));
+        }
+        List<Pair<Path, String>> logEntries = logs.stream().map(log -> Pair.of(log, log.getFileName().toString())).collect(Collectors.toList());
+
+        int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("submission-packager-%d").setDaemon(true).build());
         try {
-            for (int i = 0; i < 3; i++) {
-                File currentLog = logsToCopy.get(i).toFile();
-                Julti.log(Level.INFO, "Copying " + currentLog.getName() + " to submission folder...");
-                FileUtils.copyFileToDirectory(currentLog, logsDest);
+            int totalFiles = worldEntries.size() + logEntries.size();
+            writeZip(submissionPath.resolve("Worlds.zip"), worldEntries, executor, threads * 2, done -> progressListener.onProgress(done, totalFiles));
+            writeZip(submissionPath.resolve("Logs.zip"), logEntries, executor, threads * 2, done -> progressListener.onProgress(worldEntries.size() + done, totalFiles));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Gets the most recently modified files or folders within a folder, reading the attributes of each file only once.
+     */
+    private static List<Path> getMostRecent(Path folder, int amount, boolean directories) throws IOException {
+        List<Pair<Path, Long>> candidates = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder)) {
+            for (Path path : stream) {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                if (directories ? attributes.isDirectory() : attributes.isRegularFile()) {
+                    candidates.add(Pair.of(path, attributes.lastModifiedTime().toMillis()));
+                }
             }
-        } catch (IndexOutOfBoundsException ignored) {
-        } // not enough logs to copy
+        }
+        return candidates.stream()
+                .sorted(Comparator.comparing(Pair<Path, Long>::getRight, Comparator.reverseOrder())) // Sort by most recent first
+                .limit(amount)
+                .map(Pair::getLeft)
+                .collect(Collectors.toList());
+    }
 
-        Julti.log(Level.INFO, "Saved submission files for " + instance.getName() + " to .Julti/submissionpackages.\r\nPlease submit a link to your files through instance form: https://forms.gle/v7oPXfjfi7553jkp7");
+    private static List<Pair<Path, String>> listEntries(Path folder, Path relativeTo) throws IOException {
+        List<Pair<Path, String>> entries = new ArrayList<>();
+        Files.walkFileTree(folder, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()) {
+                    entries.add(Pair.of(file, toEntryName(relativeTo.relativize(file))));
+                }
+                return FileVisitResult.CONTINUE;
+            }
 
-        copyFolderToZip(submissionPath.resolve("Worlds.zip"), submissionPath.resolve("Worlds"));
-        copyFolderToZip(submissionPath.resolve("Logs.zip"), submissionPath.resolve("Logs"));
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return entries;
+    }
 
-        return submissionPath;
+    private static String toEntryName(Path relativePath) {
+        StringBuilder name = new StringBuilder();
+        for (Path part : relativePath) {
+            if (name.length() > 0) {
+                name.append('/');
+            }
+            name.append(part);
+        }
+        return name.toString();
     }
 
-    private static void copyFolderToZip(Path zipFile, Path sourceFolder) {
+    /**
+     * Writes entries to a zip file in order. Worker threads read ahead and checksum up to readAhead entries while the
+     * calling thread writes, so reading is never waiting on compression or the other way around. Compression itself
+     * still happens on the calling thread, as a single ZipOutputStream can't take entries deflated elsewhere, which is
+     * why already compressed files are stored instead.
+     */
+    static void writeZip(Path zipFile, List<Pair<Path, String>> entries, ExecutorService executor, int readAhead, IntConsumer progressCallback) throws IOException {
+        Deque<Future<PreparedEntry>> pending = new ArrayDeque<>();
+        Iterator<Pair<Path, String>> toSubmit = entries.iterator();
+        int done = 0;
+
         try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(zipFile))) {
-            Files.walkFileTree(sourceFolder, EnumSet.noneOf(FileVisitOption.class), Integer.MAX_VALUE, new ZipFileVisitor(zos, sourceFolder));
-        } catch (IOException e) {
-            Julti.log(Level.ERROR, "Error while copying zip to folder: \n" + ExceptionUtil.toDetailedString(e));
+            while (!pending.isEmpty() || toSubmit.hasNext()) {
+                while (pending.size() < readAhead && toSubmit.hasNext()) {
+                    Pair<Path, String> entry = toSubmit.next();
+                    pending.add(executor.submit(() -> prepareEntry(entry.getLeft(), entry.getRight())));
+                }
+                PreparedEntry entry = getPrepared(pending.poll());
+                if (entry != null) {
+                    entry.write(zos);
+                }
+                progressCallback.accept(++done);
+            }
         }
     }
 
-    private static class ZipFileVisitor extends java.nio.file.SimpleFileVisitor<Path> {
+    private static PreparedEntry getPrepared(Future<PreparedEntry> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            InterruptedIOException ioException = new InterruptedIOException("Interrupted while packaging submission");
+            ioException.initCause(e);
+            throw ioException;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                // Unreadable files (e.g. session.lock of an open world) are skipped
+                Julti.log(Level.DEBUG, "Skipped file for submission: " + cause);
+                return null;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static PreparedEntry prepareEntry(Path file, String name) throws IOException {
+        long size = Files.size(file);
+        if (size > MAX_READ_AHEAD_SIZE) {
+            return new PreparedEntry(file, name, null, 0, false);
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return new PreparedEntry(file, name, bytes, crc.getValue(), isPrecompressed(name));
+    }
 
-        private final ZipOutputStream zos;
-        private final Path sourceFolder;
+    private static boolean isPrecompressed(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot != -1 && PRECOMPRESSED_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase());
+    }
 
-        public ZipFileVisitor(ZipOutputStream zos, Path sourceFolder) {
-            this.zos = zos;
-            this.sourceFolder = sourceFolder;
+    private static class PreparedEntry {
+        private final Path file;
+        private final String name;
+        private final byte[] bytes;
+        private final long crc;
+        private final boolean store;
+
+        private PreparedEntry(Path file, String name, byte[] bytes, long crc, boolean store) {
+            this.file = file;
+            this.name = name;
+            this.bytes = bytes;
+            this.crc = crc;
+            this.store = store;
         }
 
-        @Override
-        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-            Path relativePath = this.sourceFolder.relativize(file);
-            this.zos.putNextEntry(new ZipEntry(relativePath.toString()));
-            Files.copy(file, this.zos);
-            this.zos.closeEntry();
-            return FileVisitResult.CONTINUE;
+        private void write(ZipOutputStream zos) throws IOException {
+            if (this.bytes == null) {
+                this.writeStreamed(zos);
+                return;
+            }
+            ZipEntry zipEntry = new ZipEntry(this.name);
+            if (this.store) {
+                zipEntry.setMethod(ZipEntry.STORED);
+                zipEntry.setSize(this.bytes.length);
+                zipEntry.setCompressedSize(this.bytes.length);
+                zipEntry.setCrc(this.crc);
+            }
+            zos.putNextEntry(zipEntry);
+            zos.write(this.bytes);
+            zos.closeEntry();
         }
 
-        @Override
-        public FileVisitResult visitFileFailed(Path file, IOException exc) {
-            return FileVisitResult.CONTINUE;
+        /**
+         * Streams a large file into the zip. Unreadable files are skipped like small files are, a file failing part way
+         * through is kept with what could be read so the rest of the package is not lost.
+         */
+        private void writeStreamed(ZipOutputStream zos) throws IOException {
+            InputStream in;
+            try {
+                in = Files.newInputStream(this.file);
+            } catch (IOException e) {
+                Julti.log(Level.DEBUG, "Skipped file for submission: " + e);
+                return;
+            }
+            try (InputStream fileIn = in) {
+                zos.putNextEntry(new ZipEntry(this.name));
+                byte[] buffer = new byte[65536];
+                int read;
+                while (true) {
+                    try {
+                        read = fileIn.read(buffer);
+                    } catch (IOException e) {
+                        Julti.log(Level.WARN, "Failed to fully read " + this.name + " for submission: " + e);
+                        break;
+                    }
+                    if (read == -1) {
+                        break;
+                    }
+                    zos.write(buffer, 0, read);
+                }
+                zos.closeEntry();
+            }
         }
     }
 }
@@ -5,13 +5,22 @@ import org.apache.logging.log4j.Level;
 import xyz.duncanruns.julti.instance.MinecraftInstance;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.List;
+import java.io.InterruptedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static xyz.duncanruns.julti.Julti.log;
 
+/**
+ * Syncs instance folders by building a manifest of the source folder once, then only copying files that differ in
+ * each destination (in parallel) and removing files that no longer exist in the source.
+ */
 public final class SyncUtil {
     private static final Object LOCK = new Object();
 
@@ -19,15 +28,32 @@ public final class SyncUtil {
     }
 
     public static void sync(List<MinecraftInstance> instances, MinecraftInstance sourceInstance, boolean copyMods, boolean copyConfigs, boolean copyResourcePacks) throws IOException {
+        sync(instances, sourceInstance, copyMods, copyConfigs, copyResourcePacks, ProgressListener.NONE);
+    }
+
+    /**
+     * Syncs instances, reporting progress per folder and destination instance. The sync stops between folders if the
+     * calling thread is interrupted.
+     */
+    public static void sync(List<MinecraftInstance> instances, MinecraftInstance sourceInstance, boolean copyMods, boolean copyConfigs, boolean copyResourcePacks, ProgressListener progressListener) throws IOException {
+        sync(instances, sourceInstance, copyMods, copyConfigs, copyResourcePacks, progressListener, Files::createLink);
+    }
+
+    /**
+     * @param linker creates the hard links, replaceable to test falling back to copies
+     *
+     * @return the counts of synced files, or null if nothing was synced
+     */
+    static SyncStats sync(List<MinecraftInstance> instances, MinecraftInstance sourceInstance, boolean copyMods, boolean copyConfigs, boolean copyResourcePacks, ProgressListener progressListener, Linker linker) throws IOException {
         synchronized (LOCK) {
             if (!copyConfigs && !copyMods) {
-                return;
+                return null;
             }
 
             for (MinecraftInstance instance : instances) {
                 if (instance.hasWindow()) {
                     log(Level.ERROR, "Cannot sync: one or more instances are still open!");
-                    return;
+                    return null;
                 }
             }
 
@@ -36,22 +62,25 @@ public final class SyncUtil {
 
             if (destinationPaths.isEmpty()) {
                 log(Level.WARN, "No instances to sync!");
-                return;
+                return null;
             }
             log(Level.INFO, "Syncing Instances...");
 
+            SyncStats stats = new SyncStats();
+            // mods, options.txt, config, speedrunigt and resourcepacks
+            int folders = (copyMods ? 1 : 0) + (copyConfigs ? 3 : 0) + (copyResourcePacks ? 1 : 0);
+            SyncProgress progress = new SyncProgress(folders * destinationPaths.size(), progressListener);
+
             // mods/
 
             Path sourceModsPath = sourcePath.resolve("mods");
             if (copyMods && Files.isDirectory(sourceModsPath)) {
-                for (Path destinationPath : destinationPaths) {
-                    Path destinationModsPath = destinationPath.resolve("mods");
-                    log(Level.INFO, "Syncing mods: " + sourcePath + " -> " + destinationPath);
-                    FileUtils.deleteQuietly(destinationModsPath.toFile());
-                    FileUtils.copyDirectory(sourceModsPath.toFile(), destinationModsPath.toFile());
-                }
+                log(Level.INFO, "Syncing mods: " + sourcePath + " -> " + destinationPaths.size() + " instances");
+                // Mod jars are never written to by the game, so they can safely be hard linked
+                syncFolder(sourceModsPath, destinationPaths, "mods", true, linker, stats, progress);
             } else if (copyMods) {
                 log(Level.WARN, "Source instance has no mods folder!");
+                progress.skip(destinationPaths.size());
             }
 
             // options.txt
@@ -59,14 +88,12 @@ public final class SyncUtil {
             if (copyConfigs) {
                 Path sourceOptionsPath = sourcePath.resolve("options.txt");
                 if (Files.isRegularFile(sourceOptionsPath)) {
-                    for (Path destinationPath : destinationPaths) {
-                        Path destinationOptionsPath = destinationPath.resolve("options.txt");
-                        destinationOptionsPath.toFile().delete();
-                        log(Level.INFO, "Syncing options.txt file: " + sourcePath + " -> " + destinationPath);
-                        FileUtils.copyFile(sourceOptionsPath.toFile(), destinationOptionsPath.toFile());
-                    }
+                    log(Level.INFO, "Syncing options.txt file: " + sourcePath + " -> " + destinationPaths.size() + " instances");
+                    FileEntry sourceEntry = FileEntry.of(sourceOptionsPath);
+                    runForAll(destinationPaths, destinationPath -> syncFile(sourceOptionsPath, sourceEntry, destinationPath.resolve("options.txt"), null, stats), progress);
                 } else {
                     log(Level.WARN, "Source instance has no options.txt!");
+                    progress.skip(destinationPaths.size());
                 }
             }
 
@@ -74,42 +101,240 @@ public final class SyncUtil {
 
             Path sourceConfigPath = sourcePath.resolve("config");
             if (copyConfigs && Files.isDirectory(sourceConfigPath)) {
-                for (Path destinationPath : destinationPaths) {
-                    Path destinationConfigPath = destinationPath.resolve("config");
-                    log(Level.INFO, "Syncing config folder: " + sourcePath + " -> " + destinationPath);
-                    FileUtils.deleteQuietly(destinationConfigPath.toFile());
-                    FileUtils.copyDirectory(sourceConfigPath.toFile(), destinationConfigPath.toFile());
-                }
+                log(Level.INFO, "Syncing config folder: " + sourcePath + " -> " + destinationPaths.size() + " instances");
+                syncFolder(sourceConfigPath, destinationPaths, "config", true, null, stats, progress);
             } else if (copyConfigs) {
                 log(Level.WARN, "Source instance has no config folder!");
+                progress.skip(destinationPaths.size());
             }
 
             // speedrunigt/
 
             Path sourceSpeedrunIGTPath = sourcePath.resolve("speedrunigt");
             if (copyConfigs && Files.isDirectory(sourceSpeedrunIGTPath)) {
-                for (Path destinationPath : destinationPaths) {
-                    Path destinationSpeedrunIGTPath = destinationPath.resolve("speedrunigt");
-                    log(Level.INFO, "Syncing SpeedrunIGT config folder: " + sourcePath + " -> " + destinationPath);
-                    FileUtils.deleteQuietly(destinationSpeedrunIGTPath.toFile());
-                    FileUtils.copyDirectory(sourceSpeedrunIGTPath.toFile(), destinationSpeedrunIGTPath.toFile());
-                }
+                log(Level.INFO, "Syncing SpeedrunIGT config folder: " + sourcePath + " -> " + destinationPaths.size() + " instances");
+                syncFolder(sourceSpeedrunIGTPath, destinationPaths, "speedrunigt", true, null, stats, progress);
             } else if (copyConfigs) {
                 log(Level.WARN, "Source instance has no SpeedrunIGT config folder!");
+                progress.skip(destinationPaths.size());
             }
 
+            // resourcepacks/ (stale packs are kept, matching the previous behaviour)
+
             Path sourceResourcePacksPath = sourcePath.resolve("resourcepacks");
             if (copyResourcePacks && Files.isDirectory(sourceResourcePacksPath)) {
-                for (Path destinationPath : destinationPaths) {
-                    Path destinationResourcePacksPath = destinationPath.resolve("resourcepacks");
-                    log(Level.INFO, "Syncing resource packs folder: " + sourcePath + " -> " + destinationPath);
-                    FileUtils.copyDirectory(sourceResourcePacksPath.toFile(), destinationResourcePacksPath.toFile());
-                }
+                log(Level.INFO, "Syncing resource packs folder: " + sourcePath + " -> " + destinationPaths.size() + " instances");
+                syncFolder(sourceResourcePacksPath, destinationPaths, "resourcepacks", false, linker, stats, progress);
             } else if (copyResourcePacks) {
                 log(Level.WARN, "Source instance has no resource packs folder!");
+                progress.skip(destinationPaths.size());
+            }
+
+            log(Level.INFO, String.format("Sync finished! %d files copied (%s), %d files linked, %d files removed, %d files unchanged (%s avoided).",
+                    stats.filesCopied.get(),
+                    FileUtils.byteCountToDisplaySize(stats.bytesCopied.get()),
+                    stats.filesLinked.get(),
+                    stats.filesRemoved.get(),
+                    stats.filesSkipped.get(),
+                    FileUtils.byteCountToDisplaySize(stats.bytesAvoided.get())
+            ));
+            return stats;
+        }
+    }
+
+    /**
+     * @param linker used to hard link files instead of copying them, or null to always copy
+     */
+    private static void syncFolder(Path sourceFolder, List<Path> destinationPaths, String folderName, boolean removeStale, Linker linker, SyncStats stats, SyncProgress progress) throws IOException {
+        Map<String, FileEntry> sourceManifest = buildManifest(sourceFolder);
+        runForAll(destinationPaths, destinationPath -> {
+            Path destinationFolder = destinationPath.resolve(folderName);
+            Files.createDirectories(destinationFolder);
+
+            for (Map.Entry<String, FileEntry> entry : sourceManifest.entrySet()) {
+                syncFile(sourceFolder.resolve(entry.getKey()), entry.getValue(), destinationFolder.resolve(entry.getKey()), linker, stats);
+            }
+
+            if (removeStale) {
+                removeStale(destinationFolder, sourceManifest.keySet(), stats);
+            }
+        }, progress);
+    }
+
+    /**
+     * Builds a map of relative path strings to file entries for every regular file in the folder.
+     */
+    private static Map<String, FileEntry> buildManifest(Path folder) throws IOException {
+        Map<String, FileEntry> manifest = new HashMap<>();
+        Files.walkFileTree(folder, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()) {
+                    manifest.put(folder.relativize(file).toString(), new FileEntry(attrs.size(), attrs.lastModifiedTime()));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return manifest;
+    }
+
+    private static void syncFile(Path source, FileEntry sourceEntry, Path destination, Linker linker, SyncStats stats) throws IOException {
+        FileEntry destinationEntry = Files.isRegularFile(destination) ? FileEntry.of(destination) : null;
+
+        if (destinationEntry != null && destinationEntry.size == sourceEntry.size) {
+            if (destinationEntry.lastModified.equals(sourceEntry.lastModified)) {
+                stats.skipped(sourceEntry.size);
+                return;
             }
+            // Same size but different time (e.g. copied without attributes), fall back to comparing contents
+            if (FileUtils.contentEquals(source.toFile(), destination.toFile())) {
+                Files.setLastModifiedTime(destination, sourceEntry.lastModified);
+                stats.skipped(sourceEntry.size);
+                return;
+            }
+        }
+
+        Path parent = destination.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        if (Files.isDirectory(destination)) {
+            FileUtils.deleteDirectory(destination.toFile());
+        }
+
+        if (linker != null && tryLink(source, destination, linker)) {
+            stats.filesLinked.incrementAndGet();
+            stats.bytesAvoided.addAndGet(sourceEntry.size);
+            return;
+        }
+
+        Files.copy(source, destination, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+        stats.filesCopied.incrementAndGet();
+        stats.bytesCopied.addAndGet(sourceEntry.size);
+    }
+
+    /**
+     * Attempts to replace the destination with a hard link to the source.
+     *
+     * @return true if the link was created, false if the file system does not support it (e.g. different drives)
+     */
+    private static boolean tryLink(Path source, Path destination, Linker linker) {
+        try {
+            Files.deleteIfExists(destination);
+            linker.createLink(destination, source);
+            return true;
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            return false;
+        }
+    }
+
+    private static void removeStale(Path destinationFolder, Set<String> sourceFiles, SyncStats stats) throws IOException {
+        // Every folder containing a source file is kept
+        Set<String> sourceFolders = new HashSet<>();
+        for (String sourceFile : sourceFiles) {
+            Path parent = Paths.get(sourceFile).getParent();
+            while (parent != null && sourceFolders.add(parent.toString())) {
+                parent = parent.getParent();
+            }
+        }
+
+        List<Path> toRemove;
+        try (Stream<Path> walk = Files.walk(destinationFolder)) {
+            toRemove = walk.filter(path -> !path.equals(destinationFolder))
+                    .filter(path -> !(Files.isDirectory(path) ? sourceFolders : sourceFiles).contains(destinationFolder.relativize(path).toString()))
+                    .collect(Collectors.toList());
+        }
+        for (Path path : toRemove) {
+            if (!Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+                // Already removed with a parent folder
+                continue;
+            }
+            if (Files.isDirectory(path)) {
+                FileUtils.deleteDirectory(path.toFile());
+            } else {
+                Files.delete(path);
+                stats.filesRemoved.incrementAndGet();
+            }
+        }
+    }
+
+    private static void runForAll(List<Path> destinationPaths, PathTask task, SyncProgress progress) throws IOException {
+        List<IOException> exceptions = Collections.synchronizedList(new ArrayList<>());
+        // Copies are never abandoned halfway, a cancelled sync stops before the next folder
+        DoAllFastUtil.doAllFastUninterruptibly(destinationPaths, destinationPath -> {
+            try {
+                task.run(destinationPath);
+            } catch (IOException e) {
+                exceptions.add(e);
+            }
+            progress.step();
+        });
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Sync cancelled");
+        }
+        if (!exceptions.isEmpty()) {
+            IOException exception = exceptions.get(0);
+            exceptions.stream().skip(1).forEach(exception::addSuppressed);
+            throw exception;
+        }
+    }
+
+    private static class SyncProgress {
+        private final int total;
+        private final ProgressListener listener;
+        private final AtomicInteger done = new AtomicInteger();
+
+        private SyncProgress(int total, ProgressListener listener) {
+            this.total = total;
+            this.listener = listener;
+        }
+
+        private void step() {
+            this.listener.onProgress(this.done.incrementAndGet(), this.total);
+        }
+
+        private void skip(int steps) {
+            this.listener.onProgress(this.done.addAndGet(steps), this.total);
+        }
+    }
+
+    private interface PathTask {
+        void run(Path path) throws IOException;
+    }
+
+    interface Linker {
+        /**
+         * @see Files#createLink(Path, Path)
+         */
+        void createLink(Path link, Path existing) throws IOException;
+    }
+
+    private static class FileEntry {
+        private final long size;
+        private final FileTime lastModified;
+
+        private FileEntry(long size, FileTime lastModified) {
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        private static FileEntry of(Path path) throws IOException {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return new FileEntry(attributes.size(), attributes.lastModifiedTime());
+        }
+    }
+
+    static class SyncStats {
+        final AtomicLong filesCopied = new AtomicLong();
+        final AtomicLong filesLinked = new AtomicLong();
+        final AtomicLong filesRemoved = new AtomicLong();
+        final AtomicLong filesSkipped = new AtomicLong();
+        final AtomicLong bytesCopied = new AtomicLong();
+        final AtomicLong bytesAvoided = new AtomicLong();
 
-            log(Level.INFO, "Sync finished!");
+        private void skipped(long size) {
+            this.filesSkipped.incrementAndGet();
+            this.bytesAvoided.addAndGet(size);
         }
     }
 }
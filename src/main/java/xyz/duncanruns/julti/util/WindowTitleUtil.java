@@ -8,29 +8,79 @@ import java.util.regex.Pattern;
 
 public final class WindowTitleUtil {
     private static final Pattern MC_PATTERN = Pattern.compile("^Minecraft\\*? .+$");
+    private static final int MAX_TITLE_LENGTH = 128;
+    private static final ThreadLocal<byte[]> TITLE_BUFFER = ThreadLocal.withInitial(() -> new byte[MAX_TITLE_LENGTH]);
+
+    private static volatile GlobMatcher wallTitleMatcher = null;
 
     private WindowTitleUtil() {
     }
 
     public static String getHwndTitle(HWND hwnd) {
-        byte[] x = new byte[128];
-        User32.INSTANCE.GetWindowTextA(hwnd, x, 128);
-        StringBuilder out = new StringBuilder();
-        for (byte a : x) {
-            if (a == 0) {
-                break;
-            }
-            out.append((char) a);
+        byte[] x = TITLE_BUFFER.get();
+        int length = Math.max(0, User32.INSTANCE.GetWindowTextA(hwnd, x, MAX_TITLE_LENGTH));
+        char[] out = new char[Math.min(length, MAX_TITLE_LENGTH)];
+        int i = 0;
+        for (; i < out.length && x[i] != 0; i++) {
+            out[i] = (char) x[i];
         }
-        return out.toString();
+        return new String(out, 0, i);
     }
 
     public static boolean isWallTitle(String title) {
-        String regex = '^' + JultiOptions.getJultiOptions().customWallNameFormat.trim().toLowerCase().replaceAll("([^a-zA-Z0-9 ])", "\\\\$1").replace("\\*", ".*") + '$';
-        return Pattern.compile(regex).matcher(title.toLowerCase()).matches();
+        String format = JultiOptions.getJultiOptions().customWallNameFormat;
+        GlobMatcher matcher = wallTitleMatcher;
+        if (matcher == null || !matcher.getSource().equals(format)) {
+            // Only recompiled when the option changes
+            wallTitleMatcher = matcher = new GlobMatcher(format);
+        }
+        return matcher.matches(title);
     }
 
     public static boolean matchesMinecraft(String title) {
         return MC_PATTERN.matcher(title).matches();
     }
+
+    /**
+     * Case-insensitive matcher for patterns where '*' matches any amount of characters, compiled into the literal parts
+     * between the wildcards.
+     */
+    static class GlobMatcher {
+        private final String source;
+        private final String[] parts;
+
+        GlobMatcher(String source) {
+            this.source = source;
+            // -1 keeps the empty trailing part when the pattern ends with '*'
+            this.parts = source.trim().toLowerCase().split("\\*", -1);
+        }
+
+        private String getSource() {
+            return this.source;
+        }
+
+        boolean matches(String text) {
+            text = text.toLowerCase();
+            String first = this.parts[0];
+            if (this.parts.length == 1) {
+                return text.equals(first);
+            }
+            String last = this.parts[this.parts.length - 1];
+            if (text.length() < first.length() + last.length() || !text.startsWith(first) || !text.endsWith(last)) {
+                return false;
+            }
+            // Middle parts are matched as early as possible, which always finds a match if one exists
+            int position = first.length();
+            int end = text.length() - last.length();
+            for (int i = 1; i < this.parts.length - 1; i++) {
+                String part = this.parts[i];
+                int found = text.indexOf(part, position);
+                if (found == -1 || found + part.length() > end) {
+                    return false;
+                }
+                position = found + part.length();
+            }
+            return true;
+        }
+    }
 }
@@ -39,6 +39,8 @@ timers_activated = false
 scenes_regenerated = true
 last_state_text = ""
 last_scene_name = ""
+-- Last applied data string of each instance, so only changed instances are moved
+last_instance_data = {}
 
 gen_scenes_requested = false
 gen_stream_scenes_requested = false
@@ -565,6 +567,7 @@ function generate_scenes()
     -- Reset variables to have loop update stuff automatically
     last_state_text = ""
     last_scene_name = ""
+    last_instance_data = {}
 
     if found_ae then
         -- Report already existing scenes
@@ -1082,10 +1085,17 @@ function loop()
         elseif global_options_unset then
             -- Should take second item from data_strings
             global_options_unset = false
+            -- Global options change how every instance is applied
+            if last_instance_data.globals ~= data_string then
+                last_instance_data = { globals = data_string }
+            end
             set_globals_from_state(data_string)
         else
             instance_num = instance_num + 1
-            set_instance_data_from_string(instance_num, data_string)
+            if last_instance_data[instance_num] ~= data_string then
+                last_instance_data[instance_num] = data_string
+                set_instance_data_from_string(instance_num, data_string)
+            end
         end
     end
 
@@ -1108,6 +1118,8 @@ function loop()
     end
 
     if user_location ~= "W" then
+        -- Instances are moved outside of the state data here, so everything needs to be applied again on the next update
+        last_instance_data = { globals = last_instance_data.globals }
         local scene = get_scene("Julti")
         if show_indicators then enable_indicator(user_location) end
         bring_to_top(obs.obs_scene_find_source(scene, "Instance " .. user_location))
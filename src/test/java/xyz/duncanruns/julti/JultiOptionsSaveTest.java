@@ -0,0 +1,95 @@
+package xyz.duncanruns.julti;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import xyz.duncanruns.julti.util.FileUtil;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JultiOptionsSaveTest {
+    // Longer than the save delay, with room for a slow options thread
+    private static final long SAVE_WAIT_MS = 3000;
+
+    @TempDir
+    Path tempDir;
+
+    private static int readFreezePercent(Path path) throws IOException {
+        JsonObject json = JsonParser.parseString(FileUtil.readString(path)).getAsJsonObject();
+        return json.get("freezePercent").getAsInt();
+    }
+
+    private static void waitForFile(Path path) throws InterruptedException {
+        long start = System.currentTimeMillis();
+        while (!Files.exists(path) && System.currentTimeMillis() - start < SAVE_WAIT_MS) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void saveLaterIsDelayedAndCoalesced() throws Exception {
+        Path path = this.tempDir.resolve("profiles").resolve("coalesced.json");
+        JultiOptions options = new JultiOptions(path);
+
+        options.freezePercent = 10;
+        options.saveLater();
+        options.freezePercent = 20;
+        options.saveLater();
+        assertFalse(Files.exists(path), "saveLater should not write immediately");
+
+        waitForFile(path);
+        assertTrue(Files.exists(path));
+        // The second save replaced the first before it was written
+        assertEquals(20, readFreezePercent(path));
+    }
+
+    @Test
+    public void saveLaterUsesValuesAtTimeOfCall() throws Exception {
+        Path path = this.tempDir.resolve("profiles").resolve("snapshot.json");
+        JultiOptions options = new JultiOptions(path);
+
+        options.freezePercent = 30;
+        options.saveLater();
+        options.freezePercent = 31;
+
+        waitForFile(path);
+        assertEquals(30, readFreezePercent(path));
+    }
+
+    @Test
+    public void trySaveSupersedesPendingSave() throws Exception {
+        Path path = this.tempDir.resolve("profiles").resolve("superseded.json");
+        JultiOptions options = new JultiOptions(path);
+
+        options.freezePercent = 40;
+        options.saveLater();
+        options.freezePercent = 50;
+        assertTrue(options.trySave());
+        assertEquals(50, readFreezePercent(path));
+
+        // The pending save must not overwrite the newer values once its delay passes
+        Thread.sleep(SAVE_WAIT_MS);
+        assertEquals(50, readFreezePercent(path));
+    }
+
+    @Test
+    public void pendingSaveOfAnotherProfileIsNotLost() throws Exception {
+        Path pathA = this.tempDir.resolve("profiles").resolve("a.json");
+        Path pathB = this.tempDir.resolve("profiles").resolve("b.json");
+        JultiOptions a = new JultiOptions(pathA);
+        JultiOptions b = new JultiOptions(pathB);
+
+        a.freezePercent = 60;
+        a.saveLater();
+        b.freezePercent = 70;
+        assertTrue(b.trySave());
+
+        assertEquals(60, readFreezePercent(pathA));
+        assertEquals(70, readFreezePercent(pathB));
+    }
+}
@@ -0,0 +1,161 @@
+package xyz.duncanruns.julti;
+
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OptionAccessorsTest {
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Gives a value of the field's type that is different from the current one.
+     */
+    private static Object getOtherValue(Field field, Object current) {
+        Class<?> type = field.getType();
+        if (type == boolean.class) {
+            return !(Boolean) current;
+        } else if (type == int.class) {
+            return (Integer) current + 7;
+        } else if (type == long.class) {
+            return (Long) current + 7;
+        } else if (type == float.class) {
+            return (Float) current + 0.5f;
+        } else if (type == String.class) {
+            return current + "x";
+        } else if (type == int[].class) {
+            return new int[]{3, 1, 4, ((int[]) current).length};
+        } else if (type == List.class) {
+            Class<?> elementType = (Class<?>) ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0];
+            List<Object> list = new ArrayList<>((List<?>) current);
+            list.add(elementType == Integer.class ? (Object) 42 : "added");
+            return list;
+        } else if (type == Map.class) {
+            Map<Object, Object> map = new HashMap<>((Map<?, ?>) current);
+            map.put("test-plugin", new JsonObject());
+            return map;
+        }
+        fail("No test value for " + field.getName() + " (" + type.getSimpleName() + ")");
+        return null;
+    }
+
+    @Test
+    public void testRoundTripEveryOption() throws Exception {
+        JultiOptions options = new JultiOptions(this.tempDir.resolve("test.json"));
+        int optionFields = 0;
+        for (Field field : JultiOptions.class.getFields()) {
+            if (Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+            optionFields++;
+            String name = field.getName();
+            OptionAccessors.OptionAccessor accessor = OptionAccessors.get(name);
+            assertNotNull(accessor, name);
+            assertEquals(field.getType(), accessor.getType(), name);
+
+            // Read from the field
+            Object value = getOtherValue(field, field.get(options));
+            field.set(options, value);
+            assertEquals(value, accessor.get(options), name);
+            assertEquals(value, options.getValue(name), name);
+
+            // Written to the field
+            Object other = getOtherValue(field, value);
+            assertEquals(other, accessor.set(options, other), name);
+            assertEquals(other, field.get(options), name);
+
+            // Set through trySetValue, which boxes primitives
+            assertTrue(options.trySetValue(name, value), name);
+            assertEquals(value, field.get(options), name);
+            if (!field.getType().isPrimitive()) {
+                // Objects are set as is
+                assertSame(value, field.get(options), name);
+            }
+        }
+        assertEquals(optionFields, OptionAccessors.getAll().size());
+        // Writes the queued save now rather than after the temporary folder is gone
+        assertTrue(options.trySave());
+    }
+
+    @Test
+    public void testTrySetValueConverts() {
+        JultiOptions options = new JultiOptions(this.tempDir.resolve("test.json"));
+
+        // Primitives are parsed from the String form of any value
+        assertTrue(options.trySetValue("useF3", "false"));
+        assertFalse(options.useF3);
+        assertTrue(options.trySetValue("useF3", Boolean.TRUE));
+        assertTrue(options.useF3);
+        assertTrue(options.trySetValue("resetCounter", "123"));
+        assertEquals(123, options.resetCounter);
+        assertTrue(options.trySetValue("launchDelay", 5));
+        assertEquals(5L, options.launchDelay);
+        assertTrue(options.trySetValue("resetCounter", 5L));
+        assertEquals(5, options.resetCounter);
+        assertTrue(options.trySetValue("centerAlignScaleX", 2.25));
+        assertEquals(2.25f, options.centerAlignScaleX);
+
+        // Strings use toString
+        assertTrue(options.trySetValue("clipboardOnReset", 15));
+        assertEquals("15", options.clipboardOnReset);
+
+        // Values that don't fit are rejected and leave the option unchanged
+        assertFalse(options.trySetValue("resetCounter", "abc"));
+        assertFalse(options.trySetValue("resetCounter", 1.5));
+        assertFalse(options.trySetValue("resetCounter", null));
+        assertEquals(5, options.resetCounter);
+        List<String> instancePaths = options.instancePaths;
+        assertFalse(options.trySetValue("instancePaths", "not a list"));
+        assertSame(instancePaths, options.instancePaths);
+        assertFalse(options.trySetValue("notAnOption", 1));
+
+        // Arrays are shown as lists
+        assertTrue(options.trySetValue("lastGUIPos", new int[]{1, 2}));
+        assertEquals("[1, 2]", options.getValueString("lastGUIPos"));
+        assertNull(options.getValueString("notAnOption"));
+        assertTrue(options.trySave());
+    }
+
+    @Test
+    public void testHotkeyAndSoundOptionsReload() {
+        for (OptionAccessors.OptionAccessor accessor : OptionAccessors.getAll()) {
+            String name = accessor.getName();
+            if (name.endsWith("Hotkey") || name.endsWith("HotkeyIM")) {
+                assertTrue(accessor.getReloads().contains(ReloadOnChange.Subsystem.HOTKEYS), name);
+            }
+            if (name.endsWith("Sound")) {
+                assertTrue(accessor.getReloads().contains(ReloadOnChange.Subsystem.SOUNDS), name);
+            }
+        }
+        assertEquals(EnumSet.of(ReloadOnChange.Subsystem.INSTANCES, ReloadOnChange.Subsystem.RESET_MANAGER), OptionAccessors.get("instancePaths").getReloads());
+        assertEquals(EnumSet.of(ReloadOnChange.Subsystem.HOTKEYS), OptionAccessors.get("scriptHotkeys").getReloads());
+        assertEquals(EnumSet.of(ReloadOnChange.Subsystem.RESET_COUNTER), OptionAccessors.get("resetCounter").getReloads());
+        assertEquals(Collections.emptySet(), OptionAccessors.get("useF3").getReloads());
+    }
+
+    @Test
+    public void testAnnotatedFieldsAreOptions() {
+        for (Field field : JultiOptions.class.getDeclaredFields()) {
+            if (field.isAnnotationPresent(ReloadOnChange.class)) {
+                assertNotNull(OptionAccessors.get(field.getName()), field.getName() + " is annotated but is not an option");
+            }
+        }
+    }
+
+    @Test
+    public void testGetReloads() {
+        assertEquals(EnumSet.noneOf(ReloadOnChange.Subsystem.class), JultiOptions.getReloads(new HashSet<>(Arrays.asList("useF3", "notAnOption"))));
+        assertEquals(
+                EnumSet.of(ReloadOnChange.Subsystem.HOTKEYS, ReloadOnChange.Subsystem.SOUNDS),
+                JultiOptions.getReloads(new HashSet<>(Arrays.asList("resetHotkey", "lockSound", "useF3")))
+        );
+    }
+}
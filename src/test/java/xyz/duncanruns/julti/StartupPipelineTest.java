@@ -0,0 +1,97 @@
+package xyz.duncanruns.julti;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StartupPipelineTest {
+    private static final long STAGE_MILLIS = 100;
+
+    private static StartupPipeline.StartupTask sleepingTask(List<String> finished, String name) {
+        return () -> {
+            Thread.sleep(STAGE_MILLIS);
+            finished.add(name);
+        };
+    }
+
+    /**
+     * Runs stages shaped like the launch in {@link JultiAppLaunch}, where each stage takes {@link #STAGE_MILLIS}.
+     *
+     * @return the time taken in milliseconds
+     */
+    private static long runLaunchShape(boolean pipelined) throws Exception {
+        List<String> finished = Collections.synchronizedList(new ArrayList<>());
+        StartupPipeline startup = new StartupPipeline();
+        long start = System.nanoTime();
+        startup.run("Options", sleepingTask(finished, "Options"));
+        String[] independent = {"Swing settings", "Scripts", "Resources", "Load plugins", "Affinity manager", "Foreground tracking", "Hotkey checker"};
+        if (pipelined) {
+            List<StartupPipeline.Stage> stages = new ArrayList<>();
+            for (String name : independent) {
+                stages.add(startup.start(name, sleepingTask(finished, name)));
+            }
+            stages.add(startup.start("GUI", sleepingTask(finished, "GUI"), stages.get(0), stages.get(1)));
+            startup.await(stages.toArray(new StartupPipeline.Stage[0]));
+        } else {
+            for (String name : independent) {
+                startup.run(name, sleepingTask(finished, name));
+            }
+            startup.run("GUI", sleepingTask(finished, "GUI"));
+        }
+        startup.run("Initialize plugins", sleepingTask(finished, "Initialize plugins"));
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(independent.length + 3, finished.size());
+        assertEquals("Options", finished.get(0));
+        assertEquals("Initialize plugins", finished.get(finished.size() - 1));
+        return elapsed;
+    }
+
+    @Test
+    public void testPipelinedFasterThanSerial() throws Exception {
+        long serial = runLaunchShape(false);
+        long pipelined = runLaunchShape(true);
+        // Serial runs 10 stages one after another, pipelined runs options, two waves of stages and plugin init
+        assertTrue(serial >= 10 * STAGE_MILLIS, "Serial took " + serial + "ms");
+        assertTrue(pipelined < 6 * STAGE_MILLIS, "Pipelined took " + pipelined + "ms, serial took " + serial + "ms");
+    }
+
+    @Test
+    public void testDependenciesFinishFirst() throws Exception {
+        List<String> finished = Collections.synchronizedList(new ArrayList<>());
+        StartupPipeline startup = new StartupPipeline();
+        StartupPipeline.Stage first = startup.start("first", sleepingTask(finished, "first"));
+        StartupPipeline.Stage second = startup.start("second", () -> finished.add("second"));
+        StartupPipeline.Stage dependent = startup.start("dependent", () -> {
+            assertTrue(finished.contains("first") && finished.contains("second"));
+            finished.add("dependent");
+        }, first, second);
+        startup.await(dependent);
+
+        assertEquals(3, finished.size());
+        assertEquals("dependent", finished.get(2));
+    }
+
+    @Test
+    public void testFailedDependencySkipsStage() {
+        StartupPipeline startup = new StartupPipeline();
+        AtomicBoolean ran = new AtomicBoolean(false);
+        StartupPipeline.Stage failing = startup.start("failing", () -> {
+            throw new IOException("Failed on purpose");
+        });
+        StartupPipeline.Stage dependent = startup.start("dependent", () -> ran.set(true), failing);
+
+        IOException e = assertThrows(IOException.class, () -> startup.await(dependent));
+        assertEquals("Failed on purpose", e.getMessage());
+        assertFalse(ran.get());
+        assertThrows(IOException.class, () -> startup.run("failing", () -> {
+            throw new IOException("Failed on purpose");
+        }));
+    }
+}
@@ -0,0 +1,71 @@
+package xyz.duncanruns.julti.instance;
+
+import org.junit.jupiter.api.Test;
+import xyz.duncanruns.julti.util.MCVersionUtil;
+import xyz.duncanruns.julti.util.VersionUtil.Version;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResetStrategyTest {
+    private static ResetStrategy of(String versionString) {
+        return ResetStrategy.of(versionString, MCVersionUtil.parseVersion(versionString));
+    }
+
+    private static void assertStrategy(ResetStrategy expected, String... versionStrings) {
+        for (String versionString : versionStrings) {
+            assertEquals(expected, of(versionString), versionString);
+        }
+    }
+
+    @Test
+    public void testBefore19() {
+        assertStrategy(ResetStrategy.CREATE_WORLD_KEY, "1.7.10", "1.8", "1.8.9");
+    }
+
+    @Test
+    public void test19To116() {
+        assertStrategy(ResetStrategy.SHIFT_TAB_ENTER, "1.9", "1.9.4", "1.12.2", "1.14.4", "1.15.2");
+    }
+
+    @Test
+    public void test1171() {
+        assertStrategy(ResetStrategy.SHIFT_TAB_ENTER, "1.17.1");
+        // Only exactly 1.17.1
+        assertStrategy(ResetStrategy.CREATE_WORLD_KEY, "1.17", "1.17.2");
+    }
+
+    @Test
+    public void test116AndLater() {
+        assertStrategy(ResetStrategy.CREATE_WORLD_KEY, "1.16", "1.16.1", "1.16.5", "1.18.2", "1.19.4", "1.20.1");
+    }
+
+    @Test
+    public void testKnownSnapshots() {
+        // 1.16 snapshots are older than 1.16
+        assertStrategy(ResetStrategy.SHIFT_TAB_ENTER, "20w06a", "20w14infinite", "20w22a");
+        assertStrategy(ResetStrategy.CREATE_WORLD_KEY, "20w27a", "21w03a", "22w06a", "23w13a_or_b");
+    }
+
+    @Test
+    public void testUnknownSnapshots() {
+        // Unknown versions count as the newest version instead of failing
+        for (String versionString : new String[]{"24w14a", "19w14a", "3D Shareware v1.34", "Combat Test 8c"}) {
+            assertNull(MCVersionUtil.parseVersion(versionString), versionString);
+            assertDoesNotThrow(() -> of(versionString));
+            assertEquals(ResetStrategy.CREATE_WORLD_KEY, of(versionString), versionString);
+        }
+    }
+
+    @Test
+    public void testUnknownVersionComparisons() {
+        Version unknown = MCVersionUtil.parseVersion("24w14a");
+        assertFalse(MCVersionUtil.isOlderThan(unknown, "1.9"));
+        assertFalse(MCVersionUtil.isOlderThan(unknown, "1.16"));
+        assertTrue(MCVersionUtil.isNewerThan(unknown, "1.20"));
+
+        assertTrue(MCVersionUtil.isOlderThan(MCVersionUtil.parseVersion("1.8.9"), "1.9"));
+        assertFalse(MCVersionUtil.isOlderThan(MCVersionUtil.parseVersion("1.9"), "1.9"));
+        assertTrue(MCVersionUtil.isOlderThan(MCVersionUtil.parseVersion("20w14infinite"), "1.16"));
+        assertFalse(MCVersionUtil.isOlderThan(MCVersionUtil.parseVersion("1.16.1"), "1.16"));
+    }
+}
@@ -0,0 +1,216 @@
+package xyz.duncanruns.julti.management;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.platform.win32.WinDef.HWND;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import xyz.duncanruns.julti.JultiOptions;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ActiveWindowManagerTest {
+    private static final AtomicLong NEXT_HWND = new AtomicLong(0x1000);
+
+    private final FakeSource source = new FakeSource();
+    private final List<ForegroundChange> changes = new ArrayList<>();
+    private final Consumer<ForegroundChange> listener = this.changes::add;
+    private boolean oldUseCustomWallWindow;
+    private String oldCustomWallNameFormat;
+
+    private static HWND newHwnd() {
+        return new HWND(new Pointer(NEXT_HWND.getAndIncrement()));
+    }
+
+    @BeforeEach
+    public void setUp() {
+        JultiOptions options = JultiOptions.getJultiOptions();
+        this.oldUseCustomWallWindow = options.useCustomWallWindow;
+        this.oldCustomWallNameFormat = options.customWallNameFormat;
+        // Wall detection by title, so no real windows are needed
+        options.useCustomWallWindow = true;
+        options.customWallNameFormat = "Wall*";
+
+        ActiveWindowManager.clearWallOverride();
+        ActiveWindowManager.setSource(this.source);
+        // Start every test from a known foreground window
+        this.source.setForeground(newHwnd(), "Start");
+        ActiveWindowManager.update();
+        ActiveWindowManager.addForegroundChangeListener(this.listener);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ActiveWindowManager.removeForegroundChangeListener(this.listener);
+        ActiveWindowManager.clearWallOverride();
+        ActiveWindowManager.setSource(new PollingForegroundWindowSource());
+        JultiOptions options = JultiOptions.getJultiOptions();
+        options.useCustomWallWindow = this.oldUseCustomWallWindow;
+        options.customWallNameFormat = this.oldCustomWallNameFormat;
+    }
+
+    @Test
+    public void testChangePublishedOnce() {
+        HWND previous = ActiveWindowManager.getActiveHwnd();
+        HWND hwnd = newHwnd();
+        this.source.changeTime = 12345;
+        this.source.setForeground(hwnd, "Minecraft* 1.16.1 - Instance 1");
+
+        ActiveWindowManager.update();
+        assertEquals(1, this.changes.size());
+        ForegroundChange change = this.changes.get(0);
+        assertEquals(previous, change.previousHwnd);
+        assertEquals(hwnd, change.hwnd);
+        assertEquals("Minecraft* 1.16.1 - Instance 1", change.title);
+        assertFalse(change.wallActive);
+        assertEquals(12345, change.time);
+        assertTrue(ActiveWindowManager.isWindowActive(hwnd));
+
+        // Nothing changed, so nothing is published and the title is not read again
+        int titleReads = this.source.titleReads;
+        ActiveWindowManager.update();
+        ActiveWindowManager.update();
+        assertEquals(1, this.changes.size());
+        assertEquals(titleReads, this.source.titleReads);
+    }
+
+    @Test
+    public void testUnknownChangeTimeUsesNow() {
+        this.source.changeTime = 0;
+        this.source.setForeground(newHwnd(), "Other");
+        long before = System.currentTimeMillis();
+        ActiveWindowManager.update();
+        long after = System.currentTimeMillis();
+
+        assertEquals(1, this.changes.size());
+        long time = this.changes.get(0).time;
+        assertTrue(time >= before && time <= after);
+    }
+
+    @Test
+    public void testNoForegroundWindow() {
+        this.source.setForeground(null, "");
+        ActiveWindowManager.update();
+
+        assertEquals(1, this.changes.size());
+        assertNull(this.changes.get(0).hwnd);
+        assertNull(ActiveWindowManager.getActiveHwnd());
+        assertFalse(ActiveWindowManager.isWallActive());
+    }
+
+    @Test
+    public void testWallRemembered() {
+        HWND wall = newHwnd();
+        HWND instance = newHwnd();
+        this.source.setForeground(wall, "Wall Projector");
+        ActiveWindowManager.update();
+        assertTrue(this.changes.get(0).wallActive);
+        assertTrue(ActiveWindowManager.isWallActive());
+        assertEquals(wall, ActiveWindowManager.getLastWallHwnd());
+
+        this.source.setForeground(instance, "Minecraft* 1.16.1 - Instance 1");
+        ActiveWindowManager.update();
+        assertFalse(this.changes.get(1).wallActive);
+        assertFalse(ActiveWindowManager.isWallActive());
+        assertEquals(wall, ActiveWindowManager.getLastWallHwnd());
+
+        // The last wall window stays the wall even if its title no longer matches
+        this.source.titles.put(wall, "Renamed");
+        this.source.setForeground(wall, "Renamed");
+        ActiveWindowManager.update();
+        assertTrue(this.changes.get(2).wallActive);
+        assertEquals(3, this.changes.size());
+    }
+
+    @Test
+    public void testWallOverride() {
+        HWND hwnd = newHwnd();
+        this.source.setForeground(hwnd, "Not A Projector");
+        ActiveWindowManager.update();
+        assertFalse(ActiveWindowManager.isWallActive());
+
+        // Checked again on the next update without a foreground change
+        ActiveWindowManager.setWallOverride(hwnd);
+        ActiveWindowManager.update();
+        assertTrue(ActiveWindowManager.isWallActive());
+        assertEquals(hwnd, ActiveWindowManager.getLastWallHwnd());
+        assertEquals(1, this.changes.size());
+    }
+
+    @Test
+    public void testRequestedWallCheck() {
+        HWND hwnd = newHwnd();
+        this.source.setForeground(hwnd, "My Wall Window");
+        ActiveWindowManager.update();
+        assertFalse(ActiveWindowManager.isWallActive());
+
+        JultiOptions.getJultiOptions().customWallNameFormat = "My Wall*";
+        ActiveWindowManager.requestWallCheck();
+        ActiveWindowManager.update();
+        assertTrue(ActiveWindowManager.isWallActive());
+        assertEquals(1, this.changes.size());
+    }
+
+    @Test
+    public void testUpdateCostPerTick() {
+        HWND wall = newHwnd();
+        this.source.setForeground(wall, "Wall Projector");
+        ActiveWindowManager.update();
+        int ticks = 20000;
+
+        // Before: every tick read the title and compiled the wall format into a regex to check it
+        boolean wallActive = false;
+        long start = System.nanoTime();
+        for (int i = 0; i < ticks; i++) {
+            String title = this.source.getWindowTitle(this.source.getForegroundWindow());
+            String regex = '^' + JultiOptions.getJultiOptions().customWallNameFormat.trim().toLowerCase().replaceAll("([^a-zA-Z0-9 ])", "\\\\$1").replace("\\*", ".*") + '$';
+            wallActive = Pattern.compile(regex).matcher(title.toLowerCase()).matches();
+        }
+        long before = System.nanoTime() - start;
+        assertTrue(wallActive);
+
+        start = System.nanoTime();
+        for (int i = 0; i < ticks; i++) {
+            ActiveWindowManager.update();
+        }
+        long after = System.nanoTime() - start;
+        assertTrue(ActiveWindowManager.isWallActive());
+
+        String timings = String.format("Wall check per tick: %.0fns before, %.0fns with update()", before / (double) ticks, after / (double) ticks);
+        System.out.println(timings);
+        assertTrue(after < before, timings);
+    }
+
+    private static class FakeSource implements ForegroundWindowSource {
+        private final Map<HWND, String> titles = new HashMap<>();
+        private HWND foreground;
+        private long changeTime = 0;
+        private int titleReads = 0;
+
+        private void setForeground(HWND hwnd, String title) {
+            this.foreground = hwnd;
+            this.titles.put(hwnd, title);
+        }
+
+        @Override
+        public HWND getForegroundWindow() {
+            return this.foreground;
+        }
+
+        @Override
+        public long getLastChangeTime() {
+            return this.changeTime;
+        }
+
+        @Override
+        public String getWindowTitle(HWND hwnd) {
+            this.titleReads++;
+            return this.titles.getOrDefault(hwnd, "");
+        }
+    }
+}
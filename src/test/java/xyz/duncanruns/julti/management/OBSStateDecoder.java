@@ -0,0 +1,193 @@
+package xyz.duncanruns.julti.management;
+
+import java.util.*;
+import java.util.function.IntPredicate;
+
+/**
+ * Applies state file contents the same way julti-obs-link.lua does, including only applying instances whose data
+ * changed since the last update. The applied instance data stands in for the scene items in OBS.
+ */
+class OBSStateDecoder {
+    // Data applied to the active instance while playing, it covers the whole scene
+    static final InstanceData FULL_SCENE = new InstanceData(false, false, false, 0, 0, -1, -1);
+
+    private final IntPredicate playingSceneExists;
+    private final Map<Integer, InstanceData> applied = new HashMap<>();
+    private String lastStateText = "";
+    // last_instance_data in the script
+    private String lastGlobals = null;
+    private Map<Integer, String> lastInstanceData = new HashMap<>();
+    private String location = null;
+    private Globals globals = null;
+
+    /**
+     * @param playingSceneExists if a "Playing N" scene exists for an instance number, in which case the script
+     *                           switches to it and skips the rest of the update
+     */
+    OBSStateDecoder(IntPredicate playingSceneExists) {
+        this.playingSceneExists = playingSceneExists;
+    }
+
+    static List<String> splitState(String state, char splitChar) {
+        // split_string skips empty parts
+        List<String> out = new ArrayList<>();
+        for (String part : state.split("\\Q" + splitChar + "\\E")) {
+            if (!part.isEmpty()) {
+                out.add(part);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Decodes every instance of a state without any delta logic.
+     */
+    static List<InstanceData> decodeInstances(String state) {
+        List<String> parts = splitState(state, ';');
+        List<InstanceData> instances = new ArrayList<>();
+        for (String part : parts.subList(Math.min(2, parts.size()), parts.size())) {
+            instances.add(InstanceData.decode(part));
+        }
+        return instances;
+    }
+
+    /**
+     * Runs one loop of the script with the given state file contents.
+     *
+     * @return the instance numbers that were applied from state data, in order
+     */
+    List<Integer> update(String state) {
+        List<Integer> appliedNums = new ArrayList<>();
+        if (state == null || state.equals(this.lastStateText)) {
+            return appliedNums;
+        }
+        this.lastStateText = state;
+
+        String userLocation = null;
+        boolean globalOptionsUnset = true;
+        int instanceNum = 0;
+        for (String dataString : splitState(state, ';')) {
+            if (userLocation == null) {
+                userLocation = dataString;
+                if (!userLocation.equals("W") && this.playingSceneExists.test(Integer.parseInt(userLocation))) {
+                    this.location = userLocation;
+                    return appliedNums;
+                }
+            } else if (globalOptionsUnset) {
+                globalOptionsUnset = false;
+                if (!dataString.equals(this.lastGlobals)) {
+                    this.lastGlobals = dataString;
+                    this.lastInstanceData = new HashMap<>();
+                }
+                this.globals = Globals.decode(dataString);
+            } else {
+                instanceNum++;
+                if (!dataString.equals(this.lastInstanceData.get(instanceNum))) {
+                    this.lastInstanceData.put(instanceNum, dataString);
+                    this.applied.put(instanceNum, InstanceData.decode(dataString));
+                    appliedNums.add(instanceNum);
+                }
+            }
+        }
+        this.location = userLocation;
+
+        if (userLocation != null && !userLocation.equals("W")) {
+            // Everything is applied again on the next update, keeping the globals
+            this.lastInstanceData = new HashMap<>();
+            this.applied.put(Integer.parseInt(userLocation), FULL_SCENE);
+        }
+        return appliedNums;
+    }
+
+    InstanceData getApplied(int instanceNum) {
+        return this.applied.get(instanceNum);
+    }
+
+    String getLocation() {
+        return this.location;
+    }
+
+    Globals getGlobals() {
+        return this.globals;
+    }
+
+    static final class Globals {
+        final boolean showIndicators;
+        final boolean centerAlignInstances;
+        final boolean invisibleDirtCovers;
+        final double centerAlignScaleX;
+        final double centerAlignScaleY;
+
+        private Globals(boolean showIndicators, boolean centerAlignInstances, boolean invisibleDirtCovers, double centerAlignScaleX, double centerAlignScaleY) {
+            this.showIndicators = showIndicators;
+            this.centerAlignInstances = centerAlignInstances;
+            this.invisibleDirtCovers = invisibleDirtCovers;
+            this.centerAlignScaleX = centerAlignScaleX;
+            this.centerAlignScaleY = centerAlignScaleY;
+        }
+
+        // set_globals_from_state
+        static Globals decode(String optionsSection) {
+            List<String> args = splitState(optionsSection, ',');
+            int flags = Integer.parseInt(args.get(0));
+            return new Globals((flags & 4) != 0, (flags & 2) != 0, (flags & 1) != 0, parseOr(args, 1, 1.0), parseOr(args, 2, 1.0));
+        }
+
+        private static double parseOr(List<String> args, int index, double fallback) {
+            try {
+                return index < args.size() ? Double.parseDouble(args.get(index)) : fallback;
+            } catch (NumberFormatException e) {
+                return fallback;
+            }
+        }
+    }
+
+    static final class InstanceData {
+        final boolean lockVisible;
+        final boolean coverVisible;
+        final boolean freezeActive;
+        final int x;
+        final int y;
+        final int width;
+        final int height;
+
+        InstanceData(boolean lockVisible, boolean coverVisible, boolean freezeActive, int x, int y, int width, int height) {
+            this.lockVisible = lockVisible;
+            this.coverVisible = coverVisible;
+            this.freezeActive = freezeActive;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+
+        // set_instance_data_from_string
+        static InstanceData decode(String dataString) {
+            List<String> nums = splitState(dataString, ',');
+            int flags = Integer.parseInt(nums.get(0));
+            return new InstanceData((flags & 1) != 0, (flags & 2) != 0, (flags & 4) != 0, Integer.parseInt(nums.get(1)), Integer.parseInt(nums.get(2)), Integer.parseInt(nums.get(3)), Integer.parseInt(nums.get(4)));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof InstanceData)) {
+                return false;
+            }
+            InstanceData that = (InstanceData) o;
+            return this.lockVisible == that.lockVisible && this.coverVisible == that.coverVisible && this.freezeActive == that.freezeActive && this.x == that.x && this.y == that.y && this.width == that.width && this.height == that.height;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.lockVisible, this.coverVisible, this.freezeActive, this.x, this.y, this.width, this.height);
+        }
+
+        @Override
+        public String toString() {
+            return (this.lockVisible ? "L" : "") + (this.coverVisible ? "C" : "") + (this.freezeActive ? "F" : "") + "[" + this.x + "," + this.y + "," + this.width + "," + this.height + "]";
+        }
+    }
+}
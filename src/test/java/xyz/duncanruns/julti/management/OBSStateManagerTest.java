@@ -0,0 +1,161 @@
+package xyz.duncanruns.julti.management;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OBSStateManagerTest {
+    private static final String GLOBALS = OBSStateManager.obsOptionsToStateSection(true, false, false, 1.0f, 1.0f);
+
+    private static String state(String location, String globals, int[] stateInts, Rectangle[] positions) {
+        StringBuilder out = new StringBuilder(location).append(';').append(globals);
+        for (int i = 0; i < stateInts.length; i++) {
+            OBSStateManager.appendInstanceState(out, stateInts[i], positions[i]);
+        }
+        return out.toString();
+    }
+
+    private static Rectangle[] grid(int count) {
+        Rectangle[] positions = new Rectangle[count];
+        for (int i = 0; i < count; i++) {
+            positions[i] = new Rectangle((i % 2) * 960, (i / 2) * 540, 960, 540);
+        }
+        return positions;
+    }
+
+    private static void assertMatchesFullDecode(OBSStateDecoder decoder, String state) {
+        List<OBSStateDecoder.InstanceData> expected = OBSStateDecoder.decodeInstances(state);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), decoder.getApplied(i + 1), "Instance " + (i + 1) + " of " + state);
+        }
+    }
+
+    @Test
+    public void testInstanceRoundTrip() {
+        Rectangle position = new Rectangle(12, 34, 567, 890);
+        for (int flags = 0; flags < 8; flags++) {
+            boolean locked = (flags & 1) != 0;
+            boolean dirtCover = (flags & 2) != 0;
+            boolean freeze = (flags & 4) != 0;
+            String state = state("W", GLOBALS, new int[]{OBSStateManager.instanceToStateInt(locked, dirtCover, freeze)}, new Rectangle[]{position});
+
+            assertEquals(Collections.singletonList(new OBSStateDecoder.InstanceData(locked, dirtCover, freeze, 12, 34, 567, 890)), OBSStateDecoder.decodeInstances(state));
+        }
+    }
+
+    @Test
+    public void testGlobalsRoundTrip() {
+        OBSStateDecoder.Globals globals = OBSStateDecoder.Globals.decode(OBSStateManager.obsOptionsToStateSection(true, false, true, 1.25f, 0.1f));
+        assertTrue(globals.showIndicators);
+        assertFalse(globals.centerAlignInstances);
+        assertTrue(globals.invisibleDirtCovers);
+        assertEquals(1.25, globals.centerAlignScaleX, 1e-9);
+        assertEquals(0.1, globals.centerAlignScaleY, 1e-9);
+
+        globals = OBSStateDecoder.Globals.decode(OBSStateManager.obsOptionsToStateSection(false, true, false, 1.0f, 1.0f));
+        assertFalse(globals.showIndicators);
+        assertTrue(globals.centerAlignInstances);
+        assertFalse(globals.invisibleDirtCovers);
+        assertEquals(1.0, globals.centerAlignScaleX, 1e-9);
+    }
+
+    @Test
+    public void testOnlyChangedInstancesApplied() {
+        OBSStateDecoder decoder = new OBSStateDecoder(n -> false);
+        Rectangle[] positions = grid(4);
+        String first = state("W", GLOBALS, new int[]{0, 0, 0, 0}, positions);
+        assertEquals(Arrays.asList(1, 2, 3, 4), decoder.update(first));
+
+        String second = state("W", GLOBALS, new int[]{0, 1, 0, 6}, positions);
+        assertEquals(Arrays.asList(2, 4), decoder.update(second));
+        assertMatchesFullDecode(decoder, second);
+
+        // Unchanged state is not processed at all
+        assertEquals(Collections.emptyList(), decoder.update(second));
+    }
+
+    @Test
+    public void testGlobalsChangeAppliesEverything() {
+        OBSStateDecoder decoder = new OBSStateDecoder(n -> false);
+        Rectangle[] positions = grid(3);
+        decoder.update(state("W", GLOBALS, new int[]{0, 0, 0}, positions));
+
+        String changedGlobals = state("W", OBSStateManager.obsOptionsToStateSection(false, false, false, 1.0f, 1.0f), new int[]{0, 0, 0}, positions);
+        assertEquals(Arrays.asList(1, 2, 3), decoder.update(changedGlobals));
+        assertFalse(decoder.getGlobals().showIndicators);
+    }
+
+    @Test
+    public void testLeavingWallAppliesEverythingOnReturn() {
+        OBSStateDecoder decoder = new OBSStateDecoder(n -> false);
+        Rectangle[] positions = grid(4);
+        int[] stateInts = {0, 0, 0, 0};
+        decoder.update(state("W", GLOBALS, stateInts, positions));
+
+        // Playing instance 2 without a Playing scene moves it over the whole scene
+        decoder.update(state("2", GLOBALS, stateInts, positions));
+        assertEquals("2", decoder.getLocation());
+        assertSame(OBSStateDecoder.FULL_SCENE, decoder.getApplied(2));
+
+        String back = state("W", GLOBALS, stateInts, positions);
+        assertEquals(Arrays.asList(1, 2, 3, 4), decoder.update(back));
+        assertMatchesFullDecode(decoder, back);
+    }
+
+    @Test
+    public void testPlayingSceneSkipsUpdate() {
+        OBSStateDecoder decoder = new OBSStateDecoder(n -> n == 1);
+        Rectangle[] positions = grid(2);
+        String wall = state("W", GLOBALS, new int[]{0, 0}, positions);
+        decoder.update(wall);
+
+        assertEquals(Collections.emptyList(), decoder.update(state("1", GLOBALS, new int[]{1, 0}, positions)));
+        assertEquals("1", decoder.getLocation());
+        assertMatchesFullDecode(decoder, wall);
+
+        String back = state("W", GLOBALS, new int[]{1, 0}, positions);
+        assertEquals(Collections.singletonList(1), decoder.update(back));
+        assertMatchesFullDecode(decoder, back);
+    }
+
+    @Test
+    public void testRandomStatesMatchFullDecode() {
+        Random random = new Random(40);
+        OBSStateDecoder decoder = new OBSStateDecoder(n -> n % 3 == 0);
+        int count = 4;
+        int[] stateInts = new int[count];
+        Rectangle[] positions = grid(count);
+        String globals = GLOBALS;
+
+        for (int step = 0; step < 2000; step++) {
+            if (random.nextInt(50) == 0) {
+                count = 1 + random.nextInt(9);
+                stateInts = Arrays.copyOf(stateInts, count);
+                positions = grid(count);
+            }
+            if (random.nextInt(40) == 0) {
+                globals = OBSStateManager.obsOptionsToStateSection(random.nextBoolean(), random.nextBoolean(), random.nextBoolean(), 1 + random.nextInt(4) / 4f, 1.0f);
+            }
+            int changes = random.nextInt(3);
+            for (int i = 0; i < changes; i++) {
+                int instance = random.nextInt(count);
+                stateInts[instance] = random.nextInt(8);
+                if (random.nextBoolean()) {
+                    positions[instance] = new Rectangle(random.nextInt(1920), random.nextInt(1080), 1 + random.nextInt(960), 1 + random.nextInt(540));
+                }
+            }
+            String location = random.nextInt(10) == 0 ? String.valueOf(1 + random.nextInt(count)) : "W";
+            String state = state(location, globals, stateInts, positions);
+            decoder.update(state);
+            if (location.equals("W")) {
+                assertMatchesFullDecode(decoder, state);
+            }
+        }
+    }
+}
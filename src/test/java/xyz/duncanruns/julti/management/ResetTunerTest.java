@@ -0,0 +1,122 @@
+package xyz.duncanruns.julti.management;
+
+import org.junit.jupiter.api.Test;
+import xyz.duncanruns.julti.instance.GenerationTrace;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResetTunerTest {
+    /**
+     * Creates a trace from time and percentage pairs, the first pair being the preview start.
+     */
+    private static GenerationTrace trace(long endTime, boolean loaded, long... timesAndPercents) {
+        long[] times = new long[timesAndPercents.length / 2];
+        byte[] percents = new byte[times.length];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = timesAndPercents[i * 2];
+            percents[i] = (byte) timesAndPercents[i * 2 + 1];
+        }
+        return new GenerationTrace(times[0], endTime, loaded, times, percents);
+    }
+
+    private static <T> List<T> shuffled(List<T> values) {
+        List<T> list = new ArrayList<>(values);
+        Collections.shuffle(list, new Random(48));
+        return list;
+    }
+
+    private static List<Long> latencies(long first, long step, int count) {
+        List<Long> values = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            values.add(first + step * i);
+        }
+        return shuffled(values);
+    }
+
+    private static List<Integer> percents(int first, int step, int count) {
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            values.add(first + step * i);
+        }
+        return shuffled(values);
+    }
+
+    @Test
+    public void testPreviewLatency() {
+        assertEquals(80, ResetTuner.getPreviewLatency(trace(2000, true, 1000, 0, 1030, 0, 1080, 5, 1200, 40)));
+        // Previews can start above 0%, only an increase counts as progress
+        assertEquals(50, ResetTuner.getPreviewLatency(trace(2000, true, 1000, 10, 1020, 10, 1050, 12)));
+        // Measured from the preview start even if it was reset
+        assertEquals(30, ResetTuner.getPreviewLatency(trace(1100, false, 1000, 0, 1030, 1)));
+    }
+
+    @Test
+    public void testPreviewLatencyWithoutProgress() {
+        assertEquals(-1, ResetTuner.getPreviewLatency(trace(1500, false, 1000, 0)));
+        assertEquals(-1, ResetTuner.getPreviewLatency(trace(1500, false, 1000, 5, 1100, 5, 1200, 5)));
+    }
+
+    @Test
+    public void testFreezeCandidate() {
+        GenerationTrace trace = trace(1700, true, 1000, 0, 1100, 30, 1300, 70, 1500, 90);
+        // 250ms before loading is 1450, the last percentage seen by then is 70
+        assertEquals(70, ResetTuner.getFreezeCandidate(trace));
+        // A sample exactly at the cutoff counts
+        assertEquals(90, ResetTuner.getFreezeCandidate(trace(1750, true, 1000, 0, 1100, 30, 1300, 70, 1500, 90)));
+        // A cutoff exactly at the preview start gives the starting percentage
+        assertEquals(4, ResetTuner.getFreezeCandidate(trace(1250, true, 1000, 4, 1100, 30)));
+    }
+
+    @Test
+    public void testFreezeCandidateUnusable() {
+        // Reset instead of loaded
+        assertEquals(-1, ResetTuner.getFreezeCandidate(trace(1700, false, 1000, 0, 1100, 30, 1300, 70)));
+        // Loaded less than 250ms after the preview appeared
+        assertEquals(-1, ResetTuner.getFreezeCandidate(trace(1249, true, 1000, 0, 1100, 30)));
+    }
+
+    @Test
+    public void testRecommendTooFewSamples() {
+        ResetTuner.Recommendation recommendation = ResetTuner.recommend(latencies(10, 10, 19), percents(60, 2, 19), 150, 80);
+        assertEquals(150, recommendation.cooldown);
+        assertEquals(80, recommendation.freezePercent);
+        String report = recommendation.toReport(150, 80);
+        assertTrue(report.contains("19/20 previews measured, keeping 150ms"), report);
+        assertTrue(report.contains("19/20 loaded worlds measured, keeping 80%"), report);
+
+        // Each value only needs its own samples
+        recommendation = ResetTuner.recommend(latencies(10, 10, 20), Collections.emptyList(), 150, 80);
+        assertEquals(150, recommendation.cooldown);
+        assertEquals(80, recommendation.freezePercent);
+    }
+
+    @Test
+    public void testRecommendPercentiles() {
+        // 10, 20, ..., 200: the 75th percentile is the 15th value
+        // 60, 62, ..., 98: the 25th percentile is the 5th value
+        ResetTuner.Recommendation recommendation = ResetTuner.recommend(latencies(10, 10, 20), percents(60, 2, 20), 150, 80);
+        assertEquals(150, recommendation.cooldown);
+        assertEquals(68, recommendation.freezePercent);
+
+        recommendation = ResetTuner.recommend(latencies(100, 1, 100), percents(0, 1, 100), 150, 80);
+        assertEquals(174, recommendation.cooldown);
+        assertEquals(50, recommendation.freezePercent);
+
+        String report = ResetTuner.recommend(latencies(10, 10, 20), percents(60, 2, 20), 150, 80).toReport(150, 80);
+        assertTrue(report.contains("100ms (median), 150ms (75th percentile) over 20 previews"), report);
+        assertTrue(report.contains("78% (median), 68% (25th percentile)"), report);
+    }
+
+    @Test
+    public void testRecommendClamped() {
+        ResetTuner.Recommendation recommendation = ResetTuner.recommend(latencies(1000, 0, 20), percents(99, 0, 20), 150, 80);
+        assertEquals(400, recommendation.cooldown);
+        assertEquals(95, recommendation.freezePercent);
+
+        recommendation = ResetTuner.recommend(latencies(5, 0, 20), percents(10, 0, 20), 150, 80);
+        assertEquals(50, recommendation.cooldown);
+        assertEquals(50, recommendation.freezePercent);
+    }
+}
@@ -0,0 +1,247 @@
+package xyz.duncanruns.julti.management;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import xyz.duncanruns.julti.instance.MinecraftInstance;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WorldSnapshotTest {
+    private final InstanceManager instanceManager = InstanceManager.getInstanceManager();
+    private final List<Consumer<WorldSnapshot>> listeners = new ArrayList<>();
+    private List<MinecraftInstance> oldInstances;
+
+    private static MinecraftInstance newInstance(int number) {
+        return new MinecraftInstance(Paths.get("instance" + number));
+    }
+
+    private void setInstances(MinecraftInstance... instances) {
+        List<MinecraftInstance> list = this.instanceManager.getInstances();
+        list.clear();
+        list.addAll(Arrays.asList(instances));
+        for (int i = 0; i < list.size(); i++) {
+            list.get(i).setSlot(i);
+        }
+    }
+
+    private void addListener(Consumer<WorldSnapshot> listener) {
+        this.listeners.add(listener);
+        this.instanceManager.addSnapshotListener(listener);
+    }
+
+    @BeforeEach
+    public void setUp() {
+        this.oldInstances = new ArrayList<>(this.instanceManager.getInstances());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        this.listeners.forEach(this.instanceManager::removeSnapshotListener);
+        this.setInstances(this.oldInstances.toArray(new MinecraftInstance[0]));
+        this.instanceManager.refreshSnapshot();
+    }
+
+    @Test
+    public void testPublishedBeforeListenersNotified() {
+        List<WorldSnapshot> received = new ArrayList<>();
+        this.addListener(snapshot -> {
+            // A listener reading the published snapshot sees the one it was given
+            assertSame(snapshot, this.instanceManager.getSnapshot());
+            received.add(snapshot);
+        });
+
+        this.setInstances(newInstance(1), newInstance(2));
+        this.instanceManager.refreshSnapshot();
+        this.setInstances(newInstance(3));
+        this.instanceManager.refreshSnapshot();
+
+        assertEquals(2, received.size());
+        assertNotSame(received.get(0), received.get(1));
+        assertSame(received.get(1), this.instanceManager.getSnapshot());
+    }
+
+    @Test
+    public void testUnchangedStateNotPublished() {
+        List<WorldSnapshot> received = new ArrayList<>();
+        this.addListener(received::add);
+        this.setInstances(newInstance(1), newInstance(2));
+        this.instanceManager.refreshSnapshot();
+        WorldSnapshot snapshot = this.instanceManager.getSnapshot();
+
+        for (int i = 0; i < 10; i++) {
+            this.instanceManager.refreshSnapshot();
+        }
+        assertEquals(Collections.singletonList(snapshot), received);
+        assertSame(snapshot, this.instanceManager.getSnapshot());
+
+        // The same instances in another order are a change
+        List<MinecraftInstance> instances = this.instanceManager.getInstances();
+        this.setInstances(instances.get(1), instances.get(0));
+        this.instanceManager.refreshSnapshot();
+        assertEquals(2, received.size());
+    }
+
+    @Test
+    public void testListenersNotifiedInOrder() {
+        List<String> calls = new ArrayList<>();
+        AtomicReference<WorldSnapshot> firstReceived = new AtomicReference<>();
+        AtomicReference<WorldSnapshot> secondReceived = new AtomicReference<>();
+        this.addListener(snapshot -> {
+            calls.add("first");
+            firstReceived.set(snapshot);
+        });
+        this.addListener(snapshot -> {
+            calls.add("second");
+            secondReceived.set(snapshot);
+        });
+
+        this.setInstances(newInstance(1), newInstance(2));
+        this.instanceManager.refreshSnapshot();
+        assertEquals(Arrays.asList("first", "second"), calls);
+        assertSame(firstReceived.get(), secondReceived.get());
+
+        // Removed listeners are no longer called
+        this.instanceManager.removeSnapshotListener(this.listeners.get(0));
+        this.setInstances(newInstance(1));
+        this.instanceManager.refreshSnapshot();
+        assertEquals(Arrays.asList("first", "second", "second"), calls);
+    }
+
+    @Test
+    public void testSnapshotUnaffectedByLaterChanges() {
+        MinecraftInstance first = newInstance(1);
+        MinecraftInstance second = newInstance(2);
+        this.setInstances(first, second);
+        this.instanceManager.refreshSnapshot();
+        WorldSnapshot snapshot = this.instanceManager.getSnapshot();
+
+        this.setInstances(second);
+        assertEquals(Arrays.asList(first, second), snapshot.getInstances());
+        assertEquals(2, snapshot.getSize());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getInstances().clear());
+
+        // Until the next snapshot is published, readers see the old instances
+        assertSame(snapshot, this.instanceManager.getSnapshot());
+        this.instanceManager.refreshSnapshot();
+        assertEquals(Collections.singletonList(second), this.instanceManager.getSnapshot().getInstances());
+    }
+
+    @Test
+    public void testCapturedState() {
+        MinecraftInstance first = newInstance(1);
+        MinecraftInstance second = newInstance(2);
+        MinecraftInstance third = newInstance(3);
+        this.setInstances(first, second, third);
+
+        List<MinecraftInstance> locked = new ArrayList<>(Arrays.asList(third, newInstance(4)));
+        WorldSnapshot snapshot = WorldSnapshot.capture(this.instanceManager.getInstances(), locked::contains);
+        locked.clear();
+
+        assertFalse(snapshot.isLocked(0));
+        assertFalse(snapshot.isLocked(1));
+        assertTrue(snapshot.isLocked(2));
+        assertTrue(snapshot.isLocked(third));
+        assertFalse(snapshot.isLocked(first));
+        assertTrue(snapshot.hasLockedInstances());
+        for (int i = 0; i < snapshot.getSize(); i++) {
+            assertEquals(this.instanceManager.getInstances().get(i).getStateTracker().getInstanceState(), snapshot.getState(i));
+            assertFalse(snapshot.isResetPressed(i));
+            assertEquals(0, snapshot.getPreviewStart(i));
+        }
+    }
+
+    /**
+     * @return a description of what is wrong with the snapshot, or null if it is whole: instance i is named
+     * "instance"+i and every per-instance value exists for every instance
+     */
+    private static String checkWhole(WorldSnapshot snapshot) {
+        int size = snapshot.getSize();
+        List<MinecraftInstance> instances = snapshot.getInstances();
+        if (instances.size() != size) {
+            return "Instance list of " + instances.size() + " in a snapshot of " + size;
+        }
+        try {
+            for (int i = 0; i < size; i++) {
+                if (!instances.get(i).getPath().equals(Paths.get("instance" + i))) {
+                    return "Instance " + instances.get(i).getPath() + " at index " + i;
+                }
+                if (snapshot.getState(i) == null || snapshot.getLoadingPercent(i) != 0 || snapshot.getPreviewStart(i) != 0 || snapshot.isResetPressed(i) || snapshot.isLocked(i)) {
+                    return "Wrong values for instance " + i + " in a snapshot of " + size;
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            return "Values missing in a snapshot of " + size + ": " + e;
+        }
+        if (snapshot.getSelectedIndex() >= size || snapshot.hasLockedInstances()) {
+            return "Selected instance " + snapshot.getSelectedIndex() + " or locked instances in a snapshot of " + size;
+        }
+        return null;
+    }
+
+    @Test
+    public void testConcurrentReadersSeeWholeSnapshots() throws InterruptedException {
+        int publishes = 1000;
+        int readerCount = 4;
+        AtomicReference<String> failure = new AtomicReference<>();
+        AtomicInteger reads = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(readerCount);
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < readerCount; r++) {
+            Thread reader = new Thread(() -> {
+                started.countDown();
+                int lastSize = 0;
+                while (lastSize < publishes && failure.get() == null) {
+                    WorldSnapshot snapshot = this.instanceManager.getSnapshot();
+                    int size = snapshot.getSize();
+                    String problem = size < lastSize ? "Read a snapshot of " + size + " instances after one of " + lastSize : checkWhole(snapshot);
+                    if (problem != null) {
+                        failure.compareAndSet(null, problem);
+                        return;
+                    }
+                    lastSize = size;
+                    reads.incrementAndGet();
+                }
+            }, "snapshot-reader-" + r);
+            readers.add(reader);
+        }
+
+        this.setInstances();
+        this.instanceManager.refreshSnapshot();
+        readers.forEach(Thread::start);
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        List<MinecraftInstance> instances = this.instanceManager.getInstances();
+        for (int i = 0; i < publishes; i++) {
+            // Scramble the live list while readers run, a snapshot sharing any of it would show this
+            MinecraftInstance scratch = newInstance(-1);
+            instances.add(0, scratch);
+            Collections.reverse(instances);
+            Collections.reverse(instances);
+            instances.remove(0);
+
+            // Each publish has one more instance than the last
+            MinecraftInstance instance = newInstance(i);
+            instance.setSlot(instances.size());
+            instances.add(instance);
+            this.instanceManager.refreshSnapshot();
+        }
+        for (Thread reader : readers) {
+            reader.join(30_000);
+            assertFalse(reader.isAlive(), reader.getName() + " did not see the last snapshot");
+        }
+
+        assertNull(failure.get(), failure.get());
+        assertTrue(reads.get() >= readerCount);
+    }
+}
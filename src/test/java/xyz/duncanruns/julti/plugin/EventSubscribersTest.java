@@ -0,0 +1,118 @@
+package xyz.duncanruns.julti.plugin;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventSubscribersTest {
+    private static final long BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final long SLOW_MILLIS = 5;
+    private static final AtomicInteger EVENT_COUNTER = new AtomicInteger();
+
+    private static String newEventName() {
+        return "TEST_EVENT_" + EVENT_COUNTER.incrementAndGet();
+    }
+
+    private static String getStats(String eventName, String subscriberName) {
+        List<String> lines = EventSubscribers.getAllStats().stream().filter(line -> line.startsWith(eventName + " - " + subscriberName + " ")).collect(Collectors.toList());
+        assertEquals(1, lines.size(), "Stats of " + subscriberName + " for " + eventName);
+        return lines.get(0);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * A subscriber that records the thread it last ran on, and is slow while told to be.
+     */
+    private static class FakeSubscriber implements Consumer<Integer> {
+        private final AtomicReference<Thread> lastThread = new AtomicReference<>();
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile boolean slow;
+        private volatile CountDownLatch latch = new CountDownLatch(0);
+
+        private FakeSubscriber(boolean slow) {
+            this.slow = slow;
+        }
+
+        @Override
+        public void accept(Integer event) {
+            if (this.slow) {
+                sleep(SLOW_MILLIS);
+            }
+            this.lastThread.set(Thread.currentThread());
+            this.calls.incrementAndGet();
+            this.latch.countDown();
+        }
+    }
+
+    @Test
+    public void testSlowCallsCounted() {
+        String eventName = newEventName();
+        EventSubscribers<Integer> subscribers = new EventSubscribers<>(eventName, BUDGET_NANOS, false);
+        FakeSubscriber slow = new FakeSubscriber(true);
+        FakeSubscriber fast = new FakeSubscriber(false);
+        subscribers.register("slow", slow);
+        subscribers.register("fast", fast);
+
+        for (int i = 0; i < 3; i++) {
+            subscribers.post(i);
+        }
+
+        assertTrue(getStats(eventName, "slow").contains("3 calls"));
+        assertTrue(getStats(eventName, "slow").contains(", 3 over budget"));
+        assertTrue(getStats(eventName, "fast").contains("3 calls"));
+        assertTrue(getStats(eventName, "fast").contains(", 0 over budget"));
+    }
+
+    @Test
+    public void testSlowSubscriberStaysOnPostingThread() {
+        String eventName = newEventName();
+        EventSubscribers<Integer> subscribers = new EventSubscribers<>(eventName, BUDGET_NANOS, false);
+        FakeSubscriber slow = new FakeSubscriber(true);
+        subscribers.register("slow", slow);
+
+        // Main loop handlers may change instance and reset state, so they are only reported, never moved
+        for (int i = 0; i < 30; i++) {
+            subscribers.post(i);
+            assertSame(Thread.currentThread(), slow.lastThread.get());
+        }
+        assertEquals(30, slow.calls.get());
+        assertTrue(getStats(eventName, "slow").contains("(main loop)"));
+        assertTrue(getStats(eventName, "slow").contains(", 30 over budget"));
+    }
+
+    @Test
+    public void testAsyncSubscriberNeverOverBudget() throws InterruptedException {
+        String eventName = newEventName();
+        EventSubscribers<Integer> subscribers = new EventSubscribers<>(eventName, BUDGET_NANOS, false);
+        FakeSubscriber slow = new FakeSubscriber(true);
+        slow.latch = new CountDownLatch(3);
+        subscribers.registerAsync("async-owner", slow);
+
+        for (int i = 0; i < 3; i++) {
+            subscribers.post(i);
+        }
+        assertTrue(slow.latch.await(5, TimeUnit.SECONDS));
+        assertNotSame(Thread.currentThread(), slow.lastThread.get());
+        // Stats are recorded after the handler returns
+        for (int i = 0; i < 100 && !getStats(eventName, "async-owner").contains("3 calls"); i++) {
+            sleep(10);
+        }
+        assertTrue(getStats(eventName, "async-owner").contains("3 calls"));
+        assertTrue(getStats(eventName, "async-owner").contains(", 0 over budget"));
+    }
+}
@@ -0,0 +1,141 @@
+package xyz.duncanruns.julti.plugin;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import xyz.duncanruns.julti.util.FileUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PluginManagerTest {
+    private static final String FILE_NAME = "test-plugin.jar";
+
+    @TempDir
+    Path tempDir;
+
+    private final Map<String, byte[]> resources = new HashMap<>();
+    private final AtomicInteger reads = new AtomicInteger();
+
+    private static byte[] createJar(String version) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JarOutputStream jar = new JarOutputStream(out)) {
+            jar.putNextEntry(new JarEntry("julti.plugin.json"));
+            jar.write(("{\"name\":\"Test Plugin\",\"id\":\"test-plugin\",\"version\":\"" + version + "\",\"initializer\":\"test.Initializer\"}").getBytes(StandardCharsets.UTF_8));
+            jar.closeEntry();
+        }
+        return out.toByteArray();
+    }
+
+    private Pair<Path, PluginManager.JultiPluginData> extract(PluginManager pluginManager, String jultiVersion) throws IOException {
+        return pluginManager.extractDefaultPlugin(FILE_NAME, this.tempDir, jultiVersion, fileName -> {
+            this.reads.incrementAndGet();
+            return this.resources.get(fileName);
+        });
+    }
+
+    @Test
+    public void testExtractedOncePerVersion() throws IOException {
+        this.resources.put(FILE_NAME, createJar("1.0.0"));
+        PluginManager pluginManager = new PluginManager();
+
+        Pair<Path, PluginManager.JultiPluginData> first = this.extract(pluginManager, "1.4.0");
+        assertEquals(1, this.reads.get());
+        assertEquals(this.tempDir.resolve(FILE_NAME), first.getLeft());
+        assertArrayEquals(this.resources.get(FILE_NAME), Files.readAllBytes(first.getLeft()));
+        assertEquals("test-plugin", first.getRight().id);
+
+        // Already extracted by this version, the bundled jar is not read again
+        Pair<Path, PluginManager.JultiPluginData> second = this.extract(pluginManager, "1.4.0");
+        assertEquals(1, this.reads.get());
+        assertEquals(first.getLeft(), second.getLeft());
+        assertSame(first.getRight(), second.getRight());
+
+        // A new Julti version may bundle a new plugin version
+        this.resources.put(FILE_NAME, createJar("1.1.0"));
+        assertEquals("1.1.0", this.extract(pluginManager, "1.4.1").getRight().version);
+        assertEquals(2, this.reads.get());
+        assertArrayEquals(this.resources.get(FILE_NAME), Files.readAllBytes(this.tempDir.resolve(FILE_NAME)));
+    }
+
+    @Test
+    public void testChangedJarExtractedAgain() throws IOException {
+        this.resources.put(FILE_NAME, createJar("1.0.0"));
+        PluginManager pluginManager = new PluginManager();
+        Path path = this.extract(pluginManager, "1.4.0").getLeft();
+
+        // Modified since being extracted
+        Files.setLastModifiedTime(path, FileTime.fromMillis(Files.getLastModifiedTime(path).toMillis() - 10_000));
+        this.extract(pluginManager, "1.4.0");
+        assertEquals(2, this.reads.get());
+
+        // Replaced with something else
+        Files.write(path, new byte[]{1, 2, 3});
+        this.extract(pluginManager, "1.4.0");
+        assertEquals(3, this.reads.get());
+        assertArrayEquals(this.resources.get(FILE_NAME), Files.readAllBytes(path));
+
+        // Deleted
+        Files.delete(path);
+        this.extract(pluginManager, "1.4.0");
+        assertEquals(4, this.reads.get());
+        assertTrue(Files.isRegularFile(path));
+
+        this.extract(pluginManager, "1.4.0");
+        assertEquals(4, this.reads.get());
+    }
+
+    @Test
+    public void testDevBuildsAlwaysExtract() throws IOException {
+        this.resources.put(FILE_NAME, createJar("1.0.0"));
+        PluginManager pluginManager = new PluginManager();
+        this.extract(pluginManager, "DEV");
+        this.resources.put(FILE_NAME, createJar("1.0.1"));
+        assertEquals("1.0.1", this.extract(pluginManager, "DEV").getRight().version);
+        assertEquals(2, this.reads.get());
+    }
+
+    @Test
+    public void testCacheKeptBetweenLaunches() throws IOException {
+        this.resources.put(FILE_NAME, createJar("1.0.0"));
+        Path cachePath = this.tempDir.resolve("plugincache.json");
+        PluginManager firstLaunch = new PluginManager();
+        firstLaunch.loadPluginDataCache(cachePath);
+        this.extract(firstLaunch, "1.4.0");
+        firstLaunch.savePluginDataCache(cachePath);
+        assertTrue(Files.isRegularFile(cachePath));
+
+        PluginManager secondLaunch = new PluginManager();
+        secondLaunch.loadPluginDataCache(cachePath);
+        assertEquals("1.0.0", this.extract(secondLaunch, "1.4.0").getRight().version);
+        assertEquals(1, this.reads.get());
+    }
+
+    @Test
+    public void testOldCacheEntriesExtractAgain() throws IOException {
+        this.resources.put(FILE_NAME, createJar("1.0.0"));
+        Path path = this.tempDir.resolve(FILE_NAME);
+        Files.write(path, this.resources.get(FILE_NAME));
+        // Written by a version that hashed the bundled jars instead of recording the Julti version
+        Path cachePath = this.tempDir.resolve("plugincache.json");
+        FileUtil.writeString(cachePath, "{\"defaultplugins/" + FILE_NAME + "\":{\"size\":" + Files.size(path) + ",\"lastModified\":" + Files.getLastModifiedTime(path).toMillis() + ",\"hash\":\"abc\",\"data\":{\"name\":\"Test Plugin\",\"id\":\"test-plugin\",\"version\":\"1.0.0\",\"initializer\":\"test.Initializer\"}}}");
+
+        PluginManager pluginManager = new PluginManager();
+        pluginManager.loadPluginDataCache(cachePath);
+        this.extract(pluginManager, "1.4.0");
+        assertEquals(1, this.reads.get());
+        this.extract(pluginManager, "1.4.0");
+        assertEquals(1, this.reads.get());
+    }
+}
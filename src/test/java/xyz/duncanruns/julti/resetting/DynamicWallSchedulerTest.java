@@ -0,0 +1,142 @@
+package xyz.duncanruns.julti.resetting;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.platform.win32.WinDef.HWND;
+import org.junit.jupiter.api.Test;
+import xyz.duncanruns.julti.instance.MinecraftInstance;
+
+import java.nio.file.Paths;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DynamicWallSchedulerTest {
+    private static final double SATURATED = 1.0;
+
+    private static List<MinecraftInstance> newInstances(int count) {
+        List<MinecraftInstance> instances = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            // Instances are hashed by window, so each needs a (fake) one
+            instances.add(new MinecraftInstance(new HWND(new Pointer(0x1000 + i)), Paths.get("instance" + i), "1.16.1"));
+        }
+        return instances;
+    }
+
+    private static Map<MinecraftInstance, Byte> generating(List<MinecraftInstance> instances, int... percents) {
+        Map<MinecraftInstance, Byte> generating = new LinkedHashMap<>();
+        for (int i = 0; i < percents.length; i++) {
+            generating.put(instances.get(i), (byte) percents[i]);
+        }
+        return generating;
+    }
+
+    private static Set<MinecraftInstance> held(DynamicWallScheduler scheduler, List<MinecraftInstance> instances) {
+        Set<MinecraftInstance> held = new HashSet<>();
+        instances.stream().filter(scheduler::isHeld).forEach(held::add);
+        return held;
+    }
+
+    @Test
+    public void testNothingHeldWithoutSaturation() {
+        List<MinecraftInstance> instances = newInstances(6);
+        DynamicWallScheduler scheduler = new DynamicWallScheduler();
+        // Unknown load
+        assertFalse(scheduler.schedule(generating(instances, 0, 0, 0, 0, 0, 0), 0, 1, -1, 0));
+        assertTrue(held(scheduler, instances).isEmpty());
+
+        scheduler = new DynamicWallScheduler();
+        assertFalse(scheduler.schedule(generating(instances, 0, 0, 0, 0, 0, 0), 0, 1, 0.89, 0));
+        assertFalse(scheduler.schedule(generating(instances, 10, 20, 30, 40, 50, 60), 0, 1, 0.89, 1000));
+        assertTrue(held(scheduler, instances).isEmpty());
+    }
+
+    @Test
+    public void testNothingHeldWhenAllNeeded() {
+        List<MinecraftInstance> instances = newInstances(4);
+        DynamicWallScheduler scheduler = new DynamicWallScheduler();
+        // A wall of 2 wants 4 available instances, none are available so all 4 generating instances are needed
+        assertFalse(scheduler.schedule(generating(instances, 0, 0, 0, 0), 0, 2, SATURATED, 0));
+        assertTrue(held(scheduler, instances).isEmpty());
+    }
+
+    @Test
+    public void testClosestToPreviewKept() {
+        List<MinecraftInstance> instances = newInstances(6);
+        DynamicWallScheduler scheduler = new DynamicWallScheduler();
+        scheduler.schedule(generating(instances, 0, 0, 0, 0, 0, 0), 0, 2, SATURATED, 0);
+        // Instance 1 and 4 generate fastest, instance 5 is closest to previewing with a medium speed
+        assertTrue(scheduler.schedule(generating(instances, 10, 50, 5, 10, 60, 40), 2, 2, SATURATED, 1000));
+
+        // A wall of 2 with 2 available needs 2 more, the other 4 are held
+        Set<MinecraftInstance> expectedHeld = new HashSet<>(Arrays.asList(instances.get(0), instances.get(2), instances.get(3), instances.get(5)));
+        assertEquals(expectedHeld, held(scheduler, instances));
+
+        // Instance 5 speeds up past instance 1
+        scheduler.schedule(generating(instances, 10, 50, 5, 10, 60, 40), 2, 2, SATURATED, 2000);
+        assertTrue(scheduler.schedule(generating(instances, 12, 51, 6, 11, 90, 95), 2, 2, SATURATED, 2100));
+        expectedHeld = new HashSet<>(Arrays.asList(instances.get(0), instances.get(1), instances.get(2), instances.get(3)));
+        assertEquals(expectedHeld, held(scheduler, instances));
+    }
+
+    @Test
+    public void testUnmeasuredOrderedByStart() {
+        List<MinecraftInstance> instances = newInstances(4);
+        DynamicWallScheduler scheduler = new DynamicWallScheduler();
+        scheduler.schedule(generating(instances, 0, 0), 0, 1, SATURATED, 0);
+        // Instance 2 and 3 start later, none have progress yet, so the earliest started are kept
+        scheduler.schedule(generating(instances, 0, 0, 0, 0), 0, 1, SATURATED, 500);
+        assertEquals(new HashSet<>(instances.subList(2, 4)), held(scheduler, instances));
+
+        // Measured progress comes before unmeasured instances, then the earliest started
+        scheduler.schedule(generating(instances, 0, 0, 0, 5), 0, 1, SATURATED, 1000);
+        assertEquals(new HashSet<>(instances.subList(1, 3)), held(scheduler, instances));
+    }
+
+    @Test
+    public void testNewGenerationRestartsProgress() {
+        List<MinecraftInstance> instances = newInstances(3);
+        DynamicWallScheduler scheduler = new DynamicWallScheduler();
+        // Only 1 is needed, instance 0 is fastest
+        scheduler.schedule(generating(instances, 0, 0, 0), 1, 1, SATURATED, 0);
+        scheduler.schedule(generating(instances, 50, 10, 20), 1, 1, SATURATED, 1000);
+        assertEquals(new HashSet<>(instances.subList(1, 3)), held(scheduler, instances));
+
+        // Instance 0 reset and has no measured speed anymore, instance 2 is now the closest
+        assertTrue(scheduler.schedule(generating(instances, 0, 10, 20), 1, 1, SATURATED, 1100));
+        assertEquals(new HashSet<>(instances.subList(0, 2)), held(scheduler, instances));
+    }
+
+    @Test
+    public void testLoadIsSmoothed() {
+        List<MinecraftInstance> instances = newInstances(3);
+        DynamicWallScheduler scheduler = new DynamicWallScheduler();
+        scheduler.schedule(generating(instances, 0, 0, 0), 1, 1, SATURATED, 0);
+        assertEquals(2, held(scheduler, instances).size());
+
+        // One idle measurement does not release held instances, a few in a row do
+        assertFalse(scheduler.schedule(generating(instances, 0, 0, 0), 1, 1, 0.8, 250));
+        assertEquals(2, held(scheduler, instances).size());
+        assertTrue(scheduler.schedule(generating(instances, 0, 0, 0), 1, 1, 0.2, 500));
+        assertTrue(held(scheduler, instances).isEmpty());
+
+        // One saturated measurement after idling does not hold anything yet
+        assertFalse(scheduler.schedule(generating(instances, 0, 0, 0), 1, 1, SATURATED, 750));
+        assertTrue(held(scheduler, instances).isEmpty());
+    }
+
+    @Test
+    public void testGeneratingInstancesOnlyHeld() {
+        List<MinecraftInstance> instances = newInstances(3);
+        DynamicWallScheduler scheduler = new DynamicWallScheduler();
+        scheduler.schedule(generating(instances, 0, 0, 0), 1, 1, SATURATED, 0);
+        assertEquals(2, held(scheduler, instances).size());
+
+        // Instances that finished generating (or were locked) are released
+        assertTrue(scheduler.schedule(generating(instances, 0), 3, 1, SATURATED, 250));
+        assertTrue(held(scheduler, instances).isEmpty());
+
+        scheduler.schedule(generating(instances, 0, 0, 0), 1, 1, SATURATED, 500);
+        scheduler.clear();
+        assertTrue(held(scheduler, instances).isEmpty());
+    }
+}
@@ -0,0 +1,108 @@
+package xyz.duncanruns.julti.resetting;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.geom.Line2D;
+import java.util.*;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MousePathTest {
+    /**
+     * Hit-tests named cells, the first cell containing the point wins.
+     */
+    private static Function<Point, String> cells(Object... namesAndRectangles) {
+        Map<String, Rectangle> cells = new LinkedHashMap<>();
+        for (int i = 0; i < namesAndRectangles.length; i += 2) {
+            cells.put((String) namesAndRectangles[i], (Rectangle) namesAndRectangles[i + 1]);
+        }
+        return p -> cells.entrySet().stream().filter(e -> e.getValue().contains(p)).map(Map.Entry::getKey).findFirst().orElse(null);
+    }
+
+    private static List<Point> path(int... coordinates) {
+        List<Point> path = new ArrayList<>();
+        for (int i = 0; i < coordinates.length; i += 2) {
+            path.add(new Point(coordinates[i], coordinates[i + 1]));
+        }
+        return path;
+    }
+
+    @Test
+    public void testEmptyAndSinglePoint() {
+        Function<Point, String> hitTest = cells("a", new Rectangle(0, 0, 10, 10));
+        assertEquals(Collections.emptyList(), MousePath.getCrossed(Collections.emptyList(), hitTest));
+        assertEquals(Collections.singletonList("a"), MousePath.getCrossed(path(5, 5), hitTest));
+        assertEquals(Collections.emptyList(), MousePath.getCrossed(path(50, 50), hitTest));
+    }
+
+    @Test
+    public void testOrderOfFirstCrossing() {
+        Function<Point, String> hitTest = cells(
+                "a", new Rectangle(0, 0, 100, 100),
+                "b", new Rectangle(100, 0, 100, 100),
+                "c", new Rectangle(200, 0, 100, 100)
+        );
+        assertEquals(Arrays.asList("c", "b", "a"), MousePath.getCrossed(path(250, 50, 150, 50, 50, 50, 150, 50, 250, 50), hitTest));
+        assertEquals(Arrays.asList("a", "b", "c"), MousePath.getCrossed(path(10, 10, 290, 90), hitTest));
+    }
+
+    @Test
+    public void testFarApartSamplesCrossNarrowCells() {
+        Function<Point, String> hitTest = cells(
+                "thin vertical", new Rectangle(500, 0, 1, 1000),
+                "thin horizontal", new Rectangle(0, 700, 1000, 1)
+        );
+        assertEquals(Collections.singletonList("thin vertical"), MousePath.getCrossed(path(0, 300, 999, 300), hitTest));
+        assertEquals(Collections.singletonList("thin horizontal"), MousePath.getCrossed(path(300, 0, 300, 999), hitTest));
+        assertEquals(Arrays.asList("thin vertical", "thin horizontal"), MousePath.getCrossed(path(0, 0, 999, 999), hitTest));
+    }
+
+    @Test
+    public void testDiagonalThroughSmallCell() {
+        // Sampling every 8 pixels along this line checks (41,37) and then (47,42), jumping over the cell
+        Function<Point, String> hitTest = cells("small", new Rectangle(42, 38, 3, 3));
+        assertEquals(Collections.singletonList("small"), MousePath.getCrossed(path(0, 0, 100, 90), hitTest));
+        assertEquals(Collections.singletonList("small"), MousePath.getCrossed(path(100, 90, 0, 0), hitTest));
+    }
+
+    @Test
+    public void testExactDiagonalThroughCorners() {
+        // A 45 degree line only passes the corners of the pixels beside it, both are checked
+        Function<Point, String> hitTest = cells(
+                "above", new Rectangle(51, 50, 1, 1),
+                "below", new Rectangle(50, 51, 1, 1)
+        );
+        assertEquals(new HashSet<>(Arrays.asList("above", "below")), new HashSet<>(MousePath.getCrossed(path(0, 0, 100, 100), hitTest)));
+    }
+
+    @Test
+    public void testMatchesDenseSampling() {
+        Random random = new Random(47);
+        for (int round = 0; round < 200; round++) {
+            Point from = new Point(random.nextInt(200), random.nextInt(200));
+            Point to = new Point(random.nextInt(200), random.nextInt(200));
+
+            Set<Point> visited = new HashSet<>();
+            MousePath.getCrossed(Arrays.asList(from, to), p -> {
+                visited.add(p);
+                return null;
+            });
+
+            // Every pixel the line between the pixel centers passes through, found by sampling the line very densely
+            double length = from.distance(to);
+            int samples = (int) Math.ceil(length * 200) + 1;
+            for (int s = 0; s <= samples; s++) {
+                double t = s / (double) samples;
+                Point pixel = new Point((int) Math.floor(from.x + 0.5 + (to.x - from.x) * t), (int) Math.floor(from.y + 0.5 + (to.y - from.y) * t));
+                assertTrue(visited.contains(pixel), "Pixel " + pixel + " on the line from " + from + " to " + to + " was skipped");
+            }
+            // Nothing far from the line is checked
+            for (Point pixel : visited) {
+                assertTrue(Line2D.ptSegDist(from.x, from.y, to.x, to.y, pixel.x, pixel.y) <= Math.sqrt(2) / 2 + 1e-9, "Pixel " + pixel + " is not on the line from " + from + " to " + to);
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package xyz.duncanruns.julti.resetting;
+
+import org.junit.jupiter.api.Test;
+import xyz.duncanruns.julti.instance.MinecraftInstance;
+
+import java.awt.*;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WallLayoutTest {
+    private static List<MinecraftInstance> createInstances(int count) {
+        List<MinecraftInstance> instances = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            instances.add(new MinecraftInstance(Paths.get("instance" + i)));
+        }
+        return instances;
+    }
+
+    private static WallLayout createLayout(int sceneWidth, int sceneHeight, List<MinecraftInstance> instances, Rectangle[] positions) {
+        WallLayout.Key key = new WallLayout.Key(sceneWidth, sceneHeight, instances.size(), 0, 0, true, 0, 0, 0f);
+        return new WallLayout(key, instances, positions);
+    }
+
+    /**
+     * The first instance in order whose position contains the point.
+     */
+    private static MinecraftInstance bruteForce(List<MinecraftInstance> instances, Rectangle[] positions, int x, int y) {
+        for (int i = 0; i < positions.length; i++) {
+            if (positions[i].contains(x, y)) {
+                return instances.get(i);
+            }
+        }
+        return null;
+    }
+
+    private static void assertMatchesBruteForce(WallLayout layout, List<MinecraftInstance> instances, Rectangle[] positions, int x, int y) {
+        MinecraftInstance expected = bruteForce(instances, positions, x, y);
+        MinecraftInstance actual = layout.getInstanceAt(x, y);
+        if (expected != actual) {
+            fail("Point (" + x + "," + y + "): expected instance " + instances.indexOf(expected) + ", got instance " + instances.indexOf(actual));
+        }
+    }
+
+    /**
+     * Checks every point of the scene and a margin around it.
+     */
+    private static void assertAllPointsMatch(int sceneWidth, int sceneHeight, Rectangle[] positions, int margin) {
+        List<MinecraftInstance> instances = createInstances(positions.length);
+        WallLayout layout = createLayout(sceneWidth, sceneHeight, instances, positions);
+        for (int y = -margin; y < sceneHeight + margin; y++) {
+            for (int x = -margin; x < sceneWidth + margin; x++) {
+                assertMatchesBruteForce(layout, instances, positions, x, y);
+            }
+        }
+    }
+
+    private static Rectangle[] grid(int sceneWidth, int sceneHeight, int rows, int columns, int spacing) {
+        Rectangle[] positions = new Rectangle[rows * columns];
+        for (int i = 0; i < positions.length; i++) {
+            int row = i / columns;
+            int column = i % columns;
+            int x = column * sceneWidth / columns;
+            int y = row * sceneHeight / rows;
+            positions[i] = new Rectangle(x + spacing, y + spacing, (column + 1) * sceneWidth / columns - x - 2 * spacing, (row + 1) * sceneHeight / rows - y - 2 * spacing);
+        }
+        return positions;
+    }
+
+    @Test
+    public void testGrids() {
+        assertAllPointsMatch(1920, 1080, grid(1920, 1080, 3, 3, 0), 20);
+        assertAllPointsMatch(1920, 1080, grid(1920, 1080, 4, 5, 7), 20);
+        assertAllPointsMatch(1000, 777, grid(1000, 777, 7, 3, 1), 20);
+    }
+
+    @Test
+    public void testLockedBar() {
+        // Dynamic wall style: a grid over most of the scene and small locked instances along the bottom
+        Rectangle[] wall = grid(1920, 900, 2, 3, 0);
+        Rectangle[] positions = new Rectangle[wall.length + 5];
+        System.arraycopy(wall, 0, positions, 0, wall.length);
+        for (int i = 0; i < 5; i++) {
+            positions[wall.length + i] = new Rectangle(i * 160, 900, 160, 180);
+        }
+        assertAllPointsMatch(1920, 1080, positions, 10);
+    }
+
+    @Test
+    public void testHiddenAndEmptyPositions() {
+        Rectangle[] positions = {
+                new Rectangle(0, 0, 0, 0),
+                new Rectangle(100, 100, 0, 50),
+                // Moved off the scene
+                new Rectangle(-5000, -5000, 100, 100),
+                new Rectangle(1920, 0, 500, 500),
+                // Partly off the scene
+                new Rectangle(-100, -100, 300, 300),
+                new Rectangle(1800, 1000, 300, 300),
+                new Rectangle(0, 0, 1920, 1080)
+        };
+        assertAllPointsMatch(1920, 1080, positions, 150);
+        List<MinecraftInstance> instances = createInstances(positions.length);
+        WallLayout layout = createLayout(1920, 1080, instances, positions);
+        assertSame(instances.get(2), layout.getInstanceAt(-4950, -4950));
+    }
+
+    @Test
+    public void testScenesSmallerThanBuckets() {
+        assertAllPointsMatch(1, 1, new Rectangle[]{new Rectangle(0, 0, 1, 1)}, 3);
+        assertAllPointsMatch(31, 33, grid(31, 33, 3, 2, 0), 5);
+        assertAllPointsMatch(5, 90, grid(5, 90, 9, 1, 0), 5);
+    }
+
+    @Test
+    public void testRandomOverlappingPositions() {
+        Random random = new Random(46);
+        for (int round = 0; round < 20; round++) {
+            int sceneWidth = 50 + random.nextInt(400);
+            int sceneHeight = 50 + random.nextInt(400);
+            Rectangle[] positions = new Rectangle[1 + random.nextInt(30)];
+            for (int i = 0; i < positions.length; i++) {
+                // Thin rectangles cross bucket edges without covering a whole bucket
+                int width = random.nextInt(4) == 0 ? 1 + random.nextInt(2) : random.nextInt(sceneWidth);
+                int height = random.nextInt(4) == 0 ? 1 + random.nextInt(2) : random.nextInt(sceneHeight);
+                positions[i] = new Rectangle(random.nextInt(sceneWidth + 40) - 20, random.nextInt(sceneHeight + 40) - 20, width, height);
+            }
+            assertAllPointsMatch(sceneWidth, sceneHeight, positions, 25);
+        }
+    }
+}
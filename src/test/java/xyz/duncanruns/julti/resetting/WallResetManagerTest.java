@@ -0,0 +1,138 @@
+package xyz.duncanruns.julti.resetting;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import xyz.duncanruns.julti.JultiOptions;
+import xyz.duncanruns.julti.instance.MinecraftInstance;
+import xyz.duncanruns.julti.management.InstanceManager;
+
+import java.awt.*;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WallResetManagerTest {
+    private final InstanceManager instanceManager = InstanceManager.getInstanceManager();
+    private List<MinecraftInstance> oldInstances;
+    private List<String> oldInstancePaths;
+
+    /**
+     * Loads new instance objects for the given instance numbers, reassigning slots like a profile switch does.
+     */
+    private List<MinecraftInstance> loadInstances(int... numbers) {
+        List<String> paths = new ArrayList<>();
+        for (int number : numbers) {
+            paths.add("instance" + number);
+        }
+        JultiOptions.getJultiOptions().instancePaths = paths;
+        this.instanceManager.loadInstances();
+        return new ArrayList<>(this.instanceManager.getInstances());
+    }
+
+    @BeforeEach
+    public void setUp() {
+        this.oldInstances = new ArrayList<>(this.instanceManager.getInstances());
+        this.oldInstancePaths = JultiOptions.getJultiOptions().instancePaths;
+    }
+
+    @AfterEach
+    public void tearDown() {
+        JultiOptions.getJultiOptions().instancePaths = this.oldInstancePaths;
+        List<MinecraftInstance> instances = this.instanceManager.getInstances();
+        instances.clear();
+        instances.addAll(this.oldInstances);
+        for (int i = 0; i < instances.size(); i++) {
+            instances.get(i).setSlot(i);
+        }
+        this.instanceManager.refreshSnapshot();
+    }
+
+    @Test
+    public void testGetInstanceIndexFallback() {
+        List<MinecraftInstance> instances = this.loadInstances(1, 2, 3);
+        for (int i = 0; i < instances.size(); i++) {
+            assertEquals(i, this.instanceManager.getInstanceIndex(instances.get(i)));
+        }
+
+        // Copies are found by path, whatever slot they have
+        MinecraftInstance copy = new MinecraftInstance(Paths.get("instance2"));
+        assertEquals(1, this.instanceManager.getInstanceIndex(copy));
+        copy.setSlot(0);
+        assertEquals(1, this.instanceManager.getInstanceIndex(copy));
+        copy.setSlot(10);
+        assertEquals(1, this.instanceManager.getInstanceIndex(copy));
+
+        assertEquals(-1, this.instanceManager.getInstanceIndex(new MinecraftInstance(Paths.get("instance4"))));
+        assertEquals(-1, this.instanceManager.getInstanceIndex(null));
+
+        // Instances from an older list keep their old slot but are found at their new index
+        this.loadInstances(3, 2, 1);
+        assertEquals(0, instances.get(0).getSlot());
+        assertEquals(2, this.instanceManager.getInstanceIndex(instances.get(0)));
+        this.loadInstances(2, 3);
+        assertEquals(-1, this.instanceManager.getInstanceIndex(instances.get(0)));
+    }
+
+    @Test
+    public void testLocksFollowSlotReassignment() {
+        WallResetManager manager = new WallResetManager();
+        List<MinecraftInstance> instances = this.loadInstances(1, 2, 3);
+        assertTrue(manager.lockInstance(instances.get(0)));
+        assertFalse(manager.lockInstance(instances.get(0)));
+        assertTrue(manager.isLocked(instances.get(0)));
+        assertFalse(manager.isLocked(instances.get(1)));
+
+        // Reordered, the locked instance moved from the first slot to the last
+        instances = this.loadInstances(3, 2, 1);
+        assertFalse(manager.isLocked(instances.get(0)));
+        assertFalse(manager.isLocked(instances.get(1)));
+        assertTrue(manager.isLocked(instances.get(2)));
+        // A copy of a locked instance is also locked
+        assertTrue(manager.isLocked(new MinecraftInstance(Paths.get("instance1"))));
+
+        // Removed, no slot is left locked
+        instances = this.loadInstances(3, 2);
+        assertFalse(manager.isLocked(instances.get(0)));
+        assertFalse(manager.isLocked(instances.get(1)));
+        assertFalse(manager.isLocked(new MinecraftInstance(Paths.get("instance1"))));
+
+        // Added back, it is locked again
+        instances = this.loadInstances(1, 3);
+        assertTrue(manager.isLocked(instances.get(0)));
+
+        manager.onMissingInstancesUpdate();
+        assertFalse(manager.isLocked(instances.get(0)));
+        assertTrue(manager.getLockedInstances().isEmpty());
+    }
+
+    @Test
+    public void testLayoutInvalidatedOnlyWhenPositionsDependOnLocks() {
+        List<MinecraftInstance> instances = this.loadInstances(1, 2, 3);
+
+        // The default layout ignores locks
+        WallResetManager plain = new WallResetManager();
+        int generation = plain.getWallLayoutGeneration();
+        plain.lockInstance(instances.get(0));
+        plain.onMissingInstancesUpdate();
+        assertEquals(generation, plain.getWallLayoutGeneration());
+
+        WallResetManager dependent = new WallResetManager() {
+            @Override
+            public Rectangle getInstancePosition(MinecraftInstance instance, Dimension sceneSize) {
+                return super.getInstancePosition(instance, sceneSize);
+            }
+        };
+        generation = dependent.getWallLayoutGeneration();
+        dependent.lockInstance(instances.get(0));
+        assertEquals(generation + 1, dependent.getWallLayoutGeneration());
+        // Already locked, nothing changed
+        dependent.lockInstance(instances.get(0));
+        assertEquals(generation + 1, dependent.getWallLayoutGeneration());
+        dependent.onMissingInstancesUpdate();
+        assertEquals(generation + 2, dependent.getWallLayoutGeneration());
+    }
+}
@@ -0,0 +1,56 @@
+package xyz.duncanruns.julti.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileUtilTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void writeStringAtomicallyCreatesFile() throws IOException {
+        Path path = this.tempDir.resolve("new.txt");
+        FileUtil.writeStringAtomically(path, "hello");
+        assertEquals("hello", FileUtil.readString(path));
+    }
+
+    @Test
+    public void writeStringAtomicallyReplacesContents() throws IOException {
+        Path path = this.tempDir.resolve("existing.txt");
+        FileUtil.writeString(path, "a much longer previous value");
+        FileUtil.writeStringAtomically(path, "short");
+        assertEquals("short", FileUtil.readString(path));
+    }
+
+    @Test
+    public void writeStringAtomicallyLeavesNoTemporaryFile() throws IOException {
+        Path path = this.tempDir.resolve("file.txt");
+        FileUtil.writeStringAtomically(path, "1");
+        FileUtil.writeStringAtomically(path, "2");
+        assertFalse(Files.exists(this.tempDir.resolve("file.txt.tmp")));
+        assertEquals(1, Files.list(this.tempDir).count());
+    }
+
+    @Test
+    public void writeStringAtomicallyReplacesStaleTemporaryFile() throws IOException {
+        Path path = this.tempDir.resolve("file.txt");
+        // Left behind by a write that was interrupted
+        FileUtil.writeString(this.tempDir.resolve("file.txt.tmp"), "stale partial contents");
+        FileUtil.writeStringAtomically(path, "new");
+        assertEquals("new", FileUtil.readString(path));
+    }
+
+    @Test
+    public void writeStringAtomicallyHandlesEmptyString() throws IOException {
+        Path path = this.tempDir.resolve("empty.txt");
+        FileUtil.writeString(path, "something");
+        FileUtil.writeStringAtomically(path, "");
+        assertEquals("", FileUtil.readString(path));
+    }
+}
@@ -0,0 +1,56 @@
+package xyz.duncanruns.julti.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeyMessageTableTest {
+    private static final int VK_A = 0x41;
+    private static final int VK_LEFT = 0x25;
+    private static final int VK_RCONTROL = 0xA3;
+
+    @Test
+    public void keyDownLParamHasRepeatCountAndScanCode() {
+        // Repeat count 1, scan code 0x1E (A), not extended, key was up, being pressed
+        assertEquals(0x001E0001, (int) KeyMessageTable.encodeLParam(0x1E, false, false));
+    }
+
+    @Test
+    public void keyUpLParamSetsTransitionAndPreviousStateBits() {
+        assertEquals(0xC01E0001, (int) KeyMessageTable.encodeLParam(0x1E, false, true));
+    }
+
+    @Test
+    public void extendedKeysSetBit24() {
+        assertEquals(0x014B0001, (int) KeyMessageTable.encodeLParam(0x4B, true, false));
+        assertEquals(0xC14B0001, (int) KeyMessageTable.encodeLParam(0x4B, true, true));
+    }
+
+    @Test
+    public void scanCodeIsLimitedToItsByte() {
+        assertEquals(0x00340001, (int) KeyMessageTable.encodeLParam(0x1234, false, false));
+    }
+
+    @Test
+    public void extendedKeys() {
+        assertTrue(KeyMessageTable.isExtendedKey(VK_LEFT));
+        assertTrue(KeyMessageTable.isExtendedKey(VK_RCONTROL));
+        assertFalse(KeyMessageTable.isExtendedKey(VK_A));
+    }
+
+    @Test
+    public void tableUsesMappedScanCodes() {
+        KeyMessageTable table = new KeyMessageTable(vk -> vk + 1);
+        assertEquals(VK_A, table.getWParam(VK_A).intValue());
+        assertEquals(KeyMessageTable.encodeLParam(VK_A + 1, false, false), table.getKeyDownLParam(VK_A).longValue());
+        assertEquals(KeyMessageTable.encodeLParam(VK_A + 1, false, true), table.getKeyUpLParam(VK_A).longValue());
+        assertEquals(KeyMessageTable.encodeLParam(VK_LEFT + 1, true, false), table.getKeyDownLParam(VK_LEFT).longValue());
+    }
+
+    @Test
+    public void tableReusesParameterObjects() {
+        KeyMessageTable table = new KeyMessageTable(vk -> vk);
+        assertSame(table.getWParam(VK_A), table.getWParam(VK_A));
+        assertSame(table.getKeyDownLParam(VK_A), table.getKeyDownLParam(VK_A));
+    }
+}
@@ -0,0 +1,65 @@
+package xyz.duncanruns.julti.util;
+
+import com.sun.jna.platform.win32.WinUser;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeySequenceTest {
+    private static final int VK_SHIFT = 0x10;
+    private static final int VK_TAB = 0x09;
+    private static final int VK_RETURN = 0x0D;
+
+    private final KeyMessageTable table = new KeyMessageTable(vk -> vk + 0x20);
+
+    private List<long[]> send(KeySequence sequence) {
+        List<long[]> posted = new ArrayList<>();
+        sequence.send(null, this.table, (hwnd, message, wParam, lParam) -> posted.add(new long[]{message.longValue(), wParam.longValue(), lParam.longValue()}));
+        return posted;
+    }
+
+    @Test
+    public void sendsMessagesInOrder() {
+        KeySequence sequence = KeySequence.builder().down(VK_SHIFT).press(VK_TAB).up(VK_SHIFT).press(VK_RETURN).build();
+        List<long[]> posted = this.send(sequence);
+
+        assertEquals(6, posted.size());
+        assertArrayEquals(new long[]{WinUser.WM_KEYDOWN, VK_SHIFT, KeyMessageTable.encodeLParam(VK_SHIFT + 0x20, false, false)}, posted.get(0));
+        assertArrayEquals(new long[]{WinUser.WM_KEYDOWN, VK_TAB, KeyMessageTable.encodeLParam(VK_TAB + 0x20, false, false)}, posted.get(1));
+        assertArrayEquals(new long[]{WinUser.WM_KEYUP, VK_TAB, KeyMessageTable.encodeLParam(VK_TAB + 0x20, false, true)}, posted.get(2));
+        assertArrayEquals(new long[]{WinUser.WM_KEYUP, VK_SHIFT, KeyMessageTable.encodeLParam(VK_SHIFT + 0x20, false, true)}, posted.get(3));
+        assertArrayEquals(new long[]{WinUser.WM_KEYDOWN, VK_RETURN, KeyMessageTable.encodeLParam(VK_RETURN + 0x20, false, false)}, posted.get(4));
+        assertArrayEquals(new long[]{WinUser.WM_KEYUP, VK_RETURN, KeyMessageTable.encodeLParam(VK_RETURN + 0x20, false, true)}, posted.get(5));
+    }
+
+    @Test
+    public void unsetKeysAreSkipped() {
+        KeySequence sequence = KeySequence.builder().press((Integer) null).press(Integer.valueOf(VK_TAB)).build();
+        assertEquals(2, sequence.size());
+        assertEquals(KeySequence.builder().press(VK_TAB).build(), sequence);
+    }
+
+    @Test
+    public void emptySequenceIsShared() {
+        assertSame(KeySequence.EMPTY, KeySequence.builder().build());
+        assertTrue(this.send(KeySequence.EMPTY).isEmpty());
+    }
+
+    @Test
+    public void builderGrowsPastInitialCapacity() {
+        KeySequence.Builder builder = KeySequence.builder();
+        for (int i = 0; i < 20; i++) {
+            builder.press(VK_TAB);
+        }
+        assertEquals(40, builder.build().size());
+    }
+
+    @Test
+    public void invalidKeysAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> KeySequence.builder().down(-1));
+        assertThrows(IllegalArgumentException.class, () -> KeySequence.builder().up(KeyMessageTable.KEY_COUNT));
+    }
+}
@@ -0,0 +1,133 @@
+package xyz.duncanruns.julti.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import xyz.duncanruns.julti.JultiOptions;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResetCounterTest {
+    private static final long MINUTE_MS = TimeUnit.MINUTES.toMillis(1);
+    private static final long HOUR_MS = TimeUnit.HOURS.toMillis(1);
+    private static final AtomicLong TIME = new AtomicLong(System.currentTimeMillis());
+
+    @TempDir
+    Path tempDir;
+
+    private Supplier<Path> oldOutputDirSupplier;
+    private LongSupplier oldClock;
+    private int oldResetCounter;
+    private int oldSessionCounter;
+
+    @BeforeEach
+    public void setUp() {
+        // Every test starts more than an hour after the resets of the last one
+        TIME.addAndGet(2 * HOUR_MS);
+        this.oldOutputDirSupplier = ResetCounter.outputDirSupplier;
+        this.oldClock = ResetCounter.clock;
+        ResetCounter.outputDirSupplier = () -> this.tempDir;
+        ResetCounter.clock = TIME::get;
+
+        JultiOptions options = JultiOptions.getJultiOptions();
+        this.oldResetCounter = options.resetCounter;
+        this.oldSessionCounter = ResetCounter.sessionCounter;
+        // Far from a multiple of 100, so the options are not saved
+        options.resetCounter = 1;
+        ResetCounter.sessionCounter = 0;
+    }
+
+    @AfterEach
+    public void tearDown() {
+        // Leaves no recent resets, so the rates never change again after the real folder is restored
+        TIME.addAndGet(2 * HOUR_MS);
+        ResetCounter.flush();
+        ResetCounter.outputDirSupplier = this.oldOutputDirSupplier;
+        ResetCounter.clock = this.oldClock;
+        JultiOptions.getJultiOptions().resetCounter = this.oldResetCounter;
+        ResetCounter.sessionCounter = this.oldSessionCounter;
+    }
+
+    private String read(String fileName) throws IOException {
+        return FileUtil.readString(this.tempDir.resolve(fileName));
+    }
+
+    private void awaitContents(String fileName, String expected) throws Exception {
+        Path path = this.tempDir.resolve(fileName);
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!(Files.exists(path) && expected.equals(FileUtil.readString(path)))) {
+            assertTrue(System.nanoTime() < end, fileName + " was not written");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testCountedInMemoryAndWrittenLater() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            ResetCounter.increment();
+        }
+        assertEquals(11, JultiOptions.getJultiOptions().resetCounter);
+        assertEquals(10, ResetCounter.sessionCounter);
+        // Resets only count, the files are written by the updater thread
+        assertFalse(Files.exists(this.tempDir.resolve("resets.txt")));
+
+        this.awaitContents("resets.txt", "11");
+        assertEquals("10", this.read("sessionresets.txt"));
+        assertEquals("10", this.read("resetsperminute.txt"));
+        assertEquals("10", this.read("resetsperhour.txt"));
+
+        // Setting the session count (such as with the session reset command) is written the same way
+        ResetCounter.sessionCounter = 50;
+        ResetCounter.updateFiles();
+        this.awaitContents("sessionresets.txt", "50");
+        assertEquals("11", this.read("resets.txt"));
+    }
+
+    @Test
+    public void testFlushWritesImmediately() throws IOException {
+        for (int i = 0; i < 3; i++) {
+            ResetCounter.increment();
+        }
+        ResetCounter.flush();
+        assertEquals("4", this.read("resets.txt"));
+        assertEquals("3", this.read("sessionresets.txt"));
+        assertEquals("3", this.read("resetsperminute.txt"));
+        assertEquals("3", this.read("resetsperhour.txt"));
+    }
+
+    @Test
+    public void testRates() throws IOException {
+        long start = TIME.get();
+        for (long offset : new long[]{0, MINUTE_MS / 2, 2 * MINUTE_MS, 50 * MINUTE_MS}) {
+            TIME.set(start + offset);
+            ResetCounter.increment();
+        }
+
+        TIME.set(start + 50 * MINUTE_MS + 10_000);
+        ResetCounter.flush();
+        assertEquals("1", this.read("resetsperminute.txt"));
+        assertEquals("4", this.read("resetsperhour.txt"));
+
+        // The first two resets are now more than an hour old
+        TIME.set(start + 61 * MINUTE_MS);
+        ResetCounter.flush();
+        assertEquals("0", this.read("resetsperminute.txt"));
+        assertEquals("2", this.read("resetsperhour.txt"));
+
+        TIME.set(start + 3 * HOUR_MS);
+        ResetCounter.flush();
+        assertEquals("0", this.read("resetsperhour.txt"));
+        // The totals are kept
+        assertEquals("4", this.read("sessionresets.txt"));
+        assertEquals("5", this.read("resets.txt"));
+    }
+}
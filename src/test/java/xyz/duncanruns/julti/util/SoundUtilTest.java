@@ -0,0 +1,369 @@
+package xyz.duncanruns.julti.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sound.sampled.*;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SoundUtilTest {
+    private static final AudioFormat FORMAT = new AudioFormat(44100, 16, 2, true, false);
+
+    @TempDir
+    Path tempDir;
+
+    private final List<FakeClip> clips = Collections.synchronizedList(new ArrayList<>());
+    // Microsecond length of new clips, 0 makes every clip idle again right after being played
+    private volatile long clipLength = 0;
+    private SoundUtil.ClipFactory oldClipFactory;
+
+    private static void writeWav(Path path, int frames) throws IOException {
+        Files.createDirectories(path.getParent());
+        byte[] data = new byte[frames * FORMAT.getFrameSize()];
+        new Random(frames).nextBytes(data);
+        try (AudioInputStream stream = new AudioInputStream(new ByteArrayInputStream(data), FORMAT, frames)) {
+            AudioSystem.write(stream, AudioFileFormat.Type.WAVE, path.toFile());
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        this.oldClipFactory = SoundUtil.clipFactory;
+        SoundUtil.clipFactory = () -> {
+            FakeClip clip = new FakeClip(this.clipLength);
+            this.clips.add(clip);
+            return clip;
+        };
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        SoundUtil.preloadSounds(Collections.emptyList());
+        SoundUtil.waitForAudioThread();
+        SoundUtil.clipFactory = this.oldClipFactory;
+    }
+
+    private int getStarts() {
+        synchronized (this.clips) {
+            return this.clips.stream().mapToInt(clip -> clip.starts).sum();
+        }
+    }
+
+    @Test
+    public void testPreloadOpensClips() throws Exception {
+        Path single = this.tempDir.resolve("single.wav");
+        writeWav(single, 1000);
+        Path folder = this.tempDir.resolve("variants");
+        writeWav(folder.resolve("a.wav"), 500);
+        writeWav(folder.resolve("b.wav"), 600);
+        Files.write(folder.resolve("notes.txt"), new byte[]{1});
+
+        SoundUtil.preloadSounds(Arrays.asList(single.toString(), " " + folder + " ", ""));
+        SoundUtil.waitForAudioThread();
+
+        // One clip per sound file, opened with the decoded PCM before anything is played
+        assertEquals(3, this.clips.size());
+        Set<Integer> lengths = new HashSet<>();
+        for (FakeClip clip : this.clips) {
+            assertTrue(clip.open);
+            assertTrue(FORMAT.matches(clip.format));
+            lengths.add(clip.dataLength / FORMAT.getFrameSize());
+        }
+        assertEquals(new HashSet<>(Arrays.asList(1000, 500, 600)), lengths);
+
+        SoundUtil.playSound(folder.toString(), 0.5f);
+        SoundUtil.playSound(single.toString(), 1.0f);
+        SoundUtil.waitForAudioThread();
+        assertEquals(3, this.clips.size());
+        assertEquals(2, this.getStarts());
+
+        // Preloading again closes the old clips
+        SoundUtil.preloadSounds(Collections.emptyList());
+        SoundUtil.waitForAudioThread();
+        this.clips.forEach(clip -> assertFalse(clip.open));
+    }
+
+    @Test
+    public void testClipsReused() throws Exception {
+        Path sound = this.tempDir.resolve("sound.wav");
+        writeWav(sound, 1000);
+        SoundUtil.preloadSounds(Collections.singletonList(sound.toString()));
+        SoundUtil.waitForAudioThread();
+
+        // A finished clip is played again
+        for (int i = 0; i < 5; i++) {
+            SoundUtil.playSound(sound.toString(), 1.0f);
+        }
+        SoundUtil.waitForAudioThread();
+        assertEquals(1, this.clips.size());
+        assertEquals(5, this.clips.get(0).starts);
+        assertEquals(0, this.clips.get(0).framePosition);
+        // Full volume is the maximum gain
+        assertEquals(6.0f, this.clips.get(0).gain.getValue(), 0.001f);
+
+        // Overlapping plays open more clips up to a limit, then the clip closest to finishing is restarted
+        this.clipLength = 10_000_000;
+        this.clips.clear();
+        SoundUtil.preloadSounds(Collections.singletonList(sound.toString()));
+        for (int i = 0; i < 6; i++) {
+            SoundUtil.playSound(sound.toString(), 1.0f);
+        }
+        SoundUtil.waitForAudioThread();
+        assertEquals(4, this.clips.size());
+        assertEquals(6, this.getStarts());
+        // The first two clips were the closest to finishing
+        assertEquals(2, this.clips.get(0).starts);
+        assertEquals(2, this.clips.get(1).starts);
+    }
+
+    @Test
+    public void testFailedFilesNotRetriedUntilPreload() throws Exception {
+        Path sound = this.tempDir.resolve("broken.wav");
+        Files.write(sound, "not a wav file".getBytes());
+        SoundUtil.preloadSounds(Collections.singletonList(sound.toString()));
+        SoundUtil.waitForAudioThread();
+        assertTrue(this.clips.isEmpty());
+
+        // Fixed on disk, but the failure is remembered until the next preload
+        writeWav(sound, 1000);
+        SoundUtil.playSound(sound.toString(), 1.0f);
+        SoundUtil.playSound(sound.toFile(), 1.0f);
+        SoundUtil.waitForAudioThread();
+        assertTrue(this.clips.isEmpty());
+
+        SoundUtil.preloadSounds(Collections.singletonList(sound.toString()));
+        SoundUtil.playSound(sound.toString(), 1.0f);
+        SoundUtil.waitForAudioThread();
+        assertEquals(1, this.clips.size());
+        assertEquals(1, this.getStarts());
+    }
+
+    @Test
+    public void testMutedAndEmptySoundsSkipped() throws Exception {
+        Path sound = this.tempDir.resolve("sound.wav");
+        writeWav(sound, 1000);
+        SoundUtil.preloadSounds(Collections.singletonList(sound.toString()));
+        SoundUtil.playSound(sound.toString(), 0.0f);
+        SoundUtil.playSound(sound.toFile(), 0.0f);
+        SoundUtil.playSound("  ", 1.0f);
+        SoundUtil.waitForAudioThread();
+        assertEquals(0, this.getStarts());
+    }
+
+    /**
+     * Plays a sound the way it was done before sounds were preloaded: decoding the file and opening a new clip on the
+     * calling thread for every play.
+     */
+    private static void playSoundUncached(File soundFile, SoundUtil.ClipFactory clipFactory) throws Exception {
+        try (AudioInputStream stream = AudioSystem.getAudioInputStream(soundFile)) {
+            Clip clip = clipFactory.getClip();
+            clip.open(stream);
+            clip.start();
+        }
+    }
+
+    @Test
+    public void testCallingThreadTime() throws Exception {
+        // A 1 second sound, like the default reset sounds
+        Path sound = this.tempDir.resolve("sound.wav");
+        writeWav(sound, 44100);
+        SoundUtil.preloadSounds(Collections.singletonList(sound.toString()));
+        SoundUtil.waitForAudioThread();
+        int plays = 100;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < plays; i++) {
+            playSoundUncached(sound.toFile(), SoundUtil.clipFactory);
+        }
+        long before = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < plays; i++) {
+            SoundUtil.playSound(sound.toString(), 1.0f);
+        }
+        long after = System.nanoTime() - start;
+        SoundUtil.waitForAudioThread();
+
+        String timings = String.format("Calling thread time per sound: %.1fus decoding and opening per play, %.1fus queued", before / 1000.0 / plays, after / 1000.0 / plays);
+        System.out.println(timings);
+        assertTrue(after < before, timings);
+    }
+
+    private static class FakeClip implements Clip {
+        private final long microsecondLength;
+        private final FloatControl gain = new FloatControl(FloatControl.Type.MASTER_GAIN, -80.0f, 6.0f, 0.1f, 0, 0.0f, "dB") {
+        };
+        private boolean open = false;
+        private AudioFormat format;
+        private int dataLength;
+        private int starts = 0;
+        private int framePosition = 0;
+
+        private FakeClip(long microsecondLength) {
+            this.microsecondLength = microsecondLength;
+        }
+
+        @Override
+        public void open(AudioFormat format, byte[] data, int offset, int bufferSize) {
+            this.format = format;
+            this.dataLength = bufferSize;
+            this.open = true;
+        }
+
+        @Override
+        public void open(AudioInputStream stream) throws IOException {
+            // A real clip reads the whole stream into its buffer
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = stream.read(buffer)) != -1) {
+                this.dataLength += read;
+            }
+            this.format = stream.getFormat();
+            this.open = true;
+        }
+
+        @Override
+        public int getFrameLength() {
+            return this.dataLength / this.format.getFrameSize();
+        }
+
+        @Override
+        public long getMicrosecondLength() {
+            return this.microsecondLength;
+        }
+
+        @Override
+        public void setFramePosition(int frames) {
+            this.framePosition = frames;
+        }
+
+        @Override
+        public void setMicrosecondPosition(long microseconds) {
+        }
+
+        @Override
+        public void setLoopPoints(int start, int end) {
+        }
+
+        @Override
+        public void loop(int count) {
+        }
+
+        @Override
+        public void drain() {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void start() {
+            this.starts++;
+        }
+
+        @Override
+        public void stop() {
+        }
+
+        @Override
+        public boolean isRunning() {
+            return false;
+        }
+
+        @Override
+        public boolean isActive() {
+            return false;
+        }
+
+        @Override
+        public AudioFormat getFormat() {
+            return this.format;
+        }
+
+        @Override
+        public int getBufferSize() {
+            return this.dataLength;
+        }
+
+        @Override
+        public int available() {
+            return 0;
+        }
+
+        @Override
+        public int getFramePosition() {
+            return this.framePosition;
+        }
+
+        @Override
+        public long getLongFramePosition() {
+            return this.framePosition;
+        }
+
+        @Override
+        public long getMicrosecondPosition() {
+            return 0;
+        }
+
+        @Override
+        public float getLevel() {
+            return AudioSystem.NOT_SPECIFIED;
+        }
+
+        @Override
+        public Line.Info getLineInfo() {
+            return new Line.Info(Clip.class);
+        }
+
+        @Override
+        public void open() {
+            this.open = true;
+        }
+
+        @Override
+        public void close() {
+            this.open = false;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return this.open;
+        }
+
+        @Override
+        public Control[] getControls() {
+            return new Control[]{this.gain};
+        }
+
+        @Override
+        public boolean isControlSupported(Control.Type control) {
+            return control == FloatControl.Type.MASTER_GAIN;
+        }
+
+        @Override
+        public Control getControl(Control.Type control) {
+            if (control != FloatControl.Type.MASTER_GAIN) {
+                throw new IllegalArgumentException("Unsupported control type: " + control);
+            }
+            return this.gain;
+        }
+
+        @Override
+        public void addLineListener(LineListener listener) {
+        }
+
+        @Override
+        public void removeLineListener(LineListener listener) {
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package xyz.duncanruns.julti.util;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SubmissionUtilTest {
+    @TempDir
+    Path tempDir;
+
+    private static byte[] bytes(int size, int seed) {
+        byte[] bytes = new byte[size];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static void write(Path path, byte[] bytes, long modified) throws IOException {
+        Files.createDirectories(path.getParent());
+        Files.write(path, bytes);
+        Files.setLastModifiedTime(path, FileTime.fromMillis(modified));
+    }
+
+    private static Map<String, byte[]> readZip(Path zipFile, Map<String, Integer> methods) throws IOException {
+        Map<String, byte[]> contents = new LinkedHashMap<>();
+        try (ZipFile zip = new ZipFile(zipFile.toFile())) {
+            for (ZipEntry entry : Collections.list(zip.entries())) {
+                try (InputStream in = zip.getInputStream(entry)) {
+                    contents.put(entry.getName(), IOUtils.toByteArray(in));
+                }
+                methods.put(entry.getName(), entry.getMethod());
+            }
+        }
+        return contents;
+    }
+
+    @Test
+    public void testPackageRoundTrip() throws IOException {
+        Path savesPath = this.tempDir.resolve("saves");
+        Path logsPath = this.tempDir.resolve("logs");
+        // 7 worlds, only the 6 most recent are packaged
+        for (int i = 0; i < 7; i++) {
+            Path world = savesPath.resolve("World " + i);
+            write(world.resolve("level.dat"), bytes(100, i), 1000);
+            write(world.resolve("region").resolve("r.0.0.mca"), bytes(5000, i), 1000);
+            write(world.resolve("stats").resolve("stats.json"), ("{\"world\":" + i + "}").getBytes(), 1000);
+            Files.setLastModifiedTime(world, FileTime.fromMillis(10_000 + i * 1000));
+        }
+        // Larger than what is read ahead, streamed into the zip
+        write(savesPath.resolve("World 6").resolve("region").resolve("r.1.0.mca"), bytes(5 * 1024 * 1024, 6), 1000);
+        for (int i = 0; i < 4; i++) {
+            write(logsPath.resolve("log" + i + ".log.gz"), bytes(200, 100 + i), 10_000 + i * 1000);
+        }
+        Path submissionPath = this.tempDir.resolve("submission");
+        Files.createDirectories(submissionPath);
+        List<int[]> progress = Collections.synchronizedList(new ArrayList<>());
+
+        SubmissionUtil.packageSubmission(savesPath, logsPath, submissionPath, (done, total) -> progress.add(new int[]{done, total}));
+
+        // Only the zips are made
+        try (Stream<Path> list = Files.list(submissionPath)) {
+            assertEquals(new HashSet<>(Arrays.asList("Worlds.zip", "Logs.zip")), list.map(path -> path.getFileName().toString()).collect(Collectors.toSet()));
+        }
+
+        Map<String, Integer> methods = new HashMap<>();
+        Map<String, byte[]> worlds = readZip(submissionPath.resolve("Worlds.zip"), methods);
+        assertEquals(6 * 3 + 1, worlds.size());
+        assertFalse(worlds.containsKey("World 0/level.dat"));
+        for (int i = 1; i < 7; i++) {
+            assertArrayEquals(bytes(100, i), worlds.get("World " + i + "/level.dat"));
+            assertArrayEquals(bytes(5000, i), worlds.get("World " + i + "/region/r.0.0.mca"));
+            assertArrayEquals(("{\"world\":" + i + "}").getBytes(), worlds.get("World " + i + "/stats/stats.json"));
+            // Already compressed files are stored, the rest is deflated
+            assertEquals((Integer) ZipEntry.STORED, methods.get("World " + i + "/level.dat"));
+            assertEquals((Integer) ZipEntry.STORED, methods.get("World " + i + "/region/r.0.0.mca"));
+            assertEquals((Integer) ZipEntry.DEFLATED, methods.get("World " + i + "/stats/stats.json"));
+        }
+        assertArrayEquals(bytes(5 * 1024 * 1024, 6), worlds.get("World 6/region/r.1.0.mca"));
+
+        Map<String, byte[]> logs = readZip(submissionPath.resolve("Logs.zip"), methods);
+        assertEquals(new HashSet<>(Arrays.asList("log1.log.gz", "log2.log.gz", "log3.log.gz")), logs.keySet());
+        assertArrayEquals(bytes(200, 103), logs.get("log3.log.gz"));
+
+        // Every file is counted once, ending at the total
+        int total = worlds.size() + logs.size();
+        assertEquals(total, progress.size());
+        for (int i = 0; i < total; i++) {
+            assertArrayEquals(new int[]{i + 1, total}, progress.get(i));
+        }
+    }
+
+    @Test
+    public void testUnreadableFilesSkipped() throws IOException {
+        Path folder = this.tempDir.resolve("files");
+        write(folder.resolve("a.txt"), "a".getBytes(), 1000);
+        write(folder.resolve("b.txt"), "b".getBytes(), 1000);
+        List<Pair<Path, String>> entries = Arrays.asList(
+                Pair.of(folder.resolve("a.txt"), "a.txt"),
+                // Gone since being listed, like the session.lock of a world being closed
+                Pair.of(folder.resolve("session.lock"), "session.lock"),
+                Pair.of(folder.resolve("b.txt"), "b.txt")
+        );
+        Path zipFile = this.tempDir.resolve("files.zip");
+        List<Integer> progress = new ArrayList<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            SubmissionUtil.writeZip(zipFile, entries, executor, 2, progress::add);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Map<String, byte[]> contents = readZip(zipFile, new HashMap<>());
+        // Order is kept
+        assertEquals(Arrays.asList("a.txt", "b.txt"), new ArrayList<>(contents.keySet()));
+        assertArrayEquals("b".getBytes(), contents.get("b.txt"));
+        // Skipped files still count as done
+        assertEquals(Arrays.asList(1, 2, 3), progress);
+    }
+}
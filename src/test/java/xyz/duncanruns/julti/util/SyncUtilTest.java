@@ -0,0 +1,185 @@
+package xyz.duncanruns.julti.util;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import xyz.duncanruns.julti.instance.MinecraftInstance;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SyncUtilTest {
+    private static final FileTime OLD_TIME = FileTime.fromMillis(1_000_000_000_000L);
+
+    @TempDir
+    Path tempDir;
+
+    private MinecraftInstance source;
+    private List<MinecraftInstance> instances;
+
+    private static void write(Path path, String contents) throws IOException {
+        Files.createDirectories(path.getParent());
+        FileUtil.writeString(path, contents);
+    }
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Path sourcePath = this.tempDir.resolve("source");
+        write(sourcePath.resolve("mods").resolve("a.jar"), "mod a");
+        write(sourcePath.resolve("mods").resolve("b.jar"), "mod b");
+        write(sourcePath.resolve("options.txt"), "fov:0.5");
+        write(sourcePath.resolve("config").resolve("x.json"), "{\"x\":1}");
+        write(sourcePath.resolve("config").resolve("sub").resolve("y.json"), "{\"y\":2}");
+        write(sourcePath.resolve("speedrunigt").resolve("s.json"), "{}");
+        write(sourcePath.resolve("resourcepacks").resolve("p.zip"), "pack");
+
+        this.source = new MinecraftInstance(sourcePath);
+        this.instances = new ArrayList<>(Arrays.asList(this.source, new MinecraftInstance(this.tempDir.resolve("dest1")), new MinecraftInstance(this.tempDir.resolve("dest2"))));
+    }
+
+    private SyncUtil.SyncStats sync(SyncUtil.Linker linker) throws IOException {
+        return SyncUtil.sync(this.instances, this.source, true, true, true, ProgressListener.NONE, linker);
+    }
+
+    private SyncUtil.SyncStats sync() throws IOException {
+        return this.sync(Files::createLink);
+    }
+
+    private Path dest(int number, String file) {
+        return this.tempDir.resolve("dest" + number).resolve(file);
+    }
+
+    @Test
+    public void testFirstSyncLinksModsAndCopiesConfigs() throws IOException {
+        SyncUtil.SyncStats stats = this.sync();
+
+        // Mods and resource packs are linked, the rest is copied
+        assertEquals(6, stats.filesLinked.get());
+        assertEquals(8, stats.filesCopied.get());
+        assertEquals(0, stats.filesSkipped.get());
+        for (int number = 1; number <= 2; number++) {
+            assertTrue(Files.isSameFile(this.source.getPath().resolve("mods/a.jar"), this.dest(number, "mods/a.jar")));
+            assertTrue(Files.isSameFile(this.source.getPath().resolve("resourcepacks/p.zip"), this.dest(number, "resourcepacks/p.zip")));
+            assertFalse(Files.isSameFile(this.source.getPath().resolve("config/x.json"), this.dest(number, "config/x.json")));
+            assertEquals("{\"y\":2}", FileUtil.readString(this.dest(number, "config/sub/y.json")));
+            assertEquals("fov:0.5", FileUtil.readString(this.dest(number, "options.txt")));
+            assertEquals("{}", FileUtil.readString(this.dest(number, "speedrunigt/s.json")));
+            // Copies keep the modified time (to the precision the copy supports) so the next sync can skip them
+            assertEquals(Files.getLastModifiedTime(this.source.getPath().resolve("options.txt")).toMillis(), Files.getLastModifiedTime(this.dest(number, "options.txt")).toMillis());
+        }
+    }
+
+    @Test
+    public void testUnchangedFilesSkipped() throws IOException {
+        this.sync();
+        SyncUtil.SyncStats stats = this.sync();
+
+        assertEquals(14, stats.filesSkipped.get());
+        assertEquals(0, stats.filesCopied.get());
+        assertEquals(0, stats.filesLinked.get());
+        assertEquals(0, stats.filesRemoved.get());
+    }
+
+    @Test
+    public void testChangedFilesCopied() throws IOException {
+        this.sync();
+        Path sourceX = this.source.getPath().resolve("config/x.json");
+        Path sourceY = this.source.getPath().resolve("config/sub/y.json");
+        Path sourceOptions = this.source.getPath().resolve("options.txt");
+        // Different size
+        FileUtil.writeString(sourceX, "{\"x\":100}");
+        // Same size, different contents and time
+        FileUtil.writeString(sourceY, "{\"y\":3}");
+        Files.setLastModifiedTime(sourceY, OLD_TIME);
+        // Same contents, different time
+        Files.setLastModifiedTime(sourceOptions, OLD_TIME);
+
+        SyncUtil.SyncStats stats = this.sync();
+        assertEquals(4, stats.filesCopied.get());
+        assertEquals(10, stats.filesSkipped.get());
+        for (int number = 1; number <= 2; number++) {
+            assertEquals("{\"x\":100}", FileUtil.readString(this.dest(number, "config/x.json")));
+            assertEquals("{\"y\":3}", FileUtil.readString(this.dest(number, "config/sub/y.json")));
+            // Equal contents only have their time updated
+            assertEquals(OLD_TIME, Files.getLastModifiedTime(this.dest(number, "options.txt")));
+        }
+    }
+
+    @Test
+    public void testStaleFilesRemoved() throws IOException {
+        this.sync();
+        for (int number = 1; number <= 2; number++) {
+            write(this.dest(number, "mods/old.jar"), "old mod");
+            write(this.dest(number, "config/old.json"), "{}");
+            write(this.dest(number, "config/oldfolder/z.json"), "{}");
+            write(this.dest(number, "resourcepacks/old.zip"), "old pack");
+        }
+        Files.delete(this.source.getPath().resolve("config/sub/y.json"));
+
+        SyncUtil.SyncStats stats = this.sync();
+        // Files in removed folders are not counted
+        assertEquals(4, stats.filesRemoved.get());
+        for (int number = 1; number <= 2; number++) {
+            assertFalse(Files.exists(this.dest(number, "mods/old.jar")));
+            assertFalse(Files.exists(this.dest(number, "config/old.json")));
+            assertFalse(Files.exists(this.dest(number, "config/oldfolder")));
+            assertFalse(Files.exists(this.dest(number, "config/sub")));
+            assertTrue(Files.exists(this.dest(number, "config/x.json")));
+            // Resource packs are never removed
+            assertTrue(Files.exists(this.dest(number, "resourcepacks/old.zip")));
+        }
+    }
+
+    @Test
+    public void testFailedLinksFallBackToCopies() throws IOException {
+        SyncUtil.SyncStats stats = this.sync((link, existing) -> {
+            throw new IOException("Links not supported");
+        });
+
+        assertEquals(0, stats.filesLinked.get());
+        assertEquals(14, stats.filesCopied.get());
+        for (int number = 1; number <= 2; number++) {
+            assertFalse(Files.isSameFile(this.source.getPath().resolve("mods/a.jar"), this.dest(number, "mods/a.jar")));
+            assertEquals("mod a", FileUtil.readString(this.dest(number, "mods/a.jar")));
+            assertEquals("pack", FileUtil.readString(this.dest(number, "resourcepacks/p.zip")));
+        }
+    }
+
+    @Test
+    public void testProgressCounted() throws IOException {
+        // A missing folder is counted as done
+        FileUtils.deleteDirectory(this.source.getPath().resolve("speedrunigt").toFile());
+        List<int[]> calls = Collections.synchronizedList(new ArrayList<>());
+        SyncUtil.sync(this.instances, this.source, true, true, true, (done, total) -> calls.add(new int[]{done, total}), Files::createLink);
+
+        // 5 folders for 2 instances
+        int max = 0;
+        for (int[] call : calls) {
+            assertEquals(10, call[1]);
+            max = Math.max(max, call[0]);
+        }
+        assertEquals(10, max);
+        assertFalse(Files.exists(this.dest(1, "speedrunigt")));
+
+        // Without resource packs there are only 4 folders
+        calls.clear();
+        SyncUtil.sync(this.instances, this.source, true, true, false, (done, total) -> calls.add(new int[]{done, total}), Files::createLink);
+        assertEquals(8, calls.get(0)[1]);
+    }
+
+    @Test
+    public void testNothingToSync() throws IOException {
+        assertNull(SyncUtil.sync(Collections.singletonList(this.source), this.source, true, true, true, ProgressListener.NONE, Files::createLink));
+        assertNull(SyncUtil.sync(this.instances, this.source, false, false, true, ProgressListener.NONE, Files::createLink));
+        assertFalse(Files.exists(this.tempDir.resolve("dest1")));
+    }
+}
@@ -0,0 +1,68 @@
+package xyz.duncanruns.julti.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WindowTitleUtilTest {
+    private static final String ALPHABET = "aAbB *.()[]{}\\$^+?|-_#";
+
+    /**
+     * The wall title check from before formats were compiled into a {@link WindowTitleUtil.GlobMatcher}.
+     */
+    private static boolean matchesOldRegex(String format, String title) {
+        String regex = '^' + format.trim().toLowerCase().replaceAll("([^a-zA-Z0-9 ])", "\\\\$1").replace("\\*", ".*") + '$';
+        return Pattern.compile(regex).matcher(title.toLowerCase()).matches();
+    }
+
+    private static String randomString(Random random, int maxLength) {
+        int length = random.nextInt(maxLength + 1);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            builder.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return builder.toString();
+    }
+
+    private static void assertSameAsRegex(String format, String title) {
+        assertEquals(matchesOldRegex(format, title), new WindowTitleUtil.GlobMatcher(format).matches(title), "Format '" + format + "' with title '" + title + "'");
+    }
+
+    @Test
+    public void testMatchesLikeRegex() {
+        String[] formats = {"", "*", "**", " * ", "Wall*", "*Wall", "*Wall*", "Fullscreen Projector*", "a*b*a", "$^.*[+]", "\\*", "(*)"};
+        String[] titles = {"", " ", "*", "wall", "WALL Projector", "My Wall", "Fullscreen Projector (Scene) - Wall", "aba", "ab", "a", "$^.x[+]", "\\", "\\x", "()"};
+        for (String format : formats) {
+            for (String title : titles) {
+                assertSameAsRegex(format, title);
+            }
+        }
+    }
+
+    @Test
+    public void testRandomMatchesLikeRegex() {
+        Random random = new Random(32);
+        for (int i = 0; i < 20000; i++) {
+            String format = randomString(random, 8);
+            // Titles made from the format's characters are far more likely to match
+            String title = random.nextBoolean() ? randomString(random, 10) : format.replace("*", randomString(random, 3));
+            assertSameAsRegex(format, title);
+        }
+    }
+
+    @Test
+    public void testGlobMatcher() {
+        WindowTitleUtil.GlobMatcher matcher = new WindowTitleUtil.GlobMatcher(" Wall*Projector ");
+        assertTrue(matcher.matches("wall projector"));
+        assertTrue(matcher.matches("WallProjector"));
+        assertFalse(matcher.matches("Wall Projector 2"));
+        // Parts can not overlap
+        assertFalse(new WindowTitleUtil.GlobMatcher("ab*ba").matches("aba"));
+        assertTrue(new WindowTitleUtil.GlobMatcher("ab*ba").matches("abba"));
+        assertTrue(new WindowTitleUtil.GlobMatcher("*").matches(""));
+        assertFalse(new WindowTitleUtil.GlobMatcher("").matches(" "));
+    }
+}